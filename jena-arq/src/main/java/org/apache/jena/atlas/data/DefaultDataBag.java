@@ -159,7 +159,9 @@ public class DefaultDataBag<E> extends AbstractDataBag<E>
         closeWriter();
         
         // Create a new reader
-        if (policy.isThresholdExceeded())
+        // The policy may be exceeded without anything having been spilled
+        // (the item that reached the threshold is held in memory).
+        if (spilled)
         {
             File spillFile = getSpillFiles().get(0);
             
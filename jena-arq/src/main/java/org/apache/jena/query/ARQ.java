@@ -275,7 +275,7 @@ public class ARQ
      * choosing the value.
      * <p/>
      * Operations currently affected by this symbol: <br>
-     * ORDER BY, SPARQL Update, CONSTRUCT (optionally)
+     * ORDER BY, SPARQL Update, CONSTRUCT (optionally), hash joins
      * <p/>
      * TODO: Give a reasonable suggested value here.  10,000?
      * <p/>
@@ -283,9 +283,70 @@ public class ARQ
      */
     // Some possible additions to the list:
     // Sort: DISTINCT, merge joins<br>
-    // Hash table: GROUP BY, MINUS, SERVICE, VALUES, and hash joins <br>
+    // Hash table: GROUP BY, MINUS, SERVICE, VALUES <br>
     public static final Symbol spillToDiskThreshold = SystemARQ.allocSymbol("spillToDiskThreshold") ;
 
+    /**
+     * Context key controlling batch-at-a-time execution.
+     * When "true", filter, extend, project and the hash join of the main query engine
+     * pass blocks of bindings between themselves, held by column, and only turn them back
+     * into a stream of bindings where another operator needs that.
+     * Default is "false".
+     * @see #batchSize
+     */
+    public static final Symbol batchExecution = SystemARQ.allocSymbol("batchExecution") ;
+
+    /**
+     * Context key for the number of rows in a block when {@link #batchExecution} is enabled.
+     * Default is 1024.
+     */
+    public static final Symbol batchSize = SystemARQ.allocSymbol("batchSize") ;
+
+    /**
+     * Context key controlling the cache of parsed queries and optimized algebra.
+     * When "true" in the global context, {@link QueryFactory} reuses the results of
+     * parsing the same query string. When "true" in the context of a query execution,
+     * the compiled and optimized algebra for the same query on the same dataset is reused.
+     * Default is "false".
+     * @see org.apache.jena.sparql.engine.QueryPlanCache
+     */
+    public static final Symbol queryPlanCache = SystemARQ.allocSymbol("queryPlanCache") ;
+
+    /**
+     * Context key controlling evaluation of parts of a query on other threads.
+     * When "true", the branches of a UNION after the first, and the right hand side
+     * of a join, are evaluated on worker threads while the query continues.
+     * Transactions are per-thread, so this is only done for datasets without
+     * transactions, or when the query is not running in a transaction.
+     * Default is "false".
+     * @see #parallelism
+     */
+    public static final Symbol parallelExecution = SystemARQ.allocSymbol("parallelExecution") ;
+
+    /**
+     * Context key for the maximum number of worker threads in use at any one time
+     * by one query execution when {@link #parallelExecution} is enabled.
+     * Default is the number of processors.
+     */
+    public static final Symbol parallelism = SystemARQ.allocSymbol("parallelism") ;
+
+    /**
+     * Context key controlling semi-join reduction for hash joins.
+     * When "true", the values of the join variables on the left hand side of a join
+     * are passed to the evaluation of the right hand side, which then drops rows
+     * with other values as its patterns find them.
+     * Default is "false".
+     */
+    public static final Symbol semiJoinReduction = SystemARQ.allocSymbol("semiJoinReduction") ;
+
+    /**
+     * Context key controlling whether FILTER expressions are compiled
+     * (see {@link org.apache.jena.sparql.expr.compile.ExprCompiler}) when the query plan is built,
+     * rather than evaluated by walking the expression tree for each row.
+     * Default is "false".
+     */
+    public static final Symbol compiledFilters = SystemARQ.allocSymbol("compiledFilters") ;
+
     // Optimizer controls.
 
     /**
@@ -353,6 +414,8 @@ public class ARQ
     /** Threshold for doing a top N sort for ORDER-LIMIT.
      * The default is a limit of 1000.
      * The context value should be a {@link java.lang.Number}.
+     * Larger limits also use top N sorting if {@link #spillToDiskThreshold} is set and is
+     * less than the limit, in which case the top N sort spills to disk.
      */
     public static final Symbol topNSortingThreshold = SystemARQ.allocSymbol("topNSortingThreshold") ;
 
@@ -438,6 +501,13 @@ public class ARQ
      */
     public static final Symbol optIndexJoinStrategy = SystemARQ.allocSymbol("optIndexJoinStrategy");
 
+    /**
+     * Context key for statistics ({@link org.apache.jena.sparql.engine.optimizer.JoinStats})
+     * used by the standard optimizer to order joins and choose between hash joins and
+     * index joins by estimated cost. If not set, the join strategy is chosen without statistics.
+     */
+    public static final Symbol optJoinStats = SystemARQ.allocSymbol("optJoinStats");
+
     /**
      * Context key controlling whether the standard optimizer applies optimizations where by some
      * assignments may be eliminated/inlined into the operators where their values are used only once
@@ -19,6 +19,7 @@
 package org.apache.jena.query;
 
 import org.apache.jena.riot.system.IRIResolver ;
+import org.apache.jena.sparql.engine.QueryPlanCache ;
 import org.apache.jena.sparql.lang.ParserARQ ;
 import org.apache.jena.sparql.lang.SPARQLParser ;
 import org.apache.jena.sparql.lang.SPARQLParserRegistry ;
@@ -61,8 +62,7 @@ public class QueryFactory
     
     static public Query create(String queryString, String baseURI)
     {
-        Query query = new Query() ;
-        return parse(query, queryString, baseURI, Syntax.defaultQuerySyntax) ;
+        return create(queryString, baseURI, Syntax.defaultQuerySyntax) ;
     }
     
     /** Create a query from the given string by calling the parser.
@@ -75,6 +75,9 @@ public class QueryFactory
    
    static public Query create(String queryString, String baseURI, Syntax syntax)
    {
+       if ( QueryPlanCache.isEnabled(ARQ.getContext()) )
+           return QueryPlanCache.get().getQuery(queryString, baseURI, syntax,
+                                                ()->parse(new Query(), queryString, baseURI, syntax)) ;
        Query query = new Query() ;
        return parse(query, queryString, baseURI, syntax) ;
    }
@@ -18,6 +18,7 @@
 
 package org.apache.jena.riot ;
 
+import static org.apache.jena.riot.RDFLanguages.COMPACT ;
 import static org.apache.jena.riot.RDFLanguages.THRIFT ;
 
 import java.util.Objects;
@@ -31,6 +32,8 @@ public class RDFFormat {
      * incoming triple/quad stream
      */
     public static final RDFFormatVariant BLOCKS         = new RDFFormatVariant("blocks") ;
+    /** Print in blocks of triples with the same subject, formatted on several threads */
+    public static final RDFFormatVariant PARALLEL       = new RDFFormatVariant("parallel") ;
     /** Print out one per line */
     public static final RDFFormatVariant FLAT           = new RDFFormatVariant("flat") ;
 
@@ -49,6 +52,8 @@ public class RDFFormat {
     public static final RDFFormat        TTL            = TURTLE_PRETTY ;
     /** Turtle - write in blocks of triples, with same subject, no nested object or RDF lists */ 
     public static final RDFFormat        TURTLE_BLOCKS  = new RDFFormat(Lang.TURTLE, BLOCKS) ;
+    /** Turtle - as {@link #TURTLE_BLOCKS}, with blocks formatted in parallel */
+    public static final RDFFormat        TURTLE_PARALLEL = new RDFFormat(Lang.TURTLE, PARALLEL) ;
     /** Turtle - one line per triple  */ 
     public static final RDFFormat        TURTLE_FLAT    = new RDFFormat(Lang.TURTLE, FLAT) ;
 
@@ -76,6 +81,8 @@ public class RDFFormat {
     public static final RDFFormat        TRIG           = TRIG_PRETTY ;
     /** TriG - write in blocks of triples, with same subject, no nested object or RDF lists */ 
     public static final RDFFormat        TRIG_BLOCKS    = new RDFFormat(Lang.TRIG, BLOCKS) ;
+    /** TriG - as {@link #TRIG_BLOCKS}, with blocks formatted in parallel */
+    public static final RDFFormat        TRIG_PARALLEL  = new RDFFormat(Lang.TRIG, PARALLEL) ;
     /** TriG - one line per triple  */ 
     public static final RDFFormat        TRIG_FLAT      = new RDFFormat(Lang.TRIG, FLAT) ;
 
@@ -175,6 +182,16 @@ public class RDFFormat {
      */
     public static final RDFFormat RDF_THRIFT_VALUES     = new RDFFormat(THRIFT, ValueEncoding) ;
 
+    /**
+     * RDF Compact output. Blocks of rows with per-block term dictionaries,
+     * compressed with Deflate. The lexical forms of literals are preserved.
+     *
+     * @see #RDF_COMPACT_PLAIN
+     */
+    public static final RDFFormat RDF_COMPACT           = new RDFFormat(COMPACT) ;
+    /** RDF Compact output without block compression (faster to write, larger). */
+    public static final RDFFormat RDF_COMPACT_PLAIN     = new RDFFormat(COMPACT, PLAIN) ;
+
     /**
      * The "null" output format (a sink that prints nothing, usually quite
      * efficiently)
@@ -98,6 +98,7 @@ public class RDFParserBuilder {
     
     // Construction for the StreamRDF 
     private FactoryRDF factory = null;
+    private TermDictionary<?> termDictionary = null;
     private LabelToNode labelToNode = null;
     
     // Bad news.
@@ -455,6 +456,22 @@ public class RDFParserBuilder {
         return this;
     }
     
+    /**
+     * Use a {@link TermDictionary} to create IRIs and literals so repeated terms are the
+     * same {@code Node} object. The dictionary can be shared between parsers and with the
+     * receiver of the parser output.
+     * <br/>
+     * Only applies when the {@link FactoryRDF} is not set in the
+     * {@code RDFParserBuilder}.
+     * @see FactoryRDFDictionary
+     * @param termDictionary
+     * @return this
+     */
+    public RDFParserBuilder termDictionary(TermDictionary<?> termDictionary) {
+        this.termDictionary = termDictionary;
+        return this;
+    }
+
     /**
      * Use the given {@link LabelToNode}, the policy for converting blank node labels in
      * RDF syntax to Jena's {@code Node} objects (usually a blank node).
@@ -622,15 +639,29 @@ public class RDFParserBuilder {
             sMgr = StreamManager.get(context);
         
         // Can't build the profile here as it is Lang/conneg dependent.
+        Context context$ = context;
+        if ( ( factory != null || labelToNode != null ) && context$.getInt(RIOT.symNTuplesParserThreads, 1) > 1 ) {
+            // The application's FactoryRDF or LabelToNode can not be shared
+            // by parser threads: parse N-Triples and N-Quads on this thread.
+            // The parser profile is always a plain ParserProfileStd (RDFParser.makeParserProfile);
+            // ReaderNTuplesParallel checks the exact class for profiles from elsewhere.
+            context$ = context$.copy();
+            context$.set(RIOT.symNTuplesParserThreads, 1);
+        }
+
         return new RDFParser(uri, path, content, inputStream, javaReader, sMgr, 
                              client, hintLang, forceLang,
                              baseUri, strict, checking, 
                              canonicalValues, langTagForm,
-                             resolveURIs, resolver, factory$, errorHandler$, context);
+                             resolveURIs, resolver, factory$, errorHandler$, context$);
     }
 
     private FactoryRDF buildFactoryRDF() {
         FactoryRDF factory$ = factory;
+        if ( factory$ == null && termDictionary != null ) {
+            LabelToNode labelToNode$ = ( labelToNode != null ) ? labelToNode : SyntaxLabels.createLabelToNode();
+            factory$ = new FactoryRDFDictionary(termDictionary, labelToNode$);
+        }
         if ( factory$ == null ) { 
             if ( labelToNode != null )
                 factory$ = RiotLib.factoryRDF(labelToNode);
@@ -686,6 +717,7 @@ public class RDFParserBuilder {
         builder.resolveURIs =       this.resolveURIs;
         builder.resolver =          this.resolver;
         builder.factory =           this.factory;
+        builder.termDictionary =    this.termDictionary;
         builder.labelToNode =       this.labelToNode;
         builder.errorHandler =      this.errorHandler;
         builder.context =           this.context;
@@ -18,6 +18,7 @@
 
 package org.apache.jena.riot;
 
+import static org.apache.jena.riot.RDFLanguages.COMPACT;
 import static org.apache.jena.riot.RDFLanguages.JSONLD;
 import static org.apache.jena.riot.RDFLanguages.N3;
 import static org.apache.jena.riot.RDFLanguages.NQUADS;
@@ -39,6 +40,7 @@ import java.util.Set ;
 
 import org.apache.jena.atlas.lib.InternalErrorException ;
 import org.apache.jena.atlas.web.ContentType ;
+import org.apache.jena.riot.compact.CompactRDF ;
 import org.apache.jena.riot.lang.* ;
 import org.apache.jena.riot.system.ParserProfile;
 import org.apache.jena.riot.system.StreamRDF;
@@ -73,8 +75,10 @@ public class RDFParserRegistry
     private static ReaderRIOTFactory parserFactoryRDFXML    = new ReaderRIOTRDFXML.Factory(); 
     private static ReaderRIOTFactory parserFactoryJsonLD    = new ReaderRIOTFactoryJSONLD() ;
     private static ReaderRIOTFactory parserFactoryThrift    = new ReaderRIOTFactoryThrift() ;
+    private static ReaderRIOTFactory parserFactoryCompact   = new ReaderRIOTFactoryCompact() ;
     private static ReaderRIOTFactory parserFactoryTriX      = new ReaderTriX.ReaderRIOTFactoryTriX() ;
     private static ReaderRIOTFactory parserFactoryRDFNULL   = new ReaderRDFNULL.Factory() ;
+    private static ReaderRIOTFactory parserFactoryNTuples   = new ReaderNTuplesParallel.Factory() ;
         
     private static boolean initialized = false ;
     static { init() ; }
@@ -90,20 +94,22 @@ public class RDFParserRegistry
         // Make sure the constants are initialized.
         RDFLanguages.init() ;
         
-        registerLangTriples(NTRIPLES,   parserFactory) ;
+        registerLangTriples(NTRIPLES,   parserFactoryNTuples) ;
         registerLangTriples(N3,         parserFactory) ;
         registerLangTriples(TURTLE,     parserFactory) ;
         registerLangTriples(RDFJSON,    parserFactory) ;
         registerLangTriples(RDFXML,     parserFactoryRDFXML) ;
         registerLangTriples(JSONLD,     parserFactoryJsonLD) ;
         registerLangTriples(THRIFT,     parserFactoryThrift) ;
+        registerLangTriples(COMPACT,    parserFactoryCompact) ;
         registerLangTriples(TRIX,       parserFactoryTriX) ;
         registerLangTriples(RDFNULL,    parserFactoryRDFNULL) ;
         
         registerLangQuads(JSONLD,       parserFactoryJsonLD) ;
-        registerLangQuads(NQUADS,       parserFactory) ;
+        registerLangQuads(NQUADS,       parserFactoryNTuples) ;
         registerLangQuads(TRIG,         parserFactory) ;
         registerLangQuads(THRIFT,       parserFactoryThrift) ;
+        registerLangQuads(COMPACT,      parserFactoryCompact) ;
         registerLangQuads(TRIX,         parserFactoryTriX) ;
         registerLangQuads(RDFNULL,      parserFactoryRDFNULL) ;
     }
@@ -230,5 +236,23 @@ public class RDFParserRegistry
             throw new RiotException("RDF Thrift : Reading binary data from a java.io.reader is not supported. Please use an InputStream") ;
         }
     }
-}
 
+    private static class ReaderRIOTFactoryCompact implements ReaderRIOTFactory {
+        @Override
+        public ReaderRIOT create(Lang language, ParserProfile profile) {
+            return new ReaderRDFCompact() ;
+        }
+    }
+
+    private static class ReaderRDFCompact implements ReaderRIOT {
+        @Override
+        public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+            CompactRDF.inputStreamToStream(in, output) ;
+        }
+
+        @Override
+        public void read(Reader reader, String baseURI, ContentType ct, StreamRDF output, Context context) {
+            throw new RiotException("RDF Compact : Reading binary data from a java.io.reader is not supported. Please use an InputStream") ;
+        }
+    }
+}
@@ -21,6 +21,8 @@ package org.apache.jena.riot;
 import java.util.* ;
 
 import org.apache.jena.atlas.lib.CharSpace ;
+import org.apache.jena.riot.compact.WriterDatasetCompact ;
+import org.apache.jena.riot.compact.WriterGraphCompact ;
 import org.apache.jena.riot.system.RiotLib ;
 import org.apache.jena.riot.thrift.WriterDatasetThrift ;
 import org.apache.jena.riot.thrift.WriterGraphThrift ;
@@ -52,6 +54,8 @@ public class RDFWriterRegistry
                 return new TurtleWriter() ;
             if ( Objects.equals(RDFFormat.TURTLE_BLOCKS, serialization) )
                 return new TurtleWriterBlocks() ;
+            if ( Objects.equals(RDFFormat.TURTLE_PARALLEL, serialization) )
+                return new TurtleWriterParallel() ;
             if ( Objects.equals(RDFFormat.TURTLE_FLAT, serialization) )
                 return new TurtleWriterFlat() ;
             
@@ -82,6 +86,8 @@ public class RDFWriterRegistry
                 return new TriGWriter() ;
             if ( Objects.equals(RDFFormat.TRIG_BLOCKS, serialization) )
                 return new TriGWriterBlocks() ;
+            if ( Objects.equals(RDFFormat.TRIG_PARALLEL, serialization) )
+                return new TriGWriterParallel() ;
             if ( Objects.equals(RDFFormat.TRIG_FLAT, serialization) )
                 return new TriGWriterFlat() ;
             if ( Objects.equals(RDFFormat.NQUADS_UTF8, serialization) )
@@ -122,6 +128,20 @@ public class RDFWriterRegistry
             return new WriterDatasetThrift(syntaxForm) ;
         }
     } ;
+
+    static WriterGraphRIOTFactory wgCompactFactory = new WriterGraphRIOTFactory(){
+        @Override
+        public WriterGraphRIOT create(RDFFormat syntaxForm) {
+            return new WriterGraphCompact(syntaxForm) ;
+        }
+    } ;
+
+    static WriterDatasetRIOTFactory wdsCompactFactory = new WriterDatasetRIOTFactory(){
+        @Override
+        public WriterDatasetRIOT create(RDFFormat syntaxForm) {
+            return new WriterDatasetCompact(syntaxForm) ;
+        }
+    } ;
     
     static WriterGraphRIOTFactory wgTriXFactory = new WriterGraphRIOTFactory() {
 
@@ -156,11 +176,13 @@ public class RDFWriterRegistry
          register(Lang.NQUADS,      RDFFormat.NQUADS) ;
          register(Lang.RDFNULL,     RDFFormat.RDFNULL) ;
          register(Lang.RDFTHRIFT,   RDFFormat.RDF_THRIFT) ;
+         register(Lang.RDFCOMPACT,  RDFFormat.RDF_COMPACT) ;
          register(Lang.TRIX,        RDFFormat.TRIX) ;
 
          // Writer factories.
          register(RDFFormat.TURTLE_PRETTY,  wgfactory) ;
          register(RDFFormat.TURTLE_BLOCKS,  wgfactory) ;
+         register(RDFFormat.TURTLE_PARALLEL, wgfactory) ;
          register(RDFFormat.TURTLE_FLAT,    wgfactory) ;
 
          register(RDFFormat.NTRIPLES,       wgfactory) ;
@@ -186,6 +208,7 @@ public class RDFWriterRegistry
          // Graphs in a quad format.
          register(RDFFormat.TRIG_PRETTY,    wgfactory) ;
          register(RDFFormat.TRIG_BLOCKS,    wgfactory) ;
+         register(RDFFormat.TRIG_PARALLEL,  wgfactory) ;
          register(RDFFormat.TRIG_FLAT,      wgfactory) ;
 
          register(RDFFormat.NQUADS,         wgfactory) ;
@@ -195,11 +218,15 @@ public class RDFWriterRegistry
          register(RDFFormat.RDF_THRIFT,     wgThriftFactory) ;
          register(RDFFormat.RDF_THRIFT_VALUES, wgThriftFactory) ;
 
+         register(RDFFormat.RDF_COMPACT,       wgCompactFactory) ;
+         register(RDFFormat.RDF_COMPACT_PLAIN, wgCompactFactory) ;
+
          register(RDFFormat.TRIX, wgTriXFactory) ;
 
          // Datasets
          register(RDFFormat.TRIG_PRETTY,    wdsfactory) ;
          register(RDFFormat.TRIG_BLOCKS,    wdsfactory) ;
+         register(RDFFormat.TRIG_PARALLEL,  wdsfactory) ;
          register(RDFFormat.TRIG_FLAT,      wdsfactory) ;
 
          register(RDFFormat.NQUADS,         wdsfactory) ;
@@ -220,6 +247,9 @@ public class RDFWriterRegistry
 
          register(RDFFormat.RDF_THRIFT,     wdsThriftFactory) ;
          register(RDFFormat.RDF_THRIFT_VALUES, wdsThriftFactory) ;
+
+         register(RDFFormat.RDF_COMPACT,       wdsCompactFactory) ;
+         register(RDFFormat.RDF_COMPACT_PLAIN, wdsCompactFactory) ;
          
          register(RDFFormat.TRIX, wdsTriXFactory) ;
      }
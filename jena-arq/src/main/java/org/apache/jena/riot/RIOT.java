@@ -127,4 +127,28 @@ public class RIOT {
     /** @deprecated Use {@link #symTurtleDirectiveStyle}. */
     @Deprecated
     public static final Symbol symTurtlePrefixStyle = SystemARQ.allocSymbol(TURTLE_SYMBOL_BASE, "prefixStyle");
+
+    /**
+     * Number of threads used to format blocks by the parallel Turtle and TriG writers
+     * ({@link RDFFormat#TURTLE_PARALLEL}, {@link RDFFormat#TRIG_PARALLEL}).
+     * Default: the number of available processors.
+     */
+    public static final Symbol symTurtleWriterThreads = SystemARQ.allocSymbol(TURTLE_SYMBOL_BASE, "writerThreads");
+
+    private static String NTUPLES_SYMBOL_BASE = "http://jena.apache.org/riot/ntuples#";
+
+    /**
+     * Number of threads used to parse N-Triples and N-Quads from an {@code InputStream}.
+     * When greater than 1, the input is split into chunks at line ends and the chunks
+     * parsed concurrently. Default 1 (parse on the calling thread).
+     * Not used when the parser has an application {@code FactoryRDF} or {@code LabelToNode}.
+     */
+    public static final Symbol symNTuplesParserThreads = SystemARQ.allocSymbol(NTUPLES_SYMBOL_BASE, "parserThreads");
+
+    /**
+     * Whether parallel parsing of N-Triples and N-Quads delivers triples and quads
+     * in the order of the input. Default "true".
+     * @see #symNTuplesParserThreads
+     */
+    public static final Symbol symNTuplesParserOrdered = SystemARQ.allocSymbol(NTUPLES_SYMBOL_BASE, "parserOrdered");
 }
@@ -83,6 +83,9 @@ public class WebContent
     public static final String      contentTypeRDFThrift         = "application/rdf+thrift" ;
     public static final ContentType ctRDFTHRIFT                  = ContentType.create(contentTypeRDFThrift) ;
 
+    public static final String      contentTypeRDFCompact        = "application/rdf+compact" ;
+    public static final ContentType ctRDFCOMPACT                 = ContentType.create(contentTypeRDFCompact) ;
+
     public static final String      contentTypeNQuadsAlt1        = "text/n-quads" ;
     public static final ContentType ctNQuadsAlt1                 = ContentType.create(contentTypeNQuadsAlt1) ;
 
@@ -126,6 +129,9 @@ public class WebContent
     // Unofficial
     public static final String      contentTypeResultsThrift     = "application/sparql-results+thrift" ;
     public static final ContentType ctResultsThrift              = ContentType.create(contentTypeResultsThrift) ;
+
+    public static final String      contentTypeResultsCompact    = "application/sparql-results+compact" ;
+    public static final ContentType ctResultsCompact             = ContentType.create(contentTypeResultsCompact) ;
     
     public static final String      contentTypeSPARQLQuery       = "application/sparql-query" ;
     public static final ContentType ctSPARQLQuery                = ContentType.create(contentTypeSPARQLQuery) ;
@@ -0,0 +1,471 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import static org.apache.jena.riot.compact.CRDF.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+
+/**
+ * Decoder for RDF Compact. Blocks are read from the input stream one at a time;
+ * {@link #nextRow()} moves across block boundaries, {@link #nextRowInBlock()}
+ * does not.
+ *
+ * @see BlockOutput
+ */
+class BlockInput {
+    private static final Node nodeTrue  = NodeFactory.createLiteral("true", XSDDatatype.XSDboolean);
+    private static final Node nodeFalse = NodeFactory.createLiteral("false", XSDDatatype.XSDboolean);
+
+    private final InputStream in;
+    private final int kind;
+    private Inflater inflater = null;
+    private byte[] stored = new byte[0];
+    private byte[] data = new byte[0];
+    private int pos = 0;
+    private int limit = 0;
+    private boolean ended = false;
+    private byte[] index = null;
+    private int indexBlocks = 0;
+
+    // Current block.
+    private final List<Node> dictionary = new ArrayList<>();
+    private String lastIRI = "";
+    private final Node[] prevTriple = new Node[3];
+    private final Node[] prevQuad = new Node[4];
+    private Node[] prevBinding = new Node[0];
+    private List<Var> vars = null;
+    private char[] chars = new char[256];
+
+    /** Read the stream header, which must be of the given kind. */
+    static BlockInput create(InputStream in, int kind) {
+        BlockInput input = new BlockInput(in, true);
+        if ( input.kind != kind )
+            throw new RiotCompactException(String.format("Wrong kind of RDF Compact stream: expected '%c', got '%c'", kind, input.kind));
+        return input;
+    }
+
+    /**
+     * Create a decoder on the input stream. If {@code header} is false, the
+     * input stream is positioned at the start of a block.
+     */
+    BlockInput(InputStream in, boolean header) {
+        this.in = in;
+        if ( ! header ) {
+            this.kind = -1;
+            return;
+        }
+        byte[] bytes = new byte[MAGIC.length+2];
+        if ( ! readFully(bytes, bytes.length) || ! Arrays.equals(MAGIC, Arrays.copyOf(bytes, MAGIC.length)) )
+            throw new RiotCompactException("Not an RDF Compact stream");
+        int version = bytes[MAGIC.length] & 0xFF;
+        if ( version != VERSION )
+            throw new RiotCompactException("Unsupported RDF Compact version: "+version);
+        this.kind = bytes[MAGIC.length+1] & 0xFF;
+    }
+
+    int kind() {
+        return kind;
+    }
+
+    /**
+     * Read the next row code, moving to the next block if necessary.
+     * Returns -1 at the end of the stream.
+     */
+    int nextRow() {
+        for ( ;; ) {
+            int row = nextRowInBlock();
+            if ( row >= 0 )
+                return row;
+            if ( ! nextBlock() )
+                return -1;
+        }
+    }
+
+    /** Read the next row code in the current block; returns -1 at the end of the block. */
+    int nextRowInBlock() {
+        if ( pos >= limit )
+            return -1;
+        return data[pos++] & 0xFF;
+    }
+
+    /** Decode all remaining rows to a {@link StreamRDF}. */
+    void sendTo(StreamRDF dest, boolean acrossBlocks) {
+        for ( ;; ) {
+            int row = acrossBlocks ? nextRow() : nextRowInBlock();
+            switch (row) {
+                case -1 :           return;
+                case ROW_TRIPLE :   dest.triple(readTriple()); break;
+                case ROW_QUAD :     dest.quad(readQuad()); break;
+                case ROW_PREFIX :   dest.prefix(readString(), readString()); break;
+                case ROW_BASE :     dest.base(readString()); break;
+                default:
+                    throw new RiotCompactException("Unexpected row in an RDF stream: "+row);
+            }
+        }
+    }
+
+    /**
+     * Read the next block. Returns false at the end of the blocks, in which case
+     * the index, if present, is available from {@link #index()}.
+     */
+    boolean nextBlock() {
+        if ( ended )
+            return false;
+        int marker = readByteIn();
+        if ( marker == -1 ) {
+            ended = true;
+            return false;
+        }
+        int compression = readByteIn();
+        int rawLength = readVarIntIn();
+        int storedLength = readVarIntIn();
+        int count = readVarIntIn();
+        switch (marker) {
+            case BLOCK_DATA :
+                readBlockData(compression, rawLength, storedLength);
+                resetBlock();
+                return true;
+            case BLOCK_INDEX :
+                readBlockData(compression, rawLength, storedLength);
+                index = Arrays.copyOf(data, limit);
+                indexBlocks = count;
+                pos = limit = 0;
+                byte[] trailer = new byte[8+MAGIC.length];
+                if ( ! readFully(trailer, trailer.length) )
+                    throw new RiotCompactException("Truncated RDF Compact trailer");
+                ended = true;
+                return false;
+            default :
+                throw new RiotCompactException("Bad block marker: "+marker);
+        }
+    }
+
+    /** The offsets of the data blocks, or null if the index has not been read. */
+    long[] index() {
+        if ( index == null )
+            return null;
+        byte[] dataSaved = data;
+        data = index;
+        pos = 0;
+        limit = index.length;
+        long[] offsets = new long[indexBlocks];
+        long offset = 0;
+        for ( int i = 0 ; i < indexBlocks ; i++ ) {
+            offset += readVarLong();
+            readVarInt();
+            offsets[i] = offset;
+        }
+        data = dataSaved;
+        pos = limit = 0;
+        return offsets;
+    }
+
+    private void readBlockData(int compression, int rawLength, int storedLength) {
+        if ( data.length < rawLength )
+            data = new byte[Math.max(rawLength, 2*data.length)];
+        switch (compression) {
+            case COMPRESS_NONE :
+                if ( storedLength != rawLength )
+                    throw new RiotCompactException("Bad block lengths");
+                if ( ! readFully(data, rawLength) )
+                    throw new RiotCompactException("Truncated RDF Compact block");
+                break;
+            case COMPRESS_DEFLATE :
+                if ( stored.length < storedLength )
+                    stored = new byte[Math.max(storedLength, 2*stored.length)];
+                if ( ! readFully(stored, storedLength) )
+                    throw new RiotCompactException("Truncated RDF Compact block");
+                if ( inflater == null )
+                    inflater = new Inflater();
+                inflater.reset();
+                inflater.setInput(stored, 0, storedLength);
+                try {
+                    int len = 0;
+                    while ( len < rawLength ) {
+                        int n = inflater.inflate(data, len, rawLength-len);
+                        if ( n == 0 && ( inflater.finished() || inflater.needsInput() ) )
+                            break;
+                        len += n;
+                    }
+                    if ( len != rawLength )
+                        throw new RiotCompactException("Bad compressed block");
+                } catch (DataFormatException ex) {
+                    throw new RiotCompactException("Bad compressed block", ex);
+                }
+                break;
+            default :
+                throw new RiotCompactException("Unknown block compression: "+compression);
+        }
+        pos = 0;
+        limit = rawLength;
+    }
+
+    private void resetBlock() {
+        dictionary.clear();
+        lastIRI = "";
+        Arrays.fill(prevTriple, null);
+        Arrays.fill(prevQuad, null);
+        Arrays.fill(prevBinding, null);
+    }
+
+    void close() {
+        if ( inflater != null )
+            inflater.end();
+    }
+
+    // ---- Rows
+
+    Triple readTriple() {
+        Node s = prevTriple[0] = readRef(prevTriple[0]);
+        Node p = prevTriple[1] = readRef(prevTriple[1]);
+        Node o = prevTriple[2] = readRef(prevTriple[2]);
+        return Triple.create(s, p, o);
+    }
+
+    Quad readQuad() {
+        Node g = prevQuad[0] = readRef(prevQuad[0]);
+        Node s = prevQuad[1] = readRef(prevQuad[1]);
+        Node p = prevQuad[2] = readRef(prevQuad[2]);
+        Node o = prevQuad[3] = readRef(prevQuad[3]);
+        return Quad.create(g, s, p, o);
+    }
+
+    List<Var> readVars() {
+        int n = readVarInt();
+        List<Var> x = new ArrayList<>(n);
+        for ( int i = 0 ; i < n ; i++ )
+            x.add(Var.alloc(readString()));
+        vars = x;
+        prevBinding = new Node[n];
+        return x;
+    }
+
+    Binding readBinding() {
+        if ( vars == null )
+            throw new RiotCompactException("Result set row before the variables");
+        BindingMap binding = BindingFactory.create();
+        for ( int i = 0 ; i < prevBinding.length ; i++ ) {
+            Node n = prevBinding[i] = readRef(prevBinding[i]);
+            if ( n != null )
+                binding.add(vars.get(i), n);
+        }
+        return binding;
+    }
+
+    // ---- Terms
+
+    private Node readRef(Node prev) {
+        int ref = readVarInt();
+        switch (ref) {
+            case REF_NEW : {
+                Node n = readTerm();
+                dictionary.add(n);
+                return n;
+            }
+            case REF_REPEAT :
+                if ( prev == null )
+                    throw new RiotCompactException("Repeat with no previous term");
+                return prev;
+            case REF_UNDEF :
+                return null;
+            default :
+                int id = ref-REF_BASE;
+                if ( id >= dictionary.size() )
+                    throw new RiotCompactException("Bad term reference: "+id);
+                return dictionary.get(id);
+        }
+    }
+
+    private Node readTerm() {
+        int term = readByte();
+        switch (term) {
+            case TERM_IRI : {
+                int shared = readVarInt();
+                String suffix = readString();
+                String iri = ( shared == 0 ) ? suffix : lastIRI.substring(0, shared).concat(suffix);
+                lastIRI = iri;
+                return NodeFactory.createURI(iri);
+            }
+            case TERM_BNODE :
+                return NodeFactory.createBlankNode(readString());
+            case TERM_STRING :
+                return NodeFactory.createLiteral(readString());
+            case TERM_LANG : {
+                String lex = readString();
+                String lang = readString();
+                return NodeFactory.createLiteral(lex, lang);
+            }
+            case TERM_TYPED : {
+                String lex = readString();
+                Node dtNode = readRef(null);
+                RDFDatatype dt = TypeMapper.getInstance().getSafeTypeByName(dtNode.getURI());
+                return NodeFactory.createLiteral(lex, dt);
+            }
+            case TERM_INTEGER : {
+                long x = readVarLong();
+                long v = (x >>> 1) ^ -(x & 1);
+                return NodeFactory.createLiteral(Long.toString(v), XSDDatatype.XSDinteger);
+            }
+            case TERM_TRUE :
+                return nodeTrue;
+            case TERM_FALSE :
+                return nodeFalse;
+            case TERM_DOUBLE : {
+                double d = Double.longBitsToDouble(readLong());
+                return NodeFactory.createLiteral(Double.toString(d), XSDDatatype.XSDdouble);
+            }
+            case TERM_TRIPLE : {
+                Node s = readRef(null);
+                Node p = readRef(null);
+                Node o = readRef(null);
+                return NodeFactory.createTripleNode(s, p, o);
+            }
+            case TERM_VAR :
+                return Var.alloc(readString());
+            default :
+                throw new RiotCompactException("Unknown term encoding: "+term);
+        }
+    }
+
+    // ---- Primitives in the block.
+
+    private int readByte() {
+        if ( pos >= limit )
+            throw new RiotCompactException("Read beyond the end of the block");
+        return data[pos++] & 0xFF;
+    }
+
+    private int readVarInt() {
+        int x = 0;
+        for ( int shift = 0 ; shift < 35 ; shift += 7 ) {
+            int b = readByte();
+            x |= (b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 )
+                return x;
+        }
+        throw new RiotCompactException("Bad varint");
+    }
+
+    private long readVarLong() {
+        long x = 0;
+        for ( int shift = 0 ; shift < 70 ; shift += 7 ) {
+            int b = readByte();
+            x |= (long)(b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 )
+                return x;
+        }
+        throw new RiotCompactException("Bad varlong");
+    }
+
+    private long readLong() {
+        long x = 0;
+        for ( int i = 0 ; i < 8 ; i++ )
+            x = (x << 8) | readByte();
+        return x;
+    }
+
+    /**
+     * Decode a UTF-8 string. Decoding is done here, not with a
+     * {@code java.nio.charset.CharsetDecoder}, so that unpaired surrogates
+     * written by the encoder round trip.
+     */
+    private String readString() {
+        int len = readVarInt();
+        if ( len > limit-pos )
+            throw new RiotCompactException("String extends beyond the end of the block");
+        if ( chars.length < len )
+            chars = new char[Math.max(len, 2*chars.length)];
+        int end = pos+len;
+        int n = 0;
+        while ( pos < end ) {
+            int b = data[pos++];
+            if ( b >= 0 ) {
+                chars[n++] = (char)b;
+                continue;
+            }
+            b &= 0xFF;
+            if ( b < 0xE0 ) {
+                chars[n++] = (char)(((b & 0x1F) << 6) | (data[pos++] & 0x3F));
+            } else if ( b < 0xF0 ) {
+                chars[n++] = (char)(((b & 0x0F) << 12) | ((data[pos++] & 0x3F) << 6) | (data[pos++] & 0x3F));
+            } else {
+                int cp = ((b & 0x07) << 18) | ((data[pos++] & 0x3F) << 12) | ((data[pos++] & 0x3F) << 6) | (data[pos++] & 0x3F);
+                chars[n++] = Character.highSurrogate(cp);
+                chars[n++] = Character.lowSurrogate(cp);
+            }
+        }
+        if ( pos != end )
+            throw new RiotCompactException("Bad UTF-8 string");
+        return new String(chars, 0, n);
+    }
+
+    // ---- Primitives from the input stream.
+
+    private int readByteIn() {
+        try { return in.read(); }
+        catch (IOException ex) { IO.exception(ex); return -1; }
+    }
+
+    private int readVarIntIn() {
+        int x = 0;
+        for ( int shift = 0 ; shift < 35 ; shift += 7 ) {
+            int b = readByteIn();
+            if ( b == -1 )
+                throw new RiotCompactException("Truncated RDF Compact block header");
+            x |= (b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 )
+                return x;
+        }
+        throw new RiotCompactException("Bad varint");
+    }
+
+    private boolean readFully(byte[] bytes, int length) {
+        try {
+            int n = 0;
+            while ( n < length ) {
+                int x = in.read(bytes, n, length-n);
+                if ( x < 0 )
+                    return false;
+                n += x;
+            }
+            return true;
+        } catch (IOException ex) { IO.exception(ex); return false; }
+    }
+}
@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import static org.apache.jena.riot.compact.CRDF.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Node_Triple;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+
+/**
+ * Encoder for RDF Compact: rows are encoded into the current block, which is
+ * written (optionally compressed) when it reaches the block size.
+ * {@link #finish} writes the last block, the block index and the trailer.
+ *
+ * @see BlockInput
+ */
+class BlockOutput {
+    private final OutputStream out;
+    private final int blockSize;
+    private final Deflater deflater;
+    private byte[] compressed = new byte[0];
+
+    // Position in the output stream.
+    private long offset = 0;
+
+    // Current block.
+    private final ByteBuilder buffer = new ByteBuilder(1024);
+    private int rows = 0;
+    private final Map<Node, Integer> dictionary = new HashMap<>();
+    private String lastIRI = "";
+    private final Node[] prevTriple = new Node[3];
+    private final Node[] prevQuad = new Node[4];
+    private Node[] prevBinding = null;
+    private List<Var> vars = null;
+
+    // Index : delta-encoded block offsets and row counts.
+    private final ByteBuilder index = new ByteBuilder(256);
+    private int indexBlocks = 0;
+    private long lastBlockOffset = 0;
+
+    // Datatype IRIs as nodes.
+    private final Map<RDFDatatype, Node> datatypes = new HashMap<>();
+    private boolean finished = false;
+
+    BlockOutput(OutputStream out, int kind, boolean compress, int blockSize) {
+        this.out = out;
+        this.blockSize = blockSize;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        byte[] header = Arrays.copyOf(MAGIC, MAGIC.length+2);
+        header[MAGIC.length] = (byte)VERSION;
+        header[MAGIC.length+1] = (byte)kind;
+        write(header, 0, header.length);
+    }
+
+    void triple(Triple triple) {
+        buffer.writeByte(ROW_TRIPLE);
+        prevTriple[0] = writeRef(triple.getSubject(), prevTriple[0]);
+        prevTriple[1] = writeRef(triple.getPredicate(), prevTriple[1]);
+        prevTriple[2] = writeRef(triple.getObject(), prevTriple[2]);
+        endRow();
+    }
+
+    void quad(Quad quad) {
+        buffer.writeByte(ROW_QUAD);
+        prevQuad[0] = writeRef(quad.getGraph(), prevQuad[0]);
+        prevQuad[1] = writeRef(quad.getSubject(), prevQuad[1]);
+        prevQuad[2] = writeRef(quad.getPredicate(), prevQuad[2]);
+        prevQuad[3] = writeRef(quad.getObject(), prevQuad[3]);
+        endRow();
+    }
+
+    void prefix(String prefix, String iri) {
+        buffer.writeByte(ROW_PREFIX);
+        buffer.writeString(prefix);
+        buffer.writeString(iri);
+        endRow();
+    }
+
+    void base(String base) {
+        buffer.writeByte(ROW_BASE);
+        buffer.writeString(base);
+        endRow();
+    }
+
+    /** Set the variables for result set rows. They are repeated at the start of each block. */
+    void vars(List<Var> vars) {
+        this.vars = vars;
+        this.prevBinding = new Node[vars.size()];
+        writeVars();
+        endRow();
+    }
+
+    void binding(Binding binding) {
+        if ( vars == null )
+            throw new RiotCompactException("No variables declared for a result set row");
+        if ( rows == 0 ) {
+            writeVars();
+            rows++;
+        }
+        buffer.writeByte(ROW_BINDING);
+        for ( int i = 0 ; i < prevBinding.length ; i++ ) {
+            Node n = binding.get(vars.get(i));
+            prevBinding[i] = writeRef(n, prevBinding[i]);
+        }
+        endRow();
+    }
+
+    private void writeVars() {
+        buffer.writeByte(ROW_VARS);
+        buffer.writeVarInt(vars.size());
+        for ( Var v : vars )
+            buffer.writeString(v.getVarName());
+    }
+
+    private void endRow() {
+        rows++;
+        if ( buffer.size() >= blockSize )
+            writeBlock();
+    }
+
+    /** Write the current block, the index and the trailer, and flush the output stream. */
+    void finish() {
+        if ( finished )
+            return;
+        finished = true;
+        if ( rows > 0 )
+            writeBlock();
+        long indexOffset = offset;
+        ByteBuilder header = new ByteBuilder(32);
+        header.writeByte(BLOCK_INDEX);
+        header.writeByte(COMPRESS_NONE);
+        header.writeVarInt(index.size());
+        header.writeVarInt(index.size());
+        header.writeVarInt(indexBlocks);
+        write(header.bytes(), 0, header.size());
+        write(index.bytes(), 0, index.size());
+        byte[] trailer = new byte[8+MAGIC.length];
+        for ( int i = 0 ; i < 8 ; i++ )
+            trailer[i] = (byte)(indexOffset >>> (56-8*i));
+        System.arraycopy(MAGIC, 0, trailer, 8, MAGIC.length);
+        write(trailer, 0, trailer.length);
+        if ( deflater != null )
+            deflater.end();
+        IO.flush(out);
+    }
+
+    private void writeBlock() {
+        byte[] data = buffer.bytes();
+        int rawLength = buffer.size();
+        int storedLength = rawLength;
+        int compression = COMPRESS_NONE;
+        if ( deflater != null ) {
+            int len = deflate(data, rawLength);
+            // Store uncompressed if compression does not help.
+            if ( len < rawLength ) {
+                data = compressed;
+                storedLength = len;
+                compression = COMPRESS_DEFLATE;
+            }
+        }
+        index.writeVarLong(offset-lastBlockOffset);
+        index.writeVarInt(rows);
+        indexBlocks++;
+        lastBlockOffset = offset;
+
+        ByteBuilder header = new ByteBuilder(32);
+        header.writeByte(BLOCK_DATA);
+        header.writeByte(compression);
+        header.writeVarInt(rawLength);
+        header.writeVarInt(storedLength);
+        header.writeVarInt(rows);
+        write(header.bytes(), 0, header.size());
+        write(data, 0, storedLength);
+
+        // Reset for the next block.
+        buffer.reset();
+        rows = 0;
+        dictionary.clear();
+        lastIRI = "";
+        Arrays.fill(prevTriple, null);
+        Arrays.fill(prevQuad, null);
+        if ( prevBinding != null )
+            Arrays.fill(prevBinding, null);
+    }
+
+    private int deflate(byte[] data, int length) {
+        int bound = length + (length >> 3) + 64;
+        if ( compressed.length < bound )
+            compressed = new byte[bound];
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int len = 0;
+        while ( !deflater.finished() ) {
+            if ( len == compressed.length )
+                compressed = Arrays.copyOf(compressed, 2*compressed.length);
+            len += deflater.deflate(compressed, len, compressed.length-len);
+        }
+        return len;
+    }
+
+    private void write(byte[] bytes, int start, int length) {
+        try { out.write(bytes, start, length); }
+        catch (IOException ex) { IO.exception(ex); }
+        offset += length;
+    }
+
+    /** Write a term reference and return the node (for the REPEAT slot). */
+    private Node writeRef(Node n, Node prev) {
+        if ( n == null ) {
+            buffer.writeVarInt(REF_UNDEF);
+            return null;
+        }
+        if ( n == prev || n.equals(prev) ) {
+            buffer.writeVarInt(REF_REPEAT);
+            return n;
+        }
+        Integer id = dictionary.get(n);
+        if ( id != null ) {
+            buffer.writeVarInt(REF_BASE+id);
+            return n;
+        }
+        buffer.writeVarInt(REF_NEW);
+        writeTerm(n);
+        // After any nested terms so the reader allocates in the same order.
+        dictionary.put(n, dictionary.size());
+        return n;
+    }
+
+    private void writeTerm(Node n) {
+        if ( n.isURI() ) {
+            String iri = n.getURI();
+            int shared = sharedPrefix(lastIRI, iri);
+            buffer.writeByte(TERM_IRI);
+            buffer.writeVarInt(shared);
+            buffer.writeString(iri, shared);
+            lastIRI = iri;
+            return;
+        }
+        if ( n.isBlank() ) {
+            buffer.writeByte(TERM_BNODE);
+            buffer.writeString(n.getBlankNodeLabel());
+            return;
+        }
+        if ( n.isLiteral() ) {
+            writeLiteral(n);
+            return;
+        }
+        if ( n.isNodeTriple() ) {
+            Triple t = Node_Triple.triple(n);
+            buffer.writeByte(TERM_TRIPLE);
+            writeRef(t.getSubject(), null);
+            writeRef(t.getPredicate(), null);
+            writeRef(t.getObject(), null);
+            return;
+        }
+        if ( n.isVariable() ) {
+            buffer.writeByte(TERM_VAR);
+            buffer.writeString(n.getName());
+            return;
+        }
+        throw new RiotCompactException("Node conversion not supported: "+n);
+    }
+
+    private void writeLiteral(Node n) {
+        String lex = n.getLiteralLexicalForm();
+        String lang = n.getLiteralLanguage();
+        if ( lang != null && !lang.isEmpty() ) {
+            buffer.writeByte(TERM_LANG);
+            buffer.writeString(lex);
+            buffer.writeString(lang);
+            return;
+        }
+        RDFDatatype dt = n.getLiteralDatatype();
+        if ( dt == null || dt.equals(XSDDatatype.XSDstring) ) {
+            buffer.writeByte(TERM_STRING);
+            buffer.writeString(lex);
+            return;
+        }
+        if ( dt.equals(XSDDatatype.XSDinteger) && isCanonicalLong(lex) ) {
+            buffer.writeByte(TERM_INTEGER);
+            buffer.writeZigZag(Long.parseLong(lex));
+            return;
+        }
+        if ( dt.equals(XSDDatatype.XSDboolean) ) {
+            if ( lex.equals("true") ) {
+                buffer.writeByte(TERM_TRUE);
+                return;
+            }
+            if ( lex.equals("false") ) {
+                buffer.writeByte(TERM_FALSE);
+                return;
+            }
+        }
+        if ( dt.equals(XSDDatatype.XSDdouble) ) {
+            double d = canonicalDouble(lex);
+            if ( ! Double.isNaN(d) ) {
+                buffer.writeByte(TERM_DOUBLE);
+                buffer.writeLong(Double.doubleToRawLongBits(d));
+                return;
+            }
+        }
+        buffer.writeByte(TERM_TYPED);
+        buffer.writeString(lex);
+        Node dtNode = datatypes.computeIfAbsent(dt, d->NodeFactory.createURI(d.getURI()));
+        writeRef(dtNode, null);
+    }
+
+    /** Length of the common prefix, not splitting a surrogate pair. */
+    private static int sharedPrefix(String s1, String s2) {
+        int len = Math.min(s1.length(), s2.length());
+        int i = 0;
+        while ( i < len && s1.charAt(i) == s2.charAt(i) )
+            i++;
+        if ( i > 0 && Character.isHighSurrogate(s2.charAt(i-1)) )
+            i--;
+        return i;
+    }
+
+    /** Digits, optional leading '-', no leading zeros, and within the range of a long. */
+    private static boolean isCanonicalLong(String lex) {
+        int len = lex.length();
+        int start = ( len > 0 && lex.charAt(0) == '-' ) ? 1 : 0;
+        int digits = len-start;
+        if ( digits == 0 || digits > 18 )
+            return false;
+        if ( lex.charAt(start) == '0' )
+            return len == 1;
+        for ( int i = start ; i < len ; i++ ) {
+            char ch = lex.charAt(i);
+            if ( ch < '0' || ch > '9' )
+                return false;
+        }
+        return true;
+    }
+
+    /** The value if the lexical form is the one Java would write for it, else NaN. */
+    private static double canonicalDouble(String lex) {
+        int len = lex.length();
+        if ( len == 0 || len > 24 )
+            return Double.NaN;
+        // Java writes a digit or '-' first and always has a '.'.
+        char ch = lex.charAt(0);
+        if ( ch != '-' && ( ch < '0' || ch > '9' ) )
+            return Double.NaN;
+        try {
+            double d = Double.parseDouble(lex);
+            return lex.equals(Double.toString(d)) ? d : Double.NaN;
+        } catch (NumberFormatException ex) { return Double.NaN; }
+    }
+
+    /** Growable byte array with the RDF Compact primitive encodings. */
+    static class ByteBuilder {
+        private byte[] bytes;
+        private int size = 0;
+
+        ByteBuilder(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        byte[] bytes()  { return bytes; }
+        int size()      { return size; }
+        void reset()    { size = 0; }
+
+        private void ensure(int n) {
+            if ( size+n > bytes.length )
+                bytes = Arrays.copyOf(bytes, Math.max(size+n, 2*bytes.length));
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            bytes[size++] = (byte)b;
+        }
+
+        void writeVarInt(int x) {
+            ensure(5);
+            while ( (x & ~0x7F) != 0 ) {
+                bytes[size++] = (byte)((x & 0x7F) | 0x80);
+                x >>>= 7;
+            }
+            bytes[size++] = (byte)x;
+        }
+
+        void writeVarLong(long x) {
+            ensure(10);
+            while ( (x & ~0x7FL) != 0 ) {
+                bytes[size++] = (byte)((x & 0x7F) | 0x80);
+                x >>>= 7;
+            }
+            bytes[size++] = (byte)x;
+        }
+
+        void writeZigZag(long x) {
+            writeVarLong((x << 1) ^ (x >> 63));
+        }
+
+        void writeLong(long x) {
+            ensure(8);
+            for ( int i = 0 ; i < 8 ; i++ )
+                bytes[size++] = (byte)(x >>> (56-8*i));
+        }
+
+        void writeString(String s) {
+            writeString(s, 0);
+        }
+
+        /** Write the string from {@code start} as varint(UTF-8 length) and the UTF-8 bytes. */
+        void writeString(String s, int start) {
+            int len = s.length();
+            int utf8 = 0;
+            for ( int i = start ; i < len ; i++ ) {
+                char ch = s.charAt(i);
+                if ( ch < 0x80 )
+                    utf8++;
+                else if ( ch < 0x800 )
+                    utf8 += 2;
+                else if ( Character.isHighSurrogate(ch) && i+1 < len && Character.isLowSurrogate(s.charAt(i+1)) ) {
+                    utf8 += 4;
+                    i++;
+                } else
+                    utf8 += 3;
+            }
+            writeVarInt(utf8);
+            ensure(utf8);
+            for ( int i = start ; i < len ; i++ ) {
+                char ch = s.charAt(i);
+                if ( ch < 0x80 )
+                    bytes[size++] = (byte)ch;
+                else if ( ch < 0x800 ) {
+                    bytes[size++] = (byte)(0xC0 | (ch >> 6));
+                    bytes[size++] = (byte)(0x80 | (ch & 0x3F));
+                } else if ( Character.isHighSurrogate(ch) && i+1 < len && Character.isLowSurrogate(s.charAt(i+1)) ) {
+                    int cp = Character.toCodePoint(ch, s.charAt(++i));
+                    bytes[size++] = (byte)(0xF0 | (cp >> 18));
+                    bytes[size++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+                    bytes[size++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+                    bytes[size++] = (byte)(0x80 | (cp & 0x3F));
+                } else {
+                    // Includes unpaired surrogates, which are not valid UTF-8 but round trip.
+                    bytes[size++] = (byte)(0xE0 | (ch >> 12));
+                    bytes[size++] = (byte)(0x80 | ((ch >> 6) & 0x3F));
+                    bytes[size++] = (byte)(0x80 | (ch & 0x3F));
+                }
+            }
+        }
+    }
+}
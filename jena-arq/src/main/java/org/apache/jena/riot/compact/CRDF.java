@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and layout of RDF Compact, a block-structured binary encoding of
+ * RDF streams and SPARQL result sets.
+ * <p>
+ * A stream is the file header followed by blocks and ends with an index block
+ * and a trailer:
+ * <pre>
+ *   header  : MAGIC, VERSION, kind (KIND_RDF or KIND_RESULTS)
+ *   block   : BLOCK_DATA, compression, varint(raw length), varint(stored length), varint(rows), bytes
+ *   index   : BLOCK_INDEX, COMPRESS_NONE, varint(length), varint(length), varint(blocks), bytes
+ *   trailer : 8 byte offset of the index block, MAGIC
+ * </pre>
+ * Each data block has its own term dictionary so any block can be decoded on
+ * its own, starting from an offset found in the index.
+ * <p>
+ * Within a block, a row starts with one of the {@code ROW_*} codes. RDF terms
+ * in a row are references: {@link #REF_NEW} (term encoding follows and the term
+ * is added to the block dictionary), {@link #REF_REPEAT} (same as the same slot
+ * in the previous row), {@link #REF_UNDEF} (unbound, result sets only), or
+ * {@link #REF_BASE} plus the dictionary index.
+ */
+public class CRDF {
+    /** File header and trailer marker. */
+    public static final byte[] MAGIC            = "RDFC".getBytes(StandardCharsets.US_ASCII);
+    public static final int    VERSION          = 1;
+
+    public static final int    KIND_RDF         = 'G';
+    public static final int    KIND_RESULTS     = 'R';
+
+    /** Default size of the uncompressed content of a block. */
+    public static final int    BlockSize        = 256*1024;
+    public static final int    InputBufferSize  = 128*1024;
+    public static final int    OutputBufferSize = 128*1024;
+
+    // Block kinds.
+    public static final int    BLOCK_DATA       = 1;
+    public static final int    BLOCK_INDEX      = 2;
+
+    // Block compression.
+    public static final int    COMPRESS_NONE    = 0;
+    public static final int    COMPRESS_DEFLATE = 1;
+
+    // Rows.
+    public static final int    ROW_TRIPLE       = 1;
+    public static final int    ROW_QUAD         = 2;
+    public static final int    ROW_PREFIX       = 3;
+    public static final int    ROW_BASE         = 4;
+    public static final int    ROW_VARS         = 5;
+    public static final int    ROW_BINDING      = 6;
+
+    // Term references.
+    public static final int    REF_NEW          = 0;
+    public static final int    REF_REPEAT       = 1;
+    public static final int    REF_UNDEF        = 2;
+    public static final int    REF_BASE         = 3;
+
+    // Term encodings.
+    /** IRI : varint(length of prefix shared with the previous IRI in the block), string(rest). */
+    public static final int    TERM_IRI         = 1;
+    public static final int    TERM_BNODE       = 2;
+    /** xsd:string : string(lexical form) */
+    public static final int    TERM_STRING      = 3;
+    /** rdf:langString : string(lexical form), string(language tag) */
+    public static final int    TERM_LANG        = 4;
+    /** Other datatypes : string(lexical form), reference(datatype IRI) */
+    public static final int    TERM_TYPED       = 5;
+    /** xsd:integer in canonical form, fits in a long : zigzag varlong */
+    public static final int    TERM_INTEGER     = 6;
+    public static final int    TERM_TRUE        = 7;
+    public static final int    TERM_FALSE       = 8;
+    /** xsd:double in the form written by Java : 8 bytes */
+    public static final int    TERM_DOUBLE      = 9;
+    /** Triple term : three references */
+    public static final int    TERM_TRIPLE      = 10;
+    public static final int    TERM_VAR         = 11;
+}
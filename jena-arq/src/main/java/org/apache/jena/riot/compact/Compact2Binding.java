@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.jena.atlas.iterator.IteratorSlotted;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+
+/** Convert a SPARQL result set encoded in RDF Compact to Bindings */
+public class Compact2Binding extends IteratorSlotted<Binding> {
+    private final BlockInput input;
+    private final List<Var> vars;
+
+    public Compact2Binding(InputStream in) {
+        this.input = BlockInput.create(in, CRDF.KIND_RESULTS);
+        if ( input.nextRow() != CRDF.ROW_VARS )
+            throw new RiotCompactException("No variables at the start of the result set");
+        this.vars = input.readVars();
+    }
+
+    public List<Var> getVars() {
+        return vars;
+    }
+
+    @Override
+    protected Binding moveToNext() {
+        for ( ;; ) {
+            int row = input.nextRow();
+            switch (row) {
+                case -1 :
+                    return null;
+                case CRDF.ROW_VARS :
+                    // Repeated at the start of each block.
+                    input.readVars();
+                    break;
+                case CRDF.ROW_BINDING :
+                    return input.readBinding();
+                default :
+                    throw new RiotCompactException("Unexpected row in a result set: "+row);
+            }
+        }
+    }
+
+    @Override
+    protected boolean hasMore() {
+        return true;
+    }
+
+    @Override
+    protected void closeIterator() {
+        input.close();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ResultSetStream;
+
+/**
+ * Operations on RDF Compact, a binary encoding of RDF and of SPARQL result sets.
+ * <p>
+ * The encoding is a sequence of blocks. Each block has its own dictionary of
+ * terms, IRIs are front-coded against the previous IRI in the block, and some
+ * datatypes (xsd:integer, xsd:boolean, xsd:double) have a binary encoding when
+ * it preserves the lexical form exactly. Blocks may be compressed with Deflate.
+ * The stream ends with an index of the block offsets so a file can be read
+ * block by block from any point: see {@link #readIndex} and {@link #readBlock}.
+ *
+ * @see CRDF
+ */
+public class CompactRDF {
+
+    /**
+     * Create an {@link StreamRDF} for output, with compressed blocks.
+     * The {@code OutputStream} is flushed, not closed, when {@link StreamRDF#finish()} is called.
+     * @param out OutputStream
+     * @return StreamRDF A stream to send to.
+     */
+    public static StreamRDF streamToOutputStream(OutputStream out) {
+        return streamToOutputStream(out, true);
+    }
+
+    /**
+     * Create an {@link StreamRDF} for output.
+     * The {@code OutputStream} is flushed, not closed, when {@link StreamRDF#finish()} is called.
+     * @param out OutputStream
+     * @param compress Whether to compress blocks.
+     * @return StreamRDF A stream to send to.
+     */
+    public static StreamRDF streamToOutputStream(OutputStream out, boolean compress) {
+        return new StreamRDF2Compact(out, compress);
+    }
+
+    /**
+     * Decode the contents of the file and send to the {@link StreamRDF}.
+     * A filename of "-" is {@code System.in}.
+     * @param filename The file.
+     * @param dest Sink
+     */
+    public static void fileToStream(String filename, StreamRDF dest) {
+        try ( InputStream in = IO.openFile(filename) ) {
+            inputStreamToStream(in, dest);
+        } catch (IOException ex) { IO.exception(ex); }
+    }
+
+    /**
+     * Decode the contents of the input stream and send to the {@link StreamRDF}.
+     * @param in InputStream
+     * @param dest StreamRDF
+     */
+    public static void inputStreamToStream(InputStream in, StreamRDF dest) {
+        BlockInput input = BlockInput.create(buffered(in), CRDF.KIND_RDF);
+        dest.start();
+        try {
+            input.sendTo(dest, true);
+        } finally { input.close(); }
+        dest.finish();
+    }
+
+    /**
+     * Read the block index from the end of an RDF Compact file.
+     * @param channel The file (the position is changed)
+     * @return The offsets of the blocks, in order.
+     */
+    public static long[] readIndex(SeekableByteChannel channel) {
+        try {
+            int trailerLength = 8+CRDF.MAGIC.length;
+            long size = channel.size();
+            if ( size < trailerLength )
+                throw new RiotCompactException("Not an RDF Compact file");
+            ByteBuffer trailer = ByteBuffer.allocate(trailerLength);
+            channel.position(size-trailerLength);
+            while ( trailer.hasRemaining() ) {
+                if ( channel.read(trailer) < 0 )
+                    throw new RiotCompactException("Truncated RDF Compact trailer");
+            }
+            if ( ! Arrays.equals(CRDF.MAGIC, Arrays.copyOfRange(trailer.array(), 8, trailerLength)) )
+                throw new RiotCompactException("No RDF Compact index");
+            long indexOffset = trailer.getLong(0);
+            channel.position(indexOffset);
+            BlockInput input = new BlockInput(buffered(Channels.newInputStream(channel)), false);
+            if ( input.nextBlock() || input.index() == null )
+                throw new RiotCompactException("Bad RDF Compact index");
+            return input.index();
+        } catch (IOException ex) { IO.exception(ex); return null; }
+    }
+
+    /**
+     * Decode one block of RDF and send it to the {@link StreamRDF}.
+     * The block does not depend on any other part of the file except that the
+     * prefixes sent to the {@link StreamRDF} are only those written in that block.
+     * @param channel The file (the position is changed)
+     * @param offset The block offset, from {@link #readIndex}.
+     * @param dest StreamRDF
+     */
+    public static void readBlock(SeekableByteChannel channel, long offset, StreamRDF dest) {
+        try {
+            channel.position(offset);
+        } catch (IOException ex) { IO.exception(ex); }
+        BlockInput input = new BlockInput(buffered(Channels.newInputStream(channel)), false);
+        try {
+            if ( ! input.nextBlock() )
+                throw new RiotCompactException("No RDF Compact block at offset "+offset);
+            dest.start();
+            input.sendTo(dest, false);
+            dest.finish();
+        } finally { input.close(); }
+    }
+
+    public static ResultSet readResultSet(InputStream in) {
+        Compact2Binding c2b = new Compact2Binding(buffered(in));
+        List<String> varNames = Var.varNames(c2b.getVars());
+        return new ResultSetStream(varNames, null, c2b);
+    }
+
+    public static void writeResultSet(OutputStream out, ResultSet resultSet) {
+        writeResultSet(out, resultSet, true);
+    }
+
+    public static void writeResultSet(OutputStream out, ResultSet resultSet, boolean compress) {
+        BlockOutput output = new BlockOutput(out, CRDF.KIND_RESULTS, compress, CRDF.BlockSize);
+        output.vars(Var.varList(resultSet.getResultVars()));
+        while ( resultSet.hasNext() )
+            output.binding(resultSet.nextBinding());
+        output.finish();
+    }
+
+    private static InputStream buffered(InputStream in) {
+        if ( in instanceof BufferedInputStream )
+            return in;
+        return new BufferedInputStream(in, CRDF.InputBufferSize);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import java.io.OutputStream;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Encode a {@link StreamRDF} as RDF Compact.
+ * Usually used via {@link CompactRDF} functions.
+ * The output is written in blocks; {@link #finish} writes the last block and
+ * the block index, and flushes the {@code OutputStream}.
+ */
+public class StreamRDF2Compact implements StreamRDF {
+    private final BlockOutput output;
+
+    public StreamRDF2Compact(OutputStream out, boolean compress) {
+        this(out, compress, CRDF.BlockSize);
+    }
+
+    public StreamRDF2Compact(OutputStream out, boolean compress, int blockSize) {
+        this.output = new BlockOutput(out, CRDF.KIND_RDF, compress, blockSize);
+    }
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void triple(Triple triple) {
+        output.triple(triple);
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        output.quad(quad);
+    }
+
+    @Override
+    public void base(String base) {
+        output.base(base);
+    }
+
+    @Override
+    public void prefix(String prefix, String iri) {
+        output.prefix(prefix, iri);
+    }
+
+    @Override
+    public void finish() {
+        output.finish();
+    }
+}
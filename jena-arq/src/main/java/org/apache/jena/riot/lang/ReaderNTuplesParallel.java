@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.web.ContentType;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.*;
+import org.apache.jena.riot.system.*;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Reader for N-Triples and N-Quads that can parse in parallel.
+ * <p>
+ * If {@link RIOT#symNTuplesParserThreads} is set in the context to more than one, input
+ * from an {@code InputStream} is split into chunks at line ends and each chunk is
+ * parsed on a separate thread. Triples and quads are delivered to the {@link StreamRDF}
+ * on the calling thread, in the order of the input unless
+ * {@link RIOT#symNTuplesParserOrdered} is set to false, in which case each chunk is
+ * delivered as soon as it has been parsed.
+ * <p>
+ * Blank node labels are allocated with the same per-parse seed in every chunk
+ * ({@link LabelToNode#createScopeByDocumentHash(UUID)}), so a label used in
+ * different chunks is the same blank node.
+ * <p>
+ * Otherwise, and for input from a {@code Reader}, this is the normal single threaded
+ * parser. {@link RDFParserBuilder} does not ask for parallel parsing when the application
+ * sets its own {@link FactoryRDF} or {@link LabelToNode}, and a profile that is a
+ * subclass of {@link ParserProfileStd} is always parsed on the calling thread.
+ */
+public class ReaderNTuplesParallel implements ReaderRIOT {
+
+    public static class Factory implements ReaderRIOTFactory {
+        @Override
+        public ReaderRIOT create(Lang language, ParserProfile profile) {
+            return new ReaderNTuplesParallel(language, profile);
+        }
+    }
+
+    /** Size of a chunk of input in bytes (more if a line is longer than this). */
+    public static int ChunkSize = 4*1024*1024;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger(0);
+
+    private final Lang          lang;
+    private final ParserProfile profile;
+
+    public ReaderNTuplesParallel(Lang lang, ParserProfile profile) {
+        this.lang = lang;
+        this.profile = profile;
+    }
+
+    @Override
+    public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        if ( context == null )
+            context = RIOT.getContext();
+        int threads = context.getInt(RIOT.symNTuplesParserThreads, 1);
+        if ( threads <= 1 || !parallelProfile(profile) ) {
+            LangRIOT parser = RiotParsers.createParser(in, lang, output, profile);
+            parser.parse();
+            return;
+        }
+        boolean ordered = !context.isFalse(RIOT.symNTuplesParserOrdered);
+        output.start();
+        try {
+            new ParallelParse((ParserProfileStd)profile, threads, ordered, output).parse(in);
+        } finally {
+            output.finish();
+        }
+    }
+
+    /**
+     * Whether the parse can use per-thread copies of the profile.
+     * {@link ParserProfileStd#copy} builds a plain {@code ParserProfileStd}, so a subclass
+     * would lose its behaviour; so would a subclass of {@link FactoryRDFDictionary}.
+     */
+    /*package*/ static boolean parallelProfile(ParserProfile profile) {
+        if ( profile == null || profile.getClass() != ParserProfileStd.class )
+            return false;
+        FactoryRDF factory = profile.getFactorRDF();
+        return !( factory instanceof FactoryRDFDictionary ) || factory.getClass() == FactoryRDFDictionary.class;
+    }
+
+    @Override
+    public void read(Reader in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        LangRIOT parser = RiotParsers.createParser(in, lang, output, profile);
+        parser.parse();
+    }
+
+    /** A chunk of the input : whole lines. */
+    private static class Chunk {
+        final byte[] bytes;
+        final int    length;
+        final long   startLine;
+
+        Chunk(byte[] bytes, int length, long startLine) {
+            this.bytes = bytes;
+            this.length = length;
+            this.startLine = startLine;
+        }
+    }
+
+    /** The triples and quads from a chunk. */
+    private static class Parsed extends StreamRDFBase {
+        final List<Triple> triples = new ArrayList<>();
+        final List<Quad>   quads   = new ArrayList<>();
+
+        @Override public void triple(Triple triple) { triples.add(triple); }
+        @Override public void quad(Quad quad)       { quads.add(quad); }
+    }
+
+    /** Error handler for one chunk: line numbers relative to the whole input. */
+    private static class ErrorHandlerChunk implements ErrorHandler {
+        private final ErrorHandler other;
+        private long lineOffset = 0;
+
+        ErrorHandlerChunk(ErrorHandler other) { this.other = other; }
+
+        private long line(long line) { return ( line < 0 ) ? line : line + lineOffset; }
+
+        @Override public void warning(String message, long line, long col)  { other.warning(message, line(line), col); }
+        @Override public void error(String message, long line, long col)    { other.error(message, line(line), col); }
+        @Override public void fatal(String message, long line, long col)    { other.fatal(message, line(line), col); }
+    }
+
+    /** Per-thread parser profile. */
+    private static class ThreadProfile {
+        final ErrorHandlerChunk errorHandler;
+        final ParserProfile     profile;
+
+        ThreadProfile(ParserProfileStd baseProfile, UUID seed) {
+            this.errorHandler = new ErrorHandlerChunk(baseProfile.getErrorHandler());
+            LabelToNode labelToNode = LabelToNode.createScopeByDocumentHash(seed);
+            FactoryRDF baseFactory = baseProfile.getFactorRDF();
+            // A term dictionary is safe to share between threads.
+            FactoryRDF factory = ( baseFactory instanceof FactoryRDFDictionary )
+                ? new FactoryRDFDictionary(((FactoryRDFDictionary)baseFactory).getDictionary(), labelToNode)
+                : RiotLib.factoryRDF(labelToNode);
+            this.profile = baseProfile.copy(factory, errorHandler);
+        }
+    }
+
+    /** One parse run. */
+    private class ParallelParse {
+        private final int                       maxPending;
+        private final boolean                   ordered;
+        private final StreamRDF                 output;
+        private final ExecutorService           executor;
+        private final CompletionService<Parsed> completionService;
+        private final Deque<Future<Parsed>>     pending = new ArrayDeque<>();
+        private final ThreadLocal<ThreadProfile> threadProfile;
+
+        ParallelParse(ParserProfileStd baseProfile, int threads, boolean ordered, StreamRDF output) {
+            this.maxPending = 2*threads;
+            this.ordered = ordered;
+            this.output = output;
+            ThreadFactory threadFactory = (r) -> {
+                Thread thread = new Thread(r, "RIOT-parser-"+threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+            this.completionService = new ExecutorCompletionService<>(executor);
+            // One seed for all chunks so labels are the same blank node everywhere in the input.
+            UUID seed = UUID.randomUUID();
+            this.threadProfile = ThreadLocal.withInitial(()->new ThreadProfile(baseProfile, seed));
+        }
+
+        void parse(InputStream in) {
+            try {
+                split(in);
+                while ( !pending.isEmpty() )
+                    deliverOne();
+            } finally {
+                executor.shutdownNow();
+                IO.close(in);
+            }
+        }
+
+        /** Split the input into chunks, ending at a line end except for the last one. */
+        private void split(InputStream in) {
+            byte[] buffer = new byte[ChunkSize];
+            int length = 0;
+            long line = 0;
+            for ( ;; ) {
+                int n = readFully(in, buffer, length);
+                boolean eof = ( length + n < buffer.length );
+                length = length + n;
+                if ( eof ) {
+                    if ( length > 0 )
+                        submit(new Chunk(buffer, length, line));
+                    return;
+                }
+                int idx = lastLineEnd(buffer, length);
+                if ( idx < 0 ) {
+                    // No line end: make the buffer bigger.
+                    byte[] buffer2 = new byte[2*buffer.length];
+                    System.arraycopy(buffer, 0, buffer2, 0, length);
+                    buffer = buffer2;
+                    continue;
+                }
+                int chunkLength = idx+1;
+                Chunk chunk = new Chunk(buffer, chunkLength, line);
+                line += countLines(buffer, chunkLength);
+                byte[] buffer2 = new byte[Math.max(ChunkSize, 2*(length-chunkLength))];
+                System.arraycopy(buffer, chunkLength, buffer2, 0, length-chunkLength);
+                length = length-chunkLength;
+                buffer = buffer2;
+                submit(chunk);
+            }
+        }
+
+        private void submit(Chunk chunk) {
+            while ( pending.size() >= maxPending )
+                deliverOne();
+            Callable<Parsed> task = ()->parseChunk(chunk);
+            pending.add(ordered ? executor.submit(task) : completionService.submit(task));
+        }
+
+        /** Send the triples and quads of one chunk to the output. */
+        private void deliverOne() {
+            Parsed parsed;
+            try {
+                Future<Parsed> future = ordered ? pending.removeFirst() : completionService.take();
+                if ( !ordered )
+                    pending.remove(future);
+                parsed = future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RiotException("Interrupted", ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if ( cause instanceof RuntimeException )
+                    throw (RuntimeException)cause;
+                if ( cause instanceof Error )
+                    throw (Error)cause;
+                throw new RiotException(cause);
+            }
+            parsed.triples.forEach(output::triple);
+            parsed.quads.forEach(output::quad);
+        }
+
+        private Parsed parseChunk(Chunk chunk) {
+            ThreadProfile tp = threadProfile.get();
+            tp.errorHandler.lineOffset = chunk.startLine;
+            Parsed parsed = new Parsed();
+            InputStream in = new ByteArrayInputStream(chunk.bytes, 0, chunk.length);
+            LangRIOT parser = RiotParsers.createParser(in, lang, parsed, tp.profile);
+            parser.parse();
+            return parsed;
+        }
+    }
+
+    /** Read until the buffer is full or end of file. Return the number of bytes read. */
+    private static int readFully(InputStream in, byte[] buffer, int start) {
+        int posn = start;
+        try {
+            while ( posn < buffer.length ) {
+                int n = in.read(buffer, posn, buffer.length-posn);
+                if ( n < 0 )
+                    break;
+                posn += n;
+            }
+        } catch (IOException ex) {
+            IO.exception(ex);
+        }
+        return posn-start;
+    }
+
+    private static int lastLineEnd(byte[] buffer, int length) {
+        for ( int i = length-1 ; i >= 0 ; i-- ) {
+            if ( buffer[i] == '\n' || buffer[i] == '\r' )
+                return i;
+        }
+        return -1;
+    }
+
+    private static long countLines(byte[] buffer, int length) {
+        long count = 0;
+        for ( int i = 0 ; i < length ; i++ ) {
+            if ( buffer[i] == '\n' )
+                count++;
+        }
+        return count;
+    }
+}
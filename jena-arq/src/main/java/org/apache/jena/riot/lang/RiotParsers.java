@@ -54,13 +54,15 @@ public class RiotParsers {
             return createParserRdfJson(tokenizer, dest, profile);
         }
 
+        // N-Triples and N-Quads are tokenized directly from the UTF-8 bytes.
+        if ( RDFLanguages.sameLang(NTRIPLES, lang) )
+            return createParserNTriples(TokenizerFactory.makeTokenizerBytes(input), dest, profile);
+        if ( RDFLanguages.sameLang(NQUADS, lang) )
+            return createParserNQuads(TokenizerFactory.makeTokenizerBytes(input), dest, profile);
+
         Tokenizer tokenizer = TokenizerFactory.makeTokenizerUTF8(input);
         if ( RDFLanguages.sameLang(TURTLE, lang) || RDFLanguages.sameLang(N3,  lang) ) 
             return createParserTurtle(tokenizer, dest, profile);
-        if ( RDFLanguages.sameLang(NTRIPLES, lang) )
-            return createParserNTriples(tokenizer, dest, profile);
-        if ( RDFLanguages.sameLang(NQUADS, lang) )
-            return createParserNQuads(tokenizer, dest, profile);
         if ( RDFLanguages.sameLang(TRIG, lang) )
             return createParserTriG(tokenizer, dest, profile);
         return null;
@@ -121,7 +123,7 @@ public class RiotParsers {
     /** Create an iterator for parsing N-Triples. */
     public static Iterator<Triple> createIteratorNTriples(InputStream input, StreamRDF dest, ParserProfile profile) {
         // LangNTriples supports iterator use.
-        Tokenizer tokenizer = TokenizerFactory.makeTokenizerUTF8(input);
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(input);
         return createParserNTriples(tokenizer, null, profile);
     }
 
@@ -133,7 +135,7 @@ public class RiotParsers {
     /** Create an iterator for parsing N-Quads. */
     public static Iterator<Quad> createIteratorNQuads(InputStream input, StreamRDF dest, ParserProfile profile) {
         // LangNQuads supports iterator use.
-        Tokenizer tokenizer = TokenizerFactory.makeTokenizerUTF8(input);
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(input);
         return createParserNQuads(tokenizer, null,  profile);
     }
 }
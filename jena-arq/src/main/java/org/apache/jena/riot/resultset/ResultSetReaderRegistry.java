@@ -30,6 +30,7 @@ import org.apache.jena.atlas.lib.NotImplemented ;
 import org.apache.jena.query.ResultSet ;
 import org.apache.jena.riot.Lang ;
 import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.resultset.rw.ResultSetReaderCompact;
 import org.apache.jena.riot.resultset.rw.ResultSetReaderJSON;
 import org.apache.jena.riot.resultset.rw.ResultSetReaderThrift;
 import org.apache.jena.riot.resultset.rw.ResultSetReaderXML;
@@ -72,6 +73,7 @@ public class ResultSetReaderRegistry {
         register(SPARQLResultSetXML,    ResultSetReaderXML.factory) ;
         register(SPARQLResultSetJSON,   ResultSetReaderJSON.factory) ;
         register(SPARQLResultSetThrift, ResultSetReaderThrift.factory) ;
+        register(SPARQLResultSetCompact, ResultSetReaderCompact.factory) ;
         register(SPARQLResultSetCSV,    factory) ;
         register(SPARQLResultSetTSV,    factory) ;
     }
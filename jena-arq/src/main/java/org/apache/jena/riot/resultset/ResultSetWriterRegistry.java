@@ -33,6 +33,7 @@ import org.apache.jena.query.ResultSet ;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.Lang ;
 import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.resultset.rw.ResultSetWriterCompact;
 import org.apache.jena.riot.resultset.rw.ResultSetWriterJSON;
 import org.apache.jena.riot.resultset.rw.ResultSetWriterThrift;
 import org.apache.jena.riot.resultset.rw.ResultSetWriterXML;
@@ -76,6 +77,7 @@ public class ResultSetWriterRegistry {
         register(SPARQLResultSetXML,    ResultSetWriterXML.factory) ;
         register(SPARQLResultSetJSON,   ResultSetWriterJSON.factory) ;
         register(SPARQLResultSetThrift, ResultSetWriterThrift.factory) ;
+        register(SPARQLResultSetCompact, ResultSetWriterCompact.factory) ;
         // Build-in std factory (below).
         register(SPARQLResultSetCSV,    factory) ;
         register(SPARQLResultSetTSV,    factory) ;
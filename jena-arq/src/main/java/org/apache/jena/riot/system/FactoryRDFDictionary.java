@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.lang.LabelToNode;
+
+/**
+ * {@link FactoryRDF} that creates IRIs and literals through a {@link TermDictionary}, so
+ * repeated terms are the same {@code Node} object. The dictionary can be shared between
+ * parser runs, between threads, and with whatever receives the parser output.
+ */
+public class FactoryRDFDictionary extends FactoryRDFStd {
+    private final TermDictionary<?> dictionary;
+
+    public FactoryRDFDictionary(TermDictionary<?> dictionary) {
+        this(dictionary, SyntaxLabels.createLabelToNode());
+    }
+
+    public FactoryRDFDictionary(TermDictionary<?> dictionary, LabelToNode labelMapping) {
+        super(labelMapping);
+        this.dictionary = dictionary;
+    }
+
+    public TermDictionary<?> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public Node createURI(String uriStr) {
+        return dictionary.getOrCreateURI(uriStr, RiotLib::createIRIorBNode);
+    }
+
+    @Override
+    public Node createTypedLiteral(String lexical, RDFDatatype datatype) {
+        return dictionary.intern(super.createTypedLiteral(lexical, datatype));
+    }
+
+    @Override
+    public Node createLangLiteral(String lexical, String langTag) {
+        return dictionary.intern(super.createLangLiteral(lexical, langTag));
+    }
+
+    @Override
+    public Node createStringLiteral(String lexical) {
+        return dictionary.intern(super.createStringLiteral(lexical));
+    }
+}
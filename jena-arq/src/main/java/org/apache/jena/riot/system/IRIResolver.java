@@ -337,6 +337,17 @@ public abstract class IRIResolver
      */
     protected abstract IRI getBaseIRI();
 
+    /**
+     * A resolver with the same base as this one and no state shared with it,
+     * such as the cache of resolved IRIs. Use this to resolve IRIs on another thread.
+     * 
+     * @return IRIResolver
+     */
+    public IRIResolver copy() {
+        IRI iri = getBaseIRI();
+        return ( iri == null ) ? createNoResolve() : create(iri);
+    }
+
     /**
      * Resolve a relative URI against the base of this IRIResolver
      * or normalize an absolute URI.
@@ -60,6 +60,17 @@ public class ParserProfileStd implements ParserProfile
         this.allowNodeExtentions = true; //(context.isTrue(RIOT.ALLOW_NODE_EXT)) ;
     }
 
+    /**
+     * Create a profile with the same settings as this one, for use on another thread.
+     * The new profile has its own {@link IRIResolver} and uses the given {@link FactoryRDF}
+     * and {@link ErrorHandler}.
+     */
+    public ParserProfileStd copy(FactoryRDF factory, ErrorHandler errorHandler) {
+        ParserProfileStd profile = new ParserProfileStd(factory, errorHandler, resolver.copy(), prefixMap, context, checking, strictMode);
+        profile.allowNodeExtentions = allowNodeExtentions;
+        return profile;
+    }
+
     @Override
     public FactoryRDF getFactorRDF() {
         return factory;
@@ -30,6 +30,7 @@ import org.apache.jena.atlas.lib.CharSpace ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Triple ;
 import org.apache.jena.riot.* ;
+import org.apache.jena.riot.compact.CompactRDF ;
 import org.apache.jena.riot.thrift.BinRDF ;
 import org.apache.jena.riot.writer.StreamWriterTriX ;
 import org.apache.jena.riot.writer.WriterStreamRDFBlocks ;
@@ -88,6 +89,14 @@ public class StreamRDFWriter {
         }
     } ;
 
+    private static StreamRDFWriterFactory streamWriterFactoryCompact = new StreamRDFWriterFactory() {
+        @Override
+        public StreamRDF create(OutputStream output, RDFFormat format, Context context) {
+            boolean compress = ! RDFFormat.RDF_COMPACT_PLAIN.equals(format) ;
+            return CompactRDF.streamToOutputStream(output, compress) ;
+        }
+    } ;
+
     private static StreamRDFWriterFactory streamWriterFactoryTriX = new StreamRDFWriterFactory() {
         @Override
         public StreamRDF create(OutputStream output, RDFFormat format, Context context) {
@@ -132,6 +141,7 @@ public class StreamRDFWriter {
         register(Lang.NTRIPLES,     RDFFormat.NTRIPLES) ;
         register(Lang.NQUADS,       RDFFormat.NQUADS) ;
         register(Lang.RDFTHRIFT,    RDFFormat.RDF_THRIFT) ;
+        register(Lang.RDFCOMPACT,   RDFFormat.RDF_COMPACT) ;
         register(Lang.TRIX,         RDFFormat.TRIX) ;
         register(Lang.RDFNULL,      RDFFormat.RDFNULL) ;
 
@@ -151,6 +161,9 @@ public class StreamRDFWriter {
         register(RDFFormat.RDF_THRIFT,          streamWriterFactoryThrift) ;
         register(RDFFormat.RDF_THRIFT_VALUES,   streamWriterFactoryThrift) ;
 
+        register(RDFFormat.RDF_COMPACT,         streamWriterFactoryCompact) ;
+        register(RDFFormat.RDF_COMPACT_PLAIN,   streamWriterFactoryCompact) ;
+
         register(RDFFormat.TRIX,            streamWriterFactoryTriX) ;
         register(RDFFormat.RDFNULL,         streamWriterFactoryNull) ;
     }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import java.util.function.Function;
+
+import org.apache.jena.graph.Node;
+
+/**
+ * A dictionary of RDF terms, safe to use from several threads and bounded in size.
+ * <p>
+ * The dictionary keeps one {@code Node} object for each term it has accepted (see
+ * {@link #accepts}) so that repeated terms in the input are the same object. It can be
+ * given to a parser with {@link FactoryRDFDictionary} or
+ * {@link org.apache.jena.riot.RDFParserBuilder#termDictionary}.
+ * <p>
+ * Each term can also have a value recorded for it, for example, the identifier
+ * given to the term by storage. Later users of the same term can then find the
+ * value without looking it up again.
+ *
+ * @param <V> Type of value associated with a term.
+ */
+public interface TermDictionary<V> {
+
+    /** Whether the dictionary would keep this node. */
+    public boolean accepts(Node node);
+
+    /**
+     * Return the dictionary node for an IRI, creating it with {@code maker} if it is
+     * not already in the dictionary.
+     */
+    public Node getOrCreateURI(String iriStr, Function<String, Node> maker);
+
+    /**
+     * Return the dictionary node equal to {@code node}, adding {@code node} if it is not
+     * already in the dictionary. Nodes that are not accepted are returned unchanged.
+     */
+    public Node intern(Node node);
+
+    /** The value recorded for a node, or null. */
+    public V getValue(Node node);
+
+    /** Record a value for a node. This has no effect if the node is not accepted. */
+    public void setValue(Node node, V value);
+
+    /** Number of terms in the dictionary. */
+    public long size();
+
+    /** Remove all terms. */
+    public void clear();
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
+import org.apache.jena.graph.Node;
+
+/**
+ * {@link TermDictionary} that keeps IRIs and literals with a short lexical form, up
+ * to a maximum number of terms, dropping the least recently used terms when full.
+ * <p>
+ * Blank nodes and triple terms are not kept. Blank nodes are scoped to one parser
+ * run and rarely repeat outside it.
+ */
+public class TermDictionaryStd<V> implements TermDictionary<V> {
+    public static final int DftSize             = 100_000;
+    public static final int DftMaxLiteralLength = 40;
+
+    private static final class Entry<V> {
+        final Node node;
+        volatile V value = null;
+        Entry(Node node) { this.node = node; }
+    }
+
+    // Keys are the IRI string for IRIs, and the Node for literals.
+    private final ConcurrentMap<Object, Entry<V>> map;
+    private final int maxLiteralLength;
+
+    public TermDictionaryStd() {
+        this(DftSize, DftMaxLiteralLength);
+    }
+
+    public TermDictionaryStd(int size) {
+        this(size, DftMaxLiteralLength);
+    }
+
+    public TermDictionaryStd(int size, int maxLiteralLength) {
+        Cache<Object, Entry<V>> cache = CacheBuilder.newBuilder()
+            .maximumSize(size)
+            .initialCapacity(Math.min(size, 10_000))
+            .build();
+        this.map = cache.asMap();
+        this.maxLiteralLength = maxLiteralLength;
+    }
+
+    @Override
+    public boolean accepts(Node node) {
+        if ( node.isURI() )
+            return true;
+        if ( node.isLiteral() )
+            return node.getLiteralLexicalForm().length() <= maxLiteralLength;
+        return false;
+    }
+
+    private static Object key(Node node) {
+        return node.isURI() ? node.getURI() : node;
+    }
+
+    @Override
+    public Node getOrCreateURI(String iriStr, Function<String, Node> maker) {
+        Entry<V> entry = map.get(iriStr);
+        if ( entry != null )
+            return entry.node;
+        Node node = maker.apply(iriStr);
+        if ( !node.isURI() )
+            // Some IRI forms make blank nodes.
+            return node;
+        return entry(iriStr, node).node;
+    }
+
+    @Override
+    public Node intern(Node node) {
+        if ( !accepts(node) )
+            return node;
+        return entry(key(node), node).node;
+    }
+
+    private Entry<V> entry(Object key, Node node) {
+        Entry<V> entry = map.get(key);
+        if ( entry != null )
+            return entry;
+        entry = new Entry<>(node);
+        Entry<V> entry2 = map.putIfAbsent(key, entry);
+        return ( entry2 != null ) ? entry2 : entry;
+    }
+
+    @Override
+    public V getValue(Node node) {
+        if ( !accepts(node) )
+            return null;
+        Entry<V> entry = map.get(key(node));
+        return ( entry == null ) ? null : entry.value;
+    }
+
+    @Override
+    public void setValue(Node node, V value) {
+        if ( !accepts(node) )
+            return;
+        entry(key(node), node).value = value;
+    }
+
+    @Override
+    public long size() {
+        return map.size();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+}
@@ -0,0 +1,625 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens;
+
+import static org.apache.jena.atlas.lib.Chars.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.io.PeekReader;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.RiotChars;
+
+/**
+ * Tokenizer for N-Triples and N-Quads that works directly on the UTF-8 bytes of the
+ * input.
+ * <p>
+ * The input is an {@code InputStream} or a {@code ByteBuffer}, which may be a
+ * memory-mapped file. A heap {@code ByteBuffer} is scanned in place.
+ * <p>
+ * IRIs, blank node labels, strings and language tags that are ASCII and have no escape
+ * sequences, which is most of them in practice, are turned into Java strings in one step
+ * from the bytes of the input. Only terms with escapes or non-ASCII characters are
+ * decoded character by character.
+ * <p>
+ * The tokens are those of N-Triples and N-Quads, together with {@code <<} and
+ * {@code >>} for triple terms. Anything else is a parse error. Use
+ * {@link TokenizerText} for other syntaxes.
+ */
+public final class TokenizerBytes implements Tokenizer
+{
+    private static final int BUFFER_SIZE = 128*1024;
+
+    // Bytes that can appear in the fast path for IRIs, strings and blank node labels.
+    private static final boolean[] plainIRI      = new boolean[256];
+    private static final boolean[] plainString1  = new boolean[256];
+    private static final boolean[] plainString2  = new boolean[256];
+    private static final boolean[] plainBNode    = new boolean[256];
+    static {
+        for ( int i = 0x21 ; i < 0x7F ; i++ )
+            plainIRI[i] = true;
+        for ( char ch : new char[] {'<', '>', '"', '{', '}', '|', '^', '`', '\\'} )
+            plainIRI[ch] = false;
+
+        for ( int i = 0 ; i < 0x80 ; i++ ) {
+            plainString1[i] = true;
+            plainString2[i] = true;
+        }
+        for ( boolean[] table : new boolean[][] {plainString1, plainString2} ) {
+            table[NL] = false;
+            table[CH_RSLASH] = false;
+        }
+        plainString1[CH_QUOTE1] = false;
+        plainString2[CH_QUOTE2] = false;
+
+        for ( int i = 0 ; i < 0x80 ; i++ )
+            plainBNode[i] = RiotChars.isPNChars(i) || i == CH_DOT;
+    }
+
+    private final InputStream input;
+    private final ByteBuffer  source;
+
+    private byte[]  buffer;
+    private int     posn         = 0;
+    private int     limit        = 0;
+    // Start of the bytes of the term being read, or -1. Bytes from here are kept when refilling the buffer.
+    private int     mark         = -1;
+    private boolean endOfInput   = false;
+    // Offset in the input of buffer[0].
+    private long    bufferStart  = 0;
+    private long    line         = PeekReader.INIT_LINE;
+    // Offset in the input of the start of the current line.
+    private long    lineStart    = 0;
+    // Length, in bytes, of the last character decoded.
+    private int     charLength   = 0;
+
+    private Token   token        = null;
+    private boolean finished     = false;
+    private final StringBuilder stringBuilder = new StringBuilder(200);
+
+    /*package*/ TokenizerBytes(InputStream input) {
+        this.input = input;
+        this.source = null;
+        this.buffer = new byte[BUFFER_SIZE];
+        skipBOM();
+    }
+
+    /*package*/ TokenizerBytes(ByteBuffer byteBuffer) {
+        this.input = null;
+        if ( byteBuffer.hasArray() ) {
+            // Use the bytes in place. The buffer is never refilled so they are not changed.
+            this.source = null;
+            this.buffer = byteBuffer.array();
+            this.posn = byteBuffer.arrayOffset()+byteBuffer.position();
+            this.limit = byteBuffer.arrayOffset()+byteBuffer.limit();
+            this.bufferStart = -posn;
+            this.endOfInput = true;
+        } else {
+            this.source = byteBuffer.duplicate();
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+        skipBOM();
+    }
+
+    @Override
+    public final boolean hasNext() {
+        if ( finished )
+            return false;
+        if ( token != null )
+            return true;
+        skip();
+        if ( peekByte() == EOF ) {
+            finished = true;
+            return false;
+        }
+        token = parseToken();
+        return true;
+    }
+
+    @Override
+    public final boolean eof() {
+        return !hasNext();
+    }
+
+    @Override
+    public final Token next() {
+        if ( !hasNext() )
+            throw new NoSuchElementException();
+        Token t = token;
+        token = null;
+        return t;
+    }
+
+    @Override
+    public final Token peek() {
+        if ( !hasNext() )
+            return null;
+        return token;
+    }
+
+    @Override
+    public void remove()
+    { throw new UnsupportedOperationException(); }
+
+    @Override
+    public long getLine() {
+        return line;
+    }
+
+    @Override
+    public long getColumn() {
+        return bufferStart + posn - lineStart + PeekReader.INIT_COL;
+    }
+
+    @Override
+    public void close() {
+        if ( input != null )
+            IO.close(input);
+    }
+
+    // ---- Bytes
+
+    /** Make sure there are at least n bytes available from posn. */
+    private boolean ensure(int n) {
+        while ( limit - posn < n ) {
+            if ( endOfInput )
+                return false;
+            int keep = ( mark >= 0 ) ? mark : posn;
+            if ( keep > 0 ) {
+                System.arraycopy(buffer, keep, buffer, 0, limit-keep);
+                bufferStart += keep;
+                posn -= keep;
+                limit -= keep;
+                if ( mark >= 0 )
+                    mark -= keep;
+            }
+            if ( limit == buffer.length )
+                buffer = Arrays.copyOf(buffer, 2*buffer.length);
+            int x = read(buffer, limit, buffer.length-limit);
+            if ( x < 0 ) {
+                endOfInput = true;
+                return false;
+            }
+            limit += x;
+        }
+        return true;
+    }
+
+    private int read(byte[] bytes, int offset, int length) {
+        if ( source != null ) {
+            int x = Math.min(length, source.remaining());
+            if ( x == 0 )
+                return -1;
+            source.get(bytes, offset, x);
+            return x;
+        }
+        try {
+            return input.read(bytes, offset, length);
+        } catch (IOException ex) {
+            throw new RiotParseException("Bad input stream [" + ex + "]", getLine(), getColumn());
+        }
+    }
+
+    private int peekByte() {
+        if ( posn < limit || ensure(1) )
+            return buffer[posn] & 0xFF;
+        return EOF;
+    }
+
+    /** Decode the UTF-8 character at posn without moving posn; sets charLength. */
+    private int peekCodepoint() {
+        int b0 = peekByte();
+        if ( b0 < 0x80 ) {
+            // Includes EOF
+            charLength = 1;
+            return b0;
+        }
+        int n;
+        int cp;
+        if ( (b0 & 0xE0) == 0xC0 ) {
+            n = 2;
+            cp = b0 & 0x1F;
+        } else if ( (b0 & 0xF0) == 0xE0 ) {
+            n = 3;
+            cp = b0 & 0x0F;
+        } else if ( (b0 & 0xF8) == 0xF0 ) {
+            n = 4;
+            cp = b0 & 0x07;
+        } else
+            throw badEncoding();
+        if ( !ensure(n) )
+            throw badEncoding();
+        for ( int i = 1 ; i < n ; i++ ) {
+            int b = buffer[posn+i] & 0xFF;
+            if ( (b & 0xC0) != 0x80 )
+                throw badEncoding();
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        boolean overlong = ( n == 2 && cp < 0x80 ) || ( n == 3 && cp < 0x800 ) || ( n == 4 && cp < 0x10000 );
+        if ( overlong || cp > Character.MAX_CODE_POINT || ( cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE ) )
+            throw badEncoding();
+        charLength = n;
+        return cp;
+    }
+
+    private int readCodepoint() {
+        int cp = peekCodepoint();
+        if ( cp != EOF )
+            posn += charLength;
+        return cp;
+    }
+
+    private RiotParseException badEncoding() {
+        return new RiotParseException("Bad character encoding", getLine(), getColumn());
+    }
+
+    private void skipBOM() {
+        if ( ensure(3) && buffer[posn] == (byte)0xEF && buffer[posn+1] == (byte)0xBB && buffer[posn+2] == (byte)0xBF )
+            posn += 3;
+    }
+
+    /** Move posn over bytes in the table; return the first byte not in the table or EOF. */
+    private int scan(boolean[] table) {
+        for (;;) {
+            final byte[] bytes = buffer;
+            final int end = limit;
+            int i = posn;
+            while ( i < end && table[bytes[i] & 0xFF] )
+                i++;
+            posn = i;
+            if ( i < end )
+                return bytes[i] & 0xFF;
+            if ( !ensure(1) )
+                return EOF;
+        }
+    }
+
+    /** String for the ASCII bytes from mark to posn. */
+    private String asciiString() {
+        return new String(buffer, mark, posn-mark, StandardCharsets.ISO_8859_1);
+    }
+
+    // ---- Tokens
+
+    private void skip() {
+        for (;;) {
+            int ch = peekByte();
+            switch (ch) {
+                case SPC: case TAB: case CR: case '\f':
+                    posn++;
+                    break;
+                case NL:
+                    posn++;
+                    line++;
+                    lineStart = bufferStart + posn;
+                    break;
+                case CH_HASH:
+                    // Comment. Skip to NL
+                    posn++;
+                    for (;;) {
+                        ch = peekByte();
+                        if ( ch == EOF || ch == NL || ch == CR )
+                            break;
+                        posn++;
+                    }
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private Token parseToken() {
+        Token t = new Token(getLine(), getColumn());
+        int ch = peekByte();
+        switch (ch) {
+            case CH_LT:
+                posn++;
+                if ( peekByte() == CH_LT ) {
+                    posn++;
+                    return t.setType(TokenType.LT2);
+                }
+                t.setImage(readIRI());
+                return t.setType(TokenType.IRI);
+            case CH_QUOTE1: case CH_QUOTE2:
+                return readLiteral(t, ch);
+            case CH_UNDERSCORE:
+                posn++;
+                if ( peekByte() != CH_COLON )
+                    error("Blank node label must start with '_:'");
+                posn++;
+                t.setImage(readBlankNodeLabel());
+                return t.setType(TokenType.BNODE);
+            case CH_DOT:
+                posn++;
+                return t.setType(TokenType.DOT);
+            case CH_GT:
+                posn++;
+                if ( peekByte() != CH_GT )
+                    error("Unexpected '>'");
+                posn++;
+                return t.setType(TokenType.GT2);
+            default:
+                int cp = peekCodepoint();
+                if ( cp < 0x20 || cp == 0x7F )
+                    error("Illegal character (codepoint 0x%02X)", cp);
+                error("Illegal character: '%s'", new String(Character.toChars(cp)));
+                return null;
+        }
+    }
+
+    // [8]  IRIREF  ::= '<' ([^#x00-#x20<>"{}|^`\] | UCHAR)* '>'
+    private String readIRI() {
+        mark = posn;
+        int ch = scan(plainIRI);
+        if ( ch == CH_GT ) {
+            String s = asciiString();
+            posn++;
+            mark = -1;
+            return s;
+        }
+        // Not the fast path.
+        stringBuilder.setLength(0);
+        for ( int i = mark ; i < posn ; i++ )
+            stringBuilder.append((char)buffer[i]);
+        mark = -1;
+        for (;;) {
+            ch = readCodepoint();
+            switch(ch) {
+                case EOF:
+                    error("Broken IRI (End of file)"); return null;
+                case NL:
+                    error("Broken IRI (newline): %s", stringBuilder.toString()); return null;
+                case CR:
+                    error("Broken IRI (CR): %s", stringBuilder.toString()); return null;
+                case CH_GT:
+                    // Done!
+                    return stringBuilder.toString();
+                case CH_RSLASH:
+                    ch = readUnicodeEscape();
+                    break;
+                case CH_LT:
+                    error("Bad character in IRI (bad character: '<'): <%s[<]...>", stringBuilder.toString()); return null;
+                case TAB:
+                    error("Bad character in IRI (Tab character): <%s[tab]...>", stringBuilder.toString()); return null;
+                case '{': case '}': case '"': case '|': case '^': case '`' :
+                    error("Illegal character in IRI (codepoint 0x%02X, '%c'): <%s[%c]...>", ch, (char)ch, stringBuilder.toString(), (char)ch);
+                    return null;
+                case SPC:
+                    error("Bad character in IRI (space): <%s[space]...>", stringBuilder.toString());
+                    return null;
+                default:
+                    if ( ch <= 0x19 )
+                        error("Illegal character in IRI (control char 0x%02X): <%s[0x%02X]...>", ch, stringBuilder.toString(), ch);
+            }
+            stringBuilder.appendCodePoint(ch);
+        }
+    }
+
+    private Token readLiteral(Token t, int quoteCh) {
+        posn++;
+        t.setType(TokenType.STRING);
+        if ( peekByte() == quoteCh ) {
+            posn++;
+            if ( peekByte() == quoteCh )
+                error("Triple quoted string not permitted");
+            t.setImage("");
+        } else
+            t.setImage(readString(quoteCh));
+        t.setStringType(( quoteCh == CH_QUOTE1 ) ? StringType.STRING1 : StringType.STRING2);
+
+        // White space after lexical part of a literal.
+        skip();
+        int ch = peekByte();
+        if ( ch == CH_AT ) {
+            posn++;
+            Token mainToken = new Token(t);
+            mainToken.setType(TokenType.LITERAL_LANG);
+            mainToken.setSubToken1(t);
+            mainToken.setImage2(langTag());
+            return mainToken;
+        }
+        if ( ch == '^' ) {
+            posn++;
+            if ( peekByte() != '^' )
+                error("expected \"^^\"");
+            posn++;
+            skip();
+            Token mainToken = new Token(t);
+            mainToken.setSubToken1(t);
+            mainToken.setImage(t.getImage());
+            Token subToken = parseToken();
+            if ( !subToken.isIRI() )
+                error("Datatype URI required after ^^ - URI expected");
+            mainToken.setSubToken2(subToken);
+            mainToken.setType(TokenType.LITERAL_DT);
+            return mainToken;
+        }
+        return t;
+    }
+
+    private String readString(int quoteCh) {
+        mark = posn;
+        int ch = scan(( quoteCh == CH_QUOTE1 ) ? plainString1 : plainString2);
+        if ( ch == quoteCh ) {
+            String s = asciiString();
+            posn++;
+            mark = -1;
+            return s;
+        }
+        // Not the fast path.
+        stringBuilder.setLength(0);
+        for ( int i = mark ; i < posn ; i++ )
+            stringBuilder.append((char)buffer[i]);
+        mark = -1;
+        for (;;) {
+            ch = readCodepoint();
+            if ( ch == EOF )
+                error("Broken token: %s", stringBuilder);
+            if ( ch == NL )
+                error("Broken token (newline): %s", stringBuilder);
+            if ( ch == quoteCh )
+                return stringBuilder.toString();
+            if ( ch == CH_RSLASH )
+                ch = readLiteralEscape();
+            stringBuilder.appendCodePoint(ch);
+        }
+    }
+
+    // BLANK_NODE_LABEL    ::=     '_:' (PN_CHARS_U | [0-9]) ((PN_CHARS | '.')* PN_CHARS)?
+    private String readBlankNodeLabel() {
+        int ch = peekCodepoint();
+        if ( ch == EOF )
+            error("Blank node label missing (EOF found)");
+        if ( RiotChars.isWhitespace(ch) )
+            error("Blank node label missing");
+        if ( !RiotChars.isPNChars_U_N(ch) )
+            error("Blank node label does not start with alphabetic or _ :%s", new String(Character.toChars(ch)));
+        mark = posn;
+        boolean ascii = ( ch < 0x80 );
+        posn += charLength;
+        // Length of the label so far, excluding any trailing dots.
+        // Relative to mark because refilling the buffer moves the bytes.
+        int length = posn-mark;
+        for (;;) {
+            ch = scan(plainBNode);
+            for ( int i = posn-1 ; i >= mark+length ; i-- ) {
+                if ( buffer[i] != CH_DOT ) {
+                    length = i+1-mark;
+                    break;
+                }
+            }
+            if ( ch < 0x80 )
+                break;
+            // Non-ASCII.
+            ch = peekCodepoint();
+            if ( !RiotChars.isPNChars(ch) )
+                break;
+            ascii = false;
+            posn += charLength;
+            length = posn-mark;
+        }
+        posn = mark+length;
+        String label = ascii
+            ? asciiString()
+            : new String(buffer, mark, posn-mark, StandardCharsets.UTF_8);
+        mark = -1;
+        return label;
+    }
+
+    private String langTag() {
+        mark = posn;
+        int ch = scanA2Z(false);
+        if ( posn == mark )
+            error("Bad language tag");
+        while ( ch == '-' ) {
+            posn++;
+            int x = posn-mark;
+            ch = scanA2Z(true);
+            if ( posn-mark == x )
+                error("Bad language tag");
+        }
+        String s = asciiString().intern();
+        mark = -1;
+        return s;
+    }
+
+    private int scanA2Z(boolean digits) {
+        for (;;) {
+            int ch = peekByte();
+            if ( ! ( RiotChars.isA2Z(ch) || ( digits && RiotChars.isDigit(ch) ) ) )
+                return ch;
+            posn++;
+        }
+    }
+
+    // ---- Escape sequences
+
+    // Read a unicode escape : does not allow \\ bypass
+    private int readUnicodeEscape() {
+        int ch = readCodepoint();
+        if ( ch == EOF )
+            error("Broken escape sequence");
+
+        switch (ch) {
+            case 'u': return readUnicode4Escape();
+            case 'U': return readUnicode8Escape();
+            default:
+                error("Illegal unicode escape sequence value: \\%c (0x%02X)", ch, ch);
+        }
+        return 0;
+    }
+
+    private int readLiteralEscape() {
+        int c = readCodepoint();
+        if ( c == EOF )
+            error("Escape sequence not completed");
+
+        switch (c) {
+            case 'n':   return NL;
+            case 'r':   return CR;
+            case 't':   return '\t';
+            case 'f':   return '\f';
+            case 'b':   return BSPACE;
+            case '"':   return '"';
+            case '\'':  return '\'';
+            case '\\':  return '\\';
+            case 'u':   return readUnicode4Escape();
+            case 'U':   return readUnicode8Escape();
+            default:
+                error("Illegal escape sequence value: %c (0x%02X)", c, c);
+                return 0;
+        }
+    }
+
+    private int readUnicode4Escape() { return readHexSequence(4); }
+
+    private int readUnicode8Escape() {
+        int ch8 = readHexSequence(8);
+        if ( ch8 > Character.MAX_CODE_POINT )
+            error("Illegal code point in \\U sequence value: 0x%08X", ch8);
+        return ch8;
+    }
+
+    private int readHexSequence(int N) {
+        int x = 0;
+        for (int i = 0; i < N; i++) {
+            int ch = peekByte();
+            if ( ch == EOF )
+                error("Not a hexadecimal character (end of file)");
+            int d = RiotChars.valHexChar(ch);
+            if ( d < 0 )
+                error("Not a hexadecimal character: %c", (char)ch);
+            posn++;
+            x = (x << 4) + d;
+        }
+        return x;
+    }
+
+    private void error(String message, Object... args) {
+        String msg = String.format(message, args);
+        throw new RiotParseException(msg, getLine(), getColumn());
+    }
+}
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream ;
 import java.io.InputStream ;
 import java.io.Reader ;
 import java.io.StringReader ;
+import java.nio.ByteBuffer ;
 
 import org.apache.jena.atlas.io.PeekReader ;
 import org.apache.jena.atlas.lib.StrUtils ;
@@ -50,6 +51,19 @@ public class TokenizerFactory {
         return tokenizer ;
     }
 
+    /** Tokenizer for N-Triples and N-Quads working on UTF-8 bytes : BOM will be removed */
+    public static Tokenizer makeTokenizerBytes(InputStream in) {
+        return new TokenizerBytes(in) ;
+    }
+
+    /**
+     * Tokenizer for N-Triples and N-Quads working on UTF-8 bytes, for example from a
+     * memory-mapped file : BOM will be removed
+     */
+    public static Tokenizer makeTokenizerBytes(ByteBuffer bytes) {
+        return new TokenizerBytes(bytes) ;
+    }
+
     public static Tokenizer makeTokenizerASCII(InputStream in) {
         PeekReader peekReader = PeekReader.makeASCII(in) ;
         Tokenizer tokenizer = new TokenizerText(peekReader) ;
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RIOT;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.out.NodeFormatterTTL;
+import org.apache.jena.riot.out.NodeToLabel;
+import org.apache.jena.riot.system.IRIResolver;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.riot.system.PrefixMapFactory;
+import org.apache.jena.riot.system.RiotLib;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Output of Turtle and TriG in blocks of adjacent same-subject triples, as
+ * {@link WriterStreamRDFBlocks} does, with the blocks formatted on a pool of
+ * threads.
+ * <p>
+ * The triples are read on the calling thread, so a transaction on the data
+ * covers the whole output; worker threads only format nodes, to UTF-8. Blocks are
+ * grouped into chunks of about {@link #ChunkSize} triples and written in
+ * order. At most two chunks per thread are waiting to be written, so a slow
+ * output stream slows down reading the data.
+ * <p>
+ * Blank nodes are written with labels derived from their internal label so
+ * that chunks formatted separately agree.
+ * A subject is written as one block if its triples are adjacent in the
+ * iteration order, which is the case for an SPO index such as TDB2 has.
+ */
+class ParallelBlocksOutput {
+    /** Number of triples in a unit of work. */
+    static int ChunkSize = 10_000;
+
+    // As WriterStreamRDFBlocks
+    private static final int INDENT_PREDICATE   = WriterConst.INDENT_PREDICATE;
+    private static final int MIN_PREDICATE      = 6;
+    private static final int LONG_PREDICATE     = WriterConst.LONG_PREDICATE;
+    private static final int LONG_SUBJECT       = WriterConst.LONG_SUBJECT;
+    private static final int GAP_S_P            = 2;
+    private static final int GAP_P_O            = 2;
+    static final int INDENT_GNMD                = WriterConst.INDENT_GNMD;
+
+    private static final byte[] END_GRAPH       = { '}', '\n' };
+
+    private static final AtomicInteger threadCounter = new AtomicInteger(0);
+
+    // One of these two is set.
+    private final OutputStream outStream;
+    private final Writer out;
+    private final PrefixMap prefixMap;
+    private final String baseURI;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    // Has any output been queued?
+    private boolean started = false;
+
+    /** Create, taking the number of threads from the context ({@link RIOT#symTurtleWriterThreads}). */
+    static ParallelBlocksOutput create(OutputStream out, PrefixMap prefixMap, String baseURI, Context context) {
+        return create(out, null, prefixMap, baseURI, context);
+    }
+
+    /** Create, taking the number of threads from the context ({@link RIOT#symTurtleWriterThreads}). */
+    static ParallelBlocksOutput create(Writer out, PrefixMap prefixMap, String baseURI, Context context) {
+        return create(null, out, prefixMap, baseURI, context);
+    }
+
+    private static ParallelBlocksOutput create(OutputStream outStream, Writer out, PrefixMap prefixMap, String baseURI, Context context) {
+        if ( context == null )
+            context = RIOT.getContext();
+        if ( prefixMap == null )
+            prefixMap = PrefixMapFactory.emptyPrefixMap();
+        if ( baseURI != null )
+            baseURI = IRIResolver.resolveString(baseURI);
+        int threads = context.getInt(RIOT.symTurtleWriterThreads, Runtime.getRuntime().availableProcessors());
+        return new ParallelBlocksOutput(outStream, out, prefixMap, baseURI, threads);
+    }
+
+    private ParallelBlocksOutput(OutputStream outStream, Writer out, PrefixMap prefixMap, String baseURI, int threads) {
+        this.outStream = outStream;
+        this.out = out;
+        this.prefixMap = prefixMap;
+        this.baseURI = baseURI;
+        this.maxPending = 2*Math.max(1, threads);
+        if ( threads > 1 ) {
+            ThreadFactory threadFactory = (r) -> {
+                Thread thread = new Thread(r, "RIOT-writer-"+threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        } else
+            this.executor = null;
+    }
+
+    /** Write the base and prefixes. */
+    void directives(DirectiveStyle style) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        IndentedWriter w = new IndentedWriter(bytes);
+        boolean newStyle = ( style == DirectiveStyle.SPARQL );
+        if ( baseURI != null )
+            RiotLib.writeBase(w, baseURI, newStyle);
+        RiotLib.writePrefixes(w, prefixMap, newStyle);
+        w.flush();
+        text(bytes.toByteArray());
+    }
+
+    /**
+     * Write triples in blocks of adjacent same subject triples. Top level
+     * blocks are separated by a blank line; blocks in a named graph are not.
+     */
+    void triples(Iterator<Triple> iter, boolean inGraph) {
+        List<List<Triple>> chunk = new ArrayList<>();
+        List<Triple> block = null;
+        Node subject = null;
+        int size = 0;
+        while ( iter.hasNext() ) {
+            Triple t = iter.next();
+            if ( block == null || !Objects.equals(subject, t.getSubject()) ) {
+                if ( size >= ChunkSize ) {
+                    submit(chunk, inGraph);
+                    chunk = new ArrayList<>();
+                    size = 0;
+                }
+                subject = t.getSubject();
+                block = new ArrayList<>();
+                chunk.add(block);
+            }
+            block.add(t);
+            size++;
+        }
+        if ( !chunk.isEmpty() )
+            submit(chunk, inGraph);
+    }
+
+    /** Start a named graph. */
+    void startGraph(Node graphName) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        IndentedWriter w = new IndentedWriter(bytes);
+        if ( started )
+            w.println();
+        formatter().format(w, graphName);
+        w.println(" {");
+        w.flush();
+        text(bytes.toByteArray());
+    }
+
+    /** End a named graph. */
+    void endGraph() {
+        text(END_GRAPH);
+    }
+
+    /** Write everything outstanding and flush the output. */
+    void finish() {
+        while ( !pending.isEmpty() )
+            writeOne();
+        if ( outStream != null )
+            IO.flush(outStream);
+        else
+            IO.flush(out);
+    }
+
+    /** Release the threads. Outstanding work is abandoned. */
+    void close() {
+        if ( executor != null )
+            executor.shutdownNow();
+    }
+
+    private void text(byte[] bytes) {
+        if ( bytes.length == 0 )
+            return;
+        started = true;
+        enqueue(CompletableFuture.completedFuture(bytes));
+    }
+
+    private void submit(List<List<Triple>> chunk, boolean inGraph) {
+        boolean first = !started;
+        started = true;
+        if ( executor == null ) {
+            enqueue(CompletableFuture.completedFuture(format(chunk, inGraph, first)));
+            return;
+        }
+        enqueue(executor.submit(()->format(chunk, inGraph, first)));
+    }
+
+    private void enqueue(Future<byte[]> future) {
+        while ( pending.size() >= maxPending )
+            writeOne();
+        pending.add(future);
+    }
+
+    private void writeOne() {
+        byte[] bytes;
+        try {
+            bytes = pending.removeFirst().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException)cause;
+            if ( cause instanceof Error )
+                throw (Error)cause;
+            throw new RiotException(cause);
+        }
+        write(bytes);
+    }
+
+    private void write(byte[] bytes) {
+        try {
+            if ( outStream != null )
+                outStream.write(bytes);
+            else
+                out.write(new String(bytes, StandardCharsets.UTF_8));
+        }
+        catch (IOException ex) { IO.exception(ex); }
+    }
+
+    private NodeFormatterTTL formatter() {
+        return new NodeFormatterTTL(baseURI, prefixMap, NodeToLabel.createBNodeByLabelEncoded());
+    }
+
+    private byte[] format(List<List<Triple>> chunk, boolean inGraph, boolean first) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        IndentedWriter w = new IndentedWriter(bytes);
+        NodeFormatterTTL fmt = formatter();
+        if ( inGraph )
+            w.setAbsoluteIndent(INDENT_GNMD);
+        for ( List<Triple> block : chunk ) {
+            if ( !inGraph && !first )
+                w.println();
+            first = false;
+            formatBlock(w, fmt, block);
+        }
+        w.flush();
+        return bytes.toByteArray();
+    }
+
+    private void formatBlock(IndentedWriter w, NodeFormatterTTL fmt, List<Triple> triples) {
+        fmt.format(w, triples.get(0).getSubject());
+        if ( w.getCol() > LONG_SUBJECT )
+            w.println();
+        else
+            w.print(' ', GAP_S_P);
+        w.incIndent(INDENT_PREDICATE);
+        w.pad();
+        int predicateMaxWidth = RiotLib.calcWidthTriples(prefixMap, baseURI, triples, MIN_PREDICATE, LONG_PREDICATE);
+        boolean first = true;
+        for ( Triple triple : triples ) {
+            if ( !first )
+                w.println(" ;");
+            else
+                first = false;
+            fmt.format(w, triple.getPredicate());
+            w.pad(predicateMaxWidth);
+            w.print(' ', GAP_P_O);
+            fmt.format(w, triple.getObject());
+        }
+        w.decIndent(INDENT_PREDICATE);
+        w.println(" .");
+    }
+}
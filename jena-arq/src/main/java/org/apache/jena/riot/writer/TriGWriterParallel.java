@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.writer;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/** TriG writer that prints in blocks of triples formatted by adjacent same
+ *  subject, with the blocks formatted on a pool of threads.
+ *  The default graph is written at the top level, without braces.
+ *  @see ParallelBlocksOutput
+ */
+public class TriGWriterParallel extends WriterDatasetRIOTBase
+{
+    @Override
+    public Lang getLang() {
+        return Lang.TRIG;
+    }
+
+    @Override
+    public void write(OutputStream out, DatasetGraph dsg, PrefixMap prefixMap, String baseURI, Context context) {
+        output(ParallelBlocksOutput.create(out, prefixMap, baseURI, context), dsg, context);
+    }
+
+    @Override
+    public void write(Writer out, DatasetGraph dsg, PrefixMap prefixMap, String baseURI, Context context) {
+        output(ParallelBlocksOutput.create(out, prefixMap, baseURI, context), dsg, context);
+    }
+
+    private static void output(ParallelBlocksOutput output, DatasetGraph dsg, Context context) {
+        try {
+            output.directives(WriterLib.directiveStyle(context));
+            triples(output, dsg.getDefaultGraph(), false);
+            Iterator<Node> graphNames = dsg.listGraphNodes();
+            try {
+                while ( graphNames.hasNext() ) {
+                    Node gn = graphNames.next();
+                    Graph graph = dsg.getGraph(gn);
+                    if ( graph.isEmpty() )
+                        continue;
+                    output.startGraph(gn);
+                    triples(output, graph, true);
+                    output.endGraph();
+                }
+            } finally { Iter.close(graphNames); }
+            output.finish();
+        } finally { output.close(); }
+    }
+
+    private static void triples(ParallelBlocksOutput output, Graph graph, boolean inGraph) {
+        ExtendedIterator<Triple> iter = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try { output.triples(iter, inGraph); }
+        finally { iter.close(); }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.writer;
+
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/** Turtle writer that prints in blocks of triples formatted by adjacent same
+ *  subject, as {@link TurtleWriterBlocks}, with the blocks formatted on a pool of threads.
+ *  @see ParallelBlocksOutput
+ */
+public class TurtleWriterParallel extends WriterGraphRIOTBase
+{
+    @Override
+    public Lang getLang() {
+        return Lang.TURTLE;
+    }
+
+    @Override
+    public void write(OutputStream out, Graph graph, PrefixMap prefixMap, String baseURI, Context context) {
+        output(ParallelBlocksOutput.create(out, prefixMap, baseURI, context), graph, context);
+    }
+
+    @Override
+    public void write(Writer out, Graph graph, PrefixMap prefixMap, String baseURI, Context context) {
+        output(ParallelBlocksOutput.create(out, prefixMap, baseURI, context), graph, context);
+    }
+
+    private static void output(ParallelBlocksOutput output, Graph graph, Context context) {
+        try {
+            output.directives(WriterLib.directiveStyle(context));
+            ExtendedIterator<Triple> iter = graph.find(Node.ANY, Node.ANY, Node.ANY);
+            try { output.triples(iter, false); }
+            finally { iter.close(); }
+            output.finish();
+        } finally { output.close(); }
+    }
+}
@@ -240,6 +240,15 @@ public class ARQConstants
 //    /** Context key for the algebra execution engine of the query execution */
 //    public static final Symbol sysCurrentOpExec   = Symbol.create(systemVarNS+"opExec") ;
 
+    /** Context key for the count of worker threads a query execution may still use */
+    public static final Symbol sysParallelPermits       = Symbol.create(systemVarNS+"parallelPermits") ;
+
+    /** Context key set when a query execution has logged that it can not evaluate in parallel */
+    public static final Symbol sysParallelNotAvailable  = Symbol.create(systemVarNS+"parallelNotAvailable") ;
+
+    /** Context key for the hash join key filters applying to pattern matching */
+    public static final Symbol sysJoinKeyFilters        = Symbol.create(systemVarNS+"joinKeyFilters") ;
+
     /** Context key for the current time of query execution */
     public static final Symbol sysCurrentTime           = Symbol.create(systemVarNS+"now") ;
 
@@ -23,6 +23,8 @@ import org.apache.jena.sparql.ARQConstants ;
 import org.apache.jena.sparql.SystemARQ ;
 import org.apache.jena.sparql.algebra.* ;
 import org.apache.jena.sparql.algebra.op.OpLabel ;
+import org.apache.jena.sparql.engine.optimizer.JoinStats ;
+import org.apache.jena.sparql.engine.optimizer.TransformJoinCost ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.sparql.util.Symbol ;
 import org.slf4j.Logger ;
@@ -220,6 +222,9 @@ public class OptimizerStd implements Rewrite
     }
 
     protected Op transformJoinStrategy(Op op) {
+        JoinStats stats = context.get(ARQ.optJoinStats) ;
+        if ( stats != null )
+            return apply("Cost-based join strategy", new TransformJoinCost(stats), op) ;
         return apply("Index Join strategy", new TransformJoinStrategy(), op) ;
     }
 
@@ -153,7 +153,10 @@ public class TransformTopN extends TransformCopy {
         if ( x != null )
             threshold = x.intValue();
 
-        if ( N >= threshold )
+        // Above the threshold, only if the top N will itself spill to disk.
+        long spillThreshold = ARQ.getContext().getLong(ARQ.spillToDiskThreshold, -1) ;
+        boolean spills = ( spillThreshold >= 0 && N > spillThreshold ) ;
+        if ( N >= threshold && ! spills )
             return doNothing(opSlice, inSubOp) ;
         
         boolean distinct = false ;
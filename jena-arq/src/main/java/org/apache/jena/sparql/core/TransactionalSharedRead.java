@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.core;
+
+import org.apache.jena.query.TxnType;
+
+/**
+ * A {@link Transactional} where other threads can work inside the
+ * {@link TxnType#READ} transaction of a thread, and so see the same view of the data.
+ */
+public interface TransactionalSharedRead {
+    /**
+     * Return the read transaction of the calling thread, for use on other threads,
+     * or null if the calling thread is not in a {@link TxnType#READ} transaction
+     * that can be shared. The transaction must not be ended while other threads are
+     * using it.
+     */
+    public ReadView shareRead();
+
+    /** A read transaction that other threads can use. */
+    @FunctionalInterface
+    public interface ReadView {
+        /**
+         * Run {@code action} on the calling thread, inside the shared read
+         * transaction. The calling thread must not be in a transaction.
+         */
+        public void exec(Runnable action);
+    }
+}
@@ -47,7 +47,7 @@ import org.slf4j.Logger;
  * A {@link DatasetGraph} backed by an {@link QuadTable}. By default, this is a
  * {@link HexTable} designed for high-speed in-memory operation.
  */
-public class DatasetGraphInMemory extends DatasetGraphTriplesQuads implements Transactional {
+public class DatasetGraphInMemory extends DatasetGraphTriplesQuads implements Transactional, TransactionalSharedRead {
 
     private static final Logger log = getLogger(DatasetGraphInMemory.class);
 
@@ -160,6 +160,38 @@ public class DatasetGraphInMemory extends DatasetGraphTriplesQuads implements Tr
         }) ;
     }
     
+    @Override
+    public ReadView shareRead() {
+        if (!isInTransaction() || transactionType() != TxnType.READ)
+            return null;
+        final long readVersion = version.get();
+        final Runnable quads = quadsIndex().shareTransaction();
+        final Runnable triples = defaultGraph().shareTransaction();
+        if (quads == null || triples == null)
+            return null;
+        // The calling thread holds the transaction lock for the shared transaction.
+        return action -> {
+            if (isInTransaction())
+                throw new JenaTransactionException("Transactions cannot be nested!");
+            transactionType.set(TxnType.READ);
+            transactionMode(ReadWrite.READ);
+            isInTransaction(true);
+            quads.run();
+            triples.run();
+            version.set(readVersion);
+            try {
+                action.run();
+            } finally {
+                quadsIndex().end();
+                defaultGraph().end();
+                isInTransaction.remove();
+                transactionType.remove();
+                transactionMode.remove();
+                version.remove();
+            }
+        };
+    }
+
     /** Called transaction start code at most once per transaction. */ 
     private void startTransaction(TxnType txnType, ReadWrite mode) {
         transactionLock.enterCriticalSection(mode.equals(ReadWrite.READ)); // get the dataset write lock, if needed.
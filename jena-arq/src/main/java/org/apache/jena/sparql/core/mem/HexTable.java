@@ -30,7 +30,9 @@ import static org.apache.jena.sparql.core.mem.TupleSlot.OBJECT ;
 import static org.apache.jena.sparql.core.mem.TupleSlot.PREDICATE ;
 import static org.apache.jena.sparql.core.mem.TupleSlot.SUBJECT ;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -113,4 +115,15 @@ public class HexTable implements QuadTable {
     public void clear() {
         indexBlock().values().forEach(QuadTable::clear);
     }
+
+    @Override
+    public Runnable shareTransaction() {
+        final List<Runnable> actions = new ArrayList<>();
+        for (final QuadTable table : indexBlock().values()) {
+            final Runnable action = table.shareTransaction();
+            if (action == null) return null;
+            actions.add(action);
+        }
+        return () -> actions.forEach(Runnable::run);
+    }
 }
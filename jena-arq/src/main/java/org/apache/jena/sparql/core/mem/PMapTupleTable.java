@@ -110,6 +110,12 @@ public abstract class PMapTupleTable<TupleMapType, TupleType, ConsumerType>
         local().set(initial());
     }
 
+    @Override
+    public Runnable shareTransaction() {
+        final TupleMapType tuples = local.get();
+        return () -> local.set(tuples);
+    }
+
     protected boolean isConcrete(final Node n) {
         return n != null && n.isConcrete();
     }
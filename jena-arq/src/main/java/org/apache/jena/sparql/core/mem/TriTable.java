@@ -27,7 +27,9 @@ import static org.apache.jena.sparql.core.mem.TupleSlot.OBJECT ;
 import static org.apache.jena.sparql.core.mem.TupleSlot.PREDICATE ;
 import static org.apache.jena.sparql.core.mem.TupleSlot.SUBJECT ;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -102,4 +104,15 @@ public class TriTable implements TripleTable {
     public void clear() {
         indexBlock().values().forEach(TripleTable::clear);
     }
+
+    @Override
+    public Runnable shareTransaction() {
+        final List<Runnable> actions = new ArrayList<>();
+        for (final TripleTable table : indexBlock().values()) {
+            final Runnable action = table.shareTransaction();
+            if (action == null) return null;
+            actions.add(action);
+        }
+        return () -> actions.forEach(Runnable::run);
+    }
 }
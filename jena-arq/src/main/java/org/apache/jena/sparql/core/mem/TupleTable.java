@@ -48,4 +48,14 @@ public interface TupleTable<TupleType> extends TransactionalComponent {
      * Clear all tuples from this table.
      */
     void clear();
+
+    /**
+     * Return an action that puts the calling thread into the transaction that the
+     * current thread is in now, or null if this table can not do that. This is used
+     * to share a read transaction between threads. {@link #end()} takes a thread
+     * out of the transaction.
+     */
+    default Runnable shareTransaction() {
+        return null;
+    }
 }
@@ -60,6 +60,13 @@ public class ExecutionContext implements FunctionEnv
         this.activeGraph = activeGraph ; 
     }
 
+    /** Clone and change context - shares tracking */
+    public ExecutionContext(ExecutionContext other, Context context) 
+    {
+        this(other) ; 
+        this.context = context ; 
+    }
+
     public ExecutionContext(Context params, Graph activeGraph, DatasetGraph dataset, OpExecutorFactory factory)
     {
         this.context = params ;
@@ -50,13 +50,23 @@ public abstract class QueryEngineBase implements OpEval, Closeable
     private Query query = null ;
     private Op queryOp = null ;
     private Plan plan = null ;
+    // Set when the algebra for this query can be found in, or added to, the plan cache.
+    private QueryPlanCache planCache = null ;
+    private QueryPlanCache.PlanKey planKey = null ;
+    private QueryPlanCache.Entry cachedPlan = null ;
     
     protected QueryEngineBase(Query query, DatasetGraph dsg, Binding input, Context cxt) {
         this(dsg, input, cxt) ;
         this.query = query ;
         query.setResultVars() ;
+        // The optimized algebra can only be reused if there is no initial binding.
+        if ( startBinding.isEmpty() && QueryPlanCache.isEnabled(context) ) {
+            planCache = QueryPlanCache.get() ;
+            planKey = planCache.planKey(query, dsg, getClass(), context) ;
+            cachedPlan = planCache.getPlan(planKey) ;
+        }
         // Unoptimized so far.
-        setOp(createOp(query)) ;
+        setOp(cachedPlan != null ? cachedPlan.getAlgebra() : createOp(query)) ;
         dataset = prepareDataset(dsg, query);
     }
 
@@ -124,7 +134,13 @@ public abstract class QueryEngineBase implements OpEval, Closeable
             // Don't reset the startBinding because it also is
             // needed in the output.
         }
-        op = modifyOp(op) ;
+        if ( cachedPlan != null )
+            op = cachedPlan.getOptimized() ;
+        else {
+            op = modifyOp(op) ;
+            if ( planCache != null )
+                planCache.putPlan(planKey, queryOp, op) ;
+        }
 
         QueryIterator queryIterator = null ;
         if ( dataset != null )
@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import java.lang.ref.ReferenceQueue ;
+import java.lang.ref.WeakReference ;
+import java.util.* ;
+import java.util.concurrent.CopyOnWriteArraySet ;
+import java.util.concurrent.atomic.AtomicLong ;
+import java.util.function.Predicate ;
+import java.util.function.Supplier ;
+
+import org.apache.jena.atlas.lib.Cache ;
+import org.apache.jena.atlas.lib.CacheFactory ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.query.Query ;
+import org.apache.jena.query.Syntax ;
+import org.apache.jena.sparql.ARQConstants ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.optimize.OptimizerStd ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.mgt.QueryPlanCacheMBean ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.Symbol ;
+
+/**
+ * A bounded cache of parsed queries, keyed on the normalized query string, and of
+ * compiled and optimized algebra, keyed on the query, the dataset and the query
+ * engine. Enabled by {@link ARQ#queryPlanCache}.
+ * <p>
+ * Cached {@link Query} objects are never handed out; a copy is returned each time.
+ * <p>
+ * The context settings used by the optimizer, as registered with
+ * {@link #addPlanSetting(Symbol)}, are part of the key. The optimizer may also use
+ * statistics about the dataset; if these change, call {@link #clear()} or
+ * {@link #invalidate(DatasetGraph)}.
+ * Datasets are only weakly referenced: plans for a dataset that is no longer
+ * in use are dropped.
+ */
+public class QueryPlanCache implements QueryPlanCacheMBean
+{
+    /** Default maximum number of entries in each of the query and plan caches. */
+    public static final int DefaultSize = 1000 ;
+
+    // Context settings that change the optimized algebra.
+    // Created before ARQ is touched: system initialization may add to it.
+    private static final Set<Symbol> planSettings = new CopyOnWriteArraySet<>() ;
+    static {
+        planSettings.addAll(Arrays.asList(
+            ARQ.optimization, ARQConstants.sysOptimizerFactory, ARQ.propertyFunctions, ARQ.optJoinStats,
+            ARQ.optPathFlatten, ARQ.optFilterPlacement, ARQ.optFilterPlacementBGP, ARQ.optFilterPlacementConservative,
+            OptimizerStd.filterPlacementOldName, ARQ.optTopNSorting, ARQ.optDistinctToReduced,
+            ARQ.optOrderByDistinctApplication, ARQ.optFilterEquality, ARQ.optFilterInequality,
+            ARQ.optFilterImplicitJoin, ARQ.optImplicitLeftJoin, ARQ.optExprConstantFolding,
+            ARQ.optFilterConjunction, ARQ.optFilterExpandOneOf, ARQ.optFilterDisjunction,
+            ARQ.optPromoteTableEmpty, ARQ.optIndexJoinStrategy, ARQ.optInlineAssignments,
+            ARQ.optInlineAssignmentsAggressive, ARQ.optMergeBGPs, ARQ.optMergeExtends, ARQ.optReorderBGP)) ;
+    }
+
+    private static final QueryPlanCache cache = new QueryPlanCache(DefaultSize) ;
+
+    /** The system-wide cache. */
+    public static QueryPlanCache get() { return cache ; }
+
+    /**
+     * Add a context setting that query engines use when creating the algebra to execute.
+     * Plans are only shared between executions with the same values of these settings.
+     */
+    public static void addPlanSetting(Symbol symbol) {
+        planSettings.add(symbol) ;
+    }
+
+    /** Whether the cache is enabled in this context. */
+    public static boolean isEnabled(Context context) {
+        return context != null && context.isTrue(ARQ.queryPlanCache) ;
+    }
+
+    /** A compiled query and the algebra after optimization. */
+    public static class Entry {
+        private final Op algebra ;
+        private final Op optimized ;
+
+        private Entry(Op algebra, Op optimized) {
+            this.algebra = algebra ;
+            this.optimized = optimized ;
+        }
+
+        /** The query compiled to algebra. */
+        public Op getAlgebra()      { return algebra ; }
+
+        /** The algebra after optimization. */
+        public Op getOptimized()    { return optimized ; }
+    }
+
+    private volatile Cache<ParseKey, Query> queries ;
+    private volatile Cache<PlanKey, Entry>  plans ;
+    private final ReferenceQueue<DatasetGraph> collected = new ReferenceQueue<>() ;
+    private final AtomicLong queryHits   = new AtomicLong(0) ;
+    private final AtomicLong queryMisses = new AtomicLong(0) ;
+    private final AtomicLong planHits    = new AtomicLong(0) ;
+    private final AtomicLong planMisses  = new AtomicLong(0) ;
+
+    public QueryPlanCache(int size) {
+        setSize(size) ;
+    }
+
+    /** Set the maximum number of entries in each of the query and plan caches. This empties the caches. */
+    public void setSize(int size) {
+        if ( size <= 0 )
+            throw new IllegalArgumentException("Cache size must be positive: "+size) ;
+        queries = CacheFactory.createCache(size) ;
+        plans = CacheFactory.createCache(size) ;
+    }
+
+    /**
+     * Return a parsed query for the string, calling {@code parser} if it has not been
+     * seen before. The query returned is a copy that the caller may change.
+     */
+    public Query getQuery(String queryString, String baseURI, Syntax syntax, Supplier<Query> parser) {
+        ParseKey key = new ParseKey(normalize(queryString), baseURI, syntax) ;
+        Query query = queries.getIfPresent(key) ;
+        if ( query != null ) {
+            queryHits.incrementAndGet() ;
+            return query.cloneQuery() ;
+        }
+        queryMisses.incrementAndGet() ;
+        query = parser.get() ;
+        Query cached = query.cloneQuery() ;
+        prepare(cached) ;
+        queries.put(key, cached) ;
+        return query ;
+    }
+
+    /**
+     * The key for the plan of a query. This records the settings in the context,
+     * so create it before execution starts to change the context.
+     */
+    public PlanKey planKey(Query query, DatasetGraph dataset, Class<?> engine, Context context) {
+        return new PlanKey(query, dataset, engine, settings(context), null) ;
+    }
+
+    /** The cached algebra for a query, or null. */
+    public Entry getPlan(PlanKey key) {
+        Entry entry = plans.getIfPresent(key) ;
+        if ( entry != null )
+            planHits.incrementAndGet() ;
+        else
+            planMisses.incrementAndGet() ;
+        return entry ;
+    }
+
+    /** Record the algebra for a query. */
+    public void putPlan(PlanKey key, Op algebra, Op optimized) {
+        expunge() ;
+        DatasetGraph dataset = key.dataset.get() ;
+        if ( dataset == null )
+            return ;
+        // Keep a private copy of the query: the caller may change theirs.
+        Query query = key.query.cloneQuery() ;
+        prepare(query) ;
+        plans.put(new PlanKey(query, dataset, key.engine, key.settings, collected), new Entry(algebra, optimized)) ;
+    }
+
+    /** Drop all plans for a dataset. */
+    public void invalidate(DatasetGraph dataset) {
+        expunge() ;
+        dropIf(k -> k.dataset.get() == dataset) ;
+    }
+
+    // Drop the plans for datasets that have been garbage collected.
+    private void expunge() {
+        boolean any = false ;
+        while ( collected.poll() != null )
+            any = true ;
+        if ( any )
+            dropIf(k -> k.dataset.get() == null) ;
+    }
+
+    private void dropIf(Predicate<PlanKey> test) {
+        List<PlanKey> drop = new ArrayList<>() ;
+        for ( Iterator<PlanKey> iter = plans.keys() ; iter.hasNext() ; ) {
+            PlanKey k = iter.next() ;
+            if ( test.test(k) )
+                drop.add(k) ;
+        }
+        drop.forEach(plans::remove) ;
+    }
+
+    private static Map<Symbol, Object> settings(Context context) {
+        Map<Symbol, Object> x = new HashMap<>() ;
+        for ( Symbol s : planSettings ) {
+            Object v = context.get(s) ;
+            if ( v != null )
+                x.put(s, v) ;
+        }
+        return x ;
+    }
+
+    @Override
+    public void clear() {
+        queries.clear() ;
+        plans.clear() ;
+    }
+
+    @Override
+    public long getQueryCacheHits()     { return queryHits.get() ; }
+
+    @Override
+    public long getQueryCacheMisses()   { return queryMisses.get() ; }
+
+    @Override
+    public long getQueryCacheSize()     { return queries.size() ; }
+
+    @Override
+    public long getPlanCacheHits()      { return planHits.get() ; }
+
+    @Override
+    public long getPlanCacheMisses()    { return planMisses.get() ; }
+
+    @Override
+    public long getPlanCacheSize()      { return plans.size() ; }
+
+    // A cached query is only read once in the cache. Do the setup that would change
+    // it, and calculate the hash code, before it is shared between threads.
+    private static void prepare(Query query) {
+        query.setResultVars() ;
+        query.hashCode() ;
+    }
+
+    /**
+     * Normalize a query string for use as a key: leading and trailing white space is
+     * removed and other runs of white space are replaced by a single space, or a single
+     * newline if the run contains one (a newline ends a comment). White space in
+     * strings, IRIs and comments is left alone.
+     */
+    public static String normalize(String queryString) {
+        String s = queryString.trim() ;
+        StringBuilder sb = new StringBuilder(s.length()) ;
+        int N = s.length() ;
+        int i = 0 ;
+        while ( i < N ) {
+            char ch = s.charAt(i) ;
+            if ( Character.isWhitespace(ch) ) {
+                boolean newline = false ;
+                for ( ; i < N && Character.isWhitespace(s.charAt(i)) ; i++ ) {
+                    char ch2 = s.charAt(i) ;
+                    if ( ch2 == '\n' || ch2 == '\r' )
+                        newline = true ;
+                }
+                sb.append(newline ? '\n' : ' ') ;
+                continue ;
+            }
+            int end ;
+            if ( ch == '"' || ch == '\'' )
+                end = endOfString(s, i) ;
+            else if ( ch == '<' )
+                end = endOfIRI(s, i) ;
+            else if ( ch == '#' )
+                end = endOfComment(s, i) ;
+            else
+                end = i + 1 ;
+            sb.append(s, i, end) ;
+            i = end ;
+        }
+        return sb.toString() ;
+    }
+
+    // Index after a string starting at i. Unterminated strings run to the end.
+    private static int endOfString(String s, int i) {
+        char quote = s.charAt(i) ;
+        int N = s.length() ;
+        boolean triple = i + 2 < N && s.charAt(i+1) == quote && s.charAt(i+2) == quote ;
+        int j = triple ? i + 3 : i + 1 ;
+        while ( j < N ) {
+            char ch = s.charAt(j) ;
+            if ( ch == '\\' ) {
+                j += 2 ;
+                continue ;
+            }
+            if ( ch == quote ) {
+                if ( !triple )
+                    return j + 1 ;
+                if ( j + 2 < N && s.charAt(j+1) == quote && s.charAt(j+2) == quote )
+                    return j + 3 ;
+            }
+            j++ ;
+        }
+        return N ;
+    }
+
+    // Index after an IRI starting at i. A '<' that is not the start of an IRI
+    // (the less-than operator) stops at the first character not allowed in an IRI.
+    private static int endOfIRI(String s, int i) {
+        int N = s.length() ;
+        for ( int j = i + 1 ; j < N ; j++ ) {
+            char ch = s.charAt(j) ;
+            if ( ch == '>' )
+                return j + 1 ;
+            if ( Character.isWhitespace(ch) || ch == '"' || ch == '<' )
+                return j ;
+        }
+        return N ;
+    }
+
+    // Index of the end of line for a comment starting at i.
+    private static int endOfComment(String s, int i) {
+        int N = s.length() ;
+        for ( int j = i + 1 ; j < N ; j++ ) {
+            char ch = s.charAt(j) ;
+            if ( ch == '\n' || ch == '\r' )
+                return j ;
+        }
+        return N ;
+    }
+
+    private static final class ParseKey {
+        private final String queryString ;
+        private final String baseURI ;
+        private final Syntax syntax ;
+
+        ParseKey(String queryString, String baseURI, Syntax syntax) {
+            this.queryString = queryString ;
+            this.baseURI = baseURI ;
+            this.syntax = syntax ;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(queryString, baseURI, syntax) ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( this == obj )
+                return true ;
+            if ( !(obj instanceof ParseKey) )
+                return false ;
+            ParseKey other = (ParseKey)obj ;
+            return queryString.equals(other.queryString) && Objects.equals(baseURI, other.baseURI)
+                   && Objects.equals(syntax, other.syntax) ;
+        }
+    }
+
+    /** The key for a plan: the query, the dataset, the query engine and the plan settings of the context. */
+    public static final class PlanKey {
+        private final Query                       query ;
+        private final WeakReference<DatasetGraph> dataset ;
+        private final int                         datasetHash ;
+        private final Class<?>                    engine ;
+        private final Map<Symbol, Object>         settings ;
+
+        private PlanKey(Query query, DatasetGraph dataset, Class<?> engine, Map<Symbol, Object> settings,
+                        ReferenceQueue<DatasetGraph> queue) {
+            this.query = query ;
+            this.dataset = new WeakReference<>(dataset, queue) ;
+            this.datasetHash = System.identityHashCode(dataset) ;
+            this.engine = engine ;
+            this.settings = settings ;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * query.hashCode() + datasetHash) + engine.hashCode() + settings.hashCode() ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( this == obj )
+                return true ;
+            if ( !(obj instanceof PlanKey) )
+                return false ;
+            PlanKey other = (PlanKey)obj ;
+            // Datasets by identity. A key whose dataset has gone only equals itself.
+            DatasetGraph dsg = dataset.get() ;
+            return dsg != null && dsg == other.dataset.get() && engine == other.engine
+                   && settings.equals(other.settings) && query.equals(other.query) ;
+        }
+    }
+}
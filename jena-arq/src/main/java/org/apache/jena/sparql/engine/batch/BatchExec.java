@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.List;
+
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.ARQException;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.core.VarExprList;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.expr.ExprList;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Batch-at-a-time execution, enabled by {@link ARQ#batchExecution}.
+ * <p>
+ * Each operation takes and returns a {@link QueryIterator} so it can be used in
+ * place of the row-at-a-time iterator. When the input is itself the output of a
+ * batch operator, the blocks are passed on directly and the rows are not seen.
+ */
+public class BatchExec {
+    /** Default number of rows in a block. */
+    public static final int DefaultBatchSize = 1024;
+
+    /** Whether batch execution is enabled in this context. */
+    public static boolean isEnabled(Context context) {
+        return context != null && context.isTrue(ARQ.batchExecution);
+    }
+
+    /** The number of rows in a block for this context. */
+    public static int batchSize(ExecutionContext execCxt) {
+        if ( execCxt == null || execCxt.getContext() == null )
+            return DefaultBatchSize;
+        int x = execCxt.getContext().getInt(ARQ.batchSize, DefaultBatchSize);
+        if ( x <= 0 )
+            throw new ARQException("Batch size must be positive: " + x);
+        return x;
+    }
+
+    /** The input as blocks of rows. */
+    public static BatchIterator asBatches(QueryIterator input, ExecutionContext execCxt) {
+        if ( input instanceof QueryIterBatch ) {
+            QueryIterBatch qIter = (QueryIterBatch)input;
+            if ( qIter.canDetach() )
+                return qIter.detach();
+        }
+        return new BatchIterRows(input, batchSize(execCxt));
+    }
+
+    /** The blocks as a {@link QueryIterator} of rows. */
+    public static QueryIterator asRows(BatchIterator input, ExecutionContext execCxt) {
+        return new QueryIterBatch(input, execCxt);
+    }
+
+    public static QueryIterator filter(QueryIterator input, ExprList exprs, ExecutionContext execCxt) {
+        return asRows(new BatchIterFilter(asBatches(input, execCxt), exprs, execCxt), execCxt);
+    }
+
+    public static QueryIterator extend(QueryIterator input, VarExprList exprs, ExecutionContext execCxt) {
+        return asRows(new BatchIterExtend(asBatches(input, execCxt), exprs, execCxt), execCxt);
+    }
+
+    public static QueryIterator project(QueryIterator input, List<Var> vars, ExecutionContext execCxt) {
+        return asRows(new BatchIterProject(asBatches(input, execCxt), vars), execCxt);
+    }
+}
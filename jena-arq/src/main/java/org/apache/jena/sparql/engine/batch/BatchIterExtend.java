@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.Arrays;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.core.VarExprList;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.batch.BindingBatch.BatchBinding;
+
+/**
+ * Extend blocks of rows by (var, expression) pairs, one column at a time.
+ * Later expressions see the columns added by earlier ones ("let*" semantics).
+ * A row where a variable already has a different value is dropped.
+ *
+ * @see org.apache.jena.sparql.engine.iterator.QueryIterAssign
+ */
+public class BatchIterExtend extends BatchIterProcess {
+    private final VarExprList      exprs;
+    private final ExecutionContext execCxt;
+
+    public BatchIterExtend(BatchIterator input, VarExprList exprs, ExecutionContext execCxt) {
+        super(input);
+        this.exprs = exprs;
+        this.execCxt = execCxt;
+    }
+
+    @Override
+    protected BindingBatch process(BindingBatch batch) {
+        int N = batch.size();
+        boolean[] keep = null;
+        for ( Var v : exprs.getVars() ) {
+            int col = batch.column(v);
+            Node[] values = new Node[N];
+            BatchBinding cursor = batch.cursor();
+            for ( int i = 0 ; i < N ; i++ ) {
+                if ( keep != null && !keep[i] )
+                    continue;
+                cursor.setRow(i);
+                Node existing = (col < 0) ? null : batch.get(col, i);
+                Node n = exprs.get(v, cursor, execCxt);
+                if ( n == null || existing != null ) {
+                    values[i] = existing;
+                    // Error in single assignment.
+                    if ( n != null && !existing.sameValueAs(n) ) {
+                        if ( keep == null ) {
+                            keep = new boolean[N];
+                            Arrays.fill(keep, true);
+                        }
+                        keep[i] = false;
+                    }
+                    continue;
+                }
+                values[i] = n;
+            }
+            batch = batch.withColumn(v, values);
+        }
+        return keep == null ? batch : batch.select(keep);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.atlas.logging.Log;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.batch.BindingBatch.BatchBinding;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprException;
+import org.apache.jena.sparql.expr.ExprList;
+import org.apache.jena.sparql.expr.compile.CompiledExpr;
+import org.apache.jena.sparql.expr.compile.ExprCompiler;
+
+/**
+ * Filter blocks of rows. Each expression is applied to the whole block in turn,
+ * skipping rows already rejected.
+ *
+ * @see org.apache.jena.sparql.engine.iterator.QueryIterFilterExpr
+ */
+public class BatchIterFilter extends BatchIterProcess {
+    private final ExprList           exprs;
+    // Null if not compiling expressions.
+    private final List<CompiledExpr> compiled;
+    private final ExecutionContext   execCxt;
+
+    public BatchIterFilter(BatchIterator input, ExprList exprs, ExecutionContext execCxt) {
+        super(input);
+        this.exprs = exprs;
+        this.compiled = execCxt.getContext().isTrue(ARQ.compiledFilters) ? ExprCompiler.compile(exprs) : null;
+        this.execCxt = execCxt;
+    }
+
+    @Override
+    protected BindingBatch process(BindingBatch batch) {
+        int N = batch.size();
+        boolean[] keep = new boolean[N];
+        Arrays.fill(keep, true);
+        BatchBinding cursor = batch.cursor();
+        for ( int j = 0 ; j < exprs.size() ; j++ ) {
+            Expr expr = exprs.get(j);
+            CompiledExpr cExpr = ( compiled == null ) ? null : compiled.get(j);
+            for ( int i = 0 ; i < N ; i++ ) {
+                if ( !keep[i] )
+                    continue;
+                cursor.setRow(i);
+                keep[i] = ( cExpr == null ) ? accept(expr, cursor) : accept(cExpr, cursor);
+            }
+        }
+        return batch.select(keep);
+    }
+
+    private boolean accept(CompiledExpr expr, BatchBinding row) {
+        try {
+            return expr.isSatisfied(row, execCxt);
+        } catch (ExprException ex) {
+            Log.warn(this, "Expression Exception in " + expr, ex);
+            return false;
+        } catch (Exception ex) {
+            Log.warn(this, "General exception in " + expr, ex);
+            return false;
+        }
+    }
+
+    private boolean accept(Expr expr, BatchBinding row) {
+        // As QueryIterFilterExpr.
+        try {
+            return expr.isSatisfied(row, execCxt);
+        } catch (ExprException ex) {
+            Log.warn(this, "Expression Exception in " + expr, ex);
+            return false;
+        } catch (Exception ex) {
+            Log.warn(this, "General exception in " + expr, ex);
+            return false;
+        }
+    }
+}
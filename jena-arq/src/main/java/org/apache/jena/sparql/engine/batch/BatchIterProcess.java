@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+/**
+ * A batch operator that takes one input and turns each block into another block,
+ * possibly with fewer rows.
+ */
+public abstract class BatchIterProcess implements BatchIterator {
+    private final BatchIterator input;
+
+    protected BatchIterProcess(BatchIterator input) {
+        this.input = input;
+    }
+
+    /** Process one block. The result may be empty and is then skipped. */
+    protected abstract BindingBatch process(BindingBatch batch);
+
+    @Override
+    public BindingBatch nextBatch() {
+        for ( ;; ) {
+            BindingBatch batch = input.nextBatch();
+            if ( batch == null )
+                return null;
+            BindingBatch result = process(batch);
+            if ( result != null && !result.isEmpty() )
+                return result;
+        }
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+
+    @Override
+    public void cancel() {
+        input.cancel();
+    }
+}
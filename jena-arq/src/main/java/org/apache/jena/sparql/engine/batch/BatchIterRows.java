@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import org.apache.jena.sparql.engine.QueryIterator;
+
+/** Gather the rows of a {@link QueryIterator} into blocks. */
+public class BatchIterRows implements BatchIterator {
+    private final QueryIterator input;
+    private final int           batchSize;
+
+    public BatchIterRows(QueryIterator input, int batchSize) {
+        this.input = input;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public BindingBatch nextBatch() {
+        BindingBatch.Builder builder = null;
+        while ( input.hasNext() ) {
+            if ( builder == null )
+                builder = new BindingBatch.Builder(batchSize);
+            builder.add(input.next());
+            if ( builder.size() >= batchSize )
+                break;
+        }
+        return builder == null ? null : builder.build();
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+
+    @Override
+    public void cancel() {
+        input.cancel();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+/**
+ * Iterator over blocks of rows for batch-at-a-time execution.
+ *
+ * @see QueryIterBatch
+ * @see BatchIterRows
+ */
+public interface BatchIterator {
+    /** The next block of rows or null at the end. A block returned is never empty. */
+    public BindingBatch nextBatch();
+
+    /** Finish with the iterator and any input it is using. */
+    public void close();
+
+    /** Cancellation of the query execution is happening. */
+    public void cancel();
+}
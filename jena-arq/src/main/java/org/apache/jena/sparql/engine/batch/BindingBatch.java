@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingBase;
+
+/**
+ * A block of rows held by column: one array of {@link Node}s per variable, with
+ * {@code null} for "unbound".
+ * <p>
+ * A batch is not changed once built. Operations that remove rows or columns return a new
+ * batch, sharing the column arrays where they can.
+ */
+public class BindingBatch {
+    private final List<Var> vars;
+    private final Node[][]  columns;
+    private final int       size;
+
+    private BindingBatch(List<Var> vars, Node[][] columns, int size) {
+        this.vars = vars;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /** Build a batch from some rows. */
+    public static BindingBatch create(List<Binding> rows) {
+        Builder builder = new Builder(rows.size());
+        rows.forEach(builder::add);
+        return builder.build();
+    }
+
+    /** Number of rows. */
+    public int size()               { return size; }
+
+    public boolean isEmpty()        { return size == 0; }
+
+    /** The variables with a column in this batch; a column may still be unbound in every row. */
+    public List<Var> vars()         { return Collections.unmodifiableList(vars); }
+
+    /** Column index of a variable, or -1. */
+    public int column(Var var) {
+        // Short lists - a linear scan is best.
+        for ( int i = 0 ; i < vars.size() ; i++ ) {
+            if ( vars.get(i).equals(var) )
+                return i;
+        }
+        return -1;
+    }
+
+    /** The value at column {@code col} of row {@code row} or null for unbound. */
+    public Node get(int col, int row) {
+        return columns[col][row];
+    }
+
+    /** The value of a variable in row {@code row} or null for unbound. */
+    public Node get(Var var, int row) {
+        int col = column(var);
+        return col < 0 ? null : columns[col][row];
+    }
+
+    /** The row as a {@link Binding}. */
+    public Binding row(int row) {
+        checkRow(row);
+        return new BatchBinding(this, row);
+    }
+
+    /**
+     * A binding that can be moved over the rows of this batch, for evaluating an
+     * expression on each row in turn without allocating a binding per row. It must not
+     * be retained once the row has moved.
+     */
+    public BatchBinding cursor() {
+        return new BatchBinding(this, 0);
+    }
+
+    /** A batch of just the given variables. The column arrays are shared. */
+    public BindingBatch project(List<Var> projectVars) {
+        List<Var> vars2 = new ArrayList<>(projectVars.size());
+        List<Node[]> columns2 = new ArrayList<>(projectVars.size());
+        for ( Var v : projectVars ) {
+            int col = column(v);
+            if ( col < 0 || vars2.contains(v) )
+                continue;
+            vars2.add(v);
+            columns2.add(columns[col]);
+        }
+        return new BindingBatch(vars2, columns2.toArray(new Node[columns2.size()][]), size);
+    }
+
+    /**
+     * A batch of the rows for which {@code keep} is true.
+     * Returns this batch if every row is kept.
+     */
+    public BindingBatch select(boolean[] keep) {
+        int count = 0;
+        for ( int i = 0 ; i < size ; i++ ) {
+            if ( keep[i] )
+                count++;
+        }
+        if ( count == size )
+            return this;
+        Node[][] columns2 = new Node[columns.length][];
+        for ( int c = 0 ; c < columns.length ; c++ ) {
+            Node[] src = columns[c];
+            Node[] dst = new Node[count];
+            int j = 0;
+            for ( int i = 0 ; i < size ; i++ ) {
+                if ( keep[i] )
+                    dst[j++] = src[i];
+            }
+            columns2[c] = dst;
+        }
+        return new BindingBatch(vars, columns2, count);
+    }
+
+    /** A batch of the rows from {@code start} onwards. */
+    public BindingBatch tail(int start) {
+        if ( start == 0 )
+            return this;
+        Node[][] columns2 = new Node[columns.length][];
+        for ( int c = 0 ; c < columns.length ; c++ )
+            columns2[c] = Arrays.copyOfRange(columns[c], start, size);
+        return new BindingBatch(vars, columns2, size - start);
+    }
+
+    /**
+     * A batch with the column for {@code var} set to {@code values}, replacing any
+     * existing column for that variable. The array is not copied.
+     */
+    public BindingBatch withColumn(Var var, Node[] values) {
+        if ( values.length < size )
+            throw new IllegalArgumentException("Column too short: " + values.length + " < " + size);
+        int col = column(var);
+        if ( col >= 0 ) {
+            Node[][] columns2 = columns.clone();
+            columns2[col] = values;
+            return new BindingBatch(vars, columns2, size);
+        }
+        List<Var> vars2 = new ArrayList<>(vars.size() + 1);
+        vars2.addAll(vars);
+        vars2.add(var);
+        Node[][] columns2 = Arrays.copyOf(columns, columns.length + 1);
+        columns2[columns.length] = values;
+        return new BindingBatch(vars2, columns2, size);
+    }
+
+    private void checkRow(int row) {
+        if ( row < 0 || row >= size )
+            throw new IndexOutOfBoundsException("Row " + row + " : size = " + size);
+    }
+
+    @Override
+    public String toString() {
+        return "BindingBatch" + vars + "[" + size + "]";
+    }
+
+    /** Accumulate rows, by column, for a {@link BindingBatch}. */
+    public static class Builder {
+        private final List<Var>    vars    = new ArrayList<>();
+        private final List<Node[]> columns = new ArrayList<>();
+        private int                capacity;
+        private int                size    = 0;
+
+        public Builder(int initialCapacity) {
+            this.capacity = Math.max(1, initialCapacity);
+        }
+
+        public int size() { return size; }
+
+        /** Add a row. */
+        public Builder add(Binding binding) {
+            ensureSpace();
+            addValues(binding);
+            size++;
+            return this;
+        }
+
+        /**
+         * Add the row that is the merge of two compatible bindings.
+         * The caller is responsible for checking that the bindings are compatible.
+         */
+        public Builder add(Binding binding1, Binding binding2) {
+            ensureSpace();
+            addValues(binding1);
+            addValues(binding2);
+            size++;
+            return this;
+        }
+
+        /** Add a row of a batch. */
+        public Builder add(BindingBatch batch, int row) {
+            ensureSpace();
+            for ( int c = 0 ; c < batch.columns.length ; c++ ) {
+                Node n = batch.columns[c][row];
+                if ( n != null )
+                    column(batch.vars.get(c))[size] = n;
+            }
+            size++;
+            return this;
+        }
+
+        /** Build the batch. The builder must not be used afterwards. */
+        public BindingBatch build() {
+            return new BindingBatch(new ArrayList<>(vars), columns.toArray(new Node[columns.size()][]), size);
+        }
+
+        private void addValues(Binding binding) {
+            for ( Iterator<Var> iter = binding.vars() ; iter.hasNext() ; ) {
+                Var v = iter.next();
+                Node n = binding.get(v);
+                if ( n != null )
+                    column(v)[size] = n;
+            }
+        }
+
+        private Node[] column(Var var) {
+            for ( int i = 0 ; i < vars.size() ; i++ ) {
+                if ( vars.get(i).equals(var) )
+                    return columns.get(i);
+            }
+            Node[] column = new Node[capacity];
+            vars.add(var);
+            columns.add(column);
+            return column;
+        }
+
+        private void ensureSpace() {
+            if ( size < capacity )
+                return;
+            capacity = 2 * capacity;
+            for ( int i = 0 ; i < columns.size() ; i++ )
+                columns.set(i, Arrays.copyOf(columns.get(i), capacity));
+        }
+    }
+
+    /** A {@link Binding} that is one row of a batch. */
+    public static class BatchBinding extends BindingBase {
+        private final BindingBatch batch;
+        private int                row;
+
+        private BatchBinding(BindingBatch batch, int row) {
+            super(null);
+            this.batch = batch;
+            this.row = row;
+        }
+
+        /** Move to another row of the batch. */
+        public void setRow(int row) {
+            batch.checkRow(row);
+            this.row = row;
+        }
+
+        @Override
+        protected Iterator<Var> vars1() {
+            return new Iterator<Var>() {
+                private int col = advance(0);
+
+                private int advance(int c) {
+                    while ( c < batch.columns.length && batch.columns[c][row] == null )
+                        c++;
+                    return c;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return col < batch.columns.length;
+                }
+
+                @Override
+                public Var next() {
+                    if ( !hasNext() )
+                        throw new NoSuchElementException();
+                    Var v = batch.vars.get(col);
+                    col = advance(col + 1);
+                    return v;
+                }
+            };
+        }
+
+        @Override
+        protected int size1() {
+            int x = 0;
+            for ( Node[] column : batch.columns ) {
+                if ( column[row] != null )
+                    x++;
+            }
+            return x;
+        }
+
+        @Override
+        protected boolean isEmpty1() {
+            return size1() == 0;
+        }
+
+        @Override
+        protected boolean contains1(Var var) {
+            return get1(var) != null;
+        }
+
+        @Override
+        protected Node get1(Var var) {
+            return batch.get(var, row);
+        }
+    }
+}
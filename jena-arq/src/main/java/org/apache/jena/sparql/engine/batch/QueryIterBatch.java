@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.iterator.QueryIter;
+
+/**
+ * Present a {@link BatchIterator} as a {@link QueryIter} of rows.
+ * <p>
+ * A following batch operator takes the {@link BatchIterator} back with {@link #detach()}
+ * so that blocks pass between batch operators without being turned into rows.
+ */
+public class QueryIterBatch extends QueryIter {
+    private BatchIterator source;
+    private BindingBatch  current = null;
+    private int           idx     = 0;
+
+    public QueryIterBatch(BatchIterator source, ExecutionContext execCxt) {
+        super(execCxt);
+        this.source = source;
+    }
+
+    /** Whether {@link #detach()} can be used: no rows have been taken. */
+    public boolean canDetach() {
+        return source != null && current == null && !isFinished();
+    }
+
+    /**
+     * Return the underlying {@link BatchIterator}, which the caller is now responsible
+     * for closing, and close this iterator.
+     */
+    public BatchIterator detach() {
+        if ( !canDetach() )
+            throw new IllegalStateException("QueryIterBatch: rows already taken");
+        BatchIterator x = source;
+        source = null;
+        close();
+        return x;
+    }
+
+    @Override
+    protected boolean hasNextBinding() {
+        while ( current == null || idx >= current.size() ) {
+            current = source.nextBatch();
+            idx = 0;
+            if ( current == null )
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected Binding moveToNextBinding() {
+        return current.row(idx++);
+    }
+
+    @Override
+    protected void closeIterator() {
+        current = null;
+        if ( source != null )
+            source.close();
+        source = null;
+    }
+
+    @Override
+    protected void requestCancel() {
+        if ( source != null )
+            source.cancel();
+    }
+}
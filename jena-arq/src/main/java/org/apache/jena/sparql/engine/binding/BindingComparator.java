@@ -77,40 +77,8 @@ public class BindingComparator implements java.util.Comparator<Binding>
     {
         for ( SortCondition sc : conditions )
         {
-            if ( sc.expression == null )
-            {
-                throw new QueryExecException( "Broken sort condition" );
-            }
-
-            NodeValue nv1 = null;
-            NodeValue nv2 = null;
-
-            try
-            {
-                nv1 = sc.expression.eval( bind1, env );
-            }
-            catch ( VariableNotBoundException ex )
-            {
-            }
-            catch ( ExprEvalException ex )
-            {
-                Log.warn( this, ex.getMessage() );
-            }
-
-            try
-            {
-                nv2 = sc.expression.eval( bind2, env );
-            }
-            catch ( VariableNotBoundException ex )
-            {
-            }
-            catch ( ExprEvalException ex )
-            {
-                Log.warn( this, ex.getMessage() );
-            }
-
-            Node n1 = NodeValue.toNode( nv1 );
-            Node n2 = NodeValue.toNode( nv2 );
+            NodeValue nv1 = evalKey(sc, bind1) ;
+            NodeValue nv2 = evalKey(sc, bind2) ;
             int x = compareNodes( nv1, nv2, sc.direction );
             if ( x != Expr.CMP_EQUAL )
             {
@@ -121,6 +89,59 @@ public class BindingComparator implements java.util.Comparator<Binding>
         return compareBindingsSyntactic(bind1, bind2) ;
         //return 0 ;
     }
+
+    // Sort keys: the values of the sort conditions for a binding, which can
+    // be calculated once and kept, rather than on every comparison.
+
+    /** The number of sort keys (one per sort condition). */
+    public int numKeys()
+    {
+        return conditions.size() ;
+    }
+
+    /** Evaluate the i'th sort key for a binding. Returns null for unbound or error. */
+    public NodeValue evalKey(int i, Binding binding)
+    {
+        return evalKey(conditions.get(i), binding) ;
+    }
+
+    /** Compare two values of the i'th sort key, taking the sort direction into account. */
+    public int compareKey(int i, NodeValue nv1, NodeValue nv2)
+    {
+        return compareNodes(nv1, nv2, conditions.get(i).direction) ;
+    }
+
+    /** Compare bindings by their sort keys, as calculated by {@link #evalKey}. */
+    public int compareKeys(NodeValue[] keys1, Binding bind1, NodeValue[] keys2, Binding bind2)
+    {
+        for ( int i = 0 ; i < keys1.length ; i++ )
+        {
+            int x = compareKey(i, keys1[i], keys2[i]) ;
+            if ( x != Expr.CMP_EQUAL )
+                return x ;
+        }
+        return compareBindingsSyntactic(bind1, bind2) ;
+    }
+
+    private NodeValue evalKey(SortCondition sc, Binding binding)
+    {
+        if ( sc.expression == null )
+        {
+            throw new QueryExecException( "Broken sort condition" );
+        }
+        try
+        {
+            return sc.expression.eval( binding, env );
+        }
+        catch ( VariableNotBoundException ex )
+        {
+        }
+        catch ( ExprEvalException ex )
+        {
+            Log.warn( this, ex.getMessage() );
+        }
+        return null ;
+    }
     
     private static int compareNodes(NodeValue nv1, NodeValue nv2, int direction)
     {
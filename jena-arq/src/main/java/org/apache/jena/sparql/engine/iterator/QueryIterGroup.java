@@ -23,12 +23,20 @@ import java.util.Collection ;
 import java.util.Iterator ;
 import java.util.List ;
 
+import org.apache.jena.atlas.data.BagFactory ;
+import org.apache.jena.atlas.data.DataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
 import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.IteratorCons ;
 import org.apache.jena.atlas.iterator.IteratorDelayedInitialization ;
 import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.ext.com.google.common.collect.Multimap;
 import org.apache.jena.ext.com.google.common.collect.MultimapBuilder;
 import org.apache.jena.graph.Node ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.riot.system.SerializationFactoryFinder ;
+import org.apache.jena.sparql.ARQException ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.core.VarExprList ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -40,19 +48,39 @@ import org.apache.jena.sparql.expr.ExprAggregator ;
 import org.apache.jena.sparql.expr.NodeValue ;
 import org.apache.jena.sparql.expr.aggregate.Accumulator ;
 
+/**
+ * Grouping and aggregation. The groups are calculated in-memory unless the
+ * number of groups exceeds the {@link ARQ#spillToDiskThreshold} setting. In that
+ * case, input rows for any further groups are hash partitioned into disk-backed
+ * {@link DataBag}s and each partition is grouped in turn, when the output
+ * reaches it.
+ */
 public class QueryIterGroup extends QueryIterPlainWrapper
 {
+    /** Number of partitions used when the groups do not fit in memory. */
+    private static final int Partitions = 16;
+
 	private final QueryIterator embeddedIterator;
+	private final List<DataBag<Binding>> spills;
 
 	public QueryIterGroup(QueryIterator qIter, 
                           VarExprList groupVars,
                           List<ExprAggregator> aggregators,
                           ExecutionContext execCxt) {
+	    this(qIter, groupVars, aggregators, new ArrayList<>(), execCxt);
+	}
+
+	private QueryIterGroup(QueryIterator qIter,
+	                       VarExprList groupVars,
+	                       List<ExprAggregator> aggregators,
+	                       List<DataBag<Binding>> spills,
+	                       ExecutionContext execCxt) {
 	    // Delayed initalization 
 	    // Does the group calculation when first used (typically hasNext) 
-        super(calc(qIter, groupVars, aggregators, execCxt),
+        super(calc(qIter, groupVars, aggregators, spills, execCxt),
               execCxt);
         this.embeddedIterator = qIter;
+        this.spills = spills;
     }
 
     @Override
@@ -63,6 +91,8 @@ public class QueryIterGroup extends QueryIterPlainWrapper
 
     @Override
     protected void closeIterator() {
+        spills.forEach(DataBag::close);
+        spills.clear();
         this.embeddedIterator.close();
         super.closeIterator();
     }
@@ -72,6 +102,7 @@ public class QueryIterGroup extends QueryIterPlainWrapper
     private static Iterator<Binding> calc(final QueryIterator iter, 
                                           final VarExprList groupVarExpr,
                                           final List<ExprAggregator> aggregators,
+                                          final List<DataBag<Binding>> spills,
                                           final ExecutionContext execCxt) {
         return new IteratorDelayedInitialization<Binding>() {
             @Override
@@ -103,60 +134,136 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                     }
                     return Iter.singleton(binding);
                 }
-                
+
                 // Case: there is input.
-                // Phase 1 : Create keys and aggreators per key, and pump bindings through the aggregators.
-                Multimap<Binding, Pair<Var, Accumulator>> accumulators = MultimapBuilder.hashKeys().arrayListValues().build();
+                long memThreshold = execCxt.getContext().getLong(ARQ.spillToDiskThreshold, Long.MAX_VALUE);
+                if ( memThreshold < 0 )
+                    throw new ARQException("Bad spillToDiskThreshold: "+memThreshold) ;
+                return group(iter, groupVarExpr, aggregators, memThreshold, 0, spills, execCxt);
+            }
+        };
+    }
 
-                while (iter.hasNext()) {
-                    Binding b = iter.nextBinding();
-                    Binding key = genKey(groupVarExpr, b, execCxt);
+    /**
+     * Group the input. The first {@code memThreshold} groups are calculated
+     * in-memory; input for any other group is written to a hash partition.
+     * Partitions are grouped, one at a time, after the in-memory groups have been
+     * returned. Each level of partitioning uses a different hash so that a
+     * partition that is still too large is split further.
+     */
+    private static Iterator<Binding> group(Iterator<Binding> input,
+                                           VarExprList groupVarExpr,
+                                           List<ExprAggregator> aggregators,
+                                           long memThreshold, int level,
+                                           List<DataBag<Binding>> spills,
+                                           ExecutionContext execCxt) {
+        boolean hasAggregators = ( aggregators != null && ! aggregators.isEmpty() );
+        // At least one group in memory at each level so partitioning always makes progress.
+        long maxGroups = Math.max(1, memThreshold);
+        // Phase 1 : Create keys and aggreators per key, and pump bindings through the aggregators.
+        Multimap<Binding, Pair<Var, Accumulator>> accumulators = MultimapBuilder.hashKeys().arrayListValues().build();
+        List<DataBag<Binding>> partitions = null;
 
-                    if ( !hasAggregators ) {
-                        // Put in a dummy to remember the input.
-                        accumulators.put(key, placeholder);
-                        continue;
-                    }
+        while (input.hasNext()) {
+            Binding b = input.next();
+            Binding key = genKey(groupVarExpr, b, execCxt);
 
-                    // Create if does not exist.
-                    if ( !accumulators.containsKey(key) ) {
-                        for ( ExprAggregator agg : aggregators ) {
-                            Accumulator x = agg.getAggregator().createAccumulator();
-                            Var v = agg.getVar();
-                            accumulators.put(key, Pair.create(v, x));
-                        }
-                    }
-
-                    // Do the per-accumulator calculation.
-                    for ( Pair<Var, Accumulator> pair : accumulators.get(key) )
-                        pair.getRight().accumulate(b, execCxt);
+            // Create if does not exist.
+            if ( !accumulators.containsKey(key) ) {
+                if ( accumulators.keySet().size() >= maxGroups ) {
+                    // Not in memory and no space: spill the row.
+                    if ( partitions == null )
+                        partitions = createPartitions(memThreshold, spills, execCxt);
+                    partitions.get(partition(key, level)).add(b);
+                    continue;
+                }
+                if ( !hasAggregators ) {
+                    // Put in a dummy to remember the key.
+                    accumulators.put(key, placeholder);
+                    continue;
+                }
+                for ( ExprAggregator agg : aggregators ) {
+                    Accumulator x = agg.getAggregator().createAccumulator();
+                    Var v = agg.getVar();
+                    accumulators.put(key, Pair.create(v, x));
                 }
+            }
 
-                // Phase 2 : There was input and so there are some groups.
-                // For each bucket, get binding, add aggregator values to the binding.
-                // We used AccNull so there are always accumulators.
+            if ( !hasAggregators )
+                continue;
 
-                if ( !hasAggregators )
-                    // We used placeholder so there are always the key.
-                    return accumulators.keySet().iterator();
+            // Do the per-accumulator calculation.
+            for ( Pair<Var, Accumulator> pair : accumulators.get(key) )
+                pair.getRight().accumulate(b, execCxt);
+        }
 
-                List<Binding> results = new ArrayList<>();
-                for ( Binding k : accumulators.keySet() ) {
-                    Collection<Pair<Var, Accumulator>> accs = accumulators.get(k);
-                    BindingMap b = BindingFactory.create(k);
+        // Phase 2 : There was input and so there are some groups.
+        // For each bucket, get binding, add aggregator values to the binding.
+        // We used AccNull so there are always accumulators.
+        Iterator<Binding> results;
+        if ( !hasAggregators )
+            // We used placeholder so there are always the key.
+            results = accumulators.keySet().iterator();
+        else
+            results = Iter.map(accumulators.keySet().iterator(), k -> result(k, accumulators.get(k)));
 
-                    for ( Pair<Var, Accumulator> pair : accs ) {
-                        NodeValue value = pair.getRight().getValue();
-                        if ( value == null )
-                            continue;
-                        Var v = pair.getLeft();
-                        b.add(v, value.asNode());
+        if ( partitions == null )
+            return results;
+
+        // Then each partition, when reached.
+        for ( DataBag<Binding> partition : partitions ) {
+            if ( partition.size() == 0 ) {
+                partition.close();
+                spills.remove(partition);
+                continue;
+            }
+            Iterator<Binding> groups = new IteratorDelayedInitialization<Binding>() {
+                @Override
+                protected Iterator<Binding> initializeIterator() {
+                    Iterator<Binding> iter = partition.iterator();
+                    try {
+                        return group(iter, groupVarExpr, aggregators, memThreshold, level+1, spills, execCxt);
+                    } finally {
+                        // The partition has been read.
+                        Iter.close(iter);
+                        partition.close();
+                        spills.remove(partition);
                     }
-                    results.add(b);
                 }
-                return results.iterator();
-            }
-        };
+            };
+            results = IteratorCons.create(results, groups);
+        }
+        return results;
+    }
+
+    private static List<DataBag<Binding>> createPartitions(long memThreshold, List<DataBag<Binding>> spills, ExecutionContext execCxt) {
+        List<DataBag<Binding>> partitions = new ArrayList<>(Partitions);
+        for ( int i = 0 ; i < Partitions ; i++ ) {
+            // Share the in-memory allowance between the partitions.
+            ThresholdPolicy<Binding> policy = ThresholdPolicyFactory.count(memThreshold / Partitions);
+            DataBag<Binding> bag = BagFactory.newDefaultBag(policy, SerializationFactoryFinder.bindingSerializationFactory());
+            partitions.add(bag);
+            spills.add(bag);
+        }
+        return partitions;
+    }
+
+    /** Choose the partition for a key, using different hash bits for each level. */
+    private static int partition(Binding key, int level) {
+        int h = key.hashCode() * (0x9E3779B9 + 2*level);
+        return Math.floorMod(h ^ (h >>> 16), Partitions);
+    }
+
+    private static Binding result(Binding key, Collection<Pair<Var, Accumulator>> accs) {
+        BindingMap b = BindingFactory.create(key);
+        for ( Pair<Var, Accumulator> pair : accs ) {
+            NodeValue value = pair.getRight().getValue();
+            if ( value == null )
+                continue;
+            Var v = pair.getLeft();
+            b.add(v, value.asNode());
+        }
+        return b;
     }
 
     static private Binding genKey(VarExprList vars, Binding binding, ExecutionContext execCxt) {
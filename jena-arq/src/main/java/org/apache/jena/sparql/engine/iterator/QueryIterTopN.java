@@ -18,25 +18,41 @@
 
 package org.apache.jena.sparql.engine.iterator;
 
-import static java.util.Arrays.asList;
-
 import java.util.Arrays ;
 import java.util.Comparator ;
+import java.util.HashSet ;
 import java.util.Iterator ;
 import java.util.List ;
-import java.util.PriorityQueue ;
+import java.util.Set ;
 
+import org.apache.jena.atlas.data.BagFactory ;
+import org.apache.jena.atlas.data.SortedDataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.iterator.IteratorDelayedInitialization ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.query.Query ;
 import org.apache.jena.query.QueryCancelledException;
 import org.apache.jena.query.QueryExecException ;
 import org.apache.jena.query.SortCondition ;
+import org.apache.jena.riot.system.SerializationFactoryFinder ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.binding.BindingComparator ;
+import org.apache.jena.sparql.expr.NodeValue ;
 
+/**
+ * Keep the first N bindings by sort order.
+ * <p>
+ * When the comparator is a {@link BindingComparator}, the sort keys of a binding are
+ * evaluated once and kept with the binding, and only as far as needed: a binding
+ * that is rejected by the first sort condition does not have the others evaluated.
+ * <p>
+ * If N is more than the {@link ARQ#spillToDiskThreshold}, the bindings go to a
+ * {@link SortedDataBag}, which spills sorted runs to disk, instead of a heap in memory.
+ */
 public class QueryIterTopN extends QueryIterPlainWrapper
 {
     /* We want to keep the N least elements (overall return is an ascending sequence so limit+ascending = least).   
@@ -45,10 +61,20 @@ public class QueryIterTopN extends QueryIterPlainWrapper
      * This leaves the least N in the heap.    
      */
 	private final QueryIterator embeddedIterator;      // Keep a record of the underlying source for .cancel.
-    private PriorityQueue<Binding> heap ;
+    private final Comparator<Binding> comparator ;
+    // Set when the comparator works on sort conditions, and so sort keys can be kept.
+    private final BindingComparator keyComparator ;
     private long limit ;
     private final boolean distinct ;
-	
+
+    // Max heap, in an array; heap[0] is the greatest of the least N so far.
+    private Entry[] heap ;
+    private int heapSize = 0 ;
+    // Bindings in the heap, when distinct.
+    private Set<Binding> members ;
+    // Used when spilling.
+    private SortedDataBag<Binding> db = null ;
+
     public QueryIterTopN(QueryIterator qIter, List<SortCondition> conditions, long numItems, boolean distinct, ExecutionContext context) {
         this(qIter, new BindingComparator(conditions, context), numItems, distinct, context) ;
     }
@@ -56,6 +82,8 @@ public class QueryIterTopN extends QueryIterPlainWrapper
     public QueryIterTopN(QueryIterator qIter, Comparator<Binding> comparator, long numItems, boolean distinct, ExecutionContext context) {
         super(null, context) ;
         this.embeddedIterator = qIter ;
+        this.comparator = comparator ;
+        this.keyComparator = ( comparator instanceof BindingComparator ) ? (BindingComparator)comparator : null ;
         this.distinct = distinct ;
 
         limit = numItems ;
@@ -73,59 +101,180 @@ public class QueryIterTopN extends QueryIterPlainWrapper
             return ;
         }
 
+        long spillThreshold = context.getContext().getLong(ARQ.spillToDiskThreshold, -1) ;
+        if ( spillThreshold >= 0 && limit > spillThreshold ) {
+            this.setIterator(sortTopNSpill(qIter)) ;
+            return ;
+        }
         // Keep heap with maximum accessible.
-        this.heap = new PriorityQueue<>((int)numItems, comparator.reversed()) ;
-        this.setIterator(sortTopN(qIter, comparator)) ;
+        this.heap = new Entry[(int)Math.min(limit, 1024)] ;
+        this.members = distinct ? new HashSet<>() : null ;
+        this.setIterator(sortTopN(qIter)) ;
     }
 
     @Override
     public void requestCancel() {
+        if ( db != null )
+            db.cancel() ;
         this.embeddedIterator.cancel() ;
         super.requestCancel() ;
     }
 
     @Override
     protected void closeIterator() {
+        if ( db != null )
+            db.close() ;
         this.embeddedIterator.close();
         super.closeIterator();
     }
 
-    private Iterator<Binding> sortTopN(final QueryIterator qIter, final Comparator<Binding> comparator) {
+    private Iterator<Binding> sortTopN(final QueryIterator qIter) {
+        return new IteratorDelayedInitialization<Binding>() {
+            @Override
+            protected Iterator<Binding> initializeIterator() {
+                try {
+                    while ( qIter.hasNext() ) {
+                        Entry entry = new Entry(qIter.next()) ;
+                        if ( heapSize < limit )
+                            add(entry) ;
+                        else if ( compare(entry, heap[0]) < 0 )
+                            // Otherwise rejected, usually on the first sort key.
+                            add(entry) ;
+                    }
+                    qIter.close() ;
+                    Entry[] y = Arrays.copyOf(heap, heapSize) ;
+                    heap = null ;
+                    members = null ;
+                    Arrays.sort(y, QueryIterTopN.this::compare) ;
+                    return Iter.map(Arrays.asList(y).iterator(), e -> e.binding) ;
+                }
+                catch (QueryCancelledException e) {
+                    QueryIterTopN.this.close();
+                    this.close();
+                    throw e;
+                }
+            }
+        } ;
+    }
+
+    private Iterator<Binding> sortTopNSpill(final QueryIterator qIter) {
+        ThresholdPolicy<Binding> policy = ThresholdPolicyFactory.policyFromContext(getExecContext().getContext()) ;
+        db = BagFactory.newSortedBag(policy, SerializationFactoryFinder.bindingSerializationFactory(), comparator) ;
         return new IteratorDelayedInitialization<Binding>() {
             @Override
             protected Iterator<Binding> initializeIterator() {
-		try {
-	                while ( qIter.hasNext() ) {
-	                    Binding binding = qIter.next() ;
-	                    if ( heap.size() < limit )
-	                        add(binding) ;
-	                    else {
-	                        Binding currentMaxLeastN = heap.peek() ;
-	                        if ( comparator.compare(binding, currentMaxLeastN) < 0 )
-	                            add(binding) ;
-	                    }
-	                }
-	                qIter.close() ;
-	                Binding[] y = heap.toArray(new Binding[]{}) ;
-	                heap = null ;
-	                Arrays.sort(y, comparator) ;
-	                return asList(y).iterator() ;
-	            }
-		catch (QueryCancelledException e) {
-			QueryIterTopN.this.close();
-			this.close();
-			throw e;
-		}
-	        }
+                try {
+                    // The greatest of the first N bindings is a cut-off:
+                    // anything greater than it can not be in the least N.
+                    // Not used for distinct because the first N may contain duplicates.
+                    Entry greatest = null ;
+                    Entry cutoff = null ;
+                    long count = 0 ;
+                    while ( qIter.hasNext() ) {
+                        Entry entry = new Entry(qIter.next()) ;
+                        if ( cutoff != null ) {
+                            if ( compare(entry, cutoff) > 0 )
+                                continue ;
+                        } else if ( ! distinct ) {
+                            if ( greatest == null || compare(entry, greatest) > 0 )
+                                greatest = entry ;
+                            if ( ++count == limit )
+                                cutoff = greatest ;
+                        }
+                        db.add(entry.binding) ;
+                    }
+                    qIter.close() ;
+                    Iterator<Binding> iter = db.iterator() ;
+                    if ( distinct )
+                        // Equal bindings compare as equal so are adjacent.
+                        iter = Iter.distinctAdjacent(iter) ;
+                    return Iter.limit(iter, limit) ;
+                }
+                catch (QueryCancelledException e) {
+                    QueryIterTopN.this.close();
+                    this.close();
+                    throw e;
+                }
+            }
         } ;
     }
 
-    private void add(Binding binding) {
-        if ( distinct && heap.contains(binding) )
+    private void add(Entry entry) {
+        if ( distinct && ! members.add(entry.binding) )
+            return ;
+        if ( heapSize >= limit ) {
+            // Replace the front element.
+            if ( distinct )
+                members.remove(heap[0].binding) ;
+            heap[0] = entry ;
+            siftDown(0) ;
             return ;
-        if ( heap.size() >= limit )
-            heap.poll() ;  // Remove front element.
-        heap.add(binding) ;
+        }
+        if ( heapSize == heap.length )
+            heap = Arrays.copyOf(heap, (int)Math.min(limit, 2L*heap.length)) ;
+        heap[heapSize] = entry ;
+        siftUp(heapSize) ;
+        heapSize++ ;
     }
 
+    private void siftUp(int idx) {
+        Entry entry = heap[idx] ;
+        while ( idx > 0 ) {
+            int parent = (idx - 1) >>> 1 ;
+            if ( compare(entry, heap[parent]) <= 0 )
+                break ;
+            heap[idx] = heap[parent] ;
+            idx = parent ;
+        }
+        heap[idx] = entry ;
+    }
+
+    private void siftDown(int idx) {
+        Entry entry = heap[idx] ;
+        int half = heapSize >>> 1 ;
+        while ( idx < half ) {
+            int child = 2 * idx + 1 ;
+            int right = child + 1 ;
+            if ( right < heapSize && compare(heap[right], heap[child]) > 0 )
+                child = right ;
+            if ( compare(entry, heap[child]) >= 0 )
+                break ;
+            heap[idx] = heap[child] ;
+            idx = child ;
+        }
+        heap[idx] = entry ;
+    }
+
+    private int compare(Entry e1, Entry e2) {
+        if ( keyComparator == null )
+            return comparator.compare(e1.binding, e2.binding) ;
+        int N = keyComparator.numKeys() ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            int x = keyComparator.compareKey(i, e1.key(keyComparator, i), e2.key(keyComparator, i)) ;
+            if ( x != 0 )
+                return x ;
+        }
+        return BindingComparator.compareBindingsSyntactic(e1.binding, e2.binding) ;
+    }
+
+    /** A binding and its sort keys, evaluated when first needed. */
+    private static final class Entry {
+        final Binding binding ;
+        private NodeValue[] keys = null ;
+        private int evaluated = 0 ;
+
+        Entry(Binding binding) {
+            this.binding = binding ;
+        }
+
+        NodeValue key(BindingComparator keyComparator, int i) {
+            if ( keys == null )
+                keys = new NodeValue[keyComparator.numKeys()] ;
+            while ( evaluated <= i ) {
+                keys[evaluated] = keyComparator.evalKey(evaluated, binding) ;
+                evaluated++ ;
+            }
+            return keys[i] ;
+        }
+    }
 }
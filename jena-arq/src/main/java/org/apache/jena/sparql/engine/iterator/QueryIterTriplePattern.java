@@ -18,6 +18,8 @@
 
 package org.apache.jena.sparql.engine.iterator;
 
+import java.util.List ;
+
 import org.apache.jena.atlas.io.IndentedWriter;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Node ;
@@ -29,6 +31,7 @@ import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.engine.binding.BindingMap ;
+import org.apache.jena.sparql.engine.join.JoinKeyFilter ;
 import org.apache.jena.sparql.serializer.SerializationContext;
 import org.apache.jena.util.iterator.ClosableIterator ;
 import org.apache.jena.util.iterator.NiceIterator ;
@@ -67,10 +70,13 @@ public class QueryIterTriplePattern extends QueryIterRepeatApply
         private Binding slot = null ;
         private boolean finished = false ;
         private volatile boolean cancelled = false ;
+        // Semi-join reduction from enclosing hash joins.
+        private final List<JoinKeyFilter> keyFilters ;
 
         TripleMapper(Binding binding, Triple pattern, ExecutionContext cxt)
         {
             super(cxt) ;
+            this.keyFilters = JoinKeyFilter.filters(cxt.getContext()) ;
             this.s = substitute(pattern.getSubject(), binding) ;
             this.p = substitute(pattern.getPredicate(), binding) ;
             this.o = substitute(pattern.getObject(), binding) ;
@@ -102,6 +108,8 @@ public class QueryIterTriplePattern extends QueryIterRepeatApply
 
         private Binding mapper(Triple r)
         {
+            if ( keyFilters != null && ! acceptKeys(r) )
+                return null ;
             BindingMap results = BindingFactory.create(binding) ;
 
             if ( ! insert(s, r.getSubject(), results) )
@@ -113,6 +121,18 @@ public class QueryIterTriplePattern extends QueryIterRepeatApply
             return results ;
         }
 
+        private boolean acceptKeys(Triple r)
+        {
+            return acceptKey(s, r.getSubject()) && acceptKey(p, r.getPredicate()) && acceptKey(o, r.getObject()) ;
+        }
+
+        private boolean acceptKey(Node inputNode, Node outputNode)
+        {
+            if ( ! Var.isVar(inputNode) )
+                return true ;
+            return JoinKeyFilter.accept(keyFilters, Var.alloc(inputNode), outputNode) ;
+        }
+
         private static boolean insert(Node inputNode, Node outputNode, BindingMap results)
         {
             if ( ! Var.isVar(inputNode) )
@@ -22,6 +22,7 @@ import java.util.Iterator ;
 import java.util.List ;
 
 import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.algebra.Algebra ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -34,6 +35,10 @@ import org.apache.jena.sparql.engine.iterator.QueryIterPeek ;
  *  
  * This code materializes one input into the probe table
  * then hash joins the other input from the stream side.
+ * <p>
+ * If the probe table grows beyond {@link ARQ#spillToDiskThreshold}, 
+ * both inputs are partitioned to disk and joined a partition at a time
+ * (grace hash join, see {@link HashJoinSpill}).
  */
 
 public abstract class AbstractIterHashJoin extends QueryIter2 {
@@ -45,6 +50,9 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
     
     protected final JoinKey               joinKey ;
     protected final HashProbeTable        hashTable ;
+    private final long                  spillThreshold ;
+    // Not null if the probe table spilled to disk.
+    private HashJoinSpill               spill           = null ;
 
     private QueryIterator               iterStream ;
     private Binding                     rowStream       = null ;
@@ -59,8 +67,25 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
     private Binding slot = null ;
 
     protected AbstractIterHashJoin(JoinKey joinKey, QueryIterator probeIter, QueryIterator streamIter, ExecutionContext execCxt) {
+        this(joinKey, probeIter, streamIter, null, execCxt) ;
+    }
+
+    /**
+     * As {@link #AbstractIterHashJoin(JoinKey, QueryIterator, QueryIterator, ExecutionContext)},
+     * also recording the probe table rows in a {@link JoinKeyFilter} (if not null)
+     * for use by the stream side.
+     */
+    protected AbstractIterHashJoin(JoinKey joinKey, QueryIterator probeIter, QueryIterator streamIter,
+                                   JoinKeyFilter keyFilter, ExecutionContext execCxt) {
         super(probeIter, streamIter, execCxt) ;
         
+        if ( joinKey == null && keyFilter != null ) {
+            // The stream side is evaluated after the filter is complete: do not peek at it.
+            QueryIterPeek pProbe = QueryIterPeek.create(probeIter, execCxt) ;
+            List<Var> varsLeft = Iter.toList(pProbe.peek().vars()) ;
+            joinKey = JoinKey.createVarKey(varsLeft, keyFilter.getJoinVars()) ;
+            probeIter = pProbe ;
+        }
         if ( joinKey == null ) {
             QueryIterPeek pProbe = QueryIterPeek.create(probeIter, execCxt) ;
             QueryIterPeek pStream = QueryIterPeek.create(streamIter, execCxt) ;
@@ -78,22 +103,44 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         this.joinKey = joinKey ;
         this.iterStream = streamIter ;
         this.hashTable = new HashProbeTable(joinKey) ;
+        this.spillThreshold = ( execCxt == null ) ? -1 : execCxt.getContext().getLong(ARQ.spillToDiskThreshold, -1) ;
         this.iterCurrent = null ;
-        buildHashTable(probeIter) ;
+        buildHashTable(probeIter, keyFilter) ;
         
     }
         
-    private void buildHashTable(QueryIterator iter1) {
+    private void buildHashTable(QueryIterator iter1, JoinKeyFilter keyFilter) {
         state = Phase.HASH ;
         for (; iter1.hasNext();) {
             Binding row1 = iter1.next() ;
             s_countProbe ++ ;
-            hashTable.put(row1) ;
+            if ( spill != null )
+                spill.addProbe(row1) ;
+            else {
+                hashTable.put(row1) ;
+                if ( spillThreshold >= 0 && s_countProbe > spillThreshold )
+                    startSpill() ;
+            }
+            if ( keyFilter != null )
+                keyFilter.add(row1) ;
         }
         iter1.close() ;
+        if ( keyFilter != null )
+            keyFilter.finish() ;
         state = Phase.STREAM ;
     }
 
+    private void startSpill() {
+        spill = new HashJoinSpill(this, joinKey, spillThreshold) ;
+        hashTable.values().forEachRemaining(spill::addProbe) ;
+        hashTable.clear() ;
+    }
+
+    /** Whether the probe table has been spilled to disk. */
+    protected boolean isSpilled() {
+        return spill != null ;
+    }
+
     @Override
     protected boolean hasNextBinding() {
         if ( isFinished() ) 
@@ -130,6 +177,9 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
             case STREAM :
         }
         
+        if ( spill != null )
+            return moveToNextBindingSpill() ;
+        
         for(;;) {
             // Ensure we are processing a row. 
             while ( iterCurrent == null ) {
@@ -180,6 +230,22 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
     }    
     
     
+    private boolean streamPartitioned = false ;
+
+    private Binding moveToNextBindingSpill() {
+        if ( ! streamPartitioned ) {
+            iterStream.forEachRemaining(spill::addStream) ;
+            streamPartitioned = true ;
+        }
+        Binding b = spill.next() ;
+        if ( b == null ) {
+            state = Phase.DONE ;
+            return null ;
+        }
+        s_countResults ++ ;
+        return b ;
+    }
+
     private Binding doOneTail() {
         // Only in TRAILING
         if ( iterTail.hasNext() ) {
@@ -216,6 +282,18 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
      * @return QueryIterator or null
      */
     protected abstract QueryIterator joinFinished() ;
+
+    /**
+     * Signal a row of the probe table that yielded no matches.
+     * This is only called when the probe table has spilled to disk,
+     * in which case {@link #joinFinished} is not called.
+     * The outer join case returns the row which will then be yielded.
+     * @param rowProbe
+     * @return Binding or null
+     */
+    protected Binding noYieldedProbeRow(Binding rowProbe) {
+        return null ;
+    }
         
     @Override
     protected void closeSubIterator() {
@@ -229,6 +307,8 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         // In case it's a peek iterator.
         iterStream.close() ;
         hashTable.clear(); 
+        if ( spill != null )
+            spill.close() ;
     }
 
     @Override
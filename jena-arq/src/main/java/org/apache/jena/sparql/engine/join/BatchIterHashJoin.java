@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import java.util.Iterator;
+
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.engine.batch.BatchIterator;
+import org.apache.jena.sparql.engine.batch.BindingBatch;
+import org.apache.jena.sparql.engine.binding.Binding;
+
+/** Hash join for batch execution.
+ * <p>
+ * As {@link QueryIterHashJoin}, this materializes the left into a probe table
+ * then hash joins from the right, a block at a time. Results are written straight
+ * into the columns of the output block, so no intermediate binding is created
+ * for each result row.
+ */
+public class BatchIterHashJoin implements BatchIterator {
+    private JoinKey                 joinKey;
+    private final BatchIterator     left;
+    private final BatchIterator     right;
+    private final int               batchSize;
+
+    private HashProbeTable          hashTable   = null;
+    private boolean                 leftClosed  = false;
+    private boolean                 finished    = false;
+
+    // The stream side.
+    private BindingBatch            pending     = null;
+    private BindingBatch            streamBatch = null;
+    private int                     streamRow   = 0;
+    private Binding                 rowStream   = null;
+    private Iterator<Binding>       iterCurrent = null;
+
+    /**
+     * @param joinKey   Join key - if null, one is guessed from the first blocks of each side
+     * @param left      Left hand side, used for the probe table
+     * @param right     Right hand side, streamed
+     * @param batchSize Rows in each output block
+     */
+    public BatchIterHashJoin(JoinKey joinKey, BatchIterator left, BatchIterator right, int batchSize) {
+        this.joinKey = joinKey;
+        this.left = left;
+        this.right = right;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public BindingBatch nextBatch() {
+        if ( finished )
+            return null;
+        if ( hashTable == null && ! buildHashTable() ) {
+            close();
+            return null;
+        }
+        BindingBatch.Builder builder = new BindingBatch.Builder(batchSize);
+        while ( builder.size() < batchSize ) {
+            if ( iterCurrent == null || ! iterCurrent.hasNext() ) {
+                iterCurrent = null;
+                if ( ! advanceStream() )
+                    break;
+                continue;
+            }
+            Binding rowProbe = iterCurrent.next();
+            if ( Algebra.compatible(rowProbe, rowStream) )
+                builder.add(rowProbe, rowStream);
+        }
+        if ( builder.size() == 0 ) {
+            close();
+            return null;
+        }
+        return builder.build();
+    }
+
+    private boolean buildHashTable() {
+        BindingBatch first = left.nextBatch();
+        if ( first == null )
+            return false;
+        pending = right.nextBatch();
+        if ( pending == null )
+            return false;
+        if ( joinKey == null )
+            joinKey = JoinKey.createVarKey(first.vars(), pending.vars());
+        hashTable = new HashProbeTable(joinKey);
+        for ( BindingBatch batch = first ; batch != null ; batch = left.nextBatch() ) {
+            for ( int i = 0 ; i < batch.size() ; i++ )
+                hashTable.put(batch.row(i));
+        }
+        closeLeft();
+        return true;
+    }
+
+    /** Move to the next row of the stream side. */
+    private boolean advanceStream() {
+        if ( streamBatch == null || streamRow >= streamBatch.size() ) {
+            if ( pending != null ) {
+                streamBatch = pending;
+                pending = null;
+            } else
+                streamBatch = right.nextBatch();
+            streamRow = 0;
+            if ( streamBatch == null )
+                return false;
+        }
+        rowStream = streamBatch.row(streamRow++);
+        iterCurrent = hashTable.getCandidates(rowStream);
+        return true;
+    }
+
+    private void closeLeft() {
+        if ( ! leftClosed )
+            left.close();
+        leftClosed = true;
+    }
+
+    @Override
+    public void close() {
+        if ( finished )
+            return;
+        finished = true;
+        closeLeft();
+        right.close();
+        if ( hashTable != null )
+            hashTable.clear();
+        pending = null;
+        streamBatch = null;
+        iterCurrent = null;
+    }
+
+    @Override
+    public void cancel() {
+        if ( ! leftClosed )
+            left.cancel();
+        right.cancel();
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.atlas.data.BagFactory;
+import org.apache.jena.atlas.data.DataBag;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory;
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.riot.system.SerializationFactoryFinder;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.engine.binding.Binding;
+
+/**
+ * The disk-based part of a hash join, used when the probe table is larger than the
+ * spill threshold (grace hash join).
+ * <p>
+ * Both sides are partitioned by the hash of the join key into {@link DataBag DataBags}.
+ * Rows that do not bind any join key variable go into a partition of their own because
+ * they can join with any row from the other side. Each probe partition is then loaded
+ * into memory, in chunks of no more than the threshold, and the matching stream
+ * partitions are replayed against it.
+ * <p>
+ * Each pair of probe row and stream row is considered exactly once:
+ * <ul>
+ * <li>probe partition <i>i</i> against stream partition <i>i</i> and the no-key stream rows,</li>
+ * <li>the no-key probe rows against all the stream rows.</li>
+ * </ul>
+ * Rows that take part in a result are recorded by position in their partition so that
+ * outer joins can add the unmatched rows at the end.
+ */
+class HashJoinSpill {
+    /** Number of partitions of each side (plus one each for rows with no join key) */
+    static final int DefaultPartitions = 32;
+
+    private final AbstractIterHashJoin owner;
+    private final JoinKey              joinKey;
+    private final int                  numPartitions;
+    private final long                 chunkSize;
+
+    // Index numPartitions is the no-key partition.
+    private final DataBag<Binding>[]   probeBags;
+    private final DataBag<Binding>[]   streamBags;
+    private final BitSet[]             probeHits;
+    private final BitSet[]             streamHits;
+
+    private enum Phase { JOIN, STREAM_MISSES, PROBE_MISSES, DONE }
+    private Phase phase = Phase.JOIN;
+
+    // JOIN phase: the probe partition and the chunk of it in memory.
+    private int                        probeIdx     = -1;
+    private Iterator<Binding>          probeIter    = null;
+    private int                        probeOrdinal = 0;
+    private HashProbeTable             chunkTable   = null;
+    private Map<Binding, Integer>      chunkRows    = null;
+    // The stream partitions to replay against the current chunk.
+    private List<Integer>              streamIdxs   = null;
+    private int                        streamIdxPosn;
+    private int                        streamIdx;
+    private Iterator<Binding>          streamIter   = null;
+    private int                        streamOrdinal;
+    private Binding                    rowStream    = null;
+    private Iterator<Binding>          candidates   = null;
+    // MISSES phases
+    private int                        missIdx;
+
+    @SuppressWarnings("unchecked")
+    HashJoinSpill(AbstractIterHashJoin owner, JoinKey joinKey, long threshold) {
+        this.owner = owner;
+        this.joinKey = joinKey;
+        this.numPartitions = DefaultPartitions;
+        this.chunkSize = Math.max(1, threshold);
+        this.probeBags = new DataBag[numPartitions+1];
+        this.streamBags = new DataBag[numPartitions+1];
+        this.probeHits = new BitSet[numPartitions+1];
+        this.streamHits = new BitSet[numPartitions+1];
+        // Overall, no more than the threshold of rows in memory for each side before spilling.
+        long bagThreshold = Math.max(1, threshold/(numPartitions+1));
+        for ( int i = 0 ; i <= numPartitions ; i++ ) {
+            probeBags[i] = BagFactory.newDefaultBag(ThresholdPolicyFactory.count(bagThreshold),
+                                                    SerializationFactoryFinder.bindingSerializationFactory());
+            streamBags[i] = BagFactory.newDefaultBag(ThresholdPolicyFactory.count(bagThreshold),
+                                                     SerializationFactoryFinder.bindingSerializationFactory());
+            probeHits[i] = new BitSet();
+            streamHits[i] = new BitSet();
+        }
+    }
+
+    private int partition(Binding row) {
+        Object hash = JoinLib.hash(joinKey, row);
+        if ( hash == JoinLib.noKeyHash )
+            return numPartitions;
+        int x = Long.hashCode((Long)hash);
+        x = x ^ (x >>> 16);
+        return Math.floorMod(x, numPartitions);
+    }
+
+    void addProbe(Binding row) {
+        probeBags[partition(row)].add(row);
+    }
+
+    void addStream(Binding row) {
+        streamBags[partition(row)].add(row);
+    }
+
+    /** Next result, or null when finished. All the stream rows must have been added. */
+    Binding next() {
+        for ( ;; ) {
+            switch (phase) {
+                case JOIN : {
+                    Binding b = joinStep();
+                    if ( b != null )
+                        return b;
+                    if ( phase == Phase.JOIN )
+                        continue;
+                    missIdx = 0;
+                    closeStreamIter();
+                    continue;
+                }
+                case STREAM_MISSES : {
+                    Binding b = missesStep(streamBags, streamHits, false);
+                    if ( b != null )
+                        return b;
+                    continue;
+                }
+                case PROBE_MISSES : {
+                    Binding b = missesStep(probeBags, probeHits, true);
+                    if ( b != null )
+                        return b;
+                    continue;
+                }
+                case DONE :
+                    return null;
+            }
+        }
+    }
+
+    /** Return a result, or null for "no result yet" (or moved to the misses phase). */
+    private Binding joinStep() {
+        if ( candidates != null ) {
+            while (candidates.hasNext()) {
+                Binding rowProbe = candidates.next();
+                Binding r = Algebra.merge(rowProbe, rowStream);
+                if ( r == null )
+                    continue;
+                Binding r2 = owner.yieldOneResult(rowProbe, rowStream, r);
+                if ( r2 == null )
+                    continue;
+                probeHits[probeIdx].set(chunkRows.get(rowProbe));
+                streamHits[streamIdx].set(streamOrdinal);
+                return r2;
+            }
+            candidates = null;
+        }
+        if ( streamIter != null && streamIter.hasNext() ) {
+            rowStream = streamIter.next();
+            streamOrdinal++;
+            owner.s_countScan++;
+            candidates = chunkTable.getCandidates(rowStream);
+            return null;
+        }
+        // Next stream partition for this chunk.
+        if ( streamIdxs != null && streamIdxPosn < streamIdxs.size() ) {
+            streamIdx = streamIdxs.get(streamIdxPosn++);
+            closeStreamIter();
+            streamIter = streamBags[streamIdx].iterator();
+            streamOrdinal = -1;
+            return null;
+        }
+        // Next chunk of this probe partition.
+        if ( probeIter != null && probeIter.hasNext() ) {
+            loadChunk();
+            return null;
+        }
+        // Next probe partition.
+        closeStreamIter();
+        streamIdxs = null;
+        chunkTable = null;
+        chunkRows = null;
+        for ( probeIdx++ ; probeIdx <= numPartitions ; probeIdx++ ) {
+            if ( probeBags[probeIdx].size() == 0 )
+                continue;
+            streamIdxs = streamPartitions(probeIdx);
+            if ( streamIdxs.isEmpty() )
+                continue;
+            closeProbeIter();
+            probeIter = probeBags[probeIdx].iterator();
+            probeOrdinal = 0;
+            loadChunk();
+            return null;
+        }
+        closeProbeIter();
+        phase = Phase.STREAM_MISSES;
+        return null;
+    }
+
+    private List<Integer> streamPartitions(int idx) {
+        List<Integer> x = new ArrayList<>();
+        if ( idx == numPartitions ) {
+            for ( int i = 0 ; i <= numPartitions ; i++ ) {
+                if ( streamBags[i].size() != 0 )
+                    x.add(i);
+            }
+        } else {
+            if ( streamBags[idx].size() != 0 )
+                x.add(idx);
+            if ( streamBags[numPartitions].size() != 0 )
+                x.add(numPartitions);
+        }
+        return x;
+    }
+
+    private void loadChunk() {
+        chunkTable = new HashProbeTable(joinKey);
+        chunkRows = new IdentityHashMap<>();
+        for ( long i = 0 ; i < chunkSize && probeIter.hasNext() ; i++ ) {
+            Binding row = probeIter.next();
+            chunkTable.put(row);
+            chunkRows.put(row, probeOrdinal++);
+        }
+        streamIdxPosn = 0;
+        closeStreamIter();
+    }
+
+    private Binding missesStep(DataBag<Binding>[] bags, BitSet[] hits, boolean probeSide) {
+        for ( ;; ) {
+            if ( streamIter != null ) {
+                while (streamIter.hasNext()) {
+                    Binding row = streamIter.next();
+                    streamOrdinal++;
+                    if ( hits[missIdx-1].get(streamOrdinal) )
+                        continue;
+                    Binding b = probeSide ? owner.noYieldedProbeRow(row) : owner.noYieldedRows(row);
+                    if ( b != null )
+                        return b;
+                }
+                closeStreamIter();
+            }
+            if ( missIdx > numPartitions ) {
+                missIdx = 0;
+                phase = probeSide ? Phase.DONE : Phase.PROBE_MISSES;
+                return null;
+            }
+            closeStreamIter();
+            streamIter = bags[missIdx++].iterator();
+            streamOrdinal = -1;
+        }
+    }
+
+    // Bag iterators may hold open files.
+    private void closeStreamIter() {
+        Iter.close(streamIter);
+        streamIter = null;
+    }
+
+    private void closeProbeIter() {
+        Iter.close(probeIter);
+        probeIter = null;
+    }
+
+    void close() {
+        closeStreamIter();
+        closeProbeIter();
+        for ( int i = 0 ; i <= numPartitions ; i++ ) {
+            probeBags[i].close();
+            streamBags[i].close();
+        }
+        candidates = null;
+        chunkTable = null;
+        chunkRows = null;
+    }
+}
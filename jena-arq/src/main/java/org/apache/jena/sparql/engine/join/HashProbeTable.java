@@ -112,5 +112,6 @@ class HashProbeTable {
     
     public void clear() {
         buckets.clear();
+        noKeyBucket.clear();
     }
 }
@@ -27,6 +27,8 @@ import org.apache.jena.sparql.algebra.Table ;
 import org.apache.jena.sparql.algebra.TableFactory ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.batch.BatchExec ;
+import org.apache.jena.sparql.engine.batch.BatchIterator ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
 import org.apache.jena.sparql.engine.main.OpExecutor ;
@@ -127,6 +129,37 @@ public class Join {
         return QueryIterHashJoin.create(joinKey, left, right, execCxt) ;
     }
 
+    /** Evaluate using a hash join, filling in a {@link JoinKeyFilter} from the left hand side.
+     * 
+     * @param joinKey   The key for the probe table, or null to guess it from the inputs.
+     * @param left      Left hand side
+     * @param right     Right hand side, evaluated with the filter in its context.
+     * @param keyFilter The filter.
+     * @param execCxt   ExecutionContext
+     * @return          QueryIterator
+     */
+    public static QueryIterator hashJoin(JoinKey joinKey, QueryIterator left, QueryIterator right,
+                                         JoinKeyFilter keyFilter, ExecutionContext execCxt) {
+        return QueryIterHashJoin.create(joinKey, left, right, keyFilter, execCxt) ;
+    }
+
+    /** Evaluate using a hash join, passing blocks of rows.
+     * The inputs may be the output of other batch operators.
+     * 
+     * @param joinKey   The key for the probe table, or null to guess it from the inputs.
+     * @param left      Left hand side
+     * @param right     Right hand side
+     * @param execCxt   ExecutionContext
+     * @return          QueryIterator
+     * @see BatchExec
+     */
+    public static QueryIterator batchHashJoin(JoinKey joinKey, QueryIterator left, QueryIterator right, ExecutionContext execCxt) {
+        BatchIterator batchLeft = BatchExec.asBatches(left, execCxt) ;
+        BatchIterator batchRight = BatchExec.asBatches(right, execCxt) ;
+        BatchIterator join = new BatchIterHashJoin(joinKey, batchLeft, batchRight, BatchExec.batchSize(execCxt)) ;
+        return BatchExec.asRows(join, execCxt) ;
+    }
+
     /**
      * Left outer join by using hash join. Normally, this is
      * hashing the right hand side and streaming the left.  The reverse
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import java.util.*;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.*;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.expr.ExprVisitorBase;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * The values of the join variables on the build side of a hash join, passed to
+ * the evaluation of the stream side so that rows which can not join are dropped
+ * as soon as a pattern produces them (a semi-join reduction).
+ * <p>
+ * The filter is filled in while the hash table is built. Until then, and for any
+ * variable which is unbound in some build row or has more than a set number of
+ * values, it accepts everything: the join itself still checks every row.
+ * <p>
+ * Filters in effect are found in the {@link Context} of the execution under
+ * {@link ARQConstants#sysJoinKeyFilters}. Pattern matching checks them with
+ * {@link #accept(List, Var, Node)}; storage layers may use {@link #getValues(Var)}
+ * to build their own form of the filter.
+ */
+public class JoinKeyFilter {
+    /** The default limit on the number of values of a variable. */
+    public static final int DefaultMaxValues = 100_000;
+
+    private final List<Var> joinVars;
+    private final Map<Var, Set<Node>> values = new HashMap<>();
+    private final int maxValues;
+    private volatile boolean ready = false;
+
+    public JoinKeyFilter(Collection<Var> vars) {
+        this(vars, DefaultMaxValues);
+    }
+
+    public JoinKeyFilter(Collection<Var> vars, int maxValues) {
+        this.joinVars = Collections.unmodifiableList(new ArrayList<>(vars));
+        this.maxValues = maxValues;
+        for ( Var v : vars )
+            values.put(v, new HashSet<>());
+    }
+
+    /** Record a row of the build side. */
+    public void add(Binding row) {
+        if ( ready )
+            throw new IllegalStateException("JoinKeyFilter already complete");
+        Iterator<Map.Entry<Var, Set<Node>>> iter = values.entrySet().iterator();
+        while ( iter.hasNext() ) {
+            Map.Entry<Var, Set<Node>> e = iter.next();
+            Node n = row.get(e.getKey());
+            // Unbound joins with anything. Too many values is not worth filtering.
+            if ( n == null || ( e.getValue().add(n) && e.getValue().size() > maxValues ) )
+                iter.remove();
+        }
+    }
+
+    /** The build side is complete; the filter now applies. */
+    public void finish() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** The variables the filter was created for, whether or not they end up restricted. */
+    public List<Var> getJoinVars() {
+        return joinVars;
+    }
+
+    /** The variables restricted by this filter, once it is complete. */
+    public Set<Var> getVars() {
+        return ready ? Collections.unmodifiableSet(values.keySet()) : Collections.emptySet();
+    }
+
+    /** The values that a variable may take, or null if the variable is not restricted. */
+    public Set<Node> getValues(Var var) {
+        if ( ! ready )
+            return null;
+        Set<Node> x = values.get(var);
+        return x == null ? null : Collections.unmodifiableSet(x);
+    }
+
+    /** Whether a row with the variable bound to the node may join. */
+    public boolean accept(Var var, Node node) {
+        if ( ! ready )
+            return true;
+        Set<Node> x = values.get(var);
+        return x == null || x.contains(node);
+    }
+
+    /** Check a list of filters, as returned by {@link #filters(Context)}. */
+    public static boolean accept(List<JoinKeyFilter> filters, Var var, Node node) {
+        for ( JoinKeyFilter f : filters ) {
+            if ( ! f.accept(var, node) )
+                return false;
+        }
+        return true;
+    }
+
+    /** The filters in effect for an execution, or null for none. */
+    public static List<JoinKeyFilter> filters(Context context) {
+        @SuppressWarnings("unchecked")
+        List<JoinKeyFilter> x = (List<JoinKeyFilter>)context.get(ARQConstants.sysJoinKeyFilters);
+        return x;
+    }
+
+    /** An execution context, sharing iterator tracking, with a filter added. */
+    public static ExecutionContext addFilter(ExecutionContext execCxt, JoinKeyFilter filter) {
+        List<JoinKeyFilter> x = new ArrayList<>();
+        List<JoinKeyFilter> current = filters(execCxt.getContext());
+        if ( current != null )
+            x.addAll(current);
+        x.add(filter);
+        Context cxt = execCxt.getContext().copy();
+        cxt.set(ARQConstants.sysJoinKeyFilters, Collections.unmodifiableList(x));
+        return new ExecutionContext(execCxt, cxt);
+    }
+
+    /**
+     * Whether dropping rows, that have a restricted variable bound to another value,
+     * from the patterns inside {@code op} only drops rows from the results of {@code op}.
+     * This is so for basic patterns combined by join, sequence, filter and graph.
+     * It is not so for OPTIONAL or MINUS (a dropped row may let another row through)
+     * or for FILTER EXISTS.
+     */
+    public static boolean canFilter(Op op) {
+        if ( op instanceof OpBGP || op instanceof OpQuadPattern || op instanceof OpTriple || op instanceof OpQuad )
+            return true;
+        if ( op instanceof OpFilter ) {
+            OpFilter opFilter = (OpFilter)op;
+            if ( hasExists(opFilter) )
+                return false;
+            return canFilter(opFilter.getSubOp());
+        }
+        if ( op instanceof OpGraph )
+            return canFilter(((OpGraph)op).getSubOp());
+        if ( op instanceof OpJoin )
+            return canFilter(((OpJoin)op).getLeft()) && canFilter(((OpJoin)op).getRight());
+        if ( op instanceof OpSequence ) {
+            for ( Op sub : ((OpSequence)op).getElements() ) {
+                if ( ! canFilter(sub) )
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean hasExists(OpFilter opFilter) {
+        boolean[] found = { false };
+        Walker.walk(opFilter.getExprs(), new ExprVisitorBase() {
+            @Override
+            public void visit(ExprFunctionOp op) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+}
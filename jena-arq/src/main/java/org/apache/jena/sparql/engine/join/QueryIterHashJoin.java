@@ -43,15 +43,33 @@ public class QueryIterHashJoin extends AbstractIterHashJoin {
      * @return QueryIterator
      */
     public static QueryIterator create(JoinKey joinKey, QueryIterator left, QueryIterator right, ExecutionContext execCxt) {
+        return create(joinKey, left, right, null, execCxt) ;
+    }
+
+    /**
+     * Create a hashjoin QueryIterator that fills in a {@link JoinKeyFilter} from the left
+     * side as it builds the probe table.
+     * The right side is not touched until the probe table is built and the filter is complete.
+     * @param joinKey  Join key - if null, one is guessed by snooping the input QueryIterators
+     *                 (only the left one when there is a filter)
+     * @param left
+     * @param right
+     * @param keyFilter Filter to fill in, or null.
+     * @param execCxt
+     * @return QueryIterator
+     */
+    public static QueryIterator create(JoinKey joinKey, QueryIterator left, QueryIterator right,
+                                       JoinKeyFilter keyFilter, ExecutionContext execCxt) {
         // Easy cases.
-        if ( ! left.hasNext() || ! right.hasNext() ) {
+        // Starting the right side now would evaluate it without the filter.
+        if ( ! left.hasNext() || ( keyFilter == null && ! right.hasNext() ) ) {
             left.close() ;
             right.close() ;
             return QueryIterNullIterator.create(execCxt) ;
         }
         if ( joinKey != null && joinKey.length() > 1 )
             Log.warn(QueryIterHashJoin.class, "Multivariable join key") ; 
-        return new QueryIterHashJoin(joinKey, left, right, execCxt) ; 
+        return new QueryIterHashJoin(joinKey, left, right, keyFilter, execCxt) ; 
     }
     
     /**
@@ -66,8 +84,9 @@ public class QueryIterHashJoin extends AbstractIterHashJoin {
         return create(null, left, right, execCxt) ;
     }
     
-    private QueryIterHashJoin(JoinKey joinKey, QueryIterator left, QueryIterator right, ExecutionContext execCxt) {
-        super(joinKey, left, right, execCxt) ;
+    private QueryIterHashJoin(JoinKey joinKey, QueryIterator left, QueryIterator right,
+                              JoinKeyFilter keyFilter, ExecutionContext execCxt) {
+        super(joinKey, left, right, keyFilter, execCxt) ;
     }
 
     @Override
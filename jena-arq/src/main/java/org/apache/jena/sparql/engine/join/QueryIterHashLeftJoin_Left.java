@@ -91,7 +91,8 @@ public class QueryIterHashLeftJoin_Left extends AbstractIterHashJoin {
     protected Binding yieldOneResult(Binding rowCurrentProbe, Binding rowStream, Binding rowResult) {
         if ( conditions != null && ! conditions.isSatisfied(rowResult, getExecContext()) )
             return null ;
-        leftHits.add(rowCurrentProbe) ;
+        if ( ! isSpilled() )
+            leftHits.add(rowCurrentProbe) ;
         return rowResult ; 
     }
     
@@ -101,6 +102,11 @@ public class QueryIterHashLeftJoin_Left extends AbstractIterHashJoin {
         return null;
     }
     
+    @Override
+    protected Binding noYieldedProbeRow(Binding rowProbe) {
+        return rowProbe ;
+    }
+
     @Override
     protected QueryIterator joinFinished() {
         Iterator<Binding> iter = Iter.filter(hashTable.values(), b-> ! leftHits.contains(b) )  ;
@@ -19,6 +19,7 @@
 package org.apache.jena.sparql.engine.main ;
 
 import java.util.ArrayList ;
+import java.util.HashSet ;
 import java.util.Iterator ;
 import java.util.List ;
 import java.util.Set ;
@@ -37,9 +38,12 @@ import org.apache.jena.sparql.core.Quad ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.batch.BatchExec ;
 import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingRoot ;
 import org.apache.jena.sparql.engine.iterator.* ;
 import org.apache.jena.sparql.engine.join.Join ;
+import org.apache.jena.sparql.engine.join.JoinKeyFilter ;
 import org.apache.jena.sparql.engine.main.iterator.* ;
 import org.apache.jena.sparql.expr.Expr ;
 import org.apache.jena.sparql.expr.ExprList ;
@@ -97,6 +101,7 @@ public class OpExecutor
     protected static final int     TOP_LEVEL  = 0 ;
     protected int                  level      = TOP_LEVEL - 1 ;
     private final boolean          hideBNodeVars ;
+    protected final boolean        batchExecution ;
     protected final StageGenerator stageGenerator ;
 
     protected OpExecutor(ExecutionContext execCxt)
@@ -104,6 +109,7 @@ public class OpExecutor
         this.execCxt = execCxt ;
         this.dispatcher = new ExecutionDispatch(this) ;
         this.hideBNodeVars = execCxt.getContext().isTrue(ARQ.hideNonDistiguishedVariables) ;
+        this.batchExecution = BatchExec.isEnabled(execCxt.getContext()) ;
         this.stageGenerator = StageBuilder.chooseStageGenerator(execCxt.getContext()) ;
     }
 
@@ -214,13 +220,42 @@ public class OpExecutor
             QueryIterator qIter = Join.join(left, right, execCxt) ;
             return qIter ;
         }
+        // The right hand side does not depend on the input;
+        // in parallel mode, start it on a worker thread if one is free.
+        QueryIterator right = null ;
+        if ( ParallelExec.isEnabled(execCxt) )
+            right = ParallelExec.fork(opJoin.getRight(), BindingRoot.create(), execCxt) ;
         QueryIterator left = exec(opJoin.getLeft(), input) ;
-        QueryIterator right = exec(opJoin.getRight(), root()) ;
+        if ( right == null ) {
+            JoinKeyFilter keyFilter = batchExecution ? null : joinKeyFilter(opJoin) ;
+            if ( keyFilter != null ) {
+                // The right hand side sees the join values of the left hand side.
+                ExecutionContext execCxtRight = JoinKeyFilter.addFilter(execCxt, keyFilter) ;
+                right = QC.execute(opJoin.getRight(), QueryIterRoot.create(execCxtRight), execCxtRight) ;
+                return Join.hashJoin(null, left, right, keyFilter, execCxt) ;
+            }
+            right = exec(opJoin.getRight(), root()) ;
+        }
+        if ( batchExecution )
+            return Join.batchHashJoin(null, left, right, execCxt) ;
         // Join key.
         QueryIterator qIter = Join.join(left, right, execCxt) ;
         return qIter ;
     }
 
+    /** A filter for semi-join reduction of the right hand side of a join, or null. */
+    private JoinKeyFilter joinKeyFilter(OpJoin opJoin) {
+        if ( ! execCxt.getContext().isTrue(ARQ.semiJoinReduction) )
+            return null ;
+        if ( ! JoinKeyFilter.canFilter(opJoin.getRight()) )
+            return null ;
+        Set<Var> vars = new HashSet<>(OpVars.visibleVars(opJoin.getLeft())) ;
+        vars.retainAll(OpVars.visibleVars(opJoin.getRight())) ;
+        if ( vars.isEmpty() )
+            return null ;
+        return new JoinKeyFilter(vars) ;
+    }
+
     // Pass iterator from one step directly into the next.
     protected QueryIterator execute(OpSequence opSequence, QueryIterator input) {
         QueryIterator qIter = input ;
@@ -298,6 +333,11 @@ public class OpExecutor
 
         Op base = opFilter.getSubOp() ;
         QueryIterator qIter = exec(base, input) ;
+        if ( batchExecution )
+            return BatchExec.filter(qIter, exprs, execCxt) ;
+
+        if ( execCxt.getContext().isTrue(ARQ.compiledFilters) )
+            return new QueryIterFilterCompiled(qIter, exprs, execCxt) ;
 
         for (Expr expr : exprs)
             qIter = new QueryIterFilterExpr(qIter, expr, execCxt) ;
@@ -388,6 +428,8 @@ public class OpExecutor
 
         if (input instanceof QueryIterRoot) {
             QueryIterator qIter = exec(opProject.getSubOp(), input) ;
+            if ( batchExecution )
+                return BatchExec.project(qIter, opProject.getVars(), execCxt) ;
             qIter = new QueryIterProject(qIter, opProject.getVars(), execCxt) ;
             return qIter ;
         }
@@ -433,6 +475,8 @@ public class OpExecutor
 
     protected QueryIterator execute(OpAssign opAssign, QueryIterator input) {
         QueryIterator qIter = exec(opAssign.getSubOp(), input) ;
+        if ( batchExecution )
+            return BatchExec.extend(qIter, opAssign.getVarExprList(), execCxt) ;
         qIter = new QueryIterAssign(qIter, opAssign.getVarExprList(), execCxt, false) ;
         return qIter ;
     }
@@ -442,6 +486,8 @@ public class OpExecutor
         // the query so we can use QueryIterAssign knowing that it behaves
         // the same as extend. The boolean should only be a check.
         QueryIterator qIter = exec(opExtend.getSubOp(), input) ;
+        if ( batchExecution )
+            return BatchExec.extend(qIter, opExtend.getVarExprList(), execCxt) ;
         qIter = new QueryIterAssign(qIter, opExtend.getVarExprList(), execCxt, true) ;
         return qIter ;
     }
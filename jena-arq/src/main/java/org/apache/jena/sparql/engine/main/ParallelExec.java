@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.atlas.lib.Lib;
+import org.apache.jena.atlas.logging.Log;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.QueryExecException;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.sparql.ARQException;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.core.TransactionalSharedRead;
+import org.apache.jena.sparql.core.TransactionalSharedRead.ReadView;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.iterator.QueryIter;
+import org.apache.jena.sparql.engine.iterator.QueryIterRoot;
+import org.apache.jena.sparql.engine.iterator.QueryIterSingleton;
+import org.apache.jena.sparql.serializer.SerializationContext;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Evaluation of independent parts of a query on other threads.
+ * <p>
+ * This is enabled by {@link ARQ#parallelExecution}. {@link #fork} starts the
+ * evaluation of an {@link Op} on a worker thread and returns an iterator over the
+ * results, in the order they were produced by the worker. Results are passed
+ * through a bounded queue, so a worker is at most a few batches ahead of the
+ * iterator.
+ * <p>
+ * Worker threads come from a shared, bounded pool. Each query execution may
+ * use at most {@link ARQ#parallelism} workers at once. If no worker is available,
+ * {@link #fork} returns null and the caller evaluates the {@link Op} itself, so
+ * asking for parallel evaluation never waits for a thread.
+ * <p>
+ * Transactions are per-thread. A worker in a transaction of its own could see a
+ * different committed state, so when the query is running in a transaction, workers
+ * use the query's transaction. This needs a {@link TxnType#READ} transaction of a
+ * dataset that is {@link TransactionalSharedRead}. Otherwise the query is evaluated
+ * without workers, and a warning is logged.
+ */
+public class ParallelExec {
+
+    private static final int poolSize = 4*Runtime.getRuntime().availableProcessors();
+
+    private static final ThreadPoolExecutor executor = createExecutor();
+
+    // Results are passed from a worker in batches.
+    private static final int BatchSize = 100;
+    private static final int QueueSize = 16;
+    private static final long WaitMillis = 100;
+    // Marker for the end of the results.
+    private static final List<Binding> EndMarker = Collections.emptyList();
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger counter = new AtomicInteger(0);
+        ThreadFactory threadFactory = (r) -> {
+            Thread thread = new Thread(r, "ARQ-parallel-"+counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // No queue : a task runs now or is rejected.
+        return new ThreadPoolExecutor(0, poolSize, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                      threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ParallelExec() {}
+
+    /**
+     * Whether parallel evaluation is enabled for this execution, and the dataset can be
+     * read from other threads. That is, the execution is not in a transaction, or
+     * it is in a read transaction that can be shared with other threads.
+     */
+    public static boolean isEnabled(ExecutionContext execCxt) {
+        Context context = execCxt.getContext();
+        if ( context == null || ! context.isTrue(ARQ.parallelExecution) )
+            return false;
+        DatasetGraph dsg = execCxt.getDataset();
+        if ( dsg == null )
+            return false;
+        if ( ! inTransaction(dsg) )
+            return true;
+        if ( dsg.transactionType() == TxnType.READ && sharedRead(dsg) != null )
+            return true;
+        notAvailable(context, dsg);
+        return false;
+    }
+
+    private static boolean inTransaction(DatasetGraph dsg) {
+        return dsg.supportsTransactions() && dsg.isInTransaction();
+    }
+
+    // Wrappers pass transactions to the wrapped dataset.
+    private static TransactionalSharedRead sharedRead(DatasetGraph dsg) {
+        while ( ! ( dsg instanceof TransactionalSharedRead ) && dsg instanceof DatasetGraphWrapper )
+            dsg = ((DatasetGraphWrapper)dsg).getWrapped();
+        return ( dsg instanceof TransactionalSharedRead ) ? (TransactionalSharedRead)dsg : null;
+    }
+
+    // Log, once per execution, that ARQ.parallelExecution has no effect.
+    private static void notAvailable(Context context, DatasetGraph dsg) {
+        synchronized(context) {
+            if ( context.isTrue(ARQConstants.sysParallelNotAvailable) )
+                return;
+            context.set(ARQConstants.sysParallelNotAvailable, true);
+        }
+        Log.warn(ParallelExec.class, "Parallel execution not used: the "+dsg.transactionType()+" transaction of "
+                                     +Lib.className(dsg)+" can not be shared with other threads");
+    }
+
+    /** The maximum number of workers for one query execution. */
+    public static int parallelism(Context context) {
+        int x = context.getInt(ARQ.parallelism, Runtime.getRuntime().availableProcessors());
+        if ( x <= 0 )
+            throw new ARQException("Parallelism must be positive: "+x);
+        return x;
+    }
+
+    /**
+     * Start evaluating {@code op}, with the input {@code binding}, on a worker thread.
+     * Returns null if no worker is available, in which case the caller should
+     * evaluate the {@code op} itself.
+     */
+    public static QueryIterator fork(Op op, Binding binding, ExecutionContext execCxt) {
+        DatasetGraph dsg = execCxt.getDataset();
+        ReadView readView = null;
+        if ( dsg != null && inTransaction(dsg) ) {
+            TransactionalSharedRead shared = sharedRead(dsg);
+            readView = ( shared == null ) ? null : shared.shareRead();
+            if ( readView == null ) {
+                notAvailable(execCxt.getContext(), dsg);
+                return null;
+            }
+        }
+        Semaphore permits = permits(execCxt.getContext());
+        if ( ! permits.tryAcquire() )
+            return null;
+        Task task = new Task(op, binding, execCxt, readView, permits);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            permits.release();
+            return null;
+        }
+        return new QueryIterFork(op, task, execCxt);
+    }
+
+    private static Semaphore permits(Context context) {
+        synchronized(context) {
+            Semaphore permits = context.get(ARQConstants.sysParallelPermits);
+            if ( permits == null ) {
+                permits = new Semaphore(parallelism(context));
+                context.set(ARQConstants.sysParallelPermits, permits);
+            }
+            return permits;
+        }
+    }
+
+    /**
+     * Evaluate an {@link Op} and pass the results to a {@link QueryIterFork}.
+     * If there is a {@link ReadView}, the evaluation is inside the shared read transaction.
+     */
+    private static class Task implements Runnable {
+        private final Op op;
+        private final Binding binding;
+        private final ExecutionContext execCxt;
+        private final ReadView readView;
+        private final Semaphore permits;
+        private final BlockingQueue<List<Binding>> queue = new ArrayBlockingQueue<>(QueueSize);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean cancelled = false;
+        private volatile Throwable error = null;
+        private volatile QueryIterator qIter = null;
+
+        Task(Op op, Binding binding, ExecutionContext execCxt, ReadView readView, Semaphore permits) {
+            this.op = op;
+            this.binding = binding;
+            this.execCxt = execCxt;
+            this.readView = readView;
+            this.permits = permits;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if ( cancelled )
+                    return;
+                if ( readView == null )
+                    exec();
+                else
+                    readView.exec(this::exec);
+            } catch (Throwable th) {
+                error = th;
+            } finally {
+                permits.release();
+                send(EndMarker);
+                finished.countDown();
+            }
+        }
+
+        private void exec() {
+            // Iterator tracking in an execution context is not thread safe.
+            ExecutionContext cxt = new ExecutionContext(execCxt.getContext(), execCxt.getActiveGraph(),
+                                                        execCxt.getDataset(), execCxt.getExecutor());
+            QueryIterator input = binding.isEmpty()
+                ? QueryIterRoot.create(binding, cxt)
+                : QueryIterSingleton.create(binding, cxt);
+            QueryIterator iter = QC.execute(op, input, cxt);
+            qIter = iter;
+            try {
+                List<Binding> batch = new ArrayList<>(BatchSize);
+                while ( ! cancelled && iter.hasNext() ) {
+                    batch.add(BindingFactory.copy(iter.next()));
+                    if ( batch.size() >= BatchSize ) {
+                        send(batch);
+                        batch = new ArrayList<>(BatchSize);
+                    }
+                }
+                if ( ! batch.isEmpty() )
+                    send(batch);
+            } finally { iter.close(); }
+        }
+
+        /** Wait for space in the queue, unless cancelled. */
+        private void send(List<Binding> batch) {
+            try {
+                while ( ! cancelled ) {
+                    if ( queue.offer(batch, WaitMillis, TimeUnit.MILLISECONDS) )
+                        return;
+                }
+            } catch (InterruptedException ex) {
+                cancelled = true;
+            }
+        }
+
+        /** Next batch of results; {@link #EndMarker} at the end. */
+        List<Binding> receive() {
+            try {
+                for ( ;; ) {
+                    List<Binding> batch = queue.poll(WaitMillis, TimeUnit.MILLISECONDS);
+                    if ( batch != null )
+                        return batch;
+                    // A cancelled task may stop without sending the end marker.
+                    if ( cancelled )
+                        throw new QueryCancelledException();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new QueryCancelledException();
+            }
+        }
+
+        void checkError() {
+            Throwable cause = error;
+            if ( cause == null )
+                return;
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException)cause;
+            if ( cause instanceof Error )
+                throw (Error)cause;
+            throw new QueryExecException(cause);
+        }
+
+        void cancel() {
+            cancelled = true;
+            QueryIterator iter = qIter;
+            if ( iter != null )
+                iter.cancel();
+        }
+
+        /**
+         * Wait for the task to stop, so that it is not using the transaction of the
+         * query after the query has finished.
+         */
+        void awaitFinish() {
+            try {
+                finished.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** The results of a {@link Task}, as they are produced. */
+    private static class QueryIterFork extends QueryIter {
+        private final Op op;
+        private final Task task;
+        private Iterator<Binding> results = Collections.emptyIterator();
+        private boolean finished = false;
+
+        QueryIterFork(Op op, Task task, ExecutionContext execCxt) {
+            super(execCxt);
+            this.op = op;
+            this.task = task;
+        }
+
+        @Override
+        protected boolean hasNextBinding() {
+            while ( ! results.hasNext() ) {
+                if ( finished )
+                    return false;
+                List<Binding> batch = task.receive();
+                if ( batch == EndMarker ) {
+                    finished = true;
+                    task.checkError();
+                    return false;
+                }
+                results = batch.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        protected Binding moveToNextBinding() {
+            return results.next();
+        }
+
+        // The task stops at its next result and releases the permit.
+        @Override
+        protected void closeIterator() {
+            task.cancel();
+            task.awaitFinish();
+        }
+
+        @Override
+        protected void requestCancel() { task.cancel(); }
+
+        @Override
+        public void output(IndentedWriter out, SerializationContext sCxt) {
+            out.println(Lib.className(this));
+            out.incIndent();
+            op.output(out, sCxt);
+            out.decIndent();
+            out.ensureStartOfLine();
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.iterator.QueryIterConcat ;
 import org.apache.jena.sparql.engine.iterator.QueryIterRepeatApply ;
 import org.apache.jena.sparql.engine.iterator.QueryIterSingleton ;
+import org.apache.jena.sparql.engine.main.ParallelExec ;
 import org.apache.jena.sparql.engine.main.QC ;
 import org.apache.jena.sparql.serializer.SerializationContext ;
 
@@ -52,12 +53,22 @@ public class QueryIterUnion extends QueryIterRepeatApply
     protected QueryIterator nextStage(Binding binding)
     {
         QueryIterConcat unionQIter = new QueryIterConcat(getExecContext()) ;
+        // In parallel mode, the first branch is streamed by this thread
+        // and the others are started on worker threads if any are free.
+        boolean parallel = ParallelExec.isEnabled(getExecContext()) ;
+        boolean first = true ;
         for (Op subOp : subOps)
         {
             subOp = QC.substitute(subOp, binding) ;
-            QueryIterator parent = QueryIterSingleton.create(binding, getExecContext()) ;
-            QueryIterator qIter = QC.execute(subOp, parent, getExecContext()) ;
+            QueryIterator qIter = null ;
+            if ( parallel && ! first )
+                qIter = ParallelExec.fork(subOp, binding, getExecContext()) ;
+            if ( qIter == null ) {
+                QueryIterator parent = QueryIterSingleton.create(binding, getExecContext()) ;
+                qIter = QC.execute(subOp, parent, getExecContext()) ;
+            }
             unionQIter.add(qIter) ;
+            first = false ;
         }
         
         return unionQIter ;
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import static org.apache.jena.sparql.engine.optimizer.reorder.PatternElements.isSet;
+
+import java.util.*;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.*;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.optimizer.JoinStats.CharacteristicSet;
+import org.apache.jena.sparql.engine.optimizer.reorder.PatternTriple;
+
+/**
+ * Cardinality and cost estimates from {@link JoinStats}.
+ * <p>
+ * A triple pattern is estimated from the predicate count, divided by the distinct
+ * subjects or objects of the predicate when those are bound. A star of triple
+ * patterns on one subject variable is estimated from the characteristic sets that
+ * contain all its predicates. Joins are estimated from the number of distinct values
+ * of the shared variables: {@code |A join B| = |A|.|B| / max(V(A,x), V(B,x))}.
+ */
+public class CostModel
+{
+    /** Fraction of rows assumed to pass a filter. */
+    public static final double FilterSelectivity = 0.5;
+
+    /** Cost of one index lookup, relative to reading or hashing one row. */
+    public static final double IndexProbeCost = 2.0;
+
+    /** Estimated number of rows, and number of distinct values of each variable. */
+    public static class Estimate {
+        private final double cardinality;
+        private final Map<Var, Double> distinct;
+
+        public Estimate(double cardinality, Map<Var, Double> distinct) {
+            this.cardinality = cardinality;
+            this.distinct = distinct;
+            distinct.replaceAll((v, x) -> Math.min(x, cardinality));
+        }
+
+        public double getCardinality()      { return cardinality; }
+
+        public Set<Var> getVars()           { return distinct.keySet(); }
+
+        public double getDistinct(Var var)  { return distinct.getOrDefault(var, cardinality); }
+
+        @Override
+        public String toString() { return String.format("Estimate[%.1f %s]", cardinality, distinct); }
+    }
+
+    private final JoinStats stats;
+
+    public CostModel(JoinStats stats) {
+        this.stats = stats;
+    }
+
+    public JoinStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Estimated number of matches of a pattern triple where {@code TERM} is a variable
+     * that will be bound. This is the weight used for reordering by substitution.
+     */
+    public double estimate(PatternTriple pt) {
+        Node p = pt.predicate.isNodeURI() ? pt.predicate.getNode() : null;
+        return estimate(isSet(pt.subject), p, isSet(pt.predicate), isSet(pt.object));
+    }
+
+    private double estimate(boolean sBound, Node p, boolean pBound, boolean oBound) {
+        if ( p != null ) {
+            double c = stats.getCount(p);
+            if ( c == 0 )
+                return 0;
+            if ( sBound )
+                c = c / Math.max(1, distinct(stats.getDistinctSubjects(p), c));
+            if ( oBound )
+                c = c / Math.max(1, distinct(stats.getDistinctObjects(p), c));
+            return c;
+        }
+        // Any predicate: assume objects are as varied as subjects.
+        double c = stats.getCount();
+        if ( pBound )
+            c = c / Math.max(1, stats.getPredicates().size());
+        if ( sBound )
+            c = c / Math.max(1, distinct(stats.getSubjects(), c));
+        if ( oBound )
+            c = c / Math.max(1, distinct(stats.getSubjects(), c));
+        return c;
+    }
+
+    private static double distinct(long x, double dft) {
+        return x > 0 ? x : dft;
+    }
+
+    /**
+     * Estimated number of results of a star of triple patterns on one unbound subject,
+     * with unbound objects, from the characteristic sets; -1 if there are none.
+     * A predicate may be given more than once.
+     */
+    public double estimateStar(List<Node> predicates) {
+        if ( !stats.hasCharacteristicSets() )
+            return -1;
+        return star(predicates)[0];
+    }
+
+    // Results and subjects of a star.
+    private double[] star(List<Node> predicates) {
+        Set<Node> preds = new HashSet<>(predicates);
+        double results = 0;
+        double subjects = 0;
+        for ( CharacteristicSet cs : stats.getCharacteristicSets() ) {
+            if ( !cs.getPredicates().containsAll(preds) )
+                continue;
+            double x = cs.getSubjects();
+            for ( Node p : predicates )
+                x = x * cs.getOccurrences().get(p) / cs.getSubjects();
+            results += x;
+            subjects += cs.getSubjects();
+        }
+        return new double[] {results, subjects};
+    }
+
+    /** Estimate a basic graph pattern. */
+    public Estimate estimate(BasicPattern pattern) {
+        return estimate(pattern, Collections.emptySet());
+    }
+
+    /** Estimate a basic graph pattern, for each binding of the variables in {@code bound}. */
+    public Estimate estimate(BasicPattern pattern, Set<Var> bound) {
+        // Stars on a subject variable, with concrete predicates.
+        Map<Var, List<Triple>> stars = new LinkedHashMap<>();
+        List<Estimate> parts = new ArrayList<>();
+        for ( Triple t : pattern ) {
+            if ( Var.isVar(t.getSubject()) && t.getPredicate().isURI() )
+                stars.computeIfAbsent(Var.alloc(t.getSubject()), v -> new ArrayList<>()).add(t);
+            else
+                parts.add(estimate(t, bound));
+        }
+        stars.forEach((subject, triples) -> {
+            if ( triples.size() > 1 && stats.hasCharacteristicSets() )
+                parts.add(estimateStar(subject, triples, bound));
+            else
+                triples.forEach(t -> parts.add(estimate(t, bound)));
+        });
+        Estimate est = new Estimate(1, new HashMap<>());
+        for ( Estimate e : parts )
+            est = join(est, e);
+        return est;
+    }
+
+    private Estimate estimate(Triple t, Set<Var> bound) {
+        Node s = t.getSubject();
+        Node p = t.getPredicate();
+        Node o = t.getObject();
+        double c = estimate(isBound(s, bound), p.isURI() ? p : null, isBound(p, bound), isBound(o, bound));
+        Map<Var, Double> distinct = new HashMap<>();
+        if ( p.isURI() ) {
+            distinct(distinct, s, bound, distinct(stats.getDistinctSubjects(p), c));
+            distinct(distinct, o, bound, distinct(stats.getDistinctObjects(p), c));
+        } else {
+            distinct(distinct, s, bound, distinct(stats.getSubjects(), c));
+            distinct(distinct, p, bound, c);
+            distinct(distinct, o, bound, c);
+        }
+        return new Estimate(c, distinct);
+    }
+
+    private Estimate estimateStar(Var subject, List<Triple> triples, Set<Var> bound) {
+        List<Node> predicates = new ArrayList<>();
+        triples.forEach(t -> predicates.add(t.getPredicate()));
+        double[] x = star(predicates);
+        double c = x[0];
+        double subjects = x[1];
+        if ( bound.contains(subject) )
+            c = c / Math.max(1, subjects);
+        Map<Var, Double> distinct = new HashMap<>();
+        distinct(distinct, subject, bound, subjects);
+        for ( Triple t : triples ) {
+            Node p = t.getPredicate();
+            Node o = t.getObject();
+            double dO = distinct(stats.getDistinctObjects(p), stats.getCount(p));
+            if ( isBound(o, bound) )
+                c = c / Math.max(1, dO);
+            else
+                distinct(distinct, o, bound, dO);
+        }
+        return new Estimate(c, distinct);
+    }
+
+    private static boolean isBound(Node node, Set<Var> bound) {
+        return node.isConcrete() || bound.contains(node);
+    }
+
+    private static void distinct(Map<Var, Double> distinct, Node node, Set<Var> bound, double x) {
+        if ( !Var.isVar(node) || bound.contains(node) )
+            return;
+        distinct.merge(Var.alloc(node), x, Math::min);
+    }
+
+    /** Estimate the join of two estimates. */
+    public Estimate join(Estimate left, Estimate right) {
+        double c = left.getCardinality() * right.getCardinality();
+        Map<Var, Double> distinct = new HashMap<>();
+        for ( Var v : left.getVars() )
+            distinct.put(v, left.getDistinct(v));
+        for ( Var v : right.getVars() ) {
+            double x = right.getDistinct(v);
+            Double y = distinct.get(v);
+            if ( y == null ) {
+                distinct.put(v, x);
+                continue;
+            }
+            c = c / Math.max(1, Math.max(x, y));
+            distinct.put(v, Math.min(x, y));
+        }
+        return new Estimate(c, distinct);
+    }
+
+    /** Estimate an algebra expression; returns null if there is no estimate for the expression. */
+    public Estimate estimate(Op op) {
+        return estimate(op, Collections.emptySet());
+    }
+
+    /**
+     * Estimate an algebra expression, for each binding of the variables in {@code bound}.
+     * Returns null if there is no estimate for the expression.
+     */
+    public Estimate estimate(Op op, Set<Var> bound) {
+        if ( op instanceof OpBGP )
+            return estimate(((OpBGP)op).getPattern(), bound);
+        if ( op instanceof OpQuadPattern )
+            return estimate(((OpQuadPattern)op).getBasicPattern(), bound);
+        if ( op instanceof OpTable ) {
+            OpTable opTable = (OpTable)op;
+            if ( opTable.isJoinIdentity() )
+                return new Estimate(1, new HashMap<>());
+            double c = opTable.getTable().size();
+            Map<Var, Double> distinct = new HashMap<>();
+            opTable.getTable().getVars().forEach(v -> distinct.put(v, c));
+            return new Estimate(c, distinct);
+        }
+        if ( op instanceof OpFilter ) {
+            Estimate est = estimate(((OpFilter)op).getSubOp(), bound);
+            if ( est == null )
+                return null;
+            return new Estimate(est.getCardinality() * FilterSelectivity, new HashMap<>(est.distinct));
+        }
+        if ( op instanceof OpJoin || op instanceof OpSequence ) {
+            List<Op> elts = (op instanceof OpJoin)
+                ? Arrays.asList(((OpJoin)op).getLeft(), ((OpJoin)op).getRight())
+                : ((OpSequence)op).getElements();
+            Estimate est = new Estimate(1, new HashMap<>());
+            for ( Op elt : elts ) {
+                Estimate e = estimate(elt, bound);
+                if ( e == null )
+                    return null;
+                est = join(est, e);
+            }
+            return est;
+        }
+        return null;
+    }
+
+    /**
+     * Cost of a hash join: read both sides, and hash one of them.
+     */
+    public double costHashJoin(Estimate left, Estimate right) {
+        return left.getCardinality() + right.getCardinality();
+    }
+
+    /**
+     * Cost of an index nested loop join: for each row of the left side, look up
+     * the right side with the shared variables bound.
+     */
+    public double costIndexJoin(Estimate left, Op right) {
+        Estimate probe = estimate(right, left.getVars());
+        if ( probe == null )
+            return Double.MAX_VALUE;
+        return left.getCardinality() * (IndexProbeCost + probe.getCardinality());
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.*;
+
+import org.apache.jena.atlas.logging.Log;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.ARQException;
+import org.apache.jena.sparql.sse.Item;
+import org.apache.jena.sparql.sse.ItemList;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+
+/**
+ * Statistics for cost-based join ordering: triple count, per-predicate counts and
+ * distinct subjects and objects, and characteristic sets.
+ * <p>
+ * A characteristic set is a set of predicates that occur together on the same
+ * subject, with the number of subjects having exactly that set and the number of
+ * triples for each predicate. They give estimates for star-shaped patterns
+ * without assuming the predicates are independent.
+ * <p>
+ * These are read from the same stats file as {@link StatsMatcher}, which ignores them:
+ * <pre>(stats
+ *    (meta ... (count N))
+ *    (&lt;predicate uri&gt; count)
+ *    (distinct &lt;predicate uri&gt; subjects objects)
+ *    (charset subjects (&lt;predicate uri&gt; count) ...)
+ *  )</pre>
+ */
+public class JoinStats
+{
+    public static final String DISTINCT = "distinct";
+    public static final String CHARSET  = "charset";
+
+    /** A set of predicates used together on a subject. */
+    public static class CharacteristicSet {
+        private final long subjects;
+        private final Map<Node, Long> occurrences;
+
+        public CharacteristicSet(long subjects, Map<Node, Long> occurrences) {
+            this.subjects = subjects;
+            this.occurrences = Collections.unmodifiableMap(new HashMap<>(occurrences));
+        }
+
+        /** Number of subjects with exactly this set of predicates. */
+        public long getSubjects()                   { return subjects; }
+
+        /** Number of triples, over all the subjects, for each predicate. */
+        public Map<Node, Long> getOccurrences()     { return occurrences; }
+
+        public Set<Node> getPredicates()            { return occurrences.keySet(); }
+
+        @Override
+        public String toString() { return "CharacteristicSet["+subjects+" "+occurrences+"]"; }
+    }
+
+    private final long count;
+    private final Map<Node, Long> predicates;
+    private final Map<Node, Long> distinctSubjects;
+    private final Map<Node, Long> distinctObjects;
+    private final List<CharacteristicSet> charSets;
+    private final long subjects;
+
+    public JoinStats(long count, Map<Node, Long> predicates, Map<Node, Long> distinctSubjects,
+                     Map<Node, Long> distinctObjects, List<CharacteristicSet> charSets) {
+        this.count = count;
+        this.predicates = predicates;
+        this.distinctSubjects = distinctSubjects;
+        this.distinctObjects = distinctObjects;
+        this.charSets = charSets;
+        this.subjects = charSets.stream().mapToLong(CharacteristicSet::getSubjects).sum();
+    }
+
+    /** Read a stats file. */
+    public static JoinStats read(String filename) {
+        Item stats = SSE.readFile(filename);
+        if ( stats.isNil() )
+            throw new ARQException("Empty stats file: "+filename);
+        return parse(stats);
+    }
+
+    /** Test whether a stats file has the statistics for cost-based join ordering. */
+    public static boolean hasJoinStats(String filename) {
+        Item stats = SSE.readFile(filename);
+        if ( !stats.isTagged(StatsMatcher.STATS) )
+            return false;
+        for ( Item elt : stats.getList().cdr() ) {
+            if ( elt.isTagged(CHARSET) )
+                return true;
+        }
+        return false;
+    }
+
+    public static JoinStats parse(Item stats) {
+        if ( !stats.isTagged(StatsMatcher.STATS) )
+            throw new ARQException("Not a tagged '"+StatsMatcher.STATS+"'");
+        long count = -1;
+        Map<Node, Long> predicates = new HashMap<>();
+        Map<Node, Long> distinctSubjects = new HashMap<>();
+        Map<Node, Long> distinctObjects = new HashMap<>();
+        List<CharacteristicSet> charSets = new ArrayList<>();
+
+        for ( Item elt : stats.getList().cdr() ) {
+            if ( !elt.isList() || elt.getList().isEmpty() )
+                continue;
+            ItemList list = elt.getList();
+            if ( elt.isTagged(StatsMatcher.META) ) {
+                Item x = Item.find(list, StatsMatcher.COUNT);
+                if ( x != null )
+                    count = x.getList().get(1).getInteger();
+            } else if ( elt.isTagged(DISTINCT) ) {
+                Node p = list.get(1).getNode();
+                distinctSubjects.put(p, list.get(2).getInteger());
+                distinctObjects.put(p, list.get(3).getInteger());
+            } else if ( elt.isTagged(CHARSET) ) {
+                long subjects = list.get(1).getInteger();
+                Map<Node, Long> occurrences = new HashMap<>();
+                for ( Item pair : list.cdr().cdr() )
+                    occurrences.put(pair.getList().get(0).getNode(), pair.getList().get(1).getInteger());
+                charSets.add(new CharacteristicSet(subjects, occurrences));
+            } else if ( list.size() == 2 && list.get(0).isNodeURI() ) {
+                // (<predicate> count)
+                predicates.put(list.get(0).getNode(), list.get(1).getInteger());
+            }
+        }
+        if ( count < 0 ) {
+            Log.warn(JoinStats.class, "No triple count in stats");
+            count = predicates.values().stream().mapToLong(Long::longValue).sum();
+        }
+        return new JoinStats(count, predicates, distinctSubjects, distinctObjects, charSets);
+    }
+
+    /** Write the join statistics entries (not the meta data or counts) to a stats item list. */
+    public static void format(ItemList statsList, Map<Node, Long> distinctSubjects, Map<Node, Long> distinctObjects,
+                              List<CharacteristicSet> charSets) {
+        for ( Node p : distinctSubjects.keySet() ) {
+            ItemList x = new ItemList();
+            x.add(DISTINCT);
+            x.add(p);
+            x.add(Item.createNode(NodeFactoryExtra.intToNode(distinctSubjects.get(p))));
+            x.add(Item.createNode(NodeFactoryExtra.intToNode(distinctObjects.getOrDefault(p, 0L))));
+            statsList.add(Item.createList(x));
+        }
+        for ( CharacteristicSet cs : charSets ) {
+            ItemList x = new ItemList();
+            x.add(CHARSET);
+            x.add(Item.createNode(NodeFactoryExtra.intToNode(cs.getSubjects())));
+            cs.getOccurrences().forEach((p, n) -> Item.addPair(x, p, NodeFactoryExtra.intToNode(n)));
+            statsList.add(Item.createList(x));
+        }
+    }
+
+    /** Total number of triples. */
+    public long getCount()                                  { return count; }
+
+    /** Number of subjects (over all characteristic sets). */
+    public long getSubjects()                               { return subjects; }
+
+    /** The predicates with counts. */
+    public Set<Node> getPredicates()                        { return Collections.unmodifiableSet(predicates.keySet()); }
+
+    /** Number of triples with predicate {@code p}. */
+    public long getCount(Node p)                            { return predicates.getOrDefault(p, 0L); }
+
+    /** Whether there is information for predicate {@code p}. */
+    public boolean isKnown(Node p)                          { return predicates.containsKey(p); }
+
+    /** Number of distinct subjects for predicate {@code p}, or -1 if not known. */
+    public long getDistinctSubjects(Node p)                 { return distinctSubjects.getOrDefault(p, -1L); }
+
+    /** Number of distinct objects for predicate {@code p}, or -1 if not known. */
+    public long getDistinctObjects(Node p)                  { return distinctObjects.getOrDefault(p, -1L); }
+
+    public List<CharacteristicSet> getCharacteristicSets()  { return Collections.unmodifiableList(charSets); }
+
+    public boolean hasCharacteristicSets()                  { return !charSets.isEmpty(); }
+}
@@ -133,6 +133,10 @@ public final class StatsMatcher
      
     private void onePattern(Item elt)
     {
+        // Statistics for cost-based join ordering.
+        if ( elt.isTagged(JoinStats.DISTINCT) || elt.isTagged(JoinStats.CHARSET) )
+            return ;
+
         Item pat = elt.getList().get(0) ;
 
         if (pat.isNode())
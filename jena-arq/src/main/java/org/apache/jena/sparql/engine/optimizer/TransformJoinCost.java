@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.*;
+
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpJoin;
+import org.apache.jena.sparql.algebra.op.OpSequence;
+import org.apache.jena.sparql.algebra.optimize.TransformJoinStrategy;
+import org.apache.jena.sparql.engine.main.JoinClassifier;
+import org.apache.jena.sparql.engine.optimizer.CostModel.Estimate;
+
+/**
+ * Cost-based join ordering and join strategy.
+ * <p>
+ * A tree of inner joins is flattened and rebuilt left-deep: start with the
+ * expression of least estimated cardinality, then repeatedly add the expression,
+ * sharing variables if possible, that gives the smallest estimated join. Each join
+ * is then either a hash join ({@link OpJoin}) or, when it is safe and estimated to be
+ * cheaper, an index nested loop join ({@link OpSequence}) where the right side is
+ * evaluated with the bindings from the left side substituted.
+ * <p>
+ * If any part of the join has no estimate, the join strategy is chosen as by
+ * {@link TransformJoinStrategy}. Left joins are handled as by {@link TransformJoinStrategy}.
+ */
+public class TransformJoinCost extends TransformJoinStrategy
+{
+    private final CostModel costModel;
+    // Sequences created here; these are joins that can be reordered.
+    private final Set<Op> created = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public TransformJoinCost(JoinStats stats) {
+        this.costModel = new CostModel(stats);
+    }
+
+    @Override
+    public Op transform(OpJoin opJoin, Op left, Op right) {
+        List<Op> elts = new ArrayList<>();
+        flatten(left, elts);
+        flatten(right, elts);
+        List<Estimate> estimates = new ArrayList<>(elts.size());
+        for ( Op op : elts ) {
+            Estimate est = costModel.estimate(op);
+            if ( est == null )
+                return super.transform(opJoin, left, right);
+            estimates.add(est);
+        }
+
+        // Start with the smallest.
+        int first = 0;
+        for ( int i = 1 ; i < elts.size() ; i++ ) {
+            if ( estimates.get(i).getCardinality() < estimates.get(first).getCardinality() )
+                first = i;
+        }
+        Op op = elts.remove(first);
+        Estimate est = estimates.remove(first);
+
+        while ( !elts.isEmpty() ) {
+            int next = -1;
+            boolean nextConnected = false;
+            Estimate nextEst = null;
+            for ( int i = 0 ; i < elts.size() ; i++ ) {
+                Estimate e = estimates.get(i);
+                boolean connected = !Collections.disjoint(est.getVars(), e.getVars());
+                // Avoid cross products.
+                if ( nextConnected && !connected )
+                    continue;
+                Estimate j = costModel.join(est, e);
+                if ( next < 0 || ( connected && !nextConnected ) || j.getCardinality() < nextEst.getCardinality() ) {
+                    next = i;
+                    nextConnected = connected;
+                    nextEst = j;
+                }
+            }
+            Op right2 = elts.remove(next);
+            Estimate rightEst = estimates.remove(next);
+            op = join(op, est, right2, rightEst);
+            est = nextEst;
+        }
+        return op;
+    }
+
+    private Op join(Op left, Estimate leftEst, Op right, Estimate rightEst) {
+        boolean shared = !Collections.disjoint(leftEst.getVars(), rightEst.getVars());
+        if ( shared && JoinClassifier.isLinear(left, right) ) {
+            double costIndex = costModel.costIndexJoin(leftEst, right);
+            double costHash = costModel.costHashJoin(leftEst, rightEst);
+            if ( costIndex <= costHash ) {
+                OpSequence opSequence = OpSequence.create();
+                if ( created.contains(left) )
+                    ((OpSequence)left).getElements().forEach(opSequence::add);
+                else
+                    opSequence.add(left);
+                opSequence.add(right);
+                created.add(opSequence);
+                return opSequence;
+            }
+        }
+        return OpJoin.create(left, right);
+    }
+
+    private void flatten(Op op, List<Op> elts) {
+        if ( op instanceof OpJoin ) {
+            OpJoin opJoin = (OpJoin)op;
+            flatten(opJoin.getLeft(), elts);
+            flatten(opJoin.getRight(), elts);
+            return;
+        }
+        if ( created.contains(op) ) {
+            ((OpSequence)op).getElements().forEach(elts::add);
+            return;
+        }
+        elts.add(op);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer.reorder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.engine.optimizer.CostModel;
+import org.apache.jena.sparql.engine.optimizer.JoinStats;
+import org.apache.jena.sparql.sse.Item;
+
+/**
+ * Reorder by estimated cardinality from {@link JoinStats}.
+ * <p>
+ * The weight of a triple pattern is the estimated number of matches, given the
+ * variables bound by earlier patterns. Patterns of a star on an unbound subject
+ * variable are ranked by the estimated results of the whole star, from the
+ * characteristic sets, then by their own weight; this starts with the most
+ * selective star rather than the most selective single pattern.
+ */
+public final class ReorderCostBased extends ReorderTransformationSubstitution
+{
+    private final CostModel costModel;
+
+    public ReorderCostBased(JoinStats stats) {
+        this.costModel = new CostModel(stats);
+    }
+
+    public CostModel getCostModel() {
+        return costModel;
+    }
+
+    @Override
+    protected double weight(PatternTriple pTriple) {
+        return costModel.estimate(pTriple);
+    }
+
+    @Override
+    protected int chooseNext(List<PatternTriple> pTriples) {
+        int idx = -1;
+        double bestKey = 0;
+        double bestWeight = 0;
+        for ( int i = 0 ; i < pTriples.size() ; i++ ) {
+            PatternTriple pt = pTriples.get(i);
+            if ( pt == null )
+                continue;
+            double w = weight(pt);
+            double key = w;
+            if ( PatternElements.isVar(pt.subject) ) {
+                double star = starEstimate(pt.subject, pTriples);
+                if ( star >= 0 )
+                    key = star;
+            }
+            if ( idx < 0 || key < bestKey || ( key == bestKey && w < bestWeight ) ) {
+                idx = i;
+                bestKey = key;
+                bestWeight = w;
+            }
+        }
+        return idx;
+    }
+
+    private double starEstimate(Item subject, List<PatternTriple> pTriples) {
+        List<Node> predicates = new ArrayList<>();
+        for ( PatternTriple pt : pTriples ) {
+            if ( pt != null && subject.equals(pt.subject) && pt.predicate.isNodeURI() )
+                predicates.add(pt.predicate.getNode());
+        }
+        if ( predicates.size() < 2 )
+            return -1;
+        return costModel.estimateStar(predicates);
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.jena.sparql.engine.optimizer.reorder ;
 
 import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.engine.optimizer.JoinStats ;
 import org.apache.jena.sparql.engine.optimizer.StatsMatcher ;
 
 public class ReorderLib
@@ -85,4 +86,13 @@ public class ReorderLib
         return new ReorderWeighted(stats) ;
     }
 
+    /**
+     * Return a ReorderTransformation that uses cardinality estimates and
+     * characteristic sets from a stats file.
+     * @see JoinStats
+     */
+    public static ReorderTransformation costBased(String filename) {
+        return new ReorderCostBased(JoinStats.read(filename)) ;
+    }
+
 }
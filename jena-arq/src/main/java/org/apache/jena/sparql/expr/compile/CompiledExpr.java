@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.expr.compile;
+
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.function.FunctionEnv;
+
+/**
+ * An {@link Expr} prepared for repeated evaluation by {@link ExprCompiler}.
+ * <p>
+ * Evaluation errors are returned as values, not thrown as
+ * {@link org.apache.jena.sparql.expr.ExprEvalException ExprEvalException}.
+ */
+public interface CompiledExpr {
+    /** {@link #evalBoolean} result: the effective boolean value is false. */
+    public static final int FALSE = 0;
+    /** {@link #evalBoolean} result: the effective boolean value is true. */
+    public static final int TRUE  = 1;
+    /** {@link #evalBoolean} result: evaluation error. */
+    public static final int ERROR = -1;
+
+    /** Evaluate: return null for an evaluation error. */
+    public NodeValue eval(Binding binding, FunctionEnv env);
+
+    /** Evaluate to the effective boolean value : {@link #TRUE}, {@link #FALSE} or {@link #ERROR}. */
+    public default int evalBoolean(Binding binding, FunctionEnv env) {
+        return ExprCompiler.effectiveBooleanValue(eval(binding, env));
+    }
+
+    /** As {@link Expr#isSatisfied} */
+    public default boolean isSatisfied(Binding binding, FunctionEnv env) {
+        return evalBoolean(binding, env) == TRUE;
+    }
+
+    /** The expression this was compiled from. */
+    public Expr getExpr();
+}
@@ -0,0 +1,573 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.expr.compile;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.expr.*;
+import org.apache.jena.sparql.function.FunctionEnv;
+
+/**
+ * Compile expressions into trees of {@link CompiledExpr} for repeated evaluation,
+ * such as evaluating a {@code FILTER} for each row.
+ * <p>
+ * Compared to {@link Expr#eval}:
+ * <ul>
+ * <li>evaluation errors are passed back as values (see {@link CompiledExpr#ERROR}),
+ *     not as exceptions;</li>
+ * <li>{@code &&}, {@code ||}, {@code !} and {@code BOUND} work directly on
+ *     effective boolean values without creating {@link NodeValue NodeValues};</li>
+ * <li>comparisons of xsd:integer values that fit in a {@code long}, and
+ *     {@code STRSTARTS}, {@code STRENDS}, {@code CONTAINS} and {@code REGEX}
+ *     with a constant second argument, work on the RDF terms in the binding
+ *     without converting them to {@link NodeValue NodeValues};</li>
+ * <li>other functions of the SPARQL operators evaluate their arguments then call the
+ *     function, so the expression tree is only walked once per row.</li>
+ * </ul>
+ * Anything else, including custom functions and {@code EXISTS}, is evaluated by
+ * calling {@link Expr#eval}.
+ */
+public class ExprCompiler {
+
+    /** Compile an expression. */
+    public static CompiledExpr compile(Expr expr) {
+        if ( expr.isConstant() )
+            return new Constant(expr.getConstant());
+        if ( expr.isVariable() )
+            return new VarRef(expr, expr.asVar());
+        if ( expr instanceof E_Bound ) {
+            Expr arg = ((E_Bound)expr).getArg();
+            if ( arg.isVariable() )
+                return new Bound(expr, arg.asVar());
+        }
+        if ( expr instanceof E_LogicalAnd ) {
+            E_LogicalAnd e = (E_LogicalAnd)expr;
+            return new And(expr, compile(e.getArg1()), compile(e.getArg2()));
+        }
+        if ( expr instanceof E_LogicalOr ) {
+            E_LogicalOr e = (E_LogicalOr)expr;
+            return new Or(expr, compile(e.getArg1()), compile(e.getArg2()));
+        }
+        if ( expr instanceof E_LogicalNot )
+            return new Not(expr, compile(((E_LogicalNot)expr).getArg()));
+        if ( expr instanceof E_Conditional ) {
+            E_Conditional e = (E_Conditional)expr;
+            return new Conditional(expr, compile(e.getArg1()), compile(e.getArg2()), compile(e.getArg3()));
+        }
+        if ( expr instanceof E_Coalesce )
+            return new Coalesce(expr, compile(((E_Coalesce)expr).getArgs()));
+
+        Compare.Op compareOp = Compare.op(expr);
+        if ( compareOp != null ) {
+            ExprFunction2 e = (ExprFunction2)expr;
+            return new Compare(e, compareOp, compile(e.getArg1()), compile(e.getArg2()));
+        }
+        if ( expr instanceof E_StrStartsWith || expr instanceof E_StrEndsWith || expr instanceof E_StrContains ) {
+            ExprFunction2 e = (ExprFunction2)expr;
+            if ( isStringArg(e.getArg1()) && isStringConstant(e.getArg2()) )
+                return new StrTest(e, compile(e.getArg1()), compile(e.getArg2()));
+        }
+        if ( expr instanceof E_Regex ) {
+            E_Regex e = (E_Regex)expr;
+            if ( isStringArg(e.getArg(1)) && isStringConstant(e.getArg(2)) &&
+                 ( e.numArgs() == 2 || isStringConstant(e.getArg(3)) ) ) {
+                RegexEngine regex = null;
+                try {
+                    NodeValue flags = ( e.numArgs() == 2 ) ? null : e.getArg(3).getConstant();
+                    regex = E_Regex.makeRegexEngine(e.getArg(2).getConstant(), flags);
+                } catch (ExprException ex) { /* Leave to evaluation to report */ }
+                if ( regex != null )
+                    return new Regex(e, compile(e.getArgs()), regex);
+            }
+        }
+        if ( isStrict(expr) )
+            return new Function(expr, compile(((ExprFunction)expr).getArgs()));
+        return new Interpreted(expr);
+    }
+
+    /** Compile a list of expressions. */
+    public static List<CompiledExpr> compile(ExprList exprs) {
+        return compile(exprs.getList());
+    }
+
+    private static List<CompiledExpr> compile(List<Expr> exprs) {
+        List<CompiledExpr> x = new ArrayList<>(exprs.size());
+        for ( Expr e : exprs )
+            x.add(compile(e));
+        return x;
+    }
+
+    /** Effective boolean value of a {@link NodeValue}, without exceptions. */
+    public static int effectiveBooleanValue(NodeValue nv) {
+        // As XSDFuncOp.booleanEffectiveValue
+        if ( nv == null )
+            return CompiledExpr.ERROR;
+        if ( nv.isBoolean() )
+            return bool(nv.getBoolean());
+        if ( nv.isString() || nv.isLangString() )
+            return bool(!nv.getString().isEmpty());
+        if ( nv.isInteger() )
+            return bool(nv.getInteger().signum() != 0);
+        if ( nv.isDecimal() )
+            return bool(!nv.getDecimal().equals(BigDecimal.ZERO));
+        if ( nv.isDouble() ) {
+            double v = nv.getDouble();
+            return bool(v != 0.0d && !Double.isNaN(v));
+        }
+        if ( nv.isFloat() ) {
+            float v = nv.getFloat();
+            return bool(v != 0.0f && !Float.isNaN(v));
+        }
+        return CompiledExpr.ERROR;
+    }
+
+    private static int bool(boolean b) {
+        return b ? CompiledExpr.TRUE : CompiledExpr.FALSE;
+    }
+
+    /** The operators of SPARQL that evaluate all their arguments then apply the operation. */
+    private static boolean isStrict(Expr expr) {
+        if ( !(expr instanceof ExprFunction1) && !(expr instanceof ExprFunction2) &&
+             !(expr instanceof ExprFunction3) && !(expr instanceof ExprFunctionN) )
+            return false;
+        // Not subclasses from elsewhere - they may have their own evaluation.
+        if ( expr.getClass().getPackage() != Expr.class.getPackage() )
+            return false;
+        // Special forms.
+        return !(expr instanceof E_BNode) && !(expr instanceof E_Bound) && !(expr instanceof E_Call) &&
+               !(expr instanceof E_Coalesce) && !(expr instanceof E_Conditional) && !(expr instanceof E_Function) &&
+               !(expr instanceof E_LogicalAnd) && !(expr instanceof E_LogicalOr) && !(expr instanceof E_OneOfBase);
+    }
+
+    private static boolean isStringArg(Expr expr) {
+        return expr.isVariable() || ( expr instanceof E_Str && ((E_Str)expr).getArg().isVariable() );
+    }
+
+    private static boolean isStringConstant(Expr expr) {
+        return expr.isConstant() && expr.getConstant().isString();
+    }
+
+    /** The variable of a {@link #isStringArg} expression. */
+    private static Var stringArgVar(Expr expr) {
+        return expr.isVariable() ? expr.asVar() : ((E_Str)expr).getArg().asVar();
+    }
+
+    /**
+     * The string of a {@link #isStringArg} expression when it can be found directly from
+     * the RDF term, else null.
+     * {@code ?x} must be an xsd:string (or, if {@code langString}, a literal with language tag);
+     * {@code STR(?x)} must be a literal or IRI.
+     */
+    private static String string(Node n, boolean isStr, boolean langString) {
+        if ( n == null )
+            return null;
+        if ( n.isLiteral() ) {
+            if ( isStr )
+                return n.getLiteralLexicalForm();
+            if ( XSDDatatype.XSDstring.equals(n.getLiteralDatatype()) )
+                return n.getLiteralLexicalForm();
+            if ( langString && !n.getLiteralLanguage().isEmpty() )
+                return n.getLiteralLexicalForm();
+            return null;
+        }
+        if ( isStr && n.isURI() )
+            return n.getURI();
+        return null;
+    }
+
+    /** Whether the term is an xsd:integer with a value that fits in a long. */
+    private static boolean isSmallInteger(Node n) {
+        if ( n == null || !n.isLiteral() || !XSDDatatype.XSDinteger.equals(n.getLiteralDatatype()) )
+            return false;
+        String lex = n.getLiteralLexicalForm();
+        int len = lex.length();
+        int start = 0;
+        if ( len > 0 && ( lex.charAt(0) == '-' || lex.charAt(0) == '+' ) )
+            start = 1;
+        // Up to 18 digits is within the range of a long.
+        if ( len == start || len - start > 18 )
+            return false;
+        for ( int i = start ; i < len ; i++ ) {
+            char ch = lex.charAt(i);
+            if ( ch < '0' || ch > '9' )
+                return false;
+        }
+        return true;
+    }
+
+    private static abstract class Compiled implements CompiledExpr {
+        protected final Expr expr;
+        Compiled(Expr expr) { this.expr = expr; }
+        @Override public Expr getExpr()     { return expr; }
+        @Override public String toString()  { return expr.toString(); }
+    }
+
+    /** Compiled expressions that are evaluated for their effective boolean value. */
+    private static abstract class CompiledBoolean extends Compiled {
+        CompiledBoolean(Expr expr) { super(expr); }
+
+        @Override
+        public abstract int evalBoolean(Binding binding, FunctionEnv env);
+
+        @Override
+        public NodeValue eval(Binding binding, FunctionEnv env) {
+            switch (evalBoolean(binding, env)) {
+                case TRUE :  return NodeValue.TRUE;
+                case FALSE : return NodeValue.FALSE;
+                default :    return null;
+            }
+        }
+    }
+
+    private static class Constant extends Compiled {
+        private final NodeValue nv;
+        private final int ebv;
+        Constant(NodeValue nv) {
+            super(nv);
+            this.nv = nv;
+            this.ebv = effectiveBooleanValue(nv);
+        }
+        @Override public NodeValue eval(Binding binding, FunctionEnv env)    { return nv; }
+        @Override public int evalBoolean(Binding binding, FunctionEnv env)   { return ebv; }
+    }
+
+    private static class VarRef extends Compiled {
+        private final Var var;
+        VarRef(Expr expr, Var var) { super(expr); this.var = var; }
+
+        @Override
+        public NodeValue eval(Binding binding, FunctionEnv env) {
+            if ( binding == null )
+                return null;
+            Node n = binding.get(var);
+            return ( n == null ) ? null : NodeValue.makeNode(n);
+        }
+    }
+
+    /** Evaluate using the expression. */
+    private static class Interpreted extends Compiled {
+        Interpreted(Expr expr) { super(expr); }
+
+        @Override
+        public NodeValue eval(Binding binding, FunctionEnv env) {
+            try {
+                return expr.eval(binding, env);
+            } catch (ExprEvalException ex) {
+                return null;
+            }
+        }
+    }
+
+    /** Evaluate the arguments, then the function. */
+    private static class Function extends Compiled {
+        private final CompiledExpr[] args;
+        Function(Expr expr, List<CompiledExpr> args) {
+            super(expr);
+            this.args = args.toArray(new CompiledExpr[0]);
+        }
+
+        @Override
+        public NodeValue eval(Binding binding, FunctionEnv env) {
+            NodeValue[] values = new NodeValue[args.length];
+            for ( int i = 0 ; i < args.length ; i++ ) {
+                values[i] = args[i].eval(binding, env);
+                if ( values[i] == null )
+                    return null;
+            }
+            try {
+                if ( expr instanceof ExprFunction1 )
+                    return ((ExprFunction1)expr).eval(values[0], env);
+                if ( expr instanceof ExprFunction2 )
+                    return ((ExprFunction2)expr).eval(values[0], values[1], env);
+                if ( expr instanceof ExprFunction3 )
+                    return ((ExprFunction3)expr).eval(values[0], values[1], values[2], env);
+                List<NodeValue> x = new ArrayList<>(values.length);
+                for ( NodeValue v : values )
+                    x.add(v);
+                return ((ExprFunctionN)expr).eval(x, env);
+            } catch (ExprEvalException ex) {
+                return null;
+            }
+        }
+    }
+
+    private static class Bound extends CompiledBoolean {
+        private final Var var;
+        Bound(Expr expr, Var var) { super(expr); this.var = var; }
+
+        @Override
+        public int evalBoolean(Binding binding, FunctionEnv env) {
+            return bool(binding != null && binding.contains(var));
+        }
+    }
+
+    private static class And extends CompiledBoolean {
+        private final CompiledExpr left;
+        private final CompiledExpr right;
+        And(Expr expr, CompiledExpr left, CompiledExpr right) { super(expr); this.left = left; this.right = right; }
+
+        @Override
+        public int evalBoolean(Binding binding, FunctionEnv env) {
+            // false && error = false
+            int x = left.evalBoolean(binding, env);
+            if ( x == FALSE )
+                return FALSE;
+            int y = right.evalBoolean(binding, env);
+            if ( y == FALSE )
+                return FALSE;
+            return ( x == TRUE && y == TRUE ) ? TRUE : ERROR;
+        }
+    }
+
+    private static class Or extends CompiledBoolean {
+        private final CompiledExpr left;
+        private final CompiledExpr right;
+        Or(Expr expr, CompiledExpr left, CompiledExpr right) { super(expr); this.left = left; this.right = right; }
+
+        @Override
+        public int evalBoolean(Binding binding, FunctionEnv env) {
+            // true || error = true
+            int x = left.evalBoolean(binding, env);
+            if ( x == TRUE )
+                return TRUE;
+            int y = right.evalBoolean(binding, env);
+            if ( y == TRUE )
+                return TRUE;
+            return ( x == FALSE && y == FALSE ) ? FALSE : ERROR;
+        }
+    }
+
+    private static class Not extends CompiledBoolean {
+        private final CompiledExpr arg;
+        Not(Expr expr, CompiledExpr arg) { super(expr); this.arg = arg; }
+
+        @Override
+        public int evalBoolean(Binding binding, FunctionEnv env) {
+            switch (arg.evalBoolean(binding, env)) {
+                case TRUE :  return FALSE;
+                case FALSE : return TRUE;
+                default :    return ERROR;
+            }
+        }
+    }
+
+    private static class Conditional extends Compiled {
+        private final CompiledExpr condition;
+        private final CompiledExpr thenExpr;
+        private final CompiledExpr elseExpr;
+        Conditional(Expr expr, CompiledExpr condition, CompiledExpr thenExpr, CompiledExpr elseExpr) {
+            super(expr);
+            this.condition = condition;
+            this.thenExpr = thenExpr;
+            this.elseExpr = elseExpr;
+        }
+
+        @Override
+        public NodeValue eval(Binding binding, FunctionEnv env) {
+            // As E_Conditional : an error evaluating the condition is an error,
+            // a condition with no effective boolean value is false.
+            NodeValue nv = condition.eval(binding, env);
+            if ( nv == null )
+                return null;
+            if ( effectiveBooleanValue(nv) == TRUE )
+                return thenExpr.eval(binding, env);
+            return elseExpr.eval(binding, env);
+        }
+    }
+
+    private static class Coalesce extends Compiled {
+        private final CompiledExpr[] args;
+        Coalesce(Expr expr, List<CompiledExpr> args) {
+            super(expr);
+            this.args = args.toArray(new CompiledExpr[0]);
+        }
+
+        @Override
+        public NodeValue eval(Binding binding, FunctionEnv env) {
+            for ( CompiledExpr arg : args ) {
+                NodeValue nv = arg.eval(binding, env);
+                if ( nv != null )
+                    return nv;
+            }
+            return null;
+        }
+    }
+
+    /** Comparison operators, with a fast path for integers. */
+    private static class Compare extends CompiledBoolean {
+        enum Op { EQ, NE, LT, LE, GT, GE }
+
+        static Op op(Expr expr) {
+            if ( expr instanceof E_Equals )             return Op.EQ;
+            if ( expr instanceof E_NotEquals )          return Op.NE;
+            if ( expr instanceof E_LessThan )           return Op.LT;
+            if ( expr instanceof E_LessThanOrEqual )    return Op.LE;
+            if ( expr instanceof E_GreaterThan )        return Op.GT;
+            if ( expr instanceof E_GreaterThanOrEqual ) return Op.GE;
+            return null;
+        }
+
+        private final Op           op;
+        private final CompiledExpr left;
+        private final CompiledExpr right;
+        // Integer fast path: a variable or a constant on each side.
+        private final Var          leftVar;
+        private final Var          rightVar;
+        private final boolean      intPath;
+        private final long         leftConst;
+        private final long         rightConst;
+
+        Compare(ExprFunction2 expr, Op op, CompiledExpr left, CompiledExpr right) {
+            super(expr);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+            Expr e1 = expr.getArg1();
+            Expr e2 = expr.getArg2();
+            this.leftVar = e1.isVariable() ? e1.asVar() : null;
+            this.rightVar = e2.isVariable() ? e2.asVar() : null;
+            this.intPath = ( leftVar != null || isSmallIntegerConstant(e1) ) &&
+                           ( rightVar != null || isSmallIntegerConstant(e2) ) &&
+                           ( leftVar != null || rightVar != null );
+            this.leftConst = ( intPath && leftVar == null ) ? e1.getConstant().getInteger().longValue() : 0;
+            this.rightConst = ( intPath && rightVar == null ) ? e2.getConstant().getInteger().longValue() : 0;
+        }
+
+        private static boolean isSmallIntegerConstant(Expr expr) {
+            return expr.isConstant() && expr.getConstant().isInteger() && expr.getConstant().getInteger().bitLength() < 64;
+        }
+
+        @Override
+        public int evalBoolean(Binding binding, FunctionEnv env) {
+            if ( intPath && binding != null ) {
+                Node n1 = ( leftVar == null ) ? null : binding.get(leftVar);
+                Node n2 = ( rightVar == null ) ? null : binding.get(rightVar);
+                if ( ( leftVar == null || isSmallInteger(n1) ) && ( rightVar == null || isSmallInteger(n2) ) ) {
+                    long x = ( leftVar == null ) ? leftConst : Long.parseLong(n1.getLiteralLexicalForm());
+                    long y = ( rightVar == null ) ? rightConst : Long.parseLong(n2.getLiteralLexicalForm());
+                    return bool(test(Long.compare(x, y)));
+                }
+            }
+            NodeValue x = left.eval(binding, env);
+            if ( x == null )
+                return ERROR;
+            NodeValue y = right.eval(binding, env);
+            if ( y == null )
+                return ERROR;
+            try {
+                return effectiveBooleanValue(((ExprFunction2)expr).eval(x, y, env));
+            } catch (ExprEvalException ex) {
+                return ERROR;
+            }
+        }
+
+        private boolean test(int cmp) {
+            switch (op) {
+                case EQ : return cmp == 0;
+                case NE : return cmp != 0;
+                case LT : return cmp < 0;
+                case LE : return cmp <= 0;
+                case GT : return cmp > 0;
+                case GE : return cmp >= 0;
+            }
+            return false;
+        }
+    }
+
+    /** STRSTARTS, STRENDS and CONTAINS on an xsd:string and a constant string. */
+    private static class StrTest extends CompiledBoolean {
+        private final CompiledExpr left;
+        private final CompiledExpr right;
+        private final Var          var;
+        private final boolean      isStr;
+        private final String       str;
+
+        StrTest(ExprFunction2 expr, CompiledExpr left, CompiledExpr right) {
+            super(expr);
+            this.left = left;
+            this.right = right;
+            this.var = stringArgVar(expr.getArg1());
+            this.isStr = !expr.getArg1().isVariable();
+            this.str = expr.getArg2().getConstant().getString();
+        }
+
+        @Override
+        public int evalBoolean(Binding binding, FunctionEnv env) {
+            String s = ( binding == null ) ? null : string(binding.get(var), isStr, false);
+            if ( s != null ) {
+                if ( expr instanceof E_StrStartsWith )
+                    return bool(s.startsWith(str));
+                if ( expr instanceof E_StrEndsWith )
+                    return bool(s.endsWith(str));
+                return bool(s.contains(str));
+            }
+            NodeValue x = left.eval(binding, env);
+            if ( x == null )
+                return ERROR;
+            NodeValue y = right.eval(binding, env);
+            try {
+                return effectiveBooleanValue(((ExprFunction2)expr).eval(x, y, env));
+            } catch (ExprEvalException ex) {
+                return ERROR;
+            }
+        }
+    }
+
+    /** REGEX with a constant pattern and flags. */
+    private static class Regex extends CompiledBoolean {
+        private final CompiledExpr arg;
+        private final Var          var;
+        private final boolean      isStr;
+        private final RegexEngine  regex;
+
+        Regex(E_Regex expr, List<CompiledExpr> args, RegexEngine regex) {
+            super(expr);
+            this.arg = args.get(0);
+            this.var = stringArgVar(expr.getArg(1));
+            this.isStr = !expr.getArg(1).isVariable();
+            this.regex = regex;
+        }
+
+        @Override
+        public int evalBoolean(Binding binding, FunctionEnv env) {
+            String s = ( binding == null ) ? null : string(binding.get(var), isStr, true);
+            if ( s != null )
+                return bool(regex.match(s));
+            // Not a string : the expression raises the appropriate error.
+            NodeValue x = arg.eval(binding, env);
+            if ( x == null )
+                return ERROR;
+            try {
+                List<NodeValue> args = new ArrayList<>(3);
+                args.add(x);
+                for ( int i = 2 ; i <= ((E_Regex)expr).numArgs() ; i++ )
+                    args.add(((E_Regex)expr).getArg(i).getConstant());
+                return effectiveBooleanValue(((E_Regex)expr).eval(args, env));
+            } catch (ExprEvalException ex) {
+                return ERROR;
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.ARQException ;
 import org.apache.jena.sparql.engine.QueryEngineBase ;
+import org.apache.jena.sparql.engine.QueryPlanCache ;
 import org.slf4j.Logger ;
 import org.slf4j.LoggerFactory ;
 
@@ -68,6 +69,7 @@ class ARQMgt_X {
         // register(NS+".system:type=SystemInfo", ARQ.systemInfo) ;
         register(NS + ".system:type=Context", cxtBean) ;
         register(NS + ".system:type=Engine", qeInfo) ;
+        register(NS + ".system:type=QueryPlanCache", QueryPlanCache.get()) ;
     }
 
     public static void register(String name, Object bean) {
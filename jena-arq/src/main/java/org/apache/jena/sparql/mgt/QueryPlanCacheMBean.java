@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.mgt;
+
+/** Statistics for the cache of parsed queries and optimized algebra. */
+public interface QueryPlanCacheMBean
+{
+    /** Number of query strings found already parsed */
+    long getQueryCacheHits() ;
+
+    /** Number of query strings that had to be parsed */
+    long getQueryCacheMisses() ;
+
+    /** Number of queries in the cache */
+    long getQueryCacheSize() ;
+
+    /** Number of executions that reused optimized algebra */
+    long getPlanCacheHits() ;
+
+    /** Number of executions that had to compile and optimize the query */
+    long getPlanCacheMisses() ;
+
+    /** Number of optimized algebra expressions in the cache */
+    long getPlanCacheSize() ;
+
+    /** Empty the caches (the counts are not reset) */
+    void clear() ;
+}
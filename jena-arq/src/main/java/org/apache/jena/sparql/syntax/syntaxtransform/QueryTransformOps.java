@@ -119,7 +119,7 @@ public class QueryTransformOps {
     // ** Mutates the List
     private static void mutateExprList(List<Expr> exprList, ExprTransform exprTransform) {
         for (int i = 0; i < exprList.size(); i++) {
-            Expr e1 = exprList.get(0);
+            Expr e1 = exprList.get(i);
             Expr e2 = ExprTransformer.transform(exprTransform, e1);
             if (e2 == null || e2 == e1)
                 continue;
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.atlas.junit.BaseTest;
+import org.apache.jena.atlas.lib.StrUtils;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
+import org.apache.jena.query.ResultSetRewindable;
+import org.apache.jena.riot.ResultSetMgr;
+import org.apache.jena.riot.resultset.ResultSetLang;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ResultSetStream;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.Item;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.sse.builders.BuilderResultSet;
+import org.junit.Test;
+
+public class TestResultSetCompact extends BaseTest {
+    static ResultSetRewindable rs0 = make
+        ("(resultset (?x ?y)"
+         , "   (row (?x _:a) (?y 3))"
+         , "   (row (?x 1) (?y 'a'))"
+         , "   (row (?y 'y'))"
+         , "   (row (?x _:a))"
+         , "   (row)"
+         , "   (row (?x 2) (?y 10))"
+         , "   (row (?x 2) (?y 10))"
+         , "   (row (?x 2.5) (?y 'chat'@fr))"
+         , ")"
+         );
+
+    static ResultSetRewindable rs1 = make
+        ("(resultset (?x ?y)"
+         , "   (row (?x 1) (?y 3))"
+         , "   (row (?x 1) (?y 'a'))"
+         , ")"
+         );
+
+    static ResultSetRewindable rs2 = make
+        ("(resultset (?x ?y)"
+         , "   (row (?x 1) (?y 'a'))"
+         , "   (row (?x 1) (?y 3))"
+         , ")"
+         );
+
+    static ResultSetRewindable rs3 = make("(resultset (?x ?y))");
+
+    static ResultSetRewindable rs4 = make("(resultset ())");
+
+    @Test public void resultSet_01() { test(rs0); }
+
+    @Test public void resultSet_02() {
+        ResultSetRewindable r1 = test(rs1);
+        // not reordered
+        r1.reset();
+        rs2.reset();
+        assertFalse(ResultSetCompare.equalsByTermAndOrder(r1, rs2));
+        rs2.reset();
+    }
+
+    @Test public void resultSet_03() {
+        ResultSetRewindable r = test(rs3);
+        assertEquals(2, r.getResultVars().size());
+        assertFalse(r.hasNext());
+    }
+
+    @Test public void resultSet_04() {
+        ResultSetRewindable r = test(rs4);
+        assertEquals(0, r.getResultVars().size());
+    }
+
+    @Test public void resultSet_05() {
+        // Several blocks.
+        List<String> varNames = Arrays.asList("x", "y");
+        Var x = Var.alloc("x");
+        Var y = Var.alloc("y");
+        List<Binding> rows = new ArrayList<>();
+        for ( int i = 0 ; i < 50_000 ; i++ ) {
+            BindingMap b = BindingFactory.create();
+            b.add(x, NodeFactory.createURI("http://example/item/"+i));
+            if ( i%3 != 0 )
+                b.add(y, NodeFactory.createLiteral("Row "+i));
+            rows.add(b);
+        }
+        ResultSetRewindable rs = ResultSetFactory.makeRewindable(new ResultSetStream(varNames, null, rows.iterator()));
+        ResultSetRewindable rs2 = test(rs);
+        assertEquals(rows.size(), rs2.size());
+    }
+
+    @Test public void resultSet_06() {
+        // Via the registries.
+        rs0.reset();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResultSetMgr.write(out, rs0, ResultSetLang.SPARQLResultSetCompact);
+        rs0.reset();
+        ResultSet rs = ResultSetMgr.read(new ByteArrayInputStream(out.toByteArray()), ResultSetLang.SPARQLResultSetCompact);
+        ResultSetRewindable rs2 = ResultSetFactory.makeRewindable(rs);
+        assertTrue(ResultSetCompare.equalsExact(rs0, rs2));
+        rs0.reset();
+    }
+
+    private static ResultSetRewindable test(ResultSetRewindable resultSet) {
+        resultSet.reset();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompactRDF.writeResultSet(out, resultSet);
+        resultSet.reset();
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        ResultSet rs$ = CompactRDF.readResultSet(in);
+        ResultSetRewindable resultSet2 = ResultSetFactory.makeRewindable(rs$);
+        assertEquals(resultSet.getResultVars(), resultSet2.getResultVars());
+        // Includes bnode labels.
+        assertTrue(ResultSetCompare.equalsExact(resultSet, resultSet2));
+        resultSet.reset();
+        resultSet2.reset();
+        return resultSet2;
+    }
+
+    private static ResultSetRewindable make(String ... strings) {
+        String s = StrUtils.strjoinNL(strings);
+        Item item = SSE.parse(s);
+        ResultSetRewindable rs = ResultSetFactory.makeRewindable(BuilderResultSet.build(item));
+        return rs;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.compact;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.atlas.junit.BaseTest;
+import org.apache.jena.atlas.lib.StrUtils;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.system.StreamRDFOps;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.sse.builders.BuilderResultSet;
+import org.junit.Test;
+
+public class TestStreamRDFCompact extends BaseTest {
+
+    static String gs = StrUtils.strjoinNL(
+        "(graph",
+        "  (_:a :p 123) ",
+        "  (_:a :p -5) ",
+        "  (_:a :p 'foo'@en) ",
+        "  (_:b :p '456') ",
+        "  (_:b :p '456.5') ",
+        "  (_:b :p '456.5e6') ",
+        "  (_:b :q true) ",
+        "  (:s :q <http://example/other#x>) ",
+        ")");
+
+    static Graph graph = SSE.parseGraph(gs);
+
+    static String dgs = StrUtils.strjoinNL(
+        "(dataset",
+        "  (graph (:s1 :p _:a) (:s2 :p _:a))" ,
+        "  (graph :g  (:s1 :p _:a))" ,
+        "  (graph _:a (:s2 :p _:a))" ,
+        ")" );
+
+    static DatasetGraph datasetGraph = SSE.parseDatasetGraph(dgs);
+
+    @Test public void graph_01() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamRDF stream = CompactRDF.streamToOutputStream(out);
+        StreamRDFOps.graphToStream(graph, stream);
+
+        Graph g2 = GraphFactory.createGraphMem();
+        RDFDataMgr.read(g2, new ByteArrayInputStream(out.toByteArray()), Lang.RDFCOMPACT);
+        // Same terms, including blank nodes.
+        sameTerms(graph, g2);
+    }
+
+    @Test public void graph_02() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamRDFWriter.write(out, graph, Lang.RDFCOMPACT, null);
+        Graph g2 = GraphFactory.createGraphMem();
+        RDFDataMgr.read(g2, new ByteArrayInputStream(out.toByteArray()), Lang.RDFCOMPACT);
+        sameTerms(graph, g2);
+    }
+
+    @Test public void graph_prefixes() {
+        Graph g1 = SSE.parseGraph("(graph (:s :p :o))");
+        g1.getPrefixMapping().setNsPrefix("ex", "http://example/");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFDataMgr.write(out, g1, RDFFormat.RDF_COMPACT);
+        Graph g2 = GraphFactory.createGraphMem();
+        RDFDataMgr.read(g2, new ByteArrayInputStream(out.toByteArray()), Lang.RDFCOMPACT);
+        sameTerms(g1, g2);
+        assertEquals("http://example/", g2.getPrefixMapping().getNsPrefixURI("ex"));
+    }
+
+    @Test public void dataset_01() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFDataMgr.write(out, datasetGraph, RDFFormat.RDF_COMPACT);
+        DatasetGraph dsg2 = DatasetGraphFactory.create();
+        RDFDataMgr.read(dsg2, new ByteArrayInputStream(out.toByteArray()), Lang.RDFCOMPACT);
+        sameTerms(datasetGraph, dsg2);
+    }
+
+    @Test public void dataset_02() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamRDFWriter.write(out, datasetGraph, RDFFormat.RDF_COMPACT_PLAIN, null);
+        DatasetGraph dsg2 = DatasetGraphFactory.create();
+        RDFDataMgr.read(dsg2, new ByteArrayInputStream(out.toByteArray()), Lang.RDFCOMPACT);
+        sameTerms(datasetGraph, dsg2);
+    }
+
+    @Test public void terms_01() {
+        Node s = NodeFactory.createURI("http://example/s");
+        Node p = NodeFactory.createURI("http://example/p");
+        List<Node> objects = new ArrayList<>();
+        // Integers : canonical forms are value-encoded, others are kept as written.
+        objects.add(NodeFactory.createLiteral("0", XSDDatatype.XSDinteger));
+        objects.add(NodeFactory.createLiteral("-123456789012345678", XSDDatatype.XSDinteger));
+        objects.add(NodeFactory.createLiteral("9223372036854775807", XSDDatatype.XSDinteger));
+        objects.add(NodeFactory.createLiteral("99999999999999999999999", XSDDatatype.XSDinteger));
+        objects.add(NodeFactory.createLiteral("+1", XSDDatatype.XSDinteger));
+        objects.add(NodeFactory.createLiteral("007", XSDDatatype.XSDinteger));
+        objects.add(NodeFactory.createLiteral("-0", XSDDatatype.XSDinteger));
+        objects.add(NodeFactory.createLiteral("12", XSDDatatype.XSDint));
+        objects.add(NodeFactory.createLiteral("true", XSDDatatype.XSDboolean));
+        objects.add(NodeFactory.createLiteral("false", XSDDatatype.XSDboolean));
+        objects.add(NodeFactory.createLiteral("1", XSDDatatype.XSDboolean));
+        objects.add(NodeFactory.createLiteral("1.5", XSDDatatype.XSDdouble));
+        objects.add(NodeFactory.createLiteral("1.5e0", XSDDatatype.XSDdouble));
+        objects.add(NodeFactory.createLiteral("1.0E10", XSDDatatype.XSDdouble));
+        objects.add(NodeFactory.createLiteral("NaN", XSDDatatype.XSDdouble));
+        objects.add(NodeFactory.createLiteral("2.5", XSDDatatype.XSDdecimal));
+        objects.add(NodeFactory.createLiteral(""));
+        objects.add(NodeFactory.createLiteral("chat", "fr"));
+        objects.add(NodeFactory.createLiteral("x", NodeFactory.getType("http://example/datatype")));
+        // Non-ASCII, including a character outside the BMP and an unpaired surrogate.
+        objects.add(NodeFactory.createLiteral("café 世界 😀"));
+        objects.add(NodeFactory.createLiteral("bad \uD800 surrogate"));
+        objects.add(NodeFactory.createURI("http://example/😀"));
+        objects.add(NodeFactory.createURI("http://example/😁"));
+        objects.add(NodeFactory.createURI("http://example/"));
+        objects.add(NodeFactory.createURI("http://example/s"));
+        objects.add(NodeFactory.createURI("urn:x"));
+        objects.add(NodeFactory.createBlankNode("b0"));
+        objects.add(NodeFactory.createTripleNode(s, p, NodeFactory.createLiteral("nested")));
+        objects.add(NodeFactory.createTripleNode(s, p, NodeFactory.createTripleNode(s, p, s)));
+
+        List<Triple> triples = new ArrayList<>();
+        for ( Node o : objects )
+            triples.add(Triple.create(s, p, o));
+        // Again, now found in the block dictionary.
+        for ( Node o : objects )
+            triples.add(Triple.create(o.isLiteral() ? s : o, p, o));
+
+        for ( boolean compress : new boolean[] {true, false} ) {
+            byte[] bytes = write(triples, compress, CRDF.BlockSize);
+            List<Triple> triples2 = readTriples(bytes);
+            assertEquals(triples, triples2);
+            // Check lexical forms directly (Node.equals is by term).
+            for ( int i = 0 ; i < triples.size() ; i++ ) {
+                Node o1 = triples.get(i).getObject();
+                Node o2 = triples2.get(i).getObject();
+                if ( o1.isLiteral() )
+                    assertEquals(o1.getLiteralLexicalForm(), o2.getLiteralLexicalForm());
+            }
+        }
+    }
+
+    @Test public void blocks_01() {
+        List<Triple> triples = generate(5000);
+        byte[] bytes = write(triples, true, 1000);
+        assertEquals(triples, readTriples(bytes));
+    }
+
+    @Test public void blocks_02() {
+        // Compression reduces the size of repetitive data.
+        List<Triple> triples = generate(5000);
+        byte[] compressed = write(triples, true, CRDF.BlockSize);
+        byte[] plain = write(triples, false, CRDF.BlockSize);
+        assertTrue(compressed.length < plain.length);
+        assertEquals(triples, readTriples(plain));
+    }
+
+    @Test public void index_01() throws IOException {
+        List<Triple> triples = generate(5000);
+        byte[] bytes = write(triples, true, 1000);
+        Path path = Files.createTempFile("compact", ".rdfc");
+        try {
+            Files.write(path, bytes);
+            try ( FileChannel channel = FileChannel.open(path) ) {
+                long[] offsets = CompactRDF.readIndex(channel);
+                assertTrue(offsets.length > 1);
+                // Read the blocks in reverse order.
+                List<List<Triple>> blocks = new ArrayList<>();
+                for ( int i = offsets.length-1 ; i >= 0 ; i-- ) {
+                    Collector collector = new Collector();
+                    CompactRDF.readBlock(channel, offsets[i], collector);
+                    assertFalse(collector.triples.isEmpty());
+                    blocks.add(0, collector.triples);
+                }
+                List<Triple> all = new ArrayList<>();
+                blocks.forEach(all::addAll);
+                assertEquals(triples, all);
+            }
+        } finally { Files.delete(path); }
+    }
+
+    @Test public void index_02() throws IOException {
+        // No data : an index with no blocks.
+        byte[] bytes = write(new ArrayList<>(), true, CRDF.BlockSize);
+        Path path = Files.createTempFile("compact", ".rdfc");
+        try {
+            Files.write(path, bytes);
+            try ( FileChannel channel = FileChannel.open(path) ) {
+                assertEquals(0, CompactRDF.readIndex(channel).length);
+            }
+        } finally { Files.delete(path); }
+        assertTrue(readTriples(bytes).isEmpty());
+    }
+
+    @Test(expected=RiotCompactException.class)
+    public void bad_01() {
+        readTriples(StrUtils.asUTF8bytes("<http://example/s> <http://example/p> <http://example/o> ."));
+    }
+
+    @Test(expected=RiotCompactException.class)
+    public void bad_02() {
+        // Results, not RDF.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompactRDF.writeResultSet(out, BuilderResultSet.build(SSE.parse("(resultset (?x) (row (?x 1)))")));
+        readTriples(out.toByteArray());
+    }
+
+    private static List<Triple> generate(int n) {
+        List<Triple> triples = new ArrayList<>();
+        Node p1 = NodeFactory.createURI("http://example/ns#p1");
+        Node p2 = NodeFactory.createURI("http://example/ns#p2");
+        for ( int i = 0 ; i < n ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/data/item"+(i/4));
+            Node o = ( i%2 == 0 )
+                ? NodeFactory.createLiteral(Integer.toString(i), XSDDatatype.XSDinteger)
+                : NodeFactory.createLiteral("Label "+i, "en");
+            triples.add(Triple.create(s, i%3 == 0 ? p1 : p2, o));
+        }
+        return triples;
+    }
+
+    private static byte[] write(List<Triple> triples, boolean compress, int blockSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamRDF stream = new StreamRDF2Compact(out, compress, blockSize);
+        stream.start();
+        triples.forEach(stream::triple);
+        stream.finish();
+        return out.toByteArray();
+    }
+
+    private static List<Triple> readTriples(byte[] bytes) {
+        Collector collector = new Collector();
+        CompactRDF.inputStreamToStream(new ByteArrayInputStream(bytes), collector);
+        return collector.triples;
+    }
+
+    static class Collector extends StreamRDFBase {
+        List<Triple> triples = new ArrayList<>();
+        @Override public void triple(Triple triple) { triples.add(triple); }
+    }
+
+    static void sameTerms(Graph g1, Graph g2) {
+        assertEquals(g1.size(), g2.size());
+        g1.find().forEachRemaining(t -> assertTrue(g2.contains(t)));
+    }
+
+    static void sameTerms(DatasetGraph dsg1, DatasetGraph dsg2) {
+        List<Quad> quads1 = new ArrayList<>();
+        dsg1.find().forEachRemaining(quads1::add);
+        List<Quad> quads2 = new ArrayList<>();
+        dsg2.find().forEachRemaining(quads2::add);
+        assertEquals(quads1.size(), quads2.size());
+        quads1.forEach(q -> assertTrue(dsg2.contains(q)));
+    }
+}
@@ -35,6 +35,7 @@ import org.junit.runners.Suite ;
     , TestTurtleTerms.class
     , TestLangNTriples.class
     , TestLangNQuads.class
+    , TestReaderNTuplesParallel.class
     , TestLangTurtle.class
     , TestLangTrig.class
     , TestLangRdfJson.class
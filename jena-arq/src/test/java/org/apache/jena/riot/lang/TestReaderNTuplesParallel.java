@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RIOT;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.*;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.util.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestReaderNTuplesParallel {
+
+    private int chunkSize;
+
+    @Before public void before() {
+        chunkSize = ReaderNTuplesParallel.ChunkSize;
+        // Small chunks so the test data is split into many.
+        ReaderNTuplesParallel.ChunkSize = 200;
+    }
+
+    @After public void after() {
+        ReaderNTuplesParallel.ChunkSize = chunkSize;
+    }
+
+    private static class Collect extends StreamRDFBase {
+        final List<Triple> triples = new ArrayList<>();
+        final List<Quad>   quads   = new ArrayList<>();
+        int starts = 0;
+        int finishes = 0;
+        @Override public void start()               { starts++; }
+        @Override public void triple(Triple triple) { triples.add(triple); }
+        @Override public void quad(Quad quad)       { quads.add(quad); }
+        @Override public void finish()              { finishes++; }
+    }
+
+    private static String dataNT(int N) {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < N ; i++ ) {
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"").append(i).append("\" .\n");
+            sb.append("_:b").append(i%7).append(" <http://example/q> <http://example/o").append(i).append("> .\n");
+        }
+        return sb.toString();
+    }
+
+    private static String dataNQ(int N) {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < N ; i++ ) {
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"").append(i).append("\" <http://example/g").append(i%3).append("> .\r\n");
+            sb.append("_:b").append(i%7).append(" <http://example/q> <http://example/o").append(i).append("> .\r\n");
+        }
+        return sb.toString();
+    }
+
+    private static Collect parse(String data, Lang lang, int threads, boolean ordered) {
+        Collect c = new Collect();
+        InputStream in = new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+        RDFParser.create()
+            .source(in)
+            .lang(lang)
+            .set(RIOT.symNTuplesParserThreads, threads)
+            .set(RIOT.symNTuplesParserOrdered, ordered)
+            .errorHandler(ErrorHandlerFactory.errorHandlerStrictSilent())
+            .parse(c);
+        return c;
+    }
+
+    @Test public void parallel_ntriples_01() {
+        String data = dataNT(100);
+        Collect c1 = parse(data, Lang.NTRIPLES, 1, true);
+        Collect c2 = parse(data, Lang.NTRIPLES, 4, true);
+        assertEquals(200, c2.triples.size());
+        assertEquals(1, c2.starts);
+        assertEquals(1, c2.finishes);
+        // Blank nodes differ between parser runs; compare with blank nodes ignored.
+        assertEquals(c1.triples.size(), c2.triples.size());
+        for ( int i = 0 ; i < c1.triples.size() ; i++ ) {
+            Triple t1 = c1.triples.get(i);
+            Triple t2 = c2.triples.get(i);
+            assertEquals(t1.getPredicate(), t2.getPredicate());
+            assertEquals(t1.getObject(), t2.getObject());
+            assertEquals(t1.getSubject().isBlank(), t2.getSubject().isBlank());
+            if ( ! t1.getSubject().isBlank() )
+                assertEquals(t1.getSubject(), t2.getSubject());
+        }
+    }
+
+    @Test public void parallel_nquads_01() {
+        String data = dataNQ(100);
+        Collect c1 = parse(data, Lang.NQUADS, 1, true);
+        Collect c2 = parse(data, Lang.NQUADS, 3, true);
+        assertEquals(200, c2.quads.size());
+        assertEquals(c1.quads.size(), c2.quads.size());
+        for ( int i = 0 ; i < c1.quads.size() ; i++ ) {
+            Quad q1 = c1.quads.get(i);
+            Quad q2 = c2.quads.get(i);
+            assertEquals(q1.getGraph(), q2.getGraph());
+            assertEquals(q1.getObject(), q2.getObject());
+        }
+    }
+
+    @Test public void parallel_bnodes() {
+        // The same label in different chunks is the same blank node.
+        String data = dataNT(100);
+        Collect c = parse(data, Lang.NTRIPLES, 4, true);
+        Map<Integer, Node> bnodes = new HashMap<>();
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            Node b = c.triples.get(2*i+1).getSubject();
+            assertTrue(b.isBlank());
+            Node b2 = bnodes.putIfAbsent(i%7, b);
+            if ( b2 != null )
+                assertEquals(b2, b);
+        }
+        assertEquals(7, bnodes.size());
+        assertNotEquals(bnodes.get(0), bnodes.get(1));
+    }
+
+    @Test public void parallel_unordered() {
+        String data = dataNT(100);
+        Collect c1 = parse(data, Lang.NTRIPLES, 4, true);
+        Collect c2 = parse(data, Lang.NTRIPLES, 4, false);
+        assertEquals(c1.triples.size(), c2.triples.size());
+        // Not the same blank nodes from different parser runs.
+        List<Triple> x1 = new ArrayList<>();
+        c1.triples.stream().filter(t->!t.getSubject().isBlank()).forEach(x1::add);
+        List<Triple> x2 = new ArrayList<>();
+        c2.triples.stream().filter(t->!t.getSubject().isBlank()).forEach(x2::add);
+        assertEquals(x1.size(), x2.size());
+        assertTrue(x1.containsAll(x2));
+        assertTrue(x2.containsAll(x1));
+    }
+
+    @Test public void parallel_no_final_newline() {
+        String data = dataNT(20)+"<http://example/s> <http://example/p> <http://example/o> .";
+        Collect c = parse(data, Lang.NTRIPLES, 2, true);
+        assertEquals(41, c.triples.size());
+    }
+
+    @Test public void parallel_long_line() {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < 100 ; i++ )
+            sb.append("abcdefghij");
+        String data = dataNT(5)+"<http://example/s> <http://example/p> \""+sb+"\" .\n"+dataNT(5);
+        Collect c = parse(data, Lang.NTRIPLES, 2, true);
+        assertEquals(21, c.triples.size());
+        assertEquals(1000, c.triples.get(10).getObject().getLiteralLexicalForm().length());
+    }
+
+    @Test public void parallel_labelToNode() {
+        // The application's label policy is used: parsed on the calling thread.
+        String data = dataNT(100);
+        Collect c = new Collect();
+        RDFParser.create()
+            .source(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)))
+            .lang(Lang.NTRIPLES)
+            .set(RIOT.symNTuplesParserThreads, 4)
+            .labelToNode(LabelToNode.createUseLabelAsGiven())
+            .parse(c);
+        assertEquals(200, c.triples.size());
+        assertEquals("b3", c.triples.get(7).getSubject().getBlankNodeLabel());
+    }
+
+    @Test public void parallel_factory() {
+        // The application's factory is used: parsed on the calling thread.
+        String data = dataNT(100);
+        Collect c = new Collect();
+        Set<Thread> threads = new HashSet<>();
+        FactoryRDF factory = new FactoryRDFStd() {
+            @Override
+            public Triple createTriple(Node subject, Node predicate, Node object) {
+                threads.add(Thread.currentThread());
+                return super.createTriple(subject, predicate, object);
+            }
+        };
+        RDFParser.create()
+            .source(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)))
+            .lang(Lang.NTRIPLES)
+            .set(RIOT.symNTuplesParserThreads, 4)
+            .factory(factory)
+            .parse(c);
+        assertEquals(200, c.triples.size());
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test public void parallel_profile_subclass() {
+        // A subclass of ParserProfileStd is not copied for parser threads: parsed on the calling thread.
+        String data = dataNT(100);
+        Collect c = new Collect();
+        Set<Thread> threads = new HashSet<>();
+        ParserProfile profile = new ParserProfileStd(RiotLib.factoryRDF(), ErrorHandlerFactory.errorHandlerStrictSilent(),
+                                                     IRIResolver.createNoResolve(), PrefixMapFactory.createForInput(),
+                                                     RIOT.getContext().copy(), false, false) {
+            @Override
+            public Triple createTriple(Node subject, Node predicate, Node object, long line, long col) {
+                threads.add(Thread.currentThread());
+                return super.createTriple(subject, predicate, object, line, col);
+            }
+        };
+        Context context = RIOT.getContext().copy();
+        context.set(RIOT.symNTuplesParserThreads, 4);
+        InputStream in = new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+        new ReaderNTuplesParallel(Lang.NTRIPLES, profile).read(in, null, null, c, context);
+        assertEquals(200, c.triples.size());
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test public void parallel_error() {
+        String data = dataNT(50)+"<http://example/s> <http://example/p> .\n"+dataNT(50);
+        try {
+            parse(data, Lang.NTRIPLES, 4, true);
+            fail("Expected a parse error");
+        } catch (RiotException ex) {}
+    }
+}
@@ -32,6 +32,8 @@ import org.junit.runners.Suite.SuiteClasses ;
     , TestStreamRDF.class
     , TestFactoryRDF.class
     , TestFactoryRDFCaching.class
+    , TestFactoryRDFDictionary.class
+    , TestTermDictionary.class
 
     // Prefix Map implementations
     , TestPrefixMap.class
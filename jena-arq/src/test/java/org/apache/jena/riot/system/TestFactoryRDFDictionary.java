@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import static org.junit.Assert. * ;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.riot.lang.LabelToNode ;
+import org.junit.Test ;
+
+public class TestFactoryRDFDictionary extends TestFactoryRDF {
+    private final TermDictionary<Integer> dictionary = new TermDictionaryStd<>(100) ;
+
+    public TestFactoryRDFDictionary() {
+        super.factory = new FactoryRDFDictionary(dictionary, LabelToNode.createUseLabelAsGiven()) ;
+    }
+
+    @Test public void factory_dict_01() {
+        Node n1 = factory.createURI("http://test/n1") ;
+        Node n2 = factory.createURI("http://test/n2") ;
+        Node n3 = factory.createURI("http://test/n1") ;
+        assertSame(n1, n3) ;
+        assertNotSame(n1, n2) ;
+    }
+
+    @Test public void factory_dict_02() {
+        Node n1 = factory.createLangLiteral("abc", "en") ;
+        Node n2 = factory.createLangLiteral("abc", "en") ;
+        assertSame(n1, n2) ;
+        Node n3 = factory.createTypedLiteral("123", XSDDatatype.XSDinteger) ;
+        Node n4 = factory.createTypedLiteral("123", XSDDatatype.XSDinteger) ;
+        assertSame(n3, n4) ;
+        Node n5 = factory.createStringLiteral("abc") ;
+        assertNotSame(n1, n5) ;
+        assertSame(n5, factory.createStringLiteral("abc")) ;
+    }
+
+    @Test public void factory_dict_03() {
+        // Shared with another factory.
+        FactoryRDF factory2 = new FactoryRDFDictionary(dictionary) ;
+        Node n1 = factory.createURI("http://test/n1") ;
+        Node n2 = factory2.createURI("http://test/n1") ;
+        assertSame(n1, n2) ;
+    }
+}
@@ -55,6 +55,8 @@ public class TestFormatRegistration extends BaseTest
         add("TRIX",     x, RDFFormat.TRIX,       true, true) ;
         add("TRDF",     x, RDFFormat.RDF_THRIFT, true, true) ;
         add("TRDF",     x, RDFFormat.RDF_THRIFT_VALUES, true, true) ;
+        add("CRDF",     x, RDFFormat.RDF_COMPACT, true, true) ;
+        add("CRDF",     x, RDFFormat.RDF_COMPACT_PLAIN, true, true) ;
         return x ;
     }
     
@@ -49,6 +49,7 @@ public class TestLangRegistration extends BaseTest
         add("TRIG",     x, Lang.TRIG,       false, true) ;
         add("TRIX",     x, Lang.TRIX,       true, true) ;
         add("TRDF",     x, Lang.RDFTHRIFT,  true, true) ;
+        add("CRDF",     x, Lang.RDFCOMPACT, true, true) ;
         return x ;
     }
     
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import static org.junit.Assert. * ;
+
+import java.io.ByteArrayInputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFParser ;
+import org.apache.jena.sparql.util.NodeFactoryExtra ;
+import org.junit.Test ;
+
+public class TestTermDictionary {
+
+    @Test public void termDict_intern_01() {
+        TermDictionary<Integer> dict = new TermDictionaryStd<>(100) ;
+        Node n1 = NodeFactory.createURI("http://example/x") ;
+        Node n2 = NodeFactory.createURI("http://example/x") ;
+        assertSame(n1, dict.intern(n1)) ;
+        assertSame(n1, dict.intern(n2)) ;
+        assertEquals(1, dict.size()) ;
+    }
+
+    @Test public void termDict_intern_02() {
+        TermDictionary<Integer> dict = new TermDictionaryStd<>(100) ;
+        Node n1 = NodeFactory.createURI("http://example/x") ;
+        dict.intern(n1) ;
+        Node n2 = dict.getOrCreateURI("http://example/x", NodeFactory::createURI) ;
+        assertSame(n1, n2) ;
+    }
+
+    @Test public void termDict_intern_03() {
+        TermDictionary<Integer> dict = new TermDictionaryStd<>(100) ;
+        Node n1 = NodeFactoryExtra.parseNode("'abc'@en") ;
+        Node n2 = NodeFactoryExtra.parseNode("'abc'@en") ;
+        Node n3 = NodeFactoryExtra.parseNode("'abc'") ;
+        assertSame(n1, dict.intern(n1)) ;
+        assertSame(n1, dict.intern(n2)) ;
+        assertSame(n3, dict.intern(n3)) ;
+        assertEquals(2, dict.size()) ;
+    }
+
+    @Test public void termDict_accepts_01() {
+        TermDictionary<Integer> dict = new TermDictionaryStd<>(100, 5) ;
+        assertTrue(dict.accepts(NodeFactory.createURI("http://example/x"))) ;
+        assertTrue(dict.accepts(NodeFactory.createLiteral("12345"))) ;
+        assertFalse(dict.accepts(NodeFactory.createLiteral("123456"))) ;
+        assertFalse(dict.accepts(NodeFactory.createBlankNode())) ;
+
+        Node n = NodeFactory.createLiteral("123456") ;
+        assertSame(n, dict.intern(n)) ;
+        dict.setValue(n, 1) ;
+        assertNull(dict.getValue(n)) ;
+        assertEquals(0, dict.size()) ;
+    }
+
+    @Test public void termDict_value_01() {
+        TermDictionary<Integer> dict = new TermDictionaryStd<>(100) ;
+        Node n1 = NodeFactory.createURI("http://example/x") ;
+        assertNull(dict.getValue(n1)) ;
+        dict.setValue(n1, 1) ;
+        assertEquals(Integer.valueOf(1), dict.getValue(NodeFactory.createURI("http://example/x"))) ;
+        dict.clear() ;
+        assertNull(dict.getValue(n1)) ;
+        assertEquals(0, dict.size()) ;
+    }
+
+    @Test public void termDict_size_01() {
+        TermDictionary<Integer> dict = new TermDictionaryStd<>(10) ;
+        for ( int i = 0 ; i < 1000 ; i++ )
+            dict.intern(NodeFactory.createURI("http://example/x"+i)) ;
+        assertTrue(dict.size() <= 10) ;
+    }
+
+    @Test public void termDict_parse_01() {
+        TermDictionary<Integer> dict = new TermDictionaryStd<>(100) ;
+        String data = "<http://example/s> <http://example/p> 'abc' .\n<http://example/s> <http://example/p> 'abc' ." ;
+        List<Triple> triples1 = parse(data, dict) ;
+        List<Triple> triples2 = parse(data, dict) ;
+        Triple t1 = triples1.get(0) ;
+        Triple t2 = triples1.get(1) ;
+        Triple t3 = triples2.get(0) ;
+        assertSame(t1.getSubject(), t2.getSubject()) ;
+        assertSame(t1.getObject(), t2.getObject()) ;
+        // Across parser runs.
+        assertSame(t1.getSubject(), t3.getSubject()) ;
+        assertSame(t1.getPredicate(), t3.getPredicate()) ;
+    }
+
+    private static List<Triple> parse(String data, TermDictionary<?> dict) {
+        List<Triple> triples = new ArrayList<>() ;
+        RDFParser.create()
+            .source(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)))
+            .lang(Lang.TTL)
+            .termDictionary(dict)
+            .parse(new StreamRDFBase() {
+                @Override public void triple(Triple triple) { triples.add(triple) ; }
+            }) ;
+        return triples ;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens ;
+
+import java.io.ByteArrayInputStream ;
+import java.nio.ByteBuffer ;
+import java.nio.charset.StandardCharsets ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.riot.RiotParseException ;
+import org.junit.Test ;
+
+public class TestTokenizerBytes extends BaseTest {
+    private static Tokenizer tokenizer(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8) ;
+        return TokenizerFactory.makeTokenizerBytes(new ByteArrayInputStream(bytes)) ;
+    }
+
+    private static Token tokenFor(String string) {
+        Tokenizer tokenizer = tokenizer(string) ;
+        assertTrue(tokenizer.hasNext()) ;
+        Token token = tokenizer.next() ;
+        assertFalse("Excess tokens", tokenizer.hasNext()) ;
+        return token ;
+    }
+
+    private static Token tokenizeAndTestExact(String input, TokenType tokenType, String tokenImage) {
+        Token token = tokenFor(input) ;
+        assertEquals(tokenType, token.getType()) ;
+        assertEquals(tokenImage, token.getImage()) ;
+        return token ;
+    }
+
+    private static void tokenizeBad(String input) {
+        Tokenizer tokenizer = tokenizer(input) ;
+        try {
+            while ( tokenizer.hasNext() )
+                tokenizer.next() ;
+            fail("No exception: "+input) ;
+        } catch (RiotParseException ex) {}
+    }
+
+    @Test public void tokenBytes_iri_01()       { tokenizeAndTestExact("<x>", TokenType.IRI, "x") ; }
+    @Test public void tokenBytes_iri_02()       { tokenizeAndTestExact("  <http://example/a#b>  ", TokenType.IRI, "http://example/a#b") ; }
+    @Test public void tokenBytes_iri_03()       { tokenizeAndTestExact("<>", TokenType.IRI, "") ; }
+    @Test public void tokenBytes_iri_04()       { tokenizeAndTestExact("<http://example/\\u00E9>", TokenType.IRI, "http://example/\u00E9") ; }
+    @Test public void tokenBytes_iri_05()       { tokenizeAndTestExact("<http://example/\u00E9\u4E2D>", TokenType.IRI, "http://example/\u00E9\u4E2D") ; }
+    @Test public void tokenBytes_iri_06()       { tokenizeAndTestExact("<http://example/\uD83D\uDE00>", TokenType.IRI, "http://example/\uD83D\uDE00") ; }
+
+    @Test public void tokenBytes_iri_bad_01()   { tokenizeBad("<http://example/ a>") ; }
+    @Test public void tokenBytes_iri_bad_02()   { tokenizeBad("<http://example/a") ; }
+    @Test public void tokenBytes_iri_bad_03()   { tokenizeBad("<http://example/\na>") ; }
+    @Test public void tokenBytes_iri_bad_04()   { tokenizeBad("<http://example/{a}>") ; }
+    @Test public void tokenBytes_iri_bad_05()   { tokenizeBad("<http://example/\\n>") ; }
+
+    @Test public void tokenBytes_string_01()    { tokenizeAndTestExact("\"abc\"", TokenType.STRING, "abc") ; }
+    @Test public void tokenBytes_string_02()    { tokenizeAndTestExact("\"\"", TokenType.STRING, "") ; }
+    @Test public void tokenBytes_string_03()    { tokenizeAndTestExact("'a\"b'", TokenType.STRING, "a\"b") ; }
+    @Test public void tokenBytes_string_04()    { tokenizeAndTestExact("\"a'b\"", TokenType.STRING, "a'b") ; }
+    @Test public void tokenBytes_string_05()    { tokenizeAndTestExact("\"a\\n\\t\\\"\\\\b\"", TokenType.STRING, "a\n\t\"\\b") ; }
+    @Test public void tokenBytes_string_06()    { tokenizeAndTestExact("\"caf\u00E9 \\u00E9\\U0001F600\"", TokenType.STRING, "caf\u00E9 \u00E9\uD83D\uDE00") ; }
+    @Test public void tokenBytes_string_07()    {
+        Token token = tokenizeAndTestExact("'abc'", TokenType.STRING, "abc") ;
+        assertEquals(StringType.STRING1, token.getStringType()) ;
+    }
+
+    @Test public void tokenBytes_string_bad_01()    { tokenizeBad("\"abc") ; }
+    @Test public void tokenBytes_string_bad_02()    { tokenizeBad("\"ab\nc\"") ; }
+    @Test public void tokenBytes_string_bad_03()    { tokenizeBad("\"\"\"abc\"\"\"") ; }
+    @Test public void tokenBytes_string_bad_04()    { tokenizeBad("\"\\q\"") ; }
+    @Test public void tokenBytes_string_bad_05()    { tokenizeBad("\"\\u00\"") ; }
+
+    @Test public void tokenBytes_literal_lang_01() {
+        Token token = tokenizeAndTestExact("\"abc\"@en-GB", TokenType.LITERAL_LANG, "abc") ;
+        assertEquals("en-GB", token.getImage2()) ;
+    }
+
+    @Test public void tokenBytes_literal_lang_bad_01()  { tokenizeBad("\"abc\"@") ; }
+    @Test public void tokenBytes_literal_lang_bad_02()  { tokenizeBad("\"abc\"@en-") ; }
+
+    @Test public void tokenBytes_literal_dt_01() {
+        Token token = tokenizeAndTestExact("\"123\"^^<http://www.w3.org/2001/XMLSchema#integer>", TokenType.LITERAL_DT, "123") ;
+        assertEquals("http://www.w3.org/2001/XMLSchema#integer", token.getSubToken2().getImage()) ;
+    }
+
+    @Test public void tokenBytes_literal_dt_bad_01()    { tokenizeBad("\"123\"^<http://example/dt>") ; }
+    @Test public void tokenBytes_literal_dt_bad_02()    { tokenizeBad("\"123\"^^\"dt\"") ; }
+
+    @Test public void tokenBytes_bnode_01()     { tokenizeAndTestExact("_:abc", TokenType.BNODE, "abc") ; }
+    @Test public void tokenBytes_bnode_02()     { tokenizeAndTestExact("_:1a.b-c", TokenType.BNODE, "1a.b-c") ; }
+    @Test public void tokenBytes_bnode_03()     { tokenizeAndTestExact("_:caf\u00E9", TokenType.BNODE, "caf\u00E9") ; }
+
+    // Non-ASCII first character.
+    @Test public void tokenBytes_bnode_03a()    { tokenizeAndTestExact("_:\u00E9abc", TokenType.BNODE, "\u00E9abc") ; }
+
+    @Test public void tokenBytes_bnode_03b()    { tokenizeAndTestExact("_:\u00E9", TokenType.BNODE, "\u00E9") ; }
+
+    @Test public void tokenBytes_bnode_04() {
+        // Trailing DOT is not part of the label.
+        Tokenizer tokenizer = tokenizer("_:abc.") ;
+        Token token = tokenizer.next() ;
+        assertEquals(TokenType.BNODE, token.getType()) ;
+        assertEquals("abc", token.getImage()) ;
+        assertEquals(TokenType.DOT, tokenizer.next().getType()) ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test public void tokenBytes_bnode_bad_01() { tokenizeBad("_:") ; }
+    @Test public void tokenBytes_bnode_bad_02() { tokenizeBad("_:-a") ; }
+    @Test public void tokenBytes_bnode_bad_03() { tokenizeBad("_abc") ; }
+
+    @Test public void tokenBytes_triple_term_01() {
+        Tokenizer tokenizer = tokenizer("<< _:a <p> <o> >>") ;
+        assertEquals(TokenType.LT2, tokenizer.next().getType()) ;
+        assertEquals(TokenType.BNODE, tokenizer.next().getType()) ;
+        assertEquals(TokenType.IRI, tokenizer.next().getType()) ;
+        assertEquals(TokenType.IRI, tokenizer.next().getType()) ;
+        assertEquals(TokenType.GT2, tokenizer.next().getType()) ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test public void tokenBytes_bad_01()       { tokenizeBad("ex:abc") ; }
+    @Test public void tokenBytes_bad_02()       { tokenizeBad("123") ; }
+    @Test public void tokenBytes_bad_03()       { tokenizeBad(">") ; }
+
+    @Test public void tokenBytes_encoding_bad_01() {
+        // Truncated two byte UTF-8 sequence.
+        byte[] bytes = { '"', 'a', (byte)0xC3, '"' } ;
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(new ByteArrayInputStream(bytes)) ;
+        try {
+            tokenizer.next() ;
+            fail("No exception") ;
+        } catch (RiotParseException ex) {}
+    }
+
+    @Test public void tokenBytes_comment_01() {
+        Tokenizer tokenizer = tokenizer("# Comment\n<a> # Comment\n  <b> .\n# Comment") ;
+        Token t1 = tokenizer.next() ;
+        assertEquals("a", t1.getImage()) ;
+        assertEquals(2, t1.getLine()) ;
+        assertEquals(1, t1.getColumn()) ;
+        Token t2 = tokenizer.next() ;
+        assertEquals("b", t2.getImage()) ;
+        assertEquals(3, t2.getLine()) ;
+        assertEquals(3, t2.getColumn()) ;
+        assertEquals(TokenType.DOT, tokenizer.next().getType()) ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test public void tokenBytes_bom_01() {
+        byte[] bytes = { (byte)0xEF, (byte)0xBB, (byte)0xBF, '<', 'a', '>' } ;
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(new ByteArrayInputStream(bytes)) ;
+        assertEquals("a", tokenizer.next().getImage()) ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test public void tokenBytes_bytebuffer_01() {
+        byte[] bytes = "<a> _:b \"c\" .".getBytes(StandardCharsets.UTF_8) ;
+        ByteBuffer bb = ByteBuffer.allocateDirect(bytes.length) ;
+        bb.put(bytes).flip() ;
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(bb) ;
+        assertEquals("a", tokenizer.next().getImage()) ;
+        assertEquals("b", tokenizer.next().getImage()) ;
+        assertEquals("c", tokenizer.next().getImage()) ;
+        assertEquals(TokenType.DOT, tokenizer.next().getType()) ;
+        assertFalse(tokenizer.hasNext()) ;
+        // Not changed.
+        assertEquals(0, bb.position()) ;
+    }
+
+    @Test public void tokenBytes_bytebuffer_02() {
+        byte[] bytes = "  <a> .".getBytes(StandardCharsets.UTF_8) ;
+        ByteBuffer bb = ByteBuffer.wrap(bytes, 2, 5).slice() ;
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(bb) ;
+        Token token = tokenizer.next() ;
+        assertEquals("a", token.getImage()) ;
+        assertEquals(1, token.getColumn()) ;
+        assertEquals(TokenType.DOT, tokenizer.next().getType()) ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test public void tokenBytes_large_01() {
+        // Terms longer than the buffer and across buffer boundaries.
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 50000 ; i++ )
+            sb.append("abcdefgh") ;
+        String x = sb.toString() ;
+        String input = "<http://example/"+x+"> \""+x+"\u00E9\" _:"+x+" .\n" ;
+        Tokenizer tokenizer = tokenizer(input+input) ;
+        for ( int i = 0 ; i < 2 ; i++ ) {
+            assertEquals("http://example/"+x, tokenizer.next().getImage()) ;
+            assertEquals(x+"\u00E9", tokenizer.next().getImage()) ;
+            assertEquals(x, tokenizer.next().getImage()) ;
+            Token dot = tokenizer.next() ;
+            assertEquals(TokenType.DOT, dot.getType()) ;
+            assertEquals(i+1, dot.getLine()) ;
+        }
+        assertFalse(tokenizer.hasNext()) ;
+    }
+}
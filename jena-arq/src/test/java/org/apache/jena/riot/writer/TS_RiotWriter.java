@@ -31,6 +31,7 @@ import org.junit.runners.Suite.SuiteClasses ;
     , TestJenaWriters.class
     , TestRDFJSON.class
     , TestTurtleWriter.class
+    , TestWriterParallel.class
     , TestTriXWriter.class
     , TestWriteRDFXML.class
 })
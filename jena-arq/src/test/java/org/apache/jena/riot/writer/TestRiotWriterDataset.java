@@ -42,6 +42,7 @@ public class TestRiotWriterDataset extends AbstractWriterTest
             , { RDFFormat.TRIG }
             , { RDFFormat.TRIG_PRETTY }
             , { RDFFormat.TRIG_BLOCKS }
+            , { RDFFormat.TRIG_PARALLEL }
             , { RDFFormat.TRIG_FLAT }
             , { RDFFormat.JSONLD }
             , { RDFFormat.JSONLD_PRETTY }
@@ -51,6 +52,8 @@ public class TestRiotWriterDataset extends AbstractWriterTest
             , { RDFFormat.NQUADS_ASCII}
             , { RDFFormat.RDF_THRIFT }
             , { RDFFormat.RDF_THRIFT_VALUES }
+            , { RDFFormat.RDF_COMPACT }
+            , { RDFFormat.RDF_COMPACT_PLAIN }
             , { RDFFormat.TRIX }
         }) ; 
     }
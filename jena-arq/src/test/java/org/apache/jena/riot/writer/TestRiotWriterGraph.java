@@ -45,6 +45,7 @@ public class TestRiotWriterGraph extends AbstractWriterTest
             , { RDFFormat.TURTLE }
             , { RDFFormat.TURTLE_PRETTY }
             , { RDFFormat.TURTLE_BLOCKS }
+            , { RDFFormat.TURTLE_PARALLEL }
             , { RDFFormat.TURTLE_FLAT }
             , { RDFFormat.RDFXML }
             , { RDFFormat.RDFXML_PRETTY }
@@ -58,6 +59,7 @@ public class TestRiotWriterGraph extends AbstractWriterTest
             , { RDFFormat.TRIG }
             , { RDFFormat.TRIG_PRETTY }
             , { RDFFormat.TRIG_BLOCKS }
+            , { RDFFormat.TRIG_PARALLEL }
             , { RDFFormat.TRIG_FLAT }
             , { RDFFormat.NQUADS_UTF8}
             , { RDFFormat.NQUADS_ASCII}
@@ -65,6 +67,8 @@ public class TestRiotWriterGraph extends AbstractWriterTest
             
             , { RDFFormat.RDF_THRIFT }
             , { RDFFormat.RDF_THRIFT_VALUES }
+            , { RDFFormat.RDF_COMPACT }
+            , { RDFFormat.RDF_COMPACT_PLAIN }
             , { RDFFormat.TRIX }
         }) ; 
     }
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.jena.atlas.lib.StrUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.WrappedGraph;
+import org.apache.jena.riot.*;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.sparql.util.IsoMatcher;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestWriterParallel {
+    private static String PREFIX = "http://example/";
+
+    private int chunkSize;
+
+    // Small chunks so that the tests have several chunks in flight.
+    @Before public void before() {
+        chunkSize = ParallelBlocksOutput.ChunkSize;
+        ParallelBlocksOutput.ChunkSize = 5;
+    }
+
+    @After public void after() {
+        ParallelBlocksOutput.ChunkSize = chunkSize;
+    }
+
+    private static Node uri(String localName) {
+        return NodeFactory.createURI(PREFIX+localName);
+    }
+
+    private static Graph graph(int subjects, int perSubject) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        graph.getPrefixMapping().setNsPrefix("ex", PREFIX);
+        for ( int i = 0 ; i < subjects ; i++ ) {
+            Node s = uri("s"+i);
+            for ( int j = 0 ; j < perSubject ; j++ )
+                graph.add(Triple.create(s, uri("p"+j), NodeFactory.createLiteral("v"+i+"-"+j)));
+        }
+        return graph;
+    }
+
+    private static Context threads(int threads) {
+        Context cxt = RIOT.getContext().copy();
+        cxt.set(RIOT.symTurtleWriterThreads, threads);
+        return cxt;
+    }
+
+    private static String write(Graph graph, RDFFormat format, Context context) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFWriter.create().source(graph).format(format).context(context).output(out);
+        return StrUtils.fromUTF8bytes(out.toByteArray());
+    }
+
+    private static String write(DatasetGraph dsg, RDFFormat format, Context context) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFWriter.create().source(dsg).format(format).context(context).output(out);
+        return StrUtils.fromUTF8bytes(out.toByteArray());
+    }
+
+    private static Graph readGraph(String string, Lang lang) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        RDFDataMgr.read(graph, new ByteArrayInputStream(StrUtils.asUTF8bytes(string)), lang);
+        return graph;
+    }
+
+    private static DatasetGraph readDataset(String string, Lang lang) {
+        DatasetGraph dsg = DatasetGraphFactory.createGeneral();
+        RDFDataMgr.read(dsg, new ByteArrayInputStream(StrUtils.asUTF8bytes(string)), lang);
+        return dsg;
+    }
+
+    private static void roundTrip(Graph graph, RDFFormat format, int threads) {
+        String string = write(graph, format, threads(threads));
+        Graph graph2 = readGraph(string, format.getLang());
+        assertTrue(string, graph.isIsomorphicWith(graph2));
+    }
+
+    @Test public void parallel_turtle_01() {
+        roundTrip(graph(0, 0), RDFFormat.TURTLE_PARALLEL, 4);
+    }
+
+    @Test public void parallel_turtle_02() {
+        roundTrip(graph(1, 1), RDFFormat.TURTLE_PARALLEL, 4);
+    }
+
+    @Test public void parallel_turtle_03() {
+        roundTrip(graph(100, 3), RDFFormat.TURTLE_PARALLEL, 4);
+    }
+
+    @Test public void parallel_turtle_04() {
+        roundTrip(graph(100, 3), RDFFormat.TURTLE_PARALLEL, 1);
+    }
+
+    // A subject with more triples than the chunk size.
+    @Test public void parallel_turtle_05() {
+        roundTrip(graph(3, 20), RDFFormat.TURTLE_PARALLEL, 2);
+    }
+
+    @Test public void parallel_turtle_bnodes() {
+        Graph graph = GraphFactory.createDefaultGraph();
+        Node[] bnodes = new Node[20];
+        for ( int i = 0 ; i < bnodes.length ; i++ )
+            bnodes[i] = NodeFactory.createBlankNode();
+        // Blank nodes referenced from other chunks.
+        for ( int i = 0 ; i < bnodes.length ; i++ ) {
+            graph.add(Triple.create(bnodes[i], uri("next"), bnodes[(i+1)%bnodes.length]));
+            graph.add(Triple.create(uri("s"+i), uri("p"), bnodes[bnodes.length-1-i]));
+        }
+        roundTrip(graph, RDFFormat.TURTLE_PARALLEL, 4);
+    }
+
+    @Test public void parallel_turtle_prefixes() {
+        String string = write(graph(10, 2), RDFFormat.TURTLE_PARALLEL, threads(4));
+        assertTrue(string, string.startsWith("@prefix ex:"));
+        assertTrue(string, string.contains("ex:s9"));
+    }
+
+    // Same as the single threaded blocks writer.
+    @Test public void parallel_turtle_same_as_blocks() {
+        Graph graph = graph(50, 3);
+        String string1 = write(graph, RDFFormat.TURTLE_BLOCKS, null);
+        String string2 = write(graph, RDFFormat.TURTLE_PARALLEL, threads(4));
+        assertEquals(string1, string2);
+    }
+
+    @Test public void parallel_turtle_threads() {
+        Graph graph = graph(50, 3);
+        String string1 = write(graph, RDFFormat.TURTLE_PARALLEL, threads(1));
+        String string2 = write(graph, RDFFormat.TURTLE_PARALLEL, threads(4));
+        assertEquals(string1, string2);
+    }
+
+    @Test public void parallel_trig_01() {
+        DatasetGraph dsg = DatasetGraphFactory.createGeneral();
+        dsg.getDefaultGraph().getPrefixMapping().setNsPrefix("ex", PREFIX);
+        graph(10, 2).find().forEachRemaining(t->dsg.add(Quad.create(Quad.defaultGraphIRI, t)));
+        for ( int i = 0 ; i < 3 ; i++ ) {
+            Node gn = uri("g"+i);
+            graph(10+i, 2).find().forEachRemaining(t->dsg.add(Quad.create(gn, t)));
+        }
+        String string = write(dsg, RDFFormat.TRIG_PARALLEL, threads(4));
+        DatasetGraph dsg2 = readDataset(string, Lang.TRIG);
+        assertTrue(string, IsoMatcher.isomorphic(dsg, dsg2));
+    }
+
+    @Test public void parallel_trig_02() {
+        DatasetGraph dsg = DatasetGraphFactory.createGeneral();
+        graph(20, 2).find().forEachRemaining(t->dsg.add(Quad.create(uri("g"), t)));
+        String string1 = write(dsg, RDFFormat.TRIG_PARALLEL, threads(1));
+        String string2 = write(dsg, RDFFormat.TRIG_PARALLEL, threads(4));
+        assertEquals(string1, string2);
+        DatasetGraph dsg2 = readDataset(string2, Lang.TRIG);
+        assertTrue(string2, IsoMatcher.isomorphic(dsg, dsg2));
+    }
+
+    @Test public void parallel_turtle_close_on_error() {
+        // The graph iterator is closed when the output fails part way.
+        boolean[] closed = { false };
+        Graph graph = new WrappedGraph(graph(50, 3)) {
+            @Override
+            public ExtendedIterator<Triple> find(Node s, Node p, Node o) {
+                return new WrappedIterator<Triple>(super.find(s, p, o)) {
+                    @Override
+                    public void close() {
+                        closed[0] = true;
+                        super.close();
+                    }
+                };
+            }
+        };
+        OutputStream out = new OutputStream() {
+            private int count = 0;
+            @Override
+            public void write(int b) throws IOException {
+                if ( ++count > 100 )
+                    throw new IOException("Output failed");
+            }
+        };
+        try {
+            RDFWriter.create().source(graph).format(RDFFormat.TURTLE_PARALLEL).context(threads(4)).output(out);
+            fail("Expected the write to fail");
+        } catch (RuntimeException ex) {}
+        assertTrue(closed[0]);
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.jena.sparql.algebra.optimize ;
 
 import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.algebra.Transform ;
 import org.apache.jena.sparql.algebra.optimize.AbstractTestTransform ;
 import org.junit.Test ;
@@ -305,6 +306,24 @@ public class TestTransformTopN  extends AbstractTestTransform {
             );        testQuery("SELECT ?s { ?s ?p ?o } ORDER BY ?p ?o OFFSET 1 LIMIT 5", output);
     }
 
+    @Test public void topN_large_01() {
+        // Above the threshold: no top N.
+        String input = "(slice _ 5000 (order (?z) (bgp (triple ?s ?p ?z))))";
+        test(input, input) ;
+    }
+
+    @Test public void topN_large_02() {
+        // Above the threshold, and the top N spills.
+        String input = "(slice _ 5000 (order (?z) (bgp (triple ?s ?p ?z))))";
+        String output = "(top (5000 ?z) (bgp (triple ?s ?p ?z)))";
+        ARQ.getContext().set(ARQ.spillToDiskThreshold, 1000L) ;
+        try {
+            test(input, output) ;
+        } finally {
+            ARQ.getContext().unset(ARQ.spillToDiskThreshold) ;
+        }
+    }
+
     private void test(String input, String output) {
         Transform transform = new TransformTopN() ;
         testOp(input, transform, output) ;
@@ -18,6 +18,8 @@
 
 package org.apache.jena.sparql.engine;
 
+import org.apache.jena.sparql.engine.batch.TestBatchExec ;
+import org.apache.jena.sparql.engine.batch.TestBindingBatch ;
 import org.apache.jena.sparql.engine.binding.TestBindingStreams ;
 import org.apache.jena.sparql.engine.http.TestQueryEngineHTTP ;
 import org.apache.jena.sparql.engine.http.TestService ;
@@ -28,12 +30,16 @@ import org.junit.runners.Suite ;
 @RunWith(Suite.class)
 @Suite.SuiteClasses( {
         TestBindingStreams.class
+      , TestBindingBatch.class
+      , TestBatchExec.class
       , TestTableJoin.class
       , TestService.class
       , TestQueryEngineHTTP.class
       , TestQueryEngineMultiThreaded.class
       , TestJsonIterator.class
       , TestJsonEval.class
+      , TestQueryPlanCache.class
+      , TestParallelExec.class
 })
 
 public class TS_Engine {}
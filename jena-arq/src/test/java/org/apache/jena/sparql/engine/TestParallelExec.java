@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.ARQException;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingRoot;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.main.ParallelExec;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.system.Txn;
+import org.junit.Test;
+
+/** Parallel execution gives the same results as sequential execution. */
+public class TestParallelExec {
+    private static final String PRE = "(prefix ((: <http://example/>)) ";
+    private static final Graph graph = GraphFactory.createDefaultGraph();
+    static {
+        Node p = NodeFactory.createURI("http://example/p");
+        Node q = NodeFactory.createURI("http://example/q");
+        for ( int i = 0 ; i < 50 ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/s" + i);
+            graph.add(Triple.create(s, p, NodeValue.makeInteger(i % 7).asNode()));
+            if ( i % 3 == 0 )
+                graph.add(Triple.create(s, q, NodeValue.makeInteger(i % 5).asNode()));
+        }
+    }
+
+    private static ExecutionContext execCxt(int parallelism) {
+        return execCxt(DatasetGraphFactory.wrap(graph), parallelism);
+    }
+
+    private static ExecutionContext execCxt(DatasetGraph dsg, int parallelism) {
+        Context context = ARQ.getContext().copy();
+        if ( parallelism > 0 ) {
+            context.set(ARQ.parallelExecution, true);
+            context.set(ARQ.parallelism, parallelism);
+        }
+        return new ExecutionContext(context, dsg.getDefaultGraph(), dsg, QC.getFactory(context));
+    }
+
+    private static List<Binding> exec(Op op, int parallelism) {
+        return exec(DatasetGraphFactory.wrap(graph), op, parallelism);
+    }
+
+    private static List<Binding> exec(DatasetGraph dsg, Op op, int parallelism) {
+        ExecutionContext execCxt = execCxt(dsg, parallelism);
+        QueryIterator qIter = QC.execute(op, OpExecutor.createRootQueryIterator(execCxt), execCxt);
+        List<Binding> results = new ArrayList<>();
+        try {
+            qIter.forEachRemaining(results::add);
+        } finally { qIter.close(); }
+        return results;
+    }
+
+    private static Map<Binding, Integer> multiset(List<Binding> results) {
+        Map<Binding, Integer> x = new HashMap<>();
+        results.forEach(b -> x.merge(b, 1, Integer::sum));
+        return x;
+    }
+
+    // Union keeps the order of sequential evaluation.
+    private static void testOrdered(String opStr, int expectedSize) {
+        Op op = SSE.parseOp(PRE + opStr + ")");
+        List<Binding> expected = exec(op, 0);
+        assertEquals(expectedSize, expected.size());
+        for ( int parallelism : new int[] {1, 2, 8} )
+            assertEquals("Parallelism " + parallelism, expected, exec(op, parallelism));
+    }
+
+    private static void test(String opStr, int expectedSize) {
+        Op op = SSE.parseOp(PRE + opStr + ")");
+        List<Binding> expected = exec(op, 0);
+        assertEquals(expectedSize, expected.size());
+        for ( int parallelism : new int[] {1, 2, 8} )
+            assertEquals("Parallelism " + parallelism, multiset(expected), multiset(exec(op, parallelism)));
+    }
+
+    @Test public void parallel_union_01() {
+        testOrdered("(union (bgp (?s :p 1)) (bgp (?s :p 2)))", 14);
+    }
+
+    @Test public void parallel_union_02() {
+        testOrdered("(union (union (bgp (?s :p 1)) (bgp (?s :q ?o))) (union (bgp (?s :p 3)) (bgp (?s :p 4))))", 38);
+    }
+
+    @Test public void parallel_union_03() {
+        // Union evaluated for each binding from the left.
+        testOrdered("(sequence (bgp (?s :q ?v)) (union (bgp (?s :p ?o)) (filter (> ?v 2) (bgp (?s :p ?o)))))", 24);
+    }
+
+    @Test public void parallel_join_01() {
+        test("(join (bgp (?s :p ?o)) (bgp (?s :q ?v)))", 17);
+    }
+
+    @Test public void parallel_join_02() {
+        test("(join (union (bgp (?s :p 1)) (bgp (?s :p 2))) (join (bgp (?s :q ?v)) (bgp (?s :p ?o))))", 4);
+    }
+
+    @Test public void parallel_join_03() {
+        test("(leftjoin (bgp (?s :p ?o)) (join (bgp (?s :q ?v)) (table unit)))", 50);
+    }
+
+    @Test public void parallel_fork_01() {
+        ExecutionContext execCxt = execCxt(1);
+        Op op = SSE.parseOp(PRE + "(bgp (?s :p ?o)))");
+        QueryIterator qIter = ParallelExec.fork(op, BindingRoot.create(), execCxt);
+        assertNotNull(qIter);
+        int count = 0;
+        while ( qIter.hasNext() ) {
+            qIter.next();
+            count++;
+        }
+        qIter.close();
+        assertEquals(50, count);
+        // The worker has been returned.
+        QueryIterator qIter2 = ParallelExec.fork(op, BindingRoot.create(), execCxt);
+        assertNotNull(qIter2);
+        qIter2.close();
+    }
+
+    @Test public void parallel_fork_02() {
+        // Close without reading.
+        ExecutionContext execCxt = execCxt(2);
+        Op op = SSE.parseOp(PRE + "(bgp (?s :p ?o)))");
+        QueryIterator qIter = ParallelExec.fork(op, BindingRoot.create(), execCxt);
+        qIter.close();
+        assertFalse(qIter.hasNext());
+    }
+
+    @Test public void parallel_fork_03() {
+        // More results than the worker can queue; the worker waits for the reader.
+        ExecutionContext execCxt = execCxt(1);
+        Op op = SSE.parseOp(PRE + "(bgp (?s :p ?o) (?s2 :p ?o2)))");
+        QueryIterator qIter = ParallelExec.fork(op, BindingRoot.create(), execCxt);
+        assertNotNull(qIter);
+        int count = 0;
+        while ( qIter.hasNext() ) {
+            qIter.next();
+            count++;
+        }
+        qIter.close();
+        assertEquals(50*50, count);
+    }
+
+    @Test public void parallel_enabled_txn() {
+        // This dataset can not share its transaction with workers.
+        ExecutionContext execCxt = execCxt(2);
+        DatasetGraph dsg = execCxt.getDataset();
+        dsg.begin(TxnType.READ);
+        try {
+            assertFalse(ParallelExec.isEnabled(execCxt));
+        } finally { dsg.end(); }
+        assertTrue(ParallelExec.isEnabled(execCxt));
+    }
+
+    private static DatasetGraph txnDataset() {
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        Txn.executeWrite(dsg, ()->graph.find().forEachRemaining(dsg.getDefaultGraph()::add));
+        return dsg;
+    }
+
+    // Workers use the read transaction of the query.
+    private static void testTxn(String opStr, int expectedSize) {
+        DatasetGraph dsg = txnDataset();
+        Op op = SSE.parseOp(PRE + opStr + ")");
+        dsg.begin(TxnType.READ);
+        try {
+            assertTrue(ParallelExec.isEnabled(execCxt(dsg, 2)));
+            List<Binding> expected = exec(dsg, op, 0);
+            assertEquals(expectedSize, expected.size());
+            for ( int parallelism : new int[] {1, 2, 8} )
+                assertEquals("Parallelism " + parallelism, multiset(expected), multiset(exec(dsg, op, parallelism)));
+        } finally { dsg.end(); }
+    }
+
+    @Test public void parallel_txn_01() {
+        testTxn("(union (bgp (?s :p 1)) (bgp (?s :p 2)))", 14);
+    }
+
+    @Test public void parallel_txn_02() {
+        testTxn("(join (union (bgp (?s :p 1)) (bgp (?s :p 2))) (join (bgp (?s :q ?v)) (bgp (?s :p ?o))))", 4);
+    }
+
+    @Test public void parallel_txn_03() {
+        // A commit after the read transaction started is not seen by the workers.
+        DatasetGraph dsg = txnDataset();
+        Op op = SSE.parseOp(PRE + "(union (bgp (?s :p ?o)) (bgp (?s :q ?o))))");
+        dsg.begin(TxnType.READ);
+        try {
+            List<Binding> expected = exec(dsg, op, 0);
+            assertEquals(67, expected.size());
+            Thread thread = new Thread(()->Txn.executeWrite(dsg, ()->dsg.getDefaultGraph().add(SSE.parseTriple("(<http://example/x> <http://example/q> 99)"))));
+            thread.start();
+            thread.join();
+            ExecutionContext execCxt = execCxt(dsg, 2);
+            QueryIterator qIter = ParallelExec.fork(op, BindingRoot.create(), execCxt);
+            assertNotNull(qIter);
+            List<Binding> results = new ArrayList<>();
+            try {
+                qIter.forEachRemaining(results::add);
+            } finally { qIter.close(); }
+            assertEquals(multiset(expected), multiset(results));
+        } catch (InterruptedException ex) {
+            throw new RuntimeException(ex);
+        } finally { dsg.end(); }
+        Txn.executeRead(dsg, ()->assertEquals(68, exec(dsg, op, 2).size()));
+    }
+
+    @Test public void parallel_txn_write() {
+        // A write transaction is not shared.
+        DatasetGraph dsg = txnDataset();
+        dsg.begin(TxnType.WRITE);
+        try {
+            ExecutionContext execCxt = execCxt(dsg, 2);
+            assertFalse(ParallelExec.isEnabled(execCxt));
+            Op op = SSE.parseOp(PRE + "(bgp (?s :p ?o)))");
+            assertNull(ParallelExec.fork(op, BindingRoot.create(), execCxt));
+        } finally { dsg.abort(); dsg.end(); }
+    }
+
+    @Test public void parallel_enabled() {
+        assertFalse(ParallelExec.isEnabled(execCxt(0)));
+        assertTrue(ParallelExec.isEnabled(execCxt(2)));
+    }
+
+    @Test(expected = ARQException.class)
+    public void parallel_bad_parallelism() {
+        ExecutionContext execCxt = execCxt(0);
+        execCxt.getContext().set(ARQ.parallelism, 0);
+        ParallelExec.parallelism(execCxt.getContext());
+    }
+}
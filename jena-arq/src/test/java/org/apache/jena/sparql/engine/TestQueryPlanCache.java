@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.apache.jena.query.* ;
+import org.apache.jena.rdf.model.Model ;
+import org.apache.jena.rdf.model.ModelFactory ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.sparql.util.Symbol ;
+import org.junit.After ;
+import org.junit.Before ;
+import org.junit.Test ;
+
+public class TestQueryPlanCache {
+    private static final QueryPlanCache cache = QueryPlanCache.get() ;
+    private static final String queryString = "PREFIX : <http://example/> SELECT ?s { ?s :p ?o FILTER(?o > 1) }" ;
+
+    @Before public void before() {
+        cache.clear() ;
+    }
+
+    @After public void after() {
+        ARQ.getContext().unset(ARQ.queryPlanCache) ;
+        cache.clear() ;
+    }
+
+    @Test public void normalize_01() {
+        assertEquals("SELECT * { ?s ?p ?o }", QueryPlanCache.normalize("  SELECT *\t{ ?s   ?p ?o }\n")) ;
+    }
+
+    @Test public void normalize_02() {
+        // Strings and IRIs are not changed.
+        String x = "SELECT * { ?s ?p \"a  b\" , 'c  \\'  d' , <http://example/x> }" ;
+        assertEquals(x, QueryPlanCache.normalize(x)) ;
+    }
+
+    @Test public void normalize_03() {
+        String x = "SELECT * { ?s ?p \"\"\"a \" b  c\"\"\" }" ;
+        assertEquals(x, QueryPlanCache.normalize(x)) ;
+    }
+
+    @Test public void normalize_04() {
+        // Newlines end comments.
+        assertEquals("# it's  a comment\nSELECT * { ?s ?p 'x  y' }",
+                     QueryPlanCache.normalize("# it's  a comment\n  \n SELECT * { ?s ?p 'x  y' }")) ;
+        assertNotEquals(QueryPlanCache.normalize("#c\nSELECT * {}"), QueryPlanCache.normalize("#c SELECT * {}")) ;
+    }
+
+    @Test public void normalize_05() {
+        // Less-than, not an IRI.
+        assertEquals("SELECT * { ?s ?p ?o FILTER(?o <3 ) }", QueryPlanCache.normalize("SELECT * { ?s ?p ?o FILTER(?o <3   ) }")) ;
+    }
+
+    @Test public void query_cache_01() {
+        ARQ.getContext().set(ARQ.queryPlanCache, true) ;
+        long hits = cache.getQueryCacheHits() ;
+        Query q1 = QueryFactory.create(queryString) ;
+        Query q2 = QueryFactory.create("  "+queryString.replace(" ", "   ")) ;
+        assertEquals(hits+1, cache.getQueryCacheHits()) ;
+        assertEquals(1, cache.getQueryCacheSize()) ;
+        assertEquals(q1, q2) ;
+        assertNotSame(q1, q2) ;
+    }
+
+    @Test public void query_cache_02() {
+        // Changes to a returned query do not affect the cache.
+        ARQ.getContext().set(ARQ.queryPlanCache, true) ;
+        Query q1 = QueryFactory.create(queryString) ;
+        q1.setLimit(10) ;
+        Query q2 = QueryFactory.create(queryString) ;
+        assertEquals(Query.NOLIMIT, q2.getLimit()) ;
+    }
+
+    @Test public void query_cache_03() {
+        String qs = "SELECT ?x (count(*) AS ?c) { ?x ?p ?o } GROUP BY ?x HAVING (?c > 1) (?c < 5)" ;
+        Query q = QueryFactory.create(qs) ;
+        ARQ.getContext().set(ARQ.queryPlanCache, true) ;
+        QueryFactory.create(qs) ;
+        Query q2 = QueryFactory.create(qs) ;
+        assertEquals(q, q2) ;
+    }
+
+    @Test public void query_cache_04() {
+        // Not enabled.
+        long misses = cache.getQueryCacheMisses() ;
+        QueryFactory.create(queryString) ;
+        assertEquals(misses, cache.getQueryCacheMisses()) ;
+        assertEquals(0, cache.getQueryCacheSize()) ;
+    }
+
+    private static DatasetGraph data() {
+        return DatasetGraphFactory.wrap(SSE.parseGraph("(graph (:s1 :p 1) (:s2 :p 2) (:s3 :p 3))")) ;
+    }
+
+    private static int count(Query query, DatasetGraph dsg, boolean useCache) {
+        return count(query, dsg, useCache, null, null) ;
+    }
+
+    private static int count(Query query, DatasetGraph dsg, boolean useCache, Symbol setting, Object value) {
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.wrap(dsg)) ) {
+            if ( useCache )
+                qExec.getContext().set(ARQ.queryPlanCache, true) ;
+            if ( setting != null )
+                qExec.getContext().set(setting, value) ;
+            return ResultSetFormatter.consume(qExec.execSelect()) ;
+        }
+    }
+
+    @Test public void plan_cache_01() {
+        DatasetGraph dsg = data() ;
+        long hits = cache.getPlanCacheHits() ;
+        assertEquals(2, count(QueryFactory.create(queryString), dsg, true)) ;
+        assertEquals(1, cache.getPlanCacheSize()) ;
+        assertEquals(2, count(QueryFactory.create(queryString), dsg, true)) ;
+        assertEquals(hits+1, cache.getPlanCacheHits()) ;
+    }
+
+    @Test public void plan_cache_02() {
+        // Different dataset.
+        long hits = cache.getPlanCacheHits() ;
+        count(QueryFactory.create(queryString), data(), true) ;
+        count(QueryFactory.create(queryString), data(), true) ;
+        assertEquals(hits, cache.getPlanCacheHits()) ;
+        assertEquals(2, cache.getPlanCacheSize()) ;
+    }
+
+    @Test public void plan_cache_03() {
+        DatasetGraph dsg = data() ;
+        count(QueryFactory.create(queryString), dsg, true) ;
+        count(QueryFactory.create(queryString), data(), true) ;
+        cache.invalidate(dsg) ;
+        assertEquals(1, cache.getPlanCacheSize()) ;
+        long hits = cache.getPlanCacheHits() ;
+        count(QueryFactory.create(queryString), dsg, true) ;
+        assertEquals(hits, cache.getPlanCacheHits()) ;
+    }
+
+    @Test public void plan_cache_04() {
+        // Not enabled.
+        count(QueryFactory.create(queryString), data(), false) ;
+        assertEquals(0, cache.getPlanCacheSize()) ;
+    }
+
+    @Test public void plan_cache_06() {
+        // Different optimizer settings.
+        DatasetGraph dsg = data() ;
+        count(QueryFactory.create(queryString), dsg, true) ;
+        long hits = cache.getPlanCacheHits() ;
+        count(QueryFactory.create(queryString), dsg, true, ARQ.optFilterPlacement, false) ;
+        count(QueryFactory.create(queryString), dsg, true, ARQ.optReorderBGP, true) ;
+        assertEquals(hits, cache.getPlanCacheHits()) ;
+        assertEquals(3, cache.getPlanCacheSize()) ;
+        count(QueryFactory.create(queryString), dsg, true, ARQ.optFilterPlacement, false) ;
+        assertEquals(hits+1, cache.getPlanCacheHits()) ;
+    }
+
+    @Test public void plan_cache_07() {
+        // A registered setting.
+        Symbol setting = Symbol.create("http://example/planSetting") ;
+        QueryPlanCache.addPlanSetting(setting) ;
+        DatasetGraph dsg = data() ;
+        count(QueryFactory.create(queryString), dsg, true, setting, "A") ;
+        long hits = cache.getPlanCacheHits() ;
+        count(QueryFactory.create(queryString), dsg, true, setting, "B") ;
+        assertEquals(hits, cache.getPlanCacheHits()) ;
+        assertEquals(2, cache.getPlanCacheSize()) ;
+    }
+
+    @Test public void plan_cache_08() throws InterruptedException {
+        // Plans for datasets no longer in use are dropped.
+        count(QueryFactory.create(queryString), data(), true) ;
+        assertEquals(1, cache.getPlanCacheSize()) ;
+        for ( int i = 0 ; i < 50 && cache.getPlanCacheSize() > 0 ; i++ ) {
+            System.gc() ;
+            Thread.sleep(20) ;
+            cache.invalidate(null) ;
+        }
+        assertEquals(0, cache.getPlanCacheSize()) ;
+    }
+
+    @Test public void plan_cache_05() {
+        // Initial binding - not cached.
+        DatasetGraph dsg = data() ;
+        Model m = ModelFactory.createDefaultModel() ;
+        QuerySolutionMap qsm = new QuerySolutionMap() ;
+        qsm.add("o", m.createTypedLiteral(3)) ;
+        try ( QueryExecution qExec = QueryExecutionFactory.create(QueryFactory.create(queryString), DatasetFactory.wrap(dsg), qsm) ) {
+            qExec.getContext().set(ARQ.queryPlanCache, true) ;
+            assertEquals(1, ResultSetFormatter.consume(qExec.execSelect())) ;
+        }
+        assertEquals(0, cache.getPlanCacheSize()) ;
+    }
+}
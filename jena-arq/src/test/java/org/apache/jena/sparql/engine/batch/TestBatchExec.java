@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.junit.Test;
+
+/** Batch execution gives the same results as row-at-a-time execution. */
+public class TestBatchExec {
+    private static final String PRE = "(prefix ((: <http://example/>)) ";
+    private static final Graph graph = GraphFactory.createDefaultGraph();
+    static {
+        Node p = NodeFactory.createURI("http://example/p");
+        Node q = NodeFactory.createURI("http://example/q");
+        for ( int i = 0 ; i < 20 ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/s" + i);
+            graph.add(Triple.create(s, p, NodeValue.makeInteger(i % 7).asNode()));
+            if ( i % 2 == 0 )
+                graph.add(Triple.create(s, q, NodeFactory.createLiteral("v" + i)));
+        }
+    }
+
+    private static ExecutionContext execCxt(int batchSize) {
+        Context context = ARQ.getContext().copy();
+        if ( batchSize > 0 ) {
+            context.set(ARQ.batchExecution, true);
+            context.set(ARQ.batchSize, batchSize);
+        }
+        return new ExecutionContext(context, graph, DatasetGraphFactory.wrap(graph), QC.getFactory(context));
+    }
+
+    // Multiset of results.
+    private static Map<Binding, Integer> exec(Op op, int batchSize) {
+        ExecutionContext execCxt = execCxt(batchSize);
+        QueryIterator qIter = QC.execute(op, OpExecutor.createRootQueryIterator(execCxt), execCxt);
+        Map<Binding, Integer> results = new HashMap<>();
+        try {
+            qIter.forEachRemaining(b -> results.merge(b, 1, Integer::sum));
+        } finally { qIter.close(); }
+        return results;
+    }
+
+    private static void test(String opStr, int expectedSize) {
+        Op op = SSE.parseOp(PRE + opStr + ")");
+        Map<Binding, Integer> expected = exec(op, 0);
+        int size = expected.values().stream().mapToInt(Integer::intValue).sum();
+        assertEquals(expectedSize, size);
+        for ( int batchSize : new int[] {1, 3, BatchExec.DefaultBatchSize} )
+            assertEquals("Batch size " + batchSize, expected, exec(op, batchSize));
+    }
+
+    @Test public void batch_exec_bgp() {
+        test("(bgp (?s :p ?o))", 20);
+    }
+
+    @Test public void batch_exec_filter_01() {
+        test("(filter (> ?o 2) (bgp (?s :p ?o)))", 11);
+    }
+
+    @Test public void batch_exec_filter_02() {
+        test("(filter ((> ?o 2) (< ?o 5)) (bgp (?s :p ?o)))", 6);
+    }
+
+    @Test public void batch_exec_filter_03() {
+        // Evaluation error - no results.
+        test("(filter (> ?unset 2) (bgp (?s :p ?o)))", 0);
+    }
+
+    @Test public void batch_exec_extend_01() {
+        test("(extend ((?z (* ?o 2))) (filter (!= ?o 3) (bgp (?s :p ?o))))", 17);
+    }
+
+    @Test public void batch_exec_extend_02() {
+        // Second expression uses the first.
+        test("(extend ((?a (+ ?o 1)) (?b (* ?a 2))) (bgp (?s :p ?o)))", 20);
+    }
+
+    @Test public void batch_exec_extend_03() {
+        // Evaluation error - unbound.
+        test("(extend ((?z (/ ?o 0))) (bgp (?s :p ?o)))", 20);
+    }
+
+    @Test public void batch_exec_assign_01() {
+        // Only rows with the same value.
+        test("(assign ((?o 1)) (bgp (?s :p ?o)))", 3);
+    }
+
+    @Test public void batch_exec_project_01() {
+        test("(project (?s ?z) (extend ((?z (* ?o 2))) (bgp (?s :p ?o))))", 20);
+    }
+
+    @Test public void batch_exec_join_01() {
+        test("(join (bgp (?s :p ?o)) (bgp (?s :q ?v)))", 10);
+    }
+
+    @Test public void batch_exec_join_02() {
+        test("(project (?s ?v) (filter (< ?o 3) (join (bgp (?s :p ?o)) (bgp (?s :q ?v)))))", 5);
+    }
+
+    @Test public void batch_exec_join_03() {
+        // Cross product.
+        test("(join (bgp (?s :q ?v)) (bgp (?x :q ?w)))", 100);
+    }
+
+    @Test public void batch_exec_join_04() {
+        test("(join (bgp (?s :p 99)) (bgp (?s :q ?v)))", 0);
+    }
+
+    @Test public void batch_exec_pipeline() {
+        // Blocks pass from the filter to the project without being turned into rows.
+        ExecutionContext execCxt = execCxt(4);
+        Op op = SSE.parseOp(PRE + "(project (?s) (filter (> ?o 2) (bgp (?s :p ?o)))))");
+        QueryIterator qIter = QC.execute(op, OpExecutor.createRootQueryIterator(execCxt), execCxt);
+        try {
+            assertTrue(qIter instanceof QueryIterBatch);
+            int count = 0;
+            for ( ; qIter.hasNext() ; count++ ) {
+                Binding b = qIter.next();
+                assertEquals(1, b.size());
+            }
+            assertEquals(11, count);
+        } finally { qIter.close(); }
+        assertFalse(execCxt.listOpenIterators().hasNext());
+    }
+}
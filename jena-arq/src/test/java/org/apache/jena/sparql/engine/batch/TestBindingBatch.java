@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.Test;
+
+public class TestBindingBatch {
+    private static final Var  x  = Var.alloc("x");
+    private static final Var  y  = Var.alloc("y");
+    private static final Var  z  = Var.alloc("z");
+    private static final Node n1 = SSE.parseNode("1");
+    private static final Node n2 = SSE.parseNode("2");
+    private static final Node n3 = SSE.parseNode("3");
+
+    private static Set<Var> set(Var... vars) {
+        return new HashSet<>(Arrays.asList(vars));
+    }
+
+    private static Binding binding(Var v1, Node value1, Var v2, Node value2) {
+        BindingMap b = BindingFactory.create();
+        if ( value1 != null )
+            b.add(v1, value1);
+        if ( value2 != null )
+            b.add(v2, value2);
+        return b;
+    }
+
+    // Rows: (x=1 y=2), (x=2), (y=3)
+    private static List<Binding> rows() {
+        return Arrays.asList(binding(x, n1, y, n2), binding(x, n2, y, null), binding(x, null, y, n3));
+    }
+
+    @Test public void batch_build_01() {
+        BindingBatch batch = BindingBatch.create(rows());
+        assertEquals(3, batch.size());
+        assertEquals(set(x, y), new HashSet<>(batch.vars()));
+        assertEquals(n1, batch.get(x, 0));
+        assertNull(batch.get(y, 1));
+        assertNull(batch.get(z, 0));
+        assertEquals(-1, batch.column(z));
+    }
+
+    @Test public void batch_build_02() {
+        // Grows beyond the initial capacity.
+        BindingBatch.Builder builder = new BindingBatch.Builder(1);
+        rows().forEach(builder::add);
+        BindingBatch batch = builder.build();
+        assertEquals(3, batch.size());
+        assertEquals(n3, batch.get(y, 2));
+    }
+
+    @Test public void batch_rows_01() {
+        List<Binding> rows = rows();
+        BindingBatch batch = BindingBatch.create(rows);
+        for ( int i = 0 ; i < rows.size() ; i++ ) {
+            assertEquals(rows.get(i), batch.row(i));
+            assertEquals(rows.get(i).hashCode(), batch.row(i).hashCode());
+            assertEquals(rows.get(i).size(), batch.row(i).size());
+        }
+    }
+
+    @Test public void batch_project_01() {
+        BindingBatch batch = BindingBatch.create(rows()).project(Arrays.asList(y, z));
+        assertEquals(Arrays.asList(y), batch.vars());
+        assertEquals(3, batch.size());
+        assertTrue(batch.row(1).isEmpty());
+        assertEquals(n3, batch.row(2).get(y));
+        assertNull(batch.row(0).get(x));
+    }
+
+    @Test public void batch_select_01() {
+        BindingBatch batch = BindingBatch.create(rows());
+        BindingBatch batch2 = batch.select(new boolean[]{false, true, true});
+        assertEquals(2, batch2.size());
+        assertEquals(rows().get(1), batch2.row(0));
+        assertEquals(rows().get(2), batch2.row(1));
+        assertSame(batch, batch.select(new boolean[]{true, true, true}));
+    }
+
+    @Test public void batch_tail_01() {
+        BindingBatch batch = BindingBatch.create(rows()).tail(2);
+        assertEquals(1, batch.size());
+        assertEquals(rows().get(2), batch.row(0));
+    }
+
+    @Test public void batch_column_01() {
+        BindingBatch batch = BindingBatch.create(rows()).withColumn(z, new Node[]{n3, null, n1});
+        assertEquals(set(x, y, z), new HashSet<>(batch.vars()));
+        assertEquals(binding(x, n2, z, null), batch.row(1));
+        assertEquals(n1, batch.get(z, 2));
+    }
+
+    @Test public void batch_column_02() {
+        BindingBatch batch = BindingBatch.create(rows()).withColumn(x, new Node[]{n3, n3, n3});
+        assertEquals(set(x, y), new HashSet<>(batch.vars()));
+        assertEquals(n3, batch.get(x, 2));
+    }
+
+    @Test public void batch_cursor_01() {
+        BindingBatch batch = BindingBatch.create(rows());
+        BindingBatch.BatchBinding cursor = batch.cursor();
+        cursor.setRow(2);
+        assertEquals(rows().get(2), cursor);
+        cursor.setRow(0);
+        assertEquals(rows().get(0), cursor);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void batch_cursor_02() {
+        BindingBatch.create(rows()).cursor().setRow(3);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.iterator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.core.VarExprList ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.main.OpExecutorFactory ;
+import org.apache.jena.sparql.expr.ExprAggregator ;
+import org.apache.jena.sparql.expr.ExprVar ;
+import org.apache.jena.sparql.expr.NodeValue ;
+import org.apache.jena.sparql.expr.aggregate.AggCount ;
+import org.apache.jena.sparql.expr.aggregate.AggSum ;
+import org.apache.jena.sparql.util.Context ;
+import org.junit.Test ;
+
+/** GROUP BY, in-memory and when spilling to disk. */
+public class TestQueryIterGroup {
+    private static final Var varKey = Var.alloc("k");
+    private static final Var varValue = Var.alloc("v");
+    private static final Var varCount = Var.alloc("count");
+    private static final Var varSum = Var.alloc("sum");
+
+    private static final int NumKeys = 200;
+
+    // Rows: ?k cycles through the keys, ?v is the row number.
+    private static List<Binding> input(int numRows) {
+        List<Binding> rows = new ArrayList<>();
+        for ( int i = 0 ; i < numRows ; i++ ) {
+            Node k = NodeFactory.createURI("http://example/k"+(i % NumKeys));
+            rows.add(BindingFactory.binding(BindingFactory.binding(varKey, k), varValue, NodeValue.makeInteger(i).asNode()));
+        }
+        return rows;
+    }
+
+    private static ExecutionContext execCxt(long threshold) {
+        Context context = new Context();
+        if ( threshold >= 0 )
+            context.set(ARQ.spillToDiskThreshold, threshold);
+        return new ExecutionContext(context, (Graph)null, (DatasetGraph)null, (OpExecutorFactory)null);
+    }
+
+    // Key -> "count/sum", checking each key appears once.
+    private static Map<Node, String> group(List<Binding> rows, long threshold, boolean aggregators) {
+        ExecutionContext execCxt = execCxt(threshold);
+        QueryIterator input = new QueryIterPlainWrapper(rows.iterator(), execCxt);
+        VarExprList groupVars = new VarExprList();
+        groupVars.add(varKey);
+        List<ExprAggregator> aggs = new ArrayList<>();
+        if ( aggregators ) {
+            aggs.add(new ExprAggregator(varCount, new AggCount()));
+            aggs.add(new ExprAggregator(varSum, new AggSum(new ExprVar(varValue))));
+        }
+        QueryIterator qIter = new QueryIterGroup(input, groupVars, aggs, execCxt);
+        Map<Node, String> results = new HashMap<>();
+        try {
+            while(qIter.hasNext()) {
+                Binding b = qIter.next();
+                String x = aggregators ? b.get(varCount).getLiteralLexicalForm()+"/"+b.get(varSum).getLiteralLexicalForm() : "";
+                String old = results.put(b.get(varKey), x);
+                assertEquals("Duplicate group", null, old);
+            }
+        } finally {
+            qIter.close();
+        }
+        return results;
+    }
+
+    private static void test(int numRows, long threshold, boolean aggregators) {
+        List<Binding> rows = input(numRows);
+        Map<Node, String> expected = group(rows, -1, aggregators);
+        assertEquals(Math.min(numRows, NumKeys), expected.size());
+        Map<Node, String> actual = group(rows, threshold, aggregators);
+        assertEquals(expected, actual);
+    }
+
+    @Test public void group_noSpill()           { test(1000, -1, true); }
+
+    @Test public void group_spill_01()          { test(1000, 10, true); }
+
+    @Test public void group_spill_02()          { test(1000, 1, true); }
+
+    // Always partition.
+    @Test public void group_spill_03()          { test(1000, 0, true); }
+
+    @Test public void group_spill_04()          { test(150, 100, true); }
+
+    @Test public void group_spill_noAgg_01()    { test(1000, 10, false); }
+
+    @Test public void group_spill_noAgg_02()    { test(1000, 0, false); }
+}
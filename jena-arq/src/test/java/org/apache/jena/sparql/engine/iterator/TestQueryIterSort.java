@@ -21,6 +21,7 @@ package org.apache.jena.sparql.engine.iterator;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList ;
+import java.util.Comparator ;
 import java.util.Iterator ;
 import java.util.List ;
 import java.util.Random ;
@@ -299,6 +300,56 @@ public class TestQueryIterSort {
         assertTrue(iterator.isClosed());
     }
 
+    @Test
+    public void testTopNSameAsSort() {
+        topN(100, false, null, comparator) ;
+    }
+
+    @Test
+    public void testTopNAll() {
+        topN(1000, false, null, comparator) ;
+    }
+
+    @Test
+    public void testTopNComparator() {
+        // Not a BindingComparator : no sort keys kept.
+        topN(100, false, null, (b1, b2)->comparator.compare(b1, b2)) ;
+    }
+
+    @Test
+    public void testTopNDistinct() {
+        topN(100, true, null, comparator) ;
+    }
+
+    @Test
+    public void testTopNSpill() {
+        topN(100, false, 10L, comparator) ;
+    }
+
+    @Test
+    public void testTopNSpillDistinct() {
+        topN(100, true, 10L, comparator) ;
+    }
+
+    private void topN(long numItems, boolean distinct, Long spillThreshold, Comparator<Binding> topNComparator) {
+        // Duplicates, for distinct.
+        List<Binding> data = new ArrayList<>(unsorted) ;
+        data.addAll(unsorted.subList(0, 100)) ;
+        List<Binding> expected = new ArrayList<>(distinct ? unsorted : data) ;
+        expected.sort(comparator) ;
+        expected = expected.subList(0, (int)Math.min(numItems, expected.size())) ;
+
+        Context context = new Context() ;
+        if ( spillThreshold != null )
+            context.set(ARQ.spillToDiskThreshold, spillThreshold) ;
+        ExecutionContext ec = new ExecutionContext(context, (Graph) null, (DatasetGraph) null, (OpExecutorFactory) null);
+        QueryIterator input = new QueryIterPlainWrapper(data.iterator(), ec) ;
+        QueryIterTopN tn = new QueryIterTopN(input, topNComparator, numItems, distinct, ec);
+        List<Binding> results = new ArrayList<>() ;
+        tn.forEachRemaining(results::add) ;
+        tn.close() ;
+        assertEquals(expected, results) ;
+    }
 
     private Binding randomBinding(Var[] vars)
     {
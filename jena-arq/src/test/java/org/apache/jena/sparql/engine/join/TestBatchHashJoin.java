@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import org.apache.jena.sparql.algebra.Table ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.batch.BatchIterRows ;
+import org.apache.jena.sparql.engine.batch.QueryIterBatch ;
+import org.apache.jena.sparql.expr.ExprList ;
+
+public class TestBatchHashJoin extends AbstractTestInnerJoin {
+    // Small blocks so results cross block boundaries.
+    private static final int BatchSize = 2 ;
+
+    @Override
+    public QueryIterator join(JoinKey joinKey, Table left, Table right, ExprList conditions) {
+        BatchIterHashJoin join = new BatchIterHashJoin(joinKey,
+                                                       new BatchIterRows(left.iterator(null), BatchSize),
+                                                       new BatchIterRows(right.iterator(null), BatchSize),
+                                                       BatchSize) ;
+        return new QueryIterBatch(join, null) ;
+    }
+}
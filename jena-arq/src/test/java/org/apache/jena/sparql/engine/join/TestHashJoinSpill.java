@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.binding.BindingMap ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
+import org.apache.jena.sparql.expr.NodeValue ;
+import org.apache.jena.sparql.algebra.Table ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.main.QC ;
+import org.apache.jena.sparql.expr.ExprList ;
+import org.apache.jena.sparql.util.Context ;
+import org.junit.Test ;
+
+/** Hash join where the probe table is spilled to disk. */
+public class TestHashJoinSpill extends AbstractTestInnerJoin {
+    @Override
+    public QueryIterator join(JoinKey joinKey, Table left, Table right, ExprList conditions) {
+        return Join.hashJoin(joinKey, left.iterator(null), right.iterator(null), spillExecCxt()) ;
+    }
+
+    // Larger inputs, including rows without the join key, against the nested loop join.
+
+    @Test public void join_spill_01() {
+        ExecutionContext execCxt = spillExecCxt(10) ;
+        QueryIterator qIter1 = Join.hashJoin(rows(300, 37, 50, "a"), rows(200, 23, 40, "b"), execCxt) ;
+        QueryIterator qIter2 = Join.nestedLoopJoinBasic(rows(300, 37, 50, "a"), rows(200, 23, 40, "b"), execCxt) ;
+        assertEquals(multiset(qIter2), multiset(qIter1)) ;
+    }
+
+    @Test public void join_spill_02() {
+        ExecutionContext execCxt = spillExecCxt(10) ;
+        QueryIterator qIter1 = QueryIterHashLeftJoin_Left.create(rows(300, 37, 50, "a"), rows(200, 23, 40, "b"), null, execCxt) ;
+        QueryIterator qIter2 = Join.nestedLoopLeftJoinBasic(rows(300, 37, 50, "a"), rows(200, 23, 40, "b"), null, execCxt) ;
+        assertEquals(multiset(qIter2), multiset(qIter1)) ;
+    }
+
+    @Test public void join_spill_03() {
+        ExecutionContext execCxt = spillExecCxt(10) ;
+        QueryIterator qIter1 = QueryIterHashLeftJoin_Right.create(rows(300, 37, 50, "a"), rows(200, 23, 40, "b"), null, execCxt) ;
+        QueryIterator qIter2 = Join.nestedLoopLeftJoinBasic(rows(300, 37, 50, "a"), rows(200, 23, 40, "b"), null, execCxt) ;
+        assertEquals(multiset(qIter2), multiset(qIter1)) ;
+    }
+
+    /** Rows (?x, ?var) where ?x cycles modulo {@code mod} and is unbound every {@code unbound} rows. */
+    private static QueryIterator rows(int n, int mod, int unbound, String var) {
+        Var x = Var.alloc("x") ;
+        Var v = Var.alloc(var) ;
+        List<Binding> rows = new ArrayList<>() ;
+        for ( int i = 0 ; i < n ; i++ ) {
+            BindingMap b = BindingFactory.create() ;
+            b.add(v, NodeValue.makeInteger(i).asNode()) ;
+            if ( i % unbound != 0 )
+                b.add(x, NodeValue.makeInteger(i % mod).asNode()) ;
+            rows.add(b) ;
+        }
+        return new QueryIterPlainWrapper(rows.iterator(), null) ;
+    }
+
+    private static Map<Binding, Integer> multiset(QueryIterator qIter) {
+        Map<Binding, Integer> x = new HashMap<>() ;
+        qIter.forEachRemaining(b -> x.merge(b, 1, Integer::sum)) ;
+        return x ;
+    }
+
+    /** Execution context that causes any hash probe table of more than one row to spill. */
+    static ExecutionContext spillExecCxt() {
+        return spillExecCxt(1) ;
+    }
+
+    private static ExecutionContext spillExecCxt(long threshold) {
+        Context cxt = ARQ.getContext().copy() ;
+        cxt.set(ARQ.spillToDiskThreshold, threshold) ;
+        DatasetGraph dsg = DatasetGraphFactory.create() ;
+        return new ExecutionContext(cxt, dsg.getDefaultGraph(), dsg, QC.getFactory(cxt)) ;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.junit.Test;
+
+/** Semi-join reduction of the right hand side of hash joins. */
+public class TestJoinKeyFilter {
+    private static final String PRE = "(prefix ((: <http://example/>)) ";
+    private static final Graph graph = GraphFactory.createDefaultGraph();
+    private static final Var varV = Var.alloc("v");
+    static {
+        Node p = NodeFactory.createURI("http://example/p");
+        Node q = NodeFactory.createURI("http://example/q");
+        for ( int i = 0 ; i < 50 ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/s" + i);
+            graph.add(Triple.create(s, p, NodeValue.makeInteger(i % 7).asNode()));
+            if ( i % 3 == 0 )
+                graph.add(Triple.create(s, q, NodeValue.makeInteger(i % 5).asNode()));
+        }
+    }
+
+    private static Node integer(int i) {
+        return NodeValue.makeInteger(i).asNode();
+    }
+
+    @Test public void keyFilter_01() {
+        JoinKeyFilter f = new JoinKeyFilter(Arrays.asList(varV));
+        f.add(BindingFactory.binding(varV, integer(1)));
+        // Not complete: accepts anything.
+        assertTrue(f.accept(varV, integer(2)));
+        assertNull(f.getValues(varV));
+        f.finish();
+        assertTrue(f.accept(varV, integer(1)));
+        assertFalse(f.accept(varV, integer(2)));
+        assertTrue(f.accept(Var.alloc("other"), integer(2)));
+        assertEquals(1, f.getValues(varV).size());
+    }
+
+    @Test public void keyFilter_02() {
+        // A row without the variable joins with any value.
+        JoinKeyFilter f = new JoinKeyFilter(Arrays.asList(varV));
+        f.add(BindingFactory.binding(varV, integer(1)));
+        f.add(BindingFactory.binding(Var.alloc("other"), integer(1)));
+        f.finish();
+        assertTrue(f.accept(varV, integer(2)));
+        assertNull(f.getValues(varV));
+    }
+
+    @Test public void keyFilter_03() {
+        // Too many values.
+        JoinKeyFilter f = new JoinKeyFilter(Arrays.asList(varV), 2);
+        for ( int i = 0 ; i < 3 ; i++ )
+            f.add(BindingFactory.binding(varV, integer(i)));
+        f.finish();
+        assertTrue(f.accept(varV, integer(99)));
+    }
+
+    @Test public void keyFilter_canFilter_01() {
+        assertTrue(canFilter("(bgp (?s :p ?v))"));
+        assertTrue(canFilter("(filter (> ?v 1) (join (bgp (?s :p ?v)) (graph ?g (bgp (?s :q ?o)))))"));
+        assertTrue(canFilter("(sequence (bgp (?s :p ?v)) (quadpattern (quad ?g ?s :q ?o)))"));
+    }
+
+    @Test public void keyFilter_canFilter_02() {
+        assertFalse(canFilter("(leftjoin (bgp (?s :p ?o)) (bgp (?s :q ?v)))"));
+        assertFalse(canFilter("(minus (bgp (?s :p ?o)) (bgp (?s :q ?v)))"));
+        assertFalse(canFilter("(filter (notexists (bgp (?s :q ?v))) (bgp (?s :p ?v)))"));
+        assertFalse(canFilter("(union (bgp (?s :p ?v)) (bgp (?s :q ?v)))"));
+    }
+
+    private static boolean canFilter(String opStr) {
+        return JoinKeyFilter.canFilter(SSE.parseOp(PRE + opStr + ")"));
+    }
+
+    @Test public void keyFilter_pattern_01() {
+        // Pattern matching drops rows.
+        JoinKeyFilter f = new JoinKeyFilter(Arrays.asList(varV));
+        f.add(BindingFactory.binding(varV, integer(1)));
+        f.add(BindingFactory.binding(varV, integer(2)));
+        f.finish();
+        ExecutionContext execCxt = JoinKeyFilter.addFilter(execCxt(false), f);
+        Op op = SSE.parseOp(PRE + "(bgp (?s :p ?v)))");
+        List<Binding> results = exec(op, execCxt);
+        // 50 rows, values 0-6
+        assertEquals(14, results.size());
+        for ( Binding b : results )
+            assertTrue(b.get(varV).equals(integer(1)) || b.get(varV).equals(integer(2)));
+    }
+
+    @Test public void keyFilter_join_01() {
+        test("(join (bgp (?s :q ?v)) (bgp (?x :p ?v)))", 123);
+    }
+
+    @Test public void keyFilter_join_02() {
+        test("(join (bgp (?s :q 4)) (bgp (?s :p ?o)))", 3);
+    }
+
+    @Test public void keyFilter_join_03() {
+        // Not filtered: OPTIONAL on the right.
+        test("(join (bgp (?s :q ?v)) (leftjoin (bgp (?x :q ?w)) (bgp (?x :p ?v))))", 42);
+    }
+
+    @Test public void keyFilter_join_04() {
+        // ?v unbound in some rows on the left.
+        test("(join (leftjoin (bgp (?s :p ?o)) (bgp (?s :q ?v))) (bgp (?x :q ?v)))", 620);
+    }
+
+    @Test public void keyFilter_join_05() {
+        // Nested join.
+        test("(join (bgp (?s :q 1)) (join (bgp (?s :p ?o)) (filter (> ?w 1) (bgp (?x :p ?w)))))", 105);
+    }
+
+    @Test public void keyFilter_hashJoin_01() {
+        // The right side is not touched until the probe table is built.
+        JoinKeyFilter f = new JoinKeyFilter(Arrays.asList(varV));
+        ExecutionContext execCxt = execCxt(false);
+        List<Binding> leftRows = Arrays.asList(BindingFactory.binding(varV, integer(1)),
+                                               BindingFactory.binding(varV, integer(2)));
+        List<Binding> rightRows = Arrays.asList(BindingFactory.binding(varV, integer(1)),
+                                                BindingFactory.binding(varV, integer(3)));
+        Iterator<Binding> rightIter = new Iterator<Binding>() {
+            private final Iterator<Binding> iter = rightRows.iterator();
+            @Override
+            public boolean hasNext() {
+                assertTrue(f.isReady());
+                return iter.hasNext();
+            }
+            @Override
+            public Binding next() {
+                return iter.next();
+            }
+        };
+        QueryIterator left = new QueryIterPlainWrapper(leftRows.iterator(), execCxt);
+        QueryIterator right = new QueryIterPlainWrapper(rightIter, execCxt);
+        QueryIterator qIter = QueryIterHashJoin.create(null, left, right, f, execCxt);
+        List<Binding> results = new ArrayList<>();
+        qIter.forEachRemaining(results::add);
+        qIter.close();
+        assertEquals(1, results.size());
+        assertFalse(f.accept(varV, integer(3)));
+    }
+
+    private static void test(String opStr, int expectedSize) {
+        Op op = SSE.parseOp(PRE + opStr + ")");
+        List<Binding> expected = exec(op, execCxt(false));
+        assertEquals(expectedSize, expected.size());
+        assertEquals(multiset(expected), multiset(exec(op, execCxt(true))));
+    }
+
+    private static ExecutionContext execCxt(boolean semiJoin) {
+        Context context = ARQ.getContext().copy();
+        if ( semiJoin )
+            context.set(ARQ.semiJoinReduction, true);
+        return new ExecutionContext(context, graph, DatasetGraphFactory.wrap(graph), QC.getFactory(context));
+    }
+
+    private static List<Binding> exec(Op op, ExecutionContext execCxt) {
+        QueryIterator qIter = QC.execute(op, OpExecutor.createRootQueryIterator(execCxt), execCxt);
+        List<Binding> results = new ArrayList<>();
+        try {
+            qIter.forEachRemaining(results::add);
+        } finally { qIter.close(); }
+        return results;
+    }
+
+    private static Map<Binding, Integer> multiset(List<Binding> results) {
+        Map<Binding, Integer> x = new HashMap<>();
+        results.forEach(b -> x.merge(b, 1, Integer::sum));
+        return x;
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.jena.sparql.expr;
 
+import org.apache.jena.sparql.expr.compile.TestExprCompiler;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.runner.RunWith;
@@ -45,6 +46,7 @@ import org.junit.runners.Suite.SuiteClasses;
     , TestExprTransform.class
     , TestCustomAggregates.class
     , TestStatisticsAggregates.class
+    , TestExprCompiler.class
 })
 
 public class TS_Expr
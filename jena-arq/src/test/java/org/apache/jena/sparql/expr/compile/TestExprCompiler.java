@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.expr.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.shared.impl.PrefixMappingImpl;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.function.FunctionEnv;
+import org.apache.jena.sparql.function.FunctionEnvBase;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.sparql.util.ExprUtils;
+import org.junit.Test;
+
+public class TestExprCompiler {
+    private static PrefixMapping pmap = new PrefixMappingImpl();
+    static {
+        pmap.setNsPrefixes(PrefixMapping.Standard);
+        pmap.setNsPrefix("", "http://example/");
+    }
+
+    private static final String[] xValues = {
+        "1", "'01'^^xsd:integer", "-7", "2.5", "1.0e0", "12345678901234567890", "'x'^^xsd:integer",
+        "'abc'", "'ABC'@en", "''", ":abc", "_:b", "true", "false", "'2020-01-01'^^xsd:date", null
+    };
+
+    private static final String[] yValues = { "2", "'ab'", null };
+
+    private static List<Binding> bindings() {
+        Var x = Var.alloc("x");
+        Var y = Var.alloc("y");
+        List<Binding> bindings = new ArrayList<>();
+        for ( String xStr : xValues ) {
+            for ( String yStr : yValues ) {
+                BindingMap b = BindingFactory.create();
+                if ( xStr != null )
+                    b.add(x, SSE.parseNode(xStr, pmap));
+                if ( yStr != null )
+                    b.add(y, SSE.parseNode(yStr, pmap));
+                bindings.add(b);
+            }
+        }
+        return bindings;
+    }
+
+    private static void test(String exprStr) {
+        Expr expr = ExprUtils.parse(exprStr, pmap);
+        CompiledExpr cExpr = ExprCompiler.compile(expr);
+        FunctionEnv env = new FunctionEnvBase();
+        for ( Binding b : bindings() ) {
+            NodeValue expected;
+            try {
+                expected = expr.eval(b, env);
+            } catch (ExprEvalException ex) {
+                expected = null;
+            }
+            NodeValue actual = cExpr.eval(b, env);
+            String msg = exprStr + " " + b;
+            if ( expected == null )
+                assertNull(msg, actual);
+            else
+                assertEquals(msg, expected.asNode(), actual.asNode());
+            assertEquals(msg, expr.isSatisfied(b, env), cExpr.isSatisfied(b, env));
+        }
+    }
+
+    @Test public void compile_basic_01()    { test("?x"); }
+    @Test public void compile_basic_02()    { test("123"); }
+    @Test public void compile_basic_03()    { test("bound(?x)"); }
+    @Test public void compile_basic_04()    { test("!bound(?x)"); }
+
+    @Test public void compile_logical_01()  { test("?x && ?y"); }
+    @Test public void compile_logical_02()  { test("?x || ?y"); }
+    @Test public void compile_logical_03()  { test("!?x"); }
+    @Test public void compile_logical_04()  { test("?x || false"); }
+    @Test public void compile_logical_05()  { test("!(?x = 1) && bound(?y)"); }
+
+    @Test public void compile_compare_01()  { test("?x = 1"); }
+    @Test public void compile_compare_02()  { test("?x != 1"); }
+    @Test public void compile_compare_03()  { test("?x < ?y"); }
+    @Test public void compile_compare_04()  { test("?x >= -7"); }
+    @Test public void compile_compare_05()  { test("1 <= ?x"); }
+    @Test public void compile_compare_06()  { test("?x > 12345678901234567"); }
+    @Test public void compile_compare_07()  { test("?x = 'abc'"); }
+    @Test public void compile_compare_08()  { test("?x + 1 > ?y"); }
+    @Test public void compile_compare_09()  { test("?x = ?x"); }
+    @Test public void compile_compare_10()  { test("1 = 1"); }
+
+    @Test public void compile_string_01()   { test("strstarts(?x, 'ab')"); }
+    @Test public void compile_string_02()   { test("strends(str(?x), 'c')"); }
+    @Test public void compile_string_03()   { test("contains(?x, 'b')"); }
+    @Test public void compile_string_04()   { test("contains(?x, ?y)"); }
+    @Test public void compile_string_05()   { test("regex(?x, '^a')"); }
+    @Test public void compile_string_06()   { test("regex(str(?x), 'ABC', 'i')"); }
+    @Test public void compile_string_07()   { test("regex(?x, str(?y))"); }
+    @Test public void compile_string_08()   { test("strlen(?x) = 3"); }
+    @Test public void compile_string_09()   { test("lang(?x) = 'en'"); }
+
+    @Test public void compile_function_01() { test("if(?x, 1, 2)"); }
+    @Test public void compile_function_02() { test("coalesce(?z, ?x)"); }
+    @Test public void compile_function_03() { test("?x IN (1, 2, 'abc')"); }
+    @Test public void compile_function_04() { test("isIRI(?x) || isBlank(?x)"); }
+    @Test public void compile_function_05() { test("datatype(?x) = xsd:integer"); }
+    @Test public void compile_function_06() { test("sameTerm(?x, 1)"); }
+    @Test public void compile_function_07() { test("abs(?x) > 0"); }
+    @Test public void compile_function_08() { test("concat(str(?x), ?y)"); }
+    @Test public void compile_function_09() { test("substr(?x, 2)"); }
+
+    @Test public void compile_filter_01() {
+        Graph graph = GraphFactory.createDefaultGraph();
+        Op op = SSE.parseOp("(filter ((> ?o 1) (strstarts(str ?s) 'http://example/s')) (table (vars ?s ?o) (row [?s :s1] [?o 1]) (row [?s :s2] [?o 2]) (row [?s :t3] [?o 3]) (row [?s :s4] [?o 'x'])))", pmap);
+        Context context = ARQ.getContext().copy();
+        context.set(ARQ.compiledFilters, true);
+        ExecutionContext execCxt = new ExecutionContext(context, graph, DatasetGraphFactory.wrap(graph), QC.getFactory(context));
+        QueryIterator qIter = QC.execute(op, OpExecutor.createRootQueryIterator(execCxt), execCxt);
+        List<Binding> results = new ArrayList<>();
+        qIter.forEachRemaining(results::add);
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).get(Var.alloc("s")).getURI().endsWith("s2"));
+    }
+}
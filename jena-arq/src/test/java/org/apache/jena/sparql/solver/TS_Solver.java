@@ -24,6 +24,7 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses( {
     TestReorder.class      // Reorder engine
+  , TestCostModel.class
 })
 
 public class TS_Solver
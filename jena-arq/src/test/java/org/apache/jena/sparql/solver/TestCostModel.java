@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.solver;
+
+import static org.apache.jena.sparql.solver.TestSolverLib.bgp ;
+import static org.apache.jena.sparql.solver.TestSolverLib.matcher ;
+import static org.apache.jena.sparql.solver.TestSolverLib.triple ;
+
+import java.util.Arrays ;
+import java.util.HashMap ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.algebra.Algebra ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.Transformer ;
+import org.apache.jena.sparql.algebra.optimize.TransformJoinStrategy ;
+import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.optimizer.CostModel ;
+import org.apache.jena.sparql.engine.optimizer.JoinStats ;
+import org.apache.jena.sparql.engine.optimizer.StatsMatcher ;
+import org.apache.jena.sparql.engine.optimizer.TransformJoinCost ;
+import org.apache.jena.sparql.engine.optimizer.reorder.PatternTriple ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderCostBased ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.sse.Item ;
+import org.apache.jena.sparql.sse.ItemList ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.sparql.util.Context ;
+import org.junit.Test ;
+
+public class TestCostModel extends BaseTest
+{
+    private static final String PRE = "(prefix ((: <http://example/>)) " ;
+
+    // 1000 subjects with :type; 100 of them with :name, 10 of those with two :email each.
+    // :a and :b are each on about 500 subjects but rarely together.
+    private static final String statsStr = StrJoin(
+        "(meta (count 3124))",
+        "(:type 1000) (:name 100) (:email 20) (:a 502) (:b 502)",
+        "(distinct :type 1000 2) (distinct :name 100 100) (distinct :email 10 20)",
+        "(distinct :a 502 502) (distinct :b 502 502)",
+        "(charset 900 (:type 900))",
+        "(charset 90 (:type 90) (:name 90))",
+        "(charset 10 (:type 10) (:name 10) (:email 20))",
+        "(charset 500 (:a 500))",
+        "(charset 500 (:b 500))",
+        "(charset 2 (:a 2) (:b 2))") ;
+
+    private static String StrJoin(String... strs) { return String.join("\n", strs) ; }
+
+    private static JoinStats stats = JoinStats.parse(SSE.parse(PRE + "(stats " + statsStr + "))")) ;
+    private static CostModel costModel = new CostModel(stats) ;
+
+    private static Node uri(String localName) { return NodeFactory.createURI("http://example/" + localName) ; }
+
+    private static Op op(String str) { return SSE.parseOp(PRE + str + ")") ; }
+
+    @Test public void joinStats_01() {
+        assertEquals(3124, stats.getCount()) ;
+        assertEquals(1000, stats.getCount(uri("type"))) ;
+        assertEquals(2, stats.getDistinctObjects(uri("type"))) ;
+        assertEquals(100, stats.getDistinctSubjects(uri("name"))) ;
+        assertEquals(6, stats.getCharacteristicSets().size()) ;
+        assertEquals(2002, stats.getSubjects()) ;
+    }
+
+    @Test public void joinStats_02() {
+        // Round trip
+        Map<Node, Long> dS = new HashMap<>() ;
+        Map<Node, Long> dO = new HashMap<>() ;
+        for ( Node p : stats.getPredicates() ) {
+            dS.put(p, stats.getDistinctSubjects(p)) ;
+            dO.put(p, stats.getDistinctObjects(p)) ;
+        }
+        Item item = SSE.parse(PRE + "(stats (meta (count 3124)) (:type 1000) (:name 100) (:email 20) (:a 502) (:b 502)))") ;
+        ItemList list = item.getList() ;
+        JoinStats.format(list, dS, dO, stats.getCharacteristicSets()) ;
+        JoinStats stats2 = JoinStats.parse(item) ;
+        assertEquals(stats.getCount(), stats2.getCount()) ;
+        assertEquals(stats.getSubjects(), stats2.getSubjects()) ;
+        assertEquals(stats.getCharacteristicSets().size(), stats2.getCharacteristicSets().size()) ;
+        assertEquals(20, stats2.getDistinctObjects(uri("email"))) ;
+    }
+
+    @Test public void joinStats_03() {
+        // StatsMatcher skips the join statistics.
+        StatsMatcher matcher = matcher("(:p 10) (distinct :p 5 7) (charset 5 (:p 10))") ;
+        assertEquals(10, matcher.match(triple("(?x :p ?v)")), 0) ;
+    }
+
+    @Test public void estimate_triple_01() {
+        assertEquals(1000, costModel.estimate(new PatternTriple(triple("(?s :type ?t)"))), 0) ;
+        assertEquals(500, costModel.estimate(new PatternTriple(triple("(?s :type :C)"))), 0) ;
+        assertEquals(1, costModel.estimate(new PatternTriple(triple("(:x :name ?n)"))), 0) ;
+        assertEquals(2, costModel.estimate(new PatternTriple(triple("(:x :email ?e)"))), 0) ;
+        // Not in the data.
+        assertEquals(0, costModel.estimate(new PatternTriple(triple("(?s :other ?o)"))), 0) ;
+    }
+
+    @Test public void estimate_star_01() {
+        assertEquals(100, costModel.estimateStar(Arrays.asList(uri("type"), uri("name"))), 0.001) ;
+        assertEquals(20, costModel.estimateStar(Arrays.asList(uri("type"), uri("email"))), 0.001) ;
+        assertEquals(2, costModel.estimateStar(Arrays.asList(uri("a"), uri("b"))), 0.001) ;
+        // Two emails, each way round.
+        assertEquals(40, costModel.estimateStar(Arrays.asList(uri("email"), uri("email"))), 0.001) ;
+    }
+
+    @Test public void estimate_bgp_01() {
+        BasicPattern bgp = bgp("(bgp (?s :type ?t) (?s :name ?n))") ;
+        assertEquals(100, costModel.estimate(bgp).getCardinality(), 0.001) ;
+    }
+
+    @Test public void estimate_bgp_02() {
+        BasicPattern bgp = bgp("(bgp (?s :a ?v) (?s :b ?w))") ;
+        assertEquals(2, costModel.estimate(bgp).getCardinality(), 0.001) ;
+    }
+
+    @Test public void estimate_join_01() {
+        CostModel.Estimate est = costModel.estimate(op("(join (bgp (?s :name ?n)) (bgp (?s :email ?e)))")) ;
+        assertEquals(20, est.getCardinality(), 0.001) ;
+    }
+
+    @Test public void estimate_unknown_01() {
+        assertNull(costModel.estimate(op("(leftjoin (bgp (?s :name ?n)) (bgp (?s :email ?e)))"))) ;
+    }
+
+    @Test public void reorder_01() {
+        // Most selective star first, although each triple pattern is not.
+        ReorderCostBased reorder = new ReorderCostBased(stats) ;
+        BasicPattern bgp = bgp("(bgp (?x :name ?n) (?s :a ?v) (?s :b ?w))") ;
+        BasicPattern expected = bgp("(bgp (?s :a ?v) (?s :b ?w) (?x :name ?n))") ;
+        assertEquals(expected, reorder.reorder(bgp)) ;
+    }
+
+    @Test public void reorder_02() {
+        ReorderCostBased reorder = new ReorderCostBased(stats) ;
+        BasicPattern bgp = bgp("(bgp (?s :type :C) (?s :name ?n) (?s :email ?e))") ;
+        BasicPattern expected = bgp("(bgp (?s :email ?e) (?s :type :C) (?s :name ?n))") ;
+        assertEquals(expected, reorder.reorder(bgp)) ;
+    }
+
+    @Test public void join_order_01() {
+        // Small side first; index join into the larger.
+        testJoin("(join (bgp (?s :type ?t)) (bgp (?s :email ?e)))",
+                 "(sequence (bgp (?s :email ?e)) (bgp (?s :type ?t)))") ;
+    }
+
+    @Test public void join_order_02() {
+        // Poor index lookups: hash join.
+        testJoin("(join (bgp (?s :type ?t)) (bgp (?x :type ?t)))",
+                 "(join (bgp (?s :type ?t)) (bgp (?x :type ?t)))") ;
+    }
+
+    @Test public void join_order_03() {
+        // Three way: connected parts, smallest first.
+        testJoin("(join (join (bgp (?s :type ?t)) (bgp (?x :a ?s))) (bgp (?s :email ?e)))",
+                 "(sequence (bgp (?s :email ?e)) (bgp (?x :a ?s)) (bgp (?s :type ?t)))") ;
+    }
+
+    @Test public void join_order_04() {
+        // No estimate for one side.
+        String x = "(join (bgp (?s :type ?t)) (leftjoin (bgp (?s :name ?n)) (bgp (?s :email ?e))))" ;
+        Op op = op(x) ;
+        Op op2 = Transformer.transform(new TransformJoinCost(stats), op) ;
+        Op op3 = Transformer.transform(new TransformJoinStrategy(), op) ;
+        assertEquals(op3, op2) ;
+    }
+
+    private static void testJoin(String input, String expected) {
+        Op op = op(input) ;
+        Op op2 = Transformer.transform(new TransformJoinCost(stats), op) ;
+        assertEquals(op(expected), op2) ;
+    }
+
+    // Same results with and without the statistics.
+    @Test public void join_exec_01() {
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            Node s = uri("s" + i) ;
+            graph.add(Triple.create(s, uri("type"), uri(i % 2 == 0 ? "C" : "D"))) ;
+            if ( i % 10 == 0 )
+                graph.add(Triple.create(s, uri("name"), NodeFactory.createLiteral("n" + i))) ;
+            if ( i % 20 == 0 )
+                graph.add(Triple.create(s, uri("email"), NodeFactory.createLiteral("e" + i))) ;
+            graph.add(Triple.create(uri("x" + i), uri("a"), s)) ;
+        }
+        String x = "(join (join (bgp (?s :type ?t)) (bgp (?x :a ?s))) (join (bgp (?s :email ?e)) (bgp (?s :name ?n))))" ;
+        Op op = op(x) ;
+        Context cxt = ARQ.getContext().copy() ;
+        cxt.set(ARQ.optJoinStats, stats) ;
+        Map<Binding, Integer> expected = results(op, graph) ;
+        assertEquals(5, expected.values().stream().mapToInt(Integer::intValue).sum()) ;
+        Op op1 = Transformer.transform(new TransformJoinCost(stats), op) ;
+        assertEquals(expected, results(op1, graph)) ;
+        Op op2 = Algebra.optimize(op, cxt) ;
+        assertEquals(expected, results(op2, graph)) ;
+    }
+
+    private static Map<Binding, Integer> results(Op op, Graph graph) {
+        QueryIterator qIter = Algebra.exec(op, DatasetGraphFactory.wrap(graph)) ;
+        Map<Binding, Integer> results = new HashMap<>() ;
+        qIter.forEachRemaining(b -> results.merge(b, 1, Integer::sum)) ;
+        qIter.close() ;
+        return results ;
+    }
+}
@@ -537,7 +537,7 @@ public class Iter<T> implements Iterator<T> {
             public X next() {
                  if ( ! hasNext() )
                      throw new NoSuchElementException();
-                 X t = next();
+                 X t = iterator.next();
                  count++;
                  return t;
             }
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.lib;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of {@code long} values, held without boxing.
+ * <p>
+ * Open addressing with linear probing over a {@code long[]}, kept at most half
+ * full. Zero marks an empty slot so the value zero itself is recorded
+ * separately. Elements cannot be removed; use {@link #clear} to start again.
+ * <p>
+ * Not thread safe.
+ */
+public final class LongHashSet {
+    private static final int MinCapacity = 16;
+
+    private long[] slots;
+    private int mask;
+    // Number of non-zero elements in slots.
+    private int count = 0;
+    private boolean hasZero = false;
+
+    public LongHashSet() {
+        this(MinCapacity);
+    }
+
+    /** Create a set that can hold {@code expectedSize} elements before growing. */
+    public LongHashSet(int expectedSize) {
+        if ( expectedSize < 0 )
+            throw new IllegalArgumentException("Negative size: "+expectedSize);
+        int capacity = MinCapacity;
+        while ( capacity < 2L * expectedSize )
+            capacity = capacity << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /** Add a value; return true if it was not already in the set. */
+    public boolean add(long value) {
+        if ( value == 0 ) {
+            if ( hasZero )
+                return false;
+            hasZero = true;
+            return true;
+        }
+        int idx = index(value);
+        for ( ;; ) {
+            long x = slots[idx];
+            if ( x == 0 )
+                break;
+            if ( x == value )
+                return false;
+            idx = (idx + 1) & mask;
+        }
+        slots[idx] = value;
+        count++;
+        if ( 2 * count > slots.length )
+            resize(slots.length << 1);
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if ( value == 0 )
+            return hasZero;
+        int idx = index(value);
+        for ( ;; ) {
+            long x = slots[idx];
+            if ( x == 0 )
+                return false;
+            if ( x == value )
+                return true;
+            idx = (idx + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return hasZero ? count + 1 : count;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        count = 0;
+        hasZero = false;
+    }
+
+    /** Apply an action to each element, in no particular order. */
+    public void forEach(LongConsumer action) {
+        if ( hasZero )
+            action.accept(0L);
+        for ( long x : slots ) {
+            if ( x != 0 )
+                action.accept(x);
+        }
+    }
+
+    /** The elements as a new array, in no particular order. */
+    public long[] toArray() {
+        long[] array = new long[size()];
+        int i = 0;
+        if ( hasZero )
+            array[i++] = 0L;
+        for ( long x : slots ) {
+            if ( x != 0 )
+                array[i++] = x;
+        }
+        return array;
+    }
+
+    /** Iterate over the elements. The set must not be modified while iterating. */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private boolean zeroPending = hasZero;
+            private int idx = advance(0);
+
+            private int advance(int i) {
+                while ( i < slots.length && slots[i] == 0 )
+                    i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return zeroPending || idx < slots.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if ( zeroPending ) {
+                    zeroPending = false;
+                    return 0L;
+                }
+                if ( idx >= slots.length )
+                    throw new NoSuchElementException();
+                long x = slots[idx];
+                idx = advance(idx + 1);
+                return x;
+            }
+        };
+    }
+
+    private void resize(int capacity) {
+        long[] old = slots;
+        allocate(capacity);
+        for ( long x : old ) {
+            if ( x == 0 )
+                continue;
+            int idx = index(x);
+            while ( slots[idx] != 0 )
+                idx = (idx + 1) & mask;
+            slots[idx] = x;
+        }
+    }
+
+    private int index(long value) {
+        // Mix the bits: NodeIds and other keys are often sequential.
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(x -> {
+            if ( sb.length() > 1 )
+                sb.append(", ");
+            sb.append(x);
+        });
+        return sb.append("}").toString();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.lib.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.apache.jena.atlas.lib.Cache;
+
+/**
+ * A concurrent, fixed size cache with CLOCK (second chance) replacement.
+ * <p>
+ * Lookups do not take any locks: a hit sets the "referenced" bit of the entry.
+ * Inserts and removals lock one stripe of the cache, chosen by the hash of the key,
+ * so misses on different stripes do not contend.
+ * <p>
+ * The drop handler is called when an entry is evicted to make space,
+ * not when an entry is explicitly removed or replaced.
+ */
+public class CacheClock<K, V> implements Cache<K, V> {
+    private static final int MaxStripes = 64;
+
+    private static final class Entry<K, V> {
+        final K key;
+        volatile V value;
+        volatile boolean referenced = false;
+        int slot;
+
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Stripe<K, V> {
+        final Entry<K, V>[] slots;
+        int hand = 0;
+        int count = 0;
+
+        @SuppressWarnings("unchecked")
+        Stripe(int size) {
+            slots = (Entry<K, V>[])new Entry<?, ?>[size];
+        }
+    }
+
+    private final ConcurrentHashMap<K, Entry<K, V>> map;
+    private final Stripe<K, V>[] stripes;
+    private final int stripeMask;
+    private final int maxSize;
+
+    private final LongAdder hits      = new LongAdder();
+    private final LongAdder misses    = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile BiConsumer<K, V> dropHandler = null;
+
+    public CacheClock(int maxSize) {
+        this(maxSize, defaultStripes(maxSize));
+    }
+
+    /** Create a cache; {@code numStripes} is rounded down to a power of two. */
+    public CacheClock(int maxSize, int numStripes) {
+        if ( maxSize <= 0 )
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        int n = Integer.highestOneBit(Math.max(1, Math.min(numStripes, maxSize)));
+        @SuppressWarnings("unchecked")
+        Stripe<K, V>[] x = (Stripe<K, V>[])new Stripe<?, ?>[n];
+        // Spread any remainder over the first stripes.
+        for ( int i = 0 ; i < n ; i++ )
+            x[i] = new Stripe<>(maxSize / n + (i < maxSize % n ? 1 : 0));
+        this.stripes = x;
+        this.stripeMask = n - 1;
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<>(2 * maxSize);
+    }
+
+    private static int defaultStripes(int maxSize) {
+        int n = Runtime.getRuntime().availableProcessors() * 2;
+        // At least 16 slots per stripe.
+        return Math.max(1, Math.min(Math.min(n, MaxStripes), maxSize / 16));
+    }
+
+    private Stripe<K, V> stripe(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & stripeMask];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        Entry<K, V> e = map.get(key);
+        if ( e == null ) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if ( !e.referenced )
+            e.referenced = true;
+        return e.value;
+    }
+
+    @Override
+    public V getOrFill(K key, Callable<V> callable) {
+        return CacheOps.getOrFill(this, key, callable);
+    }
+
+    @Override
+    public void put(K key, V thing) {
+        if ( thing == null ) {
+            remove(key);
+            return;
+        }
+        K droppedKey = null;
+        V droppedValue = null;
+        Stripe<K, V> stripe = stripe(key);
+        synchronized (stripe) {
+            Entry<K, V> e = map.get(key);
+            if ( e != null ) {
+                e.value = thing;
+                e.referenced = true;
+                return;
+            }
+            Entry<K, V>[] slots = stripe.slots;
+            // Advance the clock hand until there is a free slot or an unreferenced entry.
+            for ( ;; ) {
+                Entry<K, V> current = slots[stripe.hand];
+                if ( current == null )
+                    break;
+                if ( stripe.count < slots.length ) {
+                    // Not full - look for a free slot.
+                    stripe.hand = (stripe.hand + 1) % slots.length;
+                    continue;
+                }
+                if ( current.referenced ) {
+                    current.referenced = false;
+                    stripe.hand = (stripe.hand + 1) % slots.length;
+                    continue;
+                }
+                // Evict.
+                map.remove(current.key, current);
+                slots[stripe.hand] = null;
+                stripe.count--;
+                evictions.increment();
+                droppedKey = current.key;
+                droppedValue = current.value;
+                break;
+            }
+            Entry<K, V> entry = new Entry<>(key, thing);
+            entry.slot = stripe.hand;
+            slots[stripe.hand] = entry;
+            stripe.count++;
+            stripe.hand = (stripe.hand + 1) % slots.length;
+            map.put(key, entry);
+            // Inside the lock so the drop is seen before another put to this stripe.
+            if ( droppedKey != null && dropHandler != null )
+                dropHandler.accept(droppedKey, droppedValue);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        Stripe<K, V> stripe = stripe(key);
+        synchronized (stripe) {
+            Entry<K, V> e = map.remove(key);
+            if ( e == null )
+                return;
+            stripe.slots[e.slot] = null;
+            stripe.count--;
+        }
+    }
+
+    @Override
+    public Iterator<K> keys() {
+        return map.keySet().iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        for ( Stripe<K, V> stripe : stripes ) {
+            synchronized (stripe) {
+                for ( int i = 0 ; i < stripe.slots.length ; i++ ) {
+                    Entry<K, V> e = stripe.slots[i];
+                    if ( e != null ) {
+                        map.remove(e.key, e);
+                        stripe.slots[i] = null;
+                    }
+                }
+                stripe.count = 0;
+                stripe.hand = 0;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return map.size();
+    }
+
+    /** The maximum number of entries. */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public void setDropHandler(BiConsumer<K, V> dropHandler) {
+        this.dropHandler = dropHandler;
+    }
+
+    /** Number of lookups that found an entry. */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /** Number of lookups that did not find an entry. */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /** Number of entries evicted to make space. */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public CacheInfo stats() {
+        long h = hitCount();
+        long m = missCount();
+        long requests = h + m;
+        double hitRate = ( requests == 0 ) ? 1.0 : (double)h / requests;
+        return new CacheInfo(maxSize, requests, h, m, hitRate);
+    }
+}
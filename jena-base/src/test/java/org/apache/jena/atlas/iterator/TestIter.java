@@ -592,6 +592,18 @@ public class TestIter
         test(iter, "a", "b", "a");
     }
 
+    @Test
+    public void limit_01() {
+        List<String> x = Arrays.asList("a", "b", "c");
+        test(Iter.limit(x.iterator(), 2), "a", "b");
+    }
+
+    @Test
+    public void limit_02() {
+        List<String> x = Arrays.asList("a", "b", "c");
+        test(Iter.limit(x.iterator(), 5), "a", "b", "c");
+    }
+
     private static class AlwaysAcceptFilterStack extends FilterStack<Object> {
         public AlwaysAcceptFilterStack(Predicate<Object> f) {
             super(f);
@@ -19,6 +19,7 @@
 package org.apache.jena.atlas.lib;
 
 
+import org.apache.jena.atlas.lib.cache.TestCacheClock;
 import org.apache.jena.atlas.lib.cache.TestCacheSimple;
 import org.junit.runner.RunWith ;
 import org.junit.runners.Suite ;
@@ -49,7 +50,9 @@ import org.junit.runners.Suite ;
     , TestNumberUtils.class
     , TestDateTimeUtils.class
     , TestCacheSimple.class
+    , TestCacheClock.class
     , TestRefCountingMap.class
+    , TestLongHashSet.class
 } )
 
 public class TS_Lib
@@ -56,6 +56,16 @@ public class TestCache extends BaseTest
         }
     ;
 
+    private static CacheMaker<Integer, Integer> clock = 
+        new CacheMaker<Integer, Integer>()
+        {
+        @Override
+        public Cache<Integer, Integer> make(int size) { return CacheFactory.createClockCache(size) ; }
+        @Override
+        public String name() { return "Clock" ; } 
+        }
+    ;
+
     @Parameters
     public static Collection<Object[]> cacheMakers()
     {
@@ -66,6 +76,9 @@ public class TestCache extends BaseTest
             , { standard , 10 }
             , { standard , 2 }
             , { standard , 1 }
+            , { clock , 10 }
+            , { clock , 2 }
+            , { clock , 1 }
         } ) ; 
     }
 
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TestLongHashSet {
+    @Test public void longHashSet_01() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.contains(1));
+        assertFalse(set.contains(0));
+    }
+
+    @Test public void longHashSet_02() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertTrue(set.contains(1));
+        assertFalse(set.contains(2));
+        assertEquals(1, set.size());
+    }
+
+    @Test public void longHashSet_03() {
+        // Zero and negative values.
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(3, set.size());
+        long[] x = set.toArray();
+        Arrays.sort(x);
+        assertArrayEquals(new long[] {Long.MIN_VALUE, -1, 0}, x);
+    }
+
+    @Test public void longHashSet_04() {
+        // Growth, compared to java.util.HashSet.
+        LongHashSet set = new LongHashSet(2);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(1234);
+        for ( int i = 0 ; i < 10000 ; i++ ) {
+            long v = random.nextInt(5000);
+            assertEquals(expected.add(v), set.add(v));
+        }
+        assertEquals(expected.size(), set.size());
+        for ( long v = -10 ; v < 5010 ; v++ )
+            assertEquals(expected.contains(v), set.contains(v));
+    }
+
+    @Test public void longHashSet_05() {
+        LongHashSet set = new LongHashSet();
+        for ( long v = 0 ; v < 100 ; v++ )
+            set.add(v << 32);
+        Set<Long> seen = new HashSet<>();
+        PrimitiveIterator.OfLong iter = set.iterator();
+        while ( iter.hasNext() )
+            assertTrue(seen.add(iter.nextLong()));
+        assertEquals(100, seen.size());
+        Set<Long> seen2 = new HashSet<>();
+        set.forEach(seen2::add);
+        assertEquals(seen, seen2);
+    }
+
+    @Test public void longHashSet_06() {
+        LongHashSet set = new LongHashSet();
+        set.add(0);
+        set.add(7);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(7));
+        assertTrue(set.add(7));
+    }
+}
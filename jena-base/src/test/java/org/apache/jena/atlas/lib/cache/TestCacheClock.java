@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.lib.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of CacheClock
+ */
+public class TestCacheClock {
+
+    @Test
+    public void testFixedSize() {
+        CacheClock<Integer, Integer> cache = new CacheClock<>(5);
+        for ( int i = 1 ; i <= 10 ; i++ )
+            cache.put(i, i);
+        assertEquals("Test cache failed to maintain fixed size!", 5, cache.size());
+        assertEquals(5, cache.evictionCount());
+    }
+
+    @Test
+    public void testFixedSizeStriped() {
+        CacheClock<Integer, Integer> cache = new CacheClock<>(100, 8);
+        for ( int i = 0 ; i < 1000 ; i++ )
+            cache.put(i, i);
+        assertTrue(cache.size() <= 100);
+        assertEquals(1000 - cache.size(), cache.evictionCount());
+    }
+
+    @Test
+    public void testSecondChance() {
+        CacheClock<Integer, Integer> cache = new CacheClock<>(3, 1);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+        // Referenced - survives the next eviction.
+        cache.getIfPresent(1);
+        cache.put(4, 4);
+        assertTrue(cache.containsKey(1));
+        assertFalse(cache.containsKey(2));
+        assertTrue(cache.containsKey(4));
+    }
+
+    @Test
+    public void testDropHandler() {
+        CacheClock<Integer, Integer> cache = new CacheClock<>(2, 1);
+        List<Integer> dropped = new ArrayList<>();
+        cache.setDropHandler((k, v) -> dropped.add(k));
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.remove(2);
+        assertTrue("Drop handler called on remove", dropped.isEmpty());
+        cache.put(3, 3);
+        cache.put(4, 4);
+        assertEquals(1, dropped.size());
+    }
+
+    @Test
+    public void testStats() {
+        CacheClock<Integer, Integer> cache = new CacheClock<>(10);
+        cache.put(1, 1);
+        cache.getIfPresent(1);
+        cache.getIfPresent(1);
+        cache.getIfPresent(2);
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        CacheInfo info = cache.stats();
+        assertEquals(3, info.requests);
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        CacheClock<Integer, Integer> cache = new CacheClock<>(50, 4);
+        AtomicInteger errors = new AtomicInteger(0);
+        List<Thread> threads = new ArrayList<>();
+        for ( int t = 0 ; t < 4 ; t++ ) {
+            Thread thread = new Thread(() -> {
+                for ( int i = 0 ; i < 10000 ; i++ ) {
+                    int k = i % 200;
+                    Integer v = cache.getIfPresent(k);
+                    if ( v == null )
+                        cache.put(k, k);
+                    else if ( v != k )
+                        errors.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for ( Thread thread : threads )
+            thread.join();
+        assertEquals(0, errors.get());
+        assertTrue(cache.size() <= 50);
+    }
+}
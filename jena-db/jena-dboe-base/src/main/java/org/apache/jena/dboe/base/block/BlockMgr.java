@@ -66,6 +66,12 @@ public interface BlockMgr extends Sync, Closeable /*UnitMgr<Block>*/
     /** Is this a valid block id? (may be a free block)*/
     public boolean valid(int id);
 
+    /**
+     * Hint that the block {@code id} is likely to be read soon, e.g. by a scan.
+     * This does not change the state visible through other operations.
+     */
+    public default void prefetch(long id) {}
+
     /** Close the block manager */
     @Override
     public void close();
@@ -21,9 +21,23 @@ package org.apache.jena.dboe.base.block;
 import org.apache.jena.dboe.base.file.FileSet;
 
 public class BlockMgrBuilderStd implements BlockMgrBuilder {
+    private final boolean concurrentCache;
+
+    public BlockMgrBuilderStd() {
+        this(BlockMgrFactory.ConcurrentCache);
+    }
+
+    /**
+     * Choose the kind of block cache for direct mode files:
+     * {@link BlockMgrCacheConcurrent} if {@code concurrentCache} is true, else {@link BlockMgrCache}.
+     */
+    public BlockMgrBuilderStd(boolean concurrentCache) {
+        this.concurrentCache = concurrentCache;
+    }
+
     @Override
     public BlockMgr buildBlockMgr(FileSet fileSet, String ext, BlockParams indexParams) {
-        return BlockMgrFactory.create(fileSet, ext, indexParams);
+        return BlockMgrFactory.create(fileSet, ext, indexParams, concurrentCache);
     }
 }
 
@@ -102,6 +102,13 @@ public class BlockMgrCache extends BlockMgrSync {
         super.resetAlloc(boundary);
     }
 
+    @Override
+    synchronized public void prefetch(long id) {
+        if ( readCache.containsKey(id) || ( writeCache != null && writeCache.containsKey(id) ) )
+            return;
+        super.prefetch(id);
+    }
+
     @Override
     synchronized public Block getRead(long id) {
         // A Block may be in the read cache or the write cache.
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.block;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.atlas.lib.cache.CacheClock;
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caching block manager for many concurrent readers.
+ * <p>
+ * Unlike {@link BlockMgrCache}, read operations do not take a lock:
+ * a read cache hit is a lookup in a {@link CacheClock}. A read cache miss
+ * reads the block without a lock and takes the lock only to add it to the cache.
+ * Operations that change state (allocation, writing, promoting, syncing) are
+ * synchronized; the transaction system ensures there is a single writer.
+ * <p>
+ * There are two caches: the read cache and a delayed write cache.
+ * Dirty blocks evicted from the write cache are written to the underlying {@code BlockMgr}.
+ */
+public class BlockMgrCacheConcurrent implements BlockMgr {
+    private static Logger log = LoggerFactory.getLogger(BlockMgrCacheConcurrent.class);
+
+    private final BlockMgr blockMgr;
+    private final Object writeLock = new Object();
+
+    // Read cache : always present.
+    private final CacheClock<Long, Block> readCache;
+    // Delayed dirty writes. May be present, may not.
+    private final CacheClock<Long, Block> writeCache;
+    // Changed, inside writeLock, by every operation that changes the contents
+    // of a block. A read miss only caches the block it read if there has been
+    // no such change while it was reading.
+    private volatile long writeVersion = 0;
+
+    static BlockMgr create(int readSlots, int writeSlots, BlockMgr blockMgr) {
+        if ( readSlots < 0 && writeSlots < 0 )
+            return blockMgr;
+        return new BlockMgrCacheConcurrent(readSlots, writeSlots, blockMgr);
+    }
+
+    private BlockMgrCacheConcurrent(int readSlots, int writeSlots, BlockMgr blockMgr) {
+        this.blockMgr = blockMgr;
+        // A read cache must be present - the write cache moves blocks into it.
+        this.readCache = new CacheClock<>(Math.max(readSlots, 1));
+        if ( writeSlots <= 0 )
+            writeCache = null;
+        else {
+            writeCache = new CacheClock<>(writeSlots);
+            // Called inside writeLock (puts to the write cache only happen in write operations).
+            writeCache.setDropHandler((id, block) -> blockMgr.write(block));
+        }
+    }
+
+    public BlockMgr getWrapped() {
+        return blockMgr;
+    }
+
+    @Override
+    public Block getRead(long id) {
+        // No lock on the fast path.
+        Block blk = readCache.getIfPresent(id);
+        if ( blk != null )
+            return blk;
+        // Writable blocks are readable.
+        if ( writeCache != null ) {
+            blk = writeCache.getIfPresent(id);
+            if ( blk != null )
+                return blk;
+        }
+        long version = writeVersion;
+        blk = blockMgr.getRead(id);
+        synchronized(writeLock) {
+            // A write of this block may have happened after the underlying
+            // read; do not put a superseded block in the read cache.
+            Block blk2 = ( writeCache != null ) ? writeCache.getIfPresent(id) : null;
+            if ( blk2 == null )
+                blk2 = readCache.getIfPresent(id);
+            if ( blk2 != null ) {
+                blockMgr.release(blk);
+                return blk2;
+            }
+            if ( version != writeVersion ) {
+                // Read again, now that writes are excluded.
+                blockMgr.release(blk);
+                blk = blockMgr.getRead(id);
+            }
+            readCache.put(id, blk);
+            return blk;
+        }
+    }
+
+    @Override
+    public Block getWrite(long id) {
+        synchronized(writeLock) {
+            Block blk = null;
+            if ( writeCache != null ) {
+                blk = writeCache.getIfPresent(id);
+                if ( blk != null )
+                    return blk;
+            }
+            blk = readCache.getIfPresent(id);
+            if ( blk != null )
+                return promote(blk);
+            writeVersion++;
+            blk = blockMgr.getWrite(id);
+            if ( writeCache != null )
+                writeCache.put(id, blk);
+            return blk;
+        }
+    }
+
+    @Override
+    public Block promote(Block block) {
+        synchronized(writeLock) {
+            Long id = block.getId();
+            writeVersion++;
+            readCache.remove(id);
+            Block block2 = blockMgr.promote(block);
+            if ( writeCache != null )
+                writeCache.put(id, block2);
+            return block;
+        }
+    }
+
+    @Override
+    public Block allocate(int blockSize) {
+        synchronized(writeLock) {
+            return blockMgr.allocate(blockSize);
+        }
+    }
+
+    @Override
+    public void release(Block block) {
+        blockMgr.release(block);
+    }
+
+    @Override
+    public void write(Block block) {
+        synchronized(writeLock) {
+            writeVersion++;
+            if ( writeCache != null )
+                writeCache.put(block.getId(), block);
+            blockMgr.write(block);
+        }
+    }
+
+    @Override
+    public void overwrite(Block block) {
+        synchronized(writeLock) {
+            writeVersion++;
+            blockMgr.overwrite(block);
+            // Keep read cache up-to-date.
+            readCache.put(block.getId(), block);
+        }
+    }
+
+    @Override
+    public void free(Block block) {
+        synchronized(writeLock) {
+            Long id = block.getId();
+            writeVersion++;
+            readCache.remove(id);
+            if ( writeCache != null )
+                writeCache.remove(id);
+            blockMgr.free(block);
+        }
+    }
+
+    @Override
+    public boolean valid(int id) {
+        return blockMgr.valid(id);
+    }
+
+    @Override
+    public void prefetch(long id) {
+        if ( readCache.containsKey(id) || ( writeCache != null && writeCache.containsKey(id) ) )
+            return;
+        blockMgr.prefetch(id);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        synchronized(writeLock) {
+            return blockMgr.isEmpty();
+        }
+    }
+
+    @Override
+    public long allocLimit() {
+        synchronized(writeLock) {
+            return blockMgr.allocLimit();
+        }
+    }
+
+    @Override
+    public void resetAlloc(long boundary) {
+        synchronized(writeLock) {
+            // On abort, clear the caches of inaccessible blocks.
+            writeVersion++;
+            removeFrom(readCache, boundary);
+            if ( writeCache != null )
+                removeFrom(writeCache, boundary);
+            blockMgr.resetAlloc(boundary);
+        }
+    }
+
+    private static void removeFrom(CacheClock<Long, Block> cache, long boundary) {
+        List<Long> removals = new ArrayList<>();
+        cache.keys().forEachRemaining(x -> {
+            if ( x >= boundary )
+                removals.add(x);
+        });
+        removals.forEach(cache::remove);
+    }
+
+    @Override
+    public void sync() {
+        synchronized(writeLock) {
+            boolean somethingWritten = syncFlush();
+            if ( somethingWritten )
+                blockMgr.sync();
+        }
+    }
+
+    @Override
+    public void syncForce() {
+        synchronized(writeLock) {
+            syncFlush();
+            blockMgr.syncForce();
+        }
+    }
+
+    // Write out the write cache, moving blocks to the read cache.
+    private boolean syncFlush() {
+        if ( writeCache == null || writeCache.isEmpty() )
+            return false;
+        List<Long> ids = new ArrayList<>();
+        writeCache.keys().forEachRemaining(ids::add);
+        for ( Long id : ids ) {
+            Block block = writeCache.getIfPresent(id);
+            if ( block == null ) {
+                log.warn("Write cache: " + id + " expelling entry that isn't there");
+                continue;
+            }
+            blockMgr.write(block);
+            writeCache.remove(id);
+            readCache.put(id, block);
+        }
+        return !ids.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        synchronized(writeLock) {
+            syncFlush();
+            blockMgr.close();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return blockMgr.isClosed();
+    }
+
+    @Override
+    public void beginUpdate() {
+        blockMgr.beginUpdate();
+    }
+
+    @Override
+    public void endUpdate() {
+        blockMgr.endUpdate();
+    }
+
+    @Override
+    public void beginRead() {
+        blockMgr.beginRead();
+    }
+
+    @Override
+    public void endRead() {
+        blockMgr.endRead();
+    }
+
+    @Override
+    public String getLabel() {
+        return blockMgr.getLabel();
+    }
+
+    // ---- Statistics
+
+    /** Read cache lookups that found a block. */
+    public long getReadCacheHits() {
+        return readCache.hitCount();
+    }
+
+    /** Read cache lookups that did not find a block. */
+    public long getReadCacheMisses() {
+        return readCache.missCount();
+    }
+
+    /** Blocks dropped from the read cache to make space. */
+    public long getReadCacheEvictions() {
+        return readCache.evictionCount();
+    }
+
+    /** Dirty blocks written out because they were dropped from the write cache. */
+    public long getWriteCacheEvictions() {
+        return writeCache == null ? 0 : writeCache.evictionCount();
+    }
+
+    public CacheInfo getReadCacheInfo() {
+        return readCache.stats();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheConcurrent:" + blockMgr.toString();
+    }
+}
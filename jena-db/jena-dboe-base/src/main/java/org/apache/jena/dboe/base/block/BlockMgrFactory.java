@@ -29,6 +29,13 @@ public class BlockMgrFactory {
     // e.g. transactions keep blocks and not release them down the layers.
     public/* final */static boolean AddTracker = false;
 
+    /**
+     * Use {@link BlockMgrCacheConcurrent}, which does not lock on reads, rather
+     * than {@link BlockMgrCache}, when adding a block cache and the caller does
+     * not choose. TDB2 databases choose with their {@code StoreParams}.
+     */
+    public/* final */static boolean ConcurrentCache = false;
+
     public static BlockMgr tracker(BlockMgr blockMgr) {
         if ( blockMgr instanceof BlockMgrTracker )
             return blockMgr;
@@ -43,11 +50,16 @@ public class BlockMgrFactory {
     }
 
     public static BlockMgr create(FileSet fileSet, String ext, BlockParams params) {
-        return create(fileSet, ext,
-                      params.getFileMode(),
-                      params.getBlockSize(),
-                      params.getBlockReadCacheSize(),
-                      params.getBlockWriteCacheSize());
+        return create(fileSet, ext, params, ConcurrentCache);
+    }
+
+    public static BlockMgr create(FileSet fileSet, String ext, BlockParams params, boolean concurrentCache) {
+        if ( fileSet.isMem() )
+            return createMem(fileSet.filename(ext), params.getBlockSize());
+        return createFile(fileSet.filename(ext),
+                          params.getFileMode(), params.getBlockSize(),
+                          params.getBlockReadCacheSize(), params.getBlockWriteCacheSize(),
+                          concurrentCache);
     }
 
     public static BlockMgr create(FileSet fileSet, String ext, int blockSize, int readBlockCacheSize, int writeBlockCacheSize) {
@@ -56,10 +68,16 @@ public class BlockMgrFactory {
 
     // XXX Deprecate?
     public static BlockMgr create(FileSet fileSet, String ext, FileMode fileMode, int blockSize, int readBlockCacheSize, int writeBlockCacheSize) {
+        return create(fileSet, ext, fileMode, blockSize, readBlockCacheSize, writeBlockCacheSize, ConcurrentCache);
+    }
+
+    /** Create a BlockMgr, choosing the kind of block cache (not used for memory or memory mapped files) */
+    public static BlockMgr create(FileSet fileSet, String ext, FileMode fileMode, int blockSize, int readBlockCacheSize, int writeBlockCacheSize,
+                                  boolean concurrentCache) {
         if ( fileSet.isMem() )
             return createMem(fileSet.filename(ext), blockSize);
         else
-            return createFile(fileSet.filename(ext), fileMode, blockSize, readBlockCacheSize, writeBlockCacheSize);
+            return createFile(fileSet.filename(ext), fileMode, blockSize, readBlockCacheSize, writeBlockCacheSize, concurrentCache);
     }
 
     /** Create an in-memory block manager */
@@ -81,13 +99,19 @@ public class BlockMgrFactory {
 
         /** Create a BlockMgr backed by a real file */
     public static BlockMgr createFile(String filename, FileMode fileMode, int blockSize, int readBlockCacheSize, int writeBlockCacheSize) {
+        return createFile(filename, fileMode, blockSize, readBlockCacheSize, writeBlockCacheSize, ConcurrentCache);
+    }
+
+    /** Create a BlockMgr backed by a real file, choosing the kind of block cache (not used for memory mapped files) */
+    public static BlockMgr createFile(String filename, FileMode fileMode, int blockSize, int readBlockCacheSize, int writeBlockCacheSize,
+                                      boolean concurrentCache) {
         if ( fileMode == null )
             fileMode = SystemIndex.fileMode();
         switch (fileMode) {
             case mapped :
                 return createMMapFile(filename, blockSize);
             case direct :
-                return createStdFile(filename, blockSize, readBlockCacheSize, writeBlockCacheSize);
+                return createStdFile(filename, blockSize, readBlockCacheSize, writeBlockCacheSize, concurrentCache);
         }
         throw new DBOpEnvException("Unknown file mode: " + fileMode);
     }
@@ -101,9 +125,54 @@ public class BlockMgrFactory {
 
     /** Create a Block Manager using direct access (and a cache) */
     public static BlockMgr createStdFile(String filename, int blockSize, int readBlockCacheSize, int writeBlockCacheSize) {
+        return createStdFile(filename, blockSize, readBlockCacheSize, writeBlockCacheSize, ConcurrentCache);
+    }
+
+    /** Create a Block Manager using direct access and a cache, choosing the kind of cache */
+    public static BlockMgr createStdFile(String filename, int blockSize, int readBlockCacheSize, int writeBlockCacheSize, boolean concurrentCache) {
         BlockAccess file = new BlockAccessDirect(filename, blockSize);
         BlockMgr blockMgr = wrapFileAccess(file, blockSize);
-        blockMgr = addCache(blockMgr, readBlockCacheSize, writeBlockCacheSize);
+        blockMgr = concurrentCache
+            ? addConcurrentCache(blockMgr, readBlockCacheSize, writeBlockCacheSize)
+            : addCache(blockMgr, readBlockCacheSize, writeBlockCacheSize);
+        return track(blockMgr);
+    }
+
+    /**
+     * Create a Block Manager where blocks are stored encoded by a {@link BlockCodec}
+     * (see {@link BlockAccessCompressed}), with a cache of decoded blocks.
+     * Memory filesets are not encoded.
+     */
+    public static BlockMgr createCompressed(FileSet fileSet, String ext, String mapExt, BlockCodec codec,
+                                            int blockSize, int readBlockCacheSize, int writeBlockCacheSize) {
+        return createCompressed(fileSet, ext, mapExt, codec, blockSize, readBlockCacheSize, writeBlockCacheSize, ConcurrentCache);
+    }
+
+    /** Create a Block Manager where blocks are stored encoded, choosing the kind of cache of decoded blocks. */
+    public static BlockMgr createCompressed(FileSet fileSet, String ext, String mapExt, BlockCodec codec,
+                                            int blockSize, int readBlockCacheSize, int writeBlockCacheSize,
+                                            boolean concurrentCache) {
+        if ( fileSet.isMem() )
+            return createMem(fileSet.filename(ext), blockSize);
+        return createCompressedFile(fileSet.filename(ext), fileSet.filename(mapExt), codec,
+                                    blockSize, readBlockCacheSize, writeBlockCacheSize, concurrentCache);
+    }
+
+    /** Create a Block Manager for blocks stored encoded by a {@link BlockCodec}, with a cache of decoded blocks. */
+    public static BlockMgr createCompressedFile(String filename, String mapFilename, BlockCodec codec,
+                                                int blockSize, int readBlockCacheSize, int writeBlockCacheSize) {
+        return createCompressedFile(filename, mapFilename, codec, blockSize, readBlockCacheSize, writeBlockCacheSize, ConcurrentCache);
+    }
+
+    /** Create a Block Manager for blocks stored encoded by a {@link BlockCodec}, choosing the kind of cache of decoded blocks. */
+    public static BlockMgr createCompressedFile(String filename, String mapFilename, BlockCodec codec,
+                                                int blockSize, int readBlockCacheSize, int writeBlockCacheSize,
+                                                boolean concurrentCache) {
+        BlockAccess file = new BlockAccessCompressed(filename, mapFilename, blockSize, codec);
+        BlockMgr blockMgr = wrapFileAccess(file, blockSize);
+        blockMgr = concurrentCache
+            ? addConcurrentCache(blockMgr, readBlockCacheSize, writeBlockCacheSize)
+            : addCache(blockMgr, readBlockCacheSize, writeBlockCacheSize);
         return track(blockMgr);
     }
 
@@ -123,11 +192,21 @@ public class BlockMgrFactory {
      * @see #addCache(BlockMgr, FileSet, FileMode, int, int)
      */
     public static BlockMgr addCache(BlockMgr blockMgr, int readBlockCacheSize, int writeBlockCacheSize) {
-        if ( blockMgr instanceof BlockMgrCache )
+        if ( blockMgr instanceof BlockMgrCache || blockMgr instanceof BlockMgrCacheConcurrent )
             Log.warn(BlockMgrFactory.class, "BlockMgr already has a cache: " + blockMgr.getLabel());
         return BlockMgrCache.create(readBlockCacheSize, writeBlockCacheSize, blockMgr);
     }
 
+    /**
+     * Add a caching layer to a BlockMgr where reads do not lock.
+     * See {@link BlockMgrCacheConcurrent}.
+     */
+    public static BlockMgr addConcurrentCache(BlockMgr blockMgr, int readBlockCacheSize, int writeBlockCacheSize) {
+        if ( blockMgr instanceof BlockMgrCache || blockMgr instanceof BlockMgrCacheConcurrent )
+            Log.warn(BlockMgrFactory.class, "BlockMgr already has a cache: " + blockMgr.getLabel());
+        return BlockMgrCacheConcurrent.create(readBlockCacheSize, writeBlockCacheSize, blockMgr);
+    }
+
     /**
      * Add a caching layer to a BlockMgr if appropriate. This does not make
      * sense for memory BlockMgr or for memory mapper files. These are skipped.
@@ -139,6 +218,8 @@ public class BlockMgrFactory {
             fileMode = SystemIndex.fileMode();
         if ( fileMode == FileMode.mapped )
             return blockMgr;
+        if ( ConcurrentCache )
+            return addConcurrentCache(blockMgr, readBlockCacheSize, writeBlockCacheSize);
         return addCache(blockMgr, readBlockCacheSize, writeBlockCacheSize);
     }
 
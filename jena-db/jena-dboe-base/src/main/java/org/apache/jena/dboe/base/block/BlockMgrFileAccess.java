@@ -112,6 +112,12 @@ final public class BlockMgrFileAccess extends BlockMgrBase {
         return file.valid(id);
     }
 
+    @Override
+    public void prefetch(long id) {
+        if ( !closed )
+            file.prefetch(id);
+    }
+
     @Override
     public void sync() {
         checkNotClosed();
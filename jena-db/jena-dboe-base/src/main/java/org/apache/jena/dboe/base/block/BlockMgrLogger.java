@@ -125,6 +125,12 @@ public class BlockMgrLogger implements BlockMgr // extends BlockMgrWrapper
         return blockMgr.valid(id);
     }
 
+    @Override
+    public void prefetch(long id) {
+        info("prefetch(" + id + ")");
+        blockMgr.prefetch(id);
+    }
+
     @Override
     public void close() {
         info("close");
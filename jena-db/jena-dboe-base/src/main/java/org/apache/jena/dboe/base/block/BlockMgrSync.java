@@ -129,6 +129,12 @@ public class BlockMgrSync implements BlockMgr {
         return blockMgr.valid(id);
     }
 
+    // A hint : no need to synchronize.
+    @Override
+    public void prefetch(long id) {
+        blockMgr.prefetch(id);
+    }
+
     @Override
     synchronized public boolean isClosed() {
         return blockMgr.isClosed();
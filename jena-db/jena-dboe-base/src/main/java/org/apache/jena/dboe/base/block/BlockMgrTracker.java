@@ -264,6 +264,11 @@ public class BlockMgrTracker /* extends BlockMgrWrapper */ implements BlockMgr {
         return blockMgr.valid(id);
     }
 
+    @Override
+    public void prefetch(long id) {
+        blockMgr.prefetch(id);
+    }
+
     @Override
     public boolean isClosed() {
         return blockMgr.isClosed();
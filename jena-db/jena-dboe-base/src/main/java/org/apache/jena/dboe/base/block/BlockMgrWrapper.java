@@ -106,6 +106,11 @@ public class BlockMgrWrapper implements BlockMgr {
         return blockMgr.valid(id);
     }
 
+    @Override
+    public void prefetch(long id) {
+        blockMgr.prefetch(id);
+    }
+
     @Override
     public boolean isClosed() {
         return blockMgr.isClosed();
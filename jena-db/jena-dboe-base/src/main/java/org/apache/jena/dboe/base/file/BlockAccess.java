@@ -61,5 +61,11 @@ public interface BlockAccess extends Sync, Closeable
 
     public boolean valid(long id);
 
+    /**
+     * Hint that block {@code id} is likely to be read soon.
+     * Implementations may start reading it in the background.
+     */
+    public default void prefetch(long id) {}
+
     public String getLabel();
 }
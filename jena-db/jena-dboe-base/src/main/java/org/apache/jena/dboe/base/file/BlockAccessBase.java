@@ -44,6 +44,8 @@ public abstract class BlockAccessBase implements BlockAccess {
     protected final AtomicLong seq;
     protected long             numFileBlocks = -1;
 
+    protected final ReadAhead  readAhead     = new ReadAhead(this::readAheadBlock);
+
     public BlockAccessBase(String filename, int blockSize) {
         this.filename = filename;
         this.file = FileLib.openManaged(filename);
@@ -76,6 +78,22 @@ public abstract class BlockAccessBase implements BlockAccess {
 
     protected abstract Logger getLog();
 
+    /** Read a block for read-ahead. This is called on a background thread. */
+    protected Block readAheadBlock(long id) {
+        return read(id);
+    }
+
+    @Override
+    public void prefetch(long id) {
+        if ( !isClosed() && valid(id) )
+            readAhead.prefetch(id);
+    }
+
+    /** Read-ahead, including counters of its use. */
+    public ReadAhead getReadAhead() {
+        return readAhead;
+    }
+
     @Override
     final public boolean isEmpty() {
         return numFileBlocks <= 0;
@@ -0,0 +1,391 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.file;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.dboe.base.block.Block;
+import org.apache.jena.dboe.base.block.BlockException;
+import org.apache.jena.dboe.sys.FileLib;
+import org.apache.jena.dboe.sys.Sys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link BlockAccess} that stores each block in encoded form, as produced by a
+ * {@link BlockCodec}. Blocks presented to, and returned by, this class are still
+ * fixed size.
+ * <p>
+ * There are two files. The data file holds the encoded blocks. The map file holds
+ * one long per block id recording where the current version of the block is in the
+ * data file: offset (high 40 bits) and length (low 24 bits); zero means "never
+ * written". The map file is only updated on {@link #sync()}, after the data file
+ * has been forced, so the on-disk map only refers to data that is on disk.
+ * <p>
+ * A write never overwrites data that a committed map may refer to. This fits the
+ * copy-on-write usage by transactional B+Trees, where only blocks allocated since
+ * the last commit (which syncs) are rewritten. Writes of such blocks are kept
+ * (unencoded) until {@link #sync()}, or until there are too many, so a block
+ * changed many times in a transaction is encoded and written once. Space from
+ * superseded versions of blocks is recovered by compaction of the database.
+ */
+public class BlockAccessCompressed implements BlockAccess
+{
+    private static Logger log = LoggerFactory.getLogger(BlockAccessCompressed.class);
+
+    private static final int  LengthBits  = 24;
+    private static final long LengthMask  = (1L << LengthBits) - 1;
+    private static final long MaxOffset   = (1L << (Long.SIZE - LengthBits)) - 1;
+    private static final int  SizeOfEntry = Long.BYTES;
+
+    /** Number of uncommitted block writes held before encoding and writing them. */
+    public static int         MaxPending  = 1000;
+
+    private final String     filename;
+    private final String     mapFilename;
+    private final String     label;
+    private final int        blockSize;
+    private final BlockCodec codec;
+    private final byte[]     encodeBuffer;
+
+    private FileChannel      file;
+    private FileChannel      mapFile;
+
+    // Block id -> (offset, length). Replaced, not modified, when grown so readers
+    // see either the old or the new array.
+    private volatile long[]  entries;
+    private volatile long    numBlocks;
+    private long             dataLength;
+    // Lowest entry changed since the last sync.
+    private long             firstDirty    = Long.MAX_VALUE;
+    // Writes of blocks that are not yet committed, not yet encoded.
+    private final Map<Long, byte[]> pending = new ConcurrentSkipListMap<>();
+    private final ReadAhead  readAhead = new ReadAhead(this::read);
+
+    // Blocks that existed at the last sync may be committed and are not written
+    // in-place or held as pending.
+    private long             protectBelow;
+    // Data file length at the last sync, so that resetAllocBoundary to that point
+    // can truncate the data file without scanning the map.
+    private long             syncMark;
+    private long             syncDataLength;
+
+    public BlockAccessCompressed(String filename, String mapFilename, int blockSize, BlockCodec codec) {
+        if ( codec.maxEncodedLength(blockSize) > LengthMask )
+            throw new BlockException(format("Block size too large for compressed storage: %d", blockSize));
+        this.filename = filename;
+        this.mapFilename = mapFilename;
+        this.label = new File(filename).getName();
+        this.blockSize = blockSize;
+        this.codec = codec;
+        this.encodeBuffer = new byte[codec.maxEncodedLength(blockSize)];
+        this.file = FileLib.openManaged(filename);
+        this.mapFile = FileLib.openManaged(mapFilename);
+
+        long mapSize = FileLib.size(mapFile);
+        if ( mapSize % SizeOfEntry != 0 )
+            throw new BlockException(format("Map file size (%d) not a multiple of %d", mapSize, SizeOfEntry));
+        long n = mapSize / SizeOfEntry;
+        if ( n > Integer.MAX_VALUE )
+            throw new BlockException(format("Map file too large: %d entries", n));
+        this.numBlocks = n;
+        this.entries = new long[Math.max(16, (int)n)];
+        readMap((int)n);
+        this.dataLength = FileLib.size(file);
+        setSyncMark();
+    }
+
+    private void setSyncMark() {
+        protectBelow = numBlocks;
+        syncMark = numBlocks;
+        syncDataLength = dataLength;
+    }
+
+    private void readMap(int n) {
+        if ( n == 0 )
+            return;
+        ByteBuffer bb = ByteBuffer.allocate(n * SizeOfEntry);
+        readFully(mapFile, bb, 0);
+        bb.flip();
+        bb.asLongBuffer().get(entries, 0, n);
+    }
+
+    @Override
+    public synchronized Block allocate(int blkSize) {
+        checkIfClosed();
+        if ( blkSize > 0 && blkSize != this.blockSize )
+            throw new FileException("Fixed blocksize only: request= "+blkSize+"fixed size="+this.blockSize);
+        long id = numBlocks;
+        if ( id >= Integer.MAX_VALUE )
+            throw new BlockException("BlockAccessCompressed: too many blocks");
+        ensureCapacity(id + 1);
+        numBlocks = id + 1;
+        ByteBuffer bb = ByteBuffer.allocate(blockSize);
+        return new Block(id, bb);
+    }
+
+    private void ensureCapacity(long size) {
+        if ( size <= entries.length )
+            return;
+        long newSize = Math.max(size, 2L * entries.length);
+        entries = Arrays.copyOf(entries, (int)Math.min(newSize, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public Block read(long id) {
+        checkIfClosed();
+        check(id);
+        ByteBuffer bb = ByteBuffer.allocate(blockSize);
+        byte[] bytes = pending.get(id);
+        if ( bytes != null ) {
+            bb.put(bytes);
+            bb.rewind();
+            return new Block(id, bb);
+        }
+        Block block = readAhead.take(id);
+        if ( block != null )
+            return block;
+        long entry = entries[(int)id];
+        if ( entry == 0 )
+            throw new FileException(format("BlockAccessCompressed: block %d not written: %s", id, filename));
+        long offset = entry >>> LengthBits;
+        int len = (int)(entry & LengthMask);
+        bytes = new byte[len];
+        readFully(file, ByteBuffer.wrap(bytes), offset);
+        codec.decode(bytes, len, bb);
+        bb.rewind();
+        return new Block(id, bb);
+    }
+
+    @Override
+    public synchronized void write(Block block) {
+        checkIfClosed();
+        check(block);
+        long id = block.getId();
+        readAhead.invalidate(id);
+        ByteBuffer bb = block.getByteBuffer();
+        bb.limit(bb.capacity());
+        bb.rewind();
+        if ( id < protectBelow ) {
+            pending.remove(id);
+            writeEncoded(id, bb);
+            return;
+        }
+        byte[] bytes = new byte[blockSize];
+        bb.get(bytes);
+        bb.rewind();
+        pending.put(id, bytes);
+        if ( pending.size() > MaxPending )
+            writePending();
+    }
+
+    private void writePending() {
+        for ( Map.Entry<Long, byte[]> e : pending.entrySet() )
+            writeEncoded(e.getKey(), ByteBuffer.wrap(e.getValue()));
+        pending.clear();
+    }
+
+    private void writeEncoded(long id, ByteBuffer bb) {
+        int len = codec.encode(bb, encodeBuffer);
+        bb.rewind();
+        int idx = (int)id;
+        long entry = entries[idx];
+        long offset;
+        if ( entry != 0 && id >= protectBelow && len <= (entry & LengthMask) ) {
+            // Uncommitted block written before : rewrite in-place.
+            offset = entry >>> LengthBits;
+        } else {
+            offset = dataLength;
+            if ( offset > MaxOffset )
+                throw new FileException(format("BlockAccessCompressed: data file too large: %s", filename));
+            dataLength = offset + len;
+        }
+        try {
+            ByteBuffer src = ByteBuffer.wrap(encodeBuffer, 0, len);
+            long posn = offset;
+            while ( src.hasRemaining() )
+                posn += file.write(src, posn);
+        } catch (IOException ex) { throw new FileException("BlockAccessCompressed", ex); }
+        entries[idx] = (offset << LengthBits) | len;
+        if ( id < firstDirty )
+            firstDirty = id;
+        // The old version of a block below the sync mark may be needed after a reset.
+        if ( id < syncMark )
+            syncMark = -1;
+    }
+
+    @Override
+    public synchronized void overwrite(Block block) {
+        long id = block.getId();
+        if ( id >= numBlocks ) {
+            ensureCapacity(id + 1);
+            numBlocks = id + 1;
+        }
+        write(block);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return numBlocks <= 0;
+    }
+
+    @Override
+    public long allocBoundary() {
+        checkIfClosed();
+        return numBlocks;
+    }
+
+    @Override
+    public synchronized void resetAllocBoundary(long boundary) {
+        checkIfClosed();
+        if ( boundary > numBlocks )
+            throw new BlockException(format("BlockAccessCompressed: reset boundary beyond allocation: %d > %d", boundary, numBlocks));
+        pending.keySet().removeIf(id -> id >= boundary);
+        readAhead.clear();
+        long[] x = entries;
+        int limit = (int)boundary;
+        long newDataLength;
+        if ( boundary == syncMark )
+            newDataLength = syncDataLength;
+        else {
+            newDataLength = 0;
+            for ( int i = 0 ; i < limit ; i++ ) {
+                long e = x[i];
+                if ( e != 0 )
+                    newDataLength = Math.max(newDataLength, (e >>> LengthBits) + (e & LengthMask));
+            }
+        }
+        Arrays.fill(x, limit, (int)Math.min(numBlocks, x.length), 0L);
+        numBlocks = boundary;
+        dataLength = newDataLength;
+        FileLib.truncate(file, newDataLength);
+        if ( FileLib.size(mapFile) > boundary * SizeOfEntry )
+            FileLib.truncate(mapFile, boundary * SizeOfEntry);
+        if ( firstDirty >= boundary )
+            firstDirty = Long.MAX_VALUE;
+        if ( pending.isEmpty() && firstDirty == Long.MAX_VALUE )
+            setSyncMark();
+        else
+            protectBelow = Math.min(protectBelow, boundary);
+    }
+
+    @Override
+    public void prefetch(long id) {
+        if ( !isClosed() && valid(id) && !pending.containsKey(id) )
+            readAhead.prefetch(id);
+    }
+
+    /** Read-ahead, including counters of its use. */
+    public ReadAhead getReadAhead() {
+        return readAhead;
+    }
+
+    @Override
+    public boolean valid(long id) {
+        return id >= 0 && id < numBlocks;
+    }
+
+    private void check(long id) {
+        if ( id < 0 || id >= numBlocks )
+            throw new BlockException(format("BlockAccessCompressed: Bounds exception: %s: (%d,%d)", filename, id, numBlocks));
+    }
+
+    private void check(Block block) {
+        check(block.getId());
+        ByteBuffer bb = block.getByteBuffer();
+        if ( bb.capacity() != blockSize )
+            throw new BlockException(format("BlockAccessCompressed: Wrong size block.  Expected=%d : actual=%d", blockSize, bb.capacity()));
+        if ( bb.order() != Sys.NetworkOrder )
+            throw new BlockException("BlockAccessCompressed: Wrong byte order");
+    }
+
+    @Override
+    public synchronized void sync() {
+        checkIfClosed();
+        writePending();
+        FileLib.sync(file);
+        writeMap();
+        FileLib.sync(mapFile);
+        setSyncMark();
+    }
+
+    private void writeMap() {
+        long start = firstDirty;
+        long end = numBlocks;
+        if ( start >= end )
+            return;
+        int n = (int)(end - start);
+        ByteBuffer bb = ByteBuffer.allocate(n * SizeOfEntry);
+        bb.asLongBuffer().put(entries, (int)start, n);
+        try {
+            long posn = start * SizeOfEntry;
+            while ( bb.hasRemaining() )
+                posn += mapFile.write(bb, posn);
+        } catch (IOException ex) { throw new FileException("BlockAccessCompressed", ex); }
+        firstDirty = Long.MAX_VALUE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer dst, long posn) {
+        try {
+            while ( dst.hasRemaining() ) {
+                int x = channel.read(dst, posn);
+                if ( x < 0 )
+                    throw new FileException(format("BlockAccessCompressed: short read (%d bytes)", dst.capacity()));
+                posn += x;
+            }
+        } catch (IOException ex) { throw new FileException("BlockAccessCompressed", ex); }
+    }
+
+    public boolean isClosed() {
+        return file == null;
+    }
+
+    private void checkIfClosed() {
+        if ( isClosed() )
+            log.error("File has been closed");
+    }
+
+    @Override
+    public synchronized void close() {
+        if ( isClosed() )
+            return;
+        sync();
+        FileLib.close(file);
+        FileLib.close(mapFile);
+        file = null;
+        mapFile = null;
+    }
+
+    @Override
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public String toString() { return "Compressed:"+FileOps.basename(filename); }
+}
@@ -54,10 +54,13 @@ public class BlockAccessDirect extends BlockAccessBase
     public Block read(long id) {
         check(id);
         checkIfClosed();
+        Block block = readAhead.take(id);
+        if ( block != null )
+            return block;
         ByteBuffer bb = ByteBuffer.allocate(blockSize);
         readByteBuffer(id, bb);
         bb.rewind();
-        Block block = new Block(id, bb);
+        block = new Block(id, bb);
         return block;
     }
 
@@ -78,6 +81,7 @@ public class BlockAccessDirect extends BlockAccessBase
     public void write(Block block) {
         check(block);
         checkIfClosed();
+        readAhead.invalidate(block.getId());
         ByteBuffer bb = block.getByteBuffer();
         // This .clear() except the javadoc suggests this is not the correct use of .clear()
         // and the name does
@@ -100,6 +104,7 @@ public class BlockAccessDirect extends BlockAccessBase
 
     @Override
     protected void _resetAllocBoundary(long boundary) {
+        readAhead.clear();
         FileLib.truncate(file, filePosition(boundary));
     }
 
@@ -49,6 +49,8 @@ public class BlockAccessMapped extends BlockAccessBase
     private final int GrowthFactor = 2;
     private final int SegmentSize = SystemIndex.SegmentSize;
     private final int blocksPerSegment;
+    // Touch every page of a block on read-ahead.
+    private static final int OSPageSize = 4096;
 
     private int initialNumSegements = 1;
     private MappedByteBuffer[] segments = new MappedByteBuffer[initialNumSegements];
@@ -87,9 +89,22 @@ public class BlockAccessMapped extends BlockAccessBase
     public Block read(long id) {
         check(id);
         checkIfClosed();
+        Block block = readAhead.take(id);
+        if ( block != null )
+            return block;
         ByteBuffer bb = getByteBuffer(id);
         bb.position(0);
-        Block block = new Block(id, bb);
+        block = new Block(id, bb);
+        return block;
+    }
+
+    /** Touch the memory of a block so that the OS loads it. */
+    @Override
+    protected Block readAheadBlock(long id) {
+        Block block = read(id);
+        ByteBuffer bb = block.getByteBuffer();
+        for ( int i = 0 ; i < bb.capacity() ; i += OSPageSize )
+            bb.get(i);
         return block;
     }
 
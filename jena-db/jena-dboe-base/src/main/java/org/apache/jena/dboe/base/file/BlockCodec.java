@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding of the contents of a fixed size block into a (usually) shorter byte
+ * sequence for storage, and back again.
+ *
+ * @see BlockAccessCompressed
+ */
+public interface BlockCodec {
+    /**
+     * Encode the block contents, {@code block} from position 0 to its capacity.
+     * Return the number of bytes written to {@code dst}. {@code dst} has space for
+     * at least {@link #maxEncodedLength} bytes.
+     */
+    public int encode(ByteBuffer block, byte[] dst);
+
+    /**
+     * Decode {@code length} bytes of {@code src} into {@code block},
+     * filling it from position 0 to its capacity.
+     */
+    public void decode(byte[] src, int length, ByteBuffer block);
+
+    /** The longest encoding of a block of {@code blockSize} bytes. */
+    public int maxEncodedLength(int blockSize);
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.file;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.apache.jena.dboe.base.block.Block;
+
+/**
+ * Asynchronous read-ahead of blocks for a {@link BlockAccess}.
+ * <p>
+ * {@link #prefetch} reads a block on a background thread and holds it until it is
+ * claimed by {@link #take}, or it is displaced by later read-ahead. Any write
+ * discards blocks held and any read-ahead in progress so a stale block is never
+ * returned.
+ */
+public class ReadAhead {
+    /** Maximum number of read-ahead blocks held, or being read, per file. */
+    public static int MaxBlocks = 64;
+
+    private static final int Threads = 4;
+    private static final ExecutorService executor = Executors.newFixedThreadPool(Threads, r -> {
+        Thread thread = new Thread(r, "DBOE-ReadAhead");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongFunction<Block> reader;
+    private final Map<Long, Block> blocks = new LinkedHashMap<Long, Block>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Block> eldest) {
+            return size() > MaxBlocks;
+        }
+    };
+    private final Set<Long> inProgress = new HashSet<>();
+    // Changes on every write.
+    private long writes = 0;
+
+    private final AtomicLong prefetchCount = new AtomicLong(0);
+    private final AtomicLong hitCount = new AtomicLong(0);
+
+    /** Read-ahead using {@code reader} to read a block on a background thread. */
+    public ReadAhead(LongFunction<Block> reader) {
+        this.reader = reader;
+    }
+
+    /** Start reading block {@code id} in the background, unless it is already held or being read. */
+    public void prefetch(long id) {
+        long seq;
+        synchronized (this) {
+            if ( blocks.containsKey(id) || inProgress.contains(id) || inProgress.size() >= MaxBlocks )
+                return;
+            inProgress.add(id);
+            seq = writes;
+        }
+        prefetchCount.incrementAndGet();
+        executor.execute(() -> {
+            Block block = null;
+            try {
+                block = reader.apply(id);
+            } catch (RuntimeException ex) {
+                // Ignore - the error will be reported by the foreground read, if any.
+            }
+            synchronized (this) {
+                inProgress.remove(id);
+                if ( block != null && seq == writes )
+                    blocks.put(id, block);
+            }
+        });
+    }
+
+    /** Claim the block {@code id} if it has been read ahead, else return null. */
+    public Block take(long id) {
+        Block block;
+        synchronized (this) {
+            if ( blocks.isEmpty() )
+                return null;
+            block = blocks.remove(id);
+        }
+        if ( block != null )
+            hitCount.incrementAndGet();
+        return block;
+    }
+
+    /** Block {@code id} is being written. */
+    public synchronized void invalidate(long id) {
+        writes++;
+        blocks.remove(id);
+    }
+
+    /** Discard all blocks read ahead. */
+    public synchronized void clear() {
+        writes++;
+        blocks.clear();
+    }
+
+    /*package*/ synchronized boolean isHeld(long id) {
+        return blocks.containsKey(id);
+    }
+
+    /*package*/ synchronized boolean isReading(long id) {
+        return inProgress.contains(id);
+    }
+
+    /** Number of blocks for which read-ahead has been started. */
+    public long getPrefetchCount() {
+        return prefetchCount.get();
+    }
+
+    /** Number of reads satisfied by read-ahead. */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ReadAhead[prefetch="+getPrefetchCount()+", hits="+getHitCount()+"]";
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.recordbuffer;
+
+import java.nio.ByteBuffer;
+
+import org.apache.jena.dboe.base.block.BlockException;
+import org.apache.jena.dboe.base.file.BlockCodec;
+import org.apache.jena.dboe.base.record.RecordFactory;
+import org.apache.jena.dboe.sys.SystemIndex;
+
+/**
+ * {@link BlockCodec} for the blocks of {@link RecordBufferPage RecordBufferPages}
+ * (B+Tree leaves). Records in a page are sorted so adjacent records share a prefix.
+ * <p>
+ * When the record length is a multiple of 8 (e.g. TDB2 tuple indexes of 8 byte
+ * NodeIds), records are treated as slots of longs. Each record after the first is
+ * written as the index of the first slot that differs from the previous record, the
+ * (unsigned) increase in that slot, then the remaining slots as signed differences
+ * from the previous record, all as variable length integers. Otherwise each record
+ * is written as the length of the prefix shared with the previous record and the
+ * rest of the bytes.
+ * <p>
+ * A block that does not look like a record page, or does not compress, is written as-is.
+ * Space after the records is not preserved; it is filled with
+ * {@link SystemIndex#FillByte} on decode.
+ */
+public class RecordBufferPageCodec implements BlockCodec
+{
+    private static final byte FormatRaw    = 0;
+    private static final byte FormatSlots  = 1;
+    private static final byte FormatPrefix = 2;
+
+    // Header: count, link.
+    private static final int  HeaderLength = RecordBufferPage.LINK + Integer.BYTES;
+    private static final int  MaxVarLong   = 10;
+    private static final int  MaxVarInt    = 5;
+
+    private final int recordLength;
+    private final int slots;
+
+    public RecordBufferPageCodec(RecordFactory factory) {
+        this.recordLength = factory.recordLength();
+        this.slots = (recordLength % Long.BYTES == 0) ? recordLength / Long.BYTES : -1;
+    }
+
+    @Override
+    public int maxEncodedLength(int blockSize) {
+        return blockSize + 1;
+    }
+
+    @Override
+    public int encode(ByteBuffer block, byte[] dst) {
+        int blockSize = block.capacity();
+        int count = block.getInt(RecordBufferPageBase.COUNT);
+        int link = block.getInt(RecordBufferPage.LINK);
+        int len = -1;
+        if ( count >= 0 && HeaderLength + (long)count * recordLength <= blockSize )
+            len = ( slots > 0 ) ? encodeSlots(block, count, link, dst) : encodePrefix(block, count, link, dst);
+        if ( len < 0 )
+            len = encodeRaw(block, dst);
+        return len;
+    }
+
+    private static int encodeRaw(ByteBuffer block, byte[] dst) {
+        int blockSize = block.capacity();
+        dst[0] = FormatRaw;
+        ByteBuffer bb = block.duplicate();
+        bb.clear();
+        bb.get(dst, 1, blockSize);
+        return blockSize + 1;
+    }
+
+    /** Encode as slots of longs; return -1 if it is not shorter than the raw form. */
+    private int encodeSlots(ByteBuffer block, int count, int link, byte[] dst) {
+        // Give up if the next record might not fit within the raw length.
+        int limit = block.capacity() + 1 - (slots + 1) * MaxVarLong;
+        int pos = 0;
+        dst[pos++] = FormatSlots;
+        pos = putVarLong(dst, pos, count);
+        pos = putVarLong(dst, pos, zigzag(link));
+        long[] prev = new long[slots];
+        long[] cur = new long[slots];
+        for ( int r = 0 ; r < count ; r++ ) {
+            if ( pos > limit )
+                return -1;
+            int base = HeaderLength + r * recordLength;
+            for ( int j = 0 ; j < slots ; j++ )
+                cur[j] = block.getLong(base + j * Long.BYTES);
+            int i = 0;
+            while ( i < slots && cur[i] == prev[i] )
+                i++;
+            pos = putVarLong(dst, pos, i);
+            if ( i < slots ) {
+                pos = putVarLong(dst, pos, cur[i] - prev[i]);
+                for ( int j = i + 1 ; j < slots ; j++ )
+                    pos = putVarLong(dst, pos, zigzag(cur[j] - prev[j]));
+            }
+            long[] t = prev; prev = cur; cur = t;
+        }
+        return ( pos <= block.capacity() ) ? pos : -1;
+    }
+
+    /** Encode as shared prefix and suffix; return -1 if it is not shorter than the raw form. */
+    private int encodePrefix(ByteBuffer block, int count, int link, byte[] dst) {
+        int limit = block.capacity() + 1 - recordLength - MaxVarInt;
+        int pos = 0;
+        dst[pos++] = FormatPrefix;
+        pos = putVarLong(dst, pos, count);
+        pos = putVarLong(dst, pos, zigzag(link));
+        for ( int r = 0 ; r < count ; r++ ) {
+            if ( pos > limit )
+                return -1;
+            int base = HeaderLength + r * recordLength;
+            int shared = 0;
+            if ( r > 0 ) {
+                int prevBase = base - recordLength;
+                while ( shared < recordLength && block.get(base + shared) == block.get(prevBase + shared) )
+                    shared++;
+            }
+            pos = putVarLong(dst, pos, shared);
+            for ( int k = shared ; k < recordLength ; k++ )
+                dst[pos++] = block.get(base + k);
+        }
+        return ( pos <= block.capacity() ) ? pos : -1;
+    }
+
+    @Override
+    public void decode(byte[] src, int length, ByteBuffer block) {
+        int blockSize = block.capacity();
+        byte format = src[0];
+        if ( format == FormatRaw ) {
+            ByteBuffer bb = block.duplicate();
+            bb.clear();
+            bb.put(src, 1, blockSize);
+            return;
+        }
+        if ( format != FormatSlots && format != FormatPrefix )
+            throw new BlockException("Unrecognized block encoding: " + format);
+        int[] pos = { 1 };
+        int count = (int)getVarLong(src, pos);
+        int link = (int)unzigzag(getVarLong(src, pos));
+        block.putInt(RecordBufferPageBase.COUNT, count);
+        block.putInt(RecordBufferPage.LINK, link);
+        if ( format == FormatSlots )
+            decodeSlots(src, pos, count, block);
+        else
+            decodePrefix(src, pos, count, block);
+        int end = HeaderLength + count * recordLength;
+        for ( int i = end ; i < blockSize ; i++ )
+            block.put(i, SystemIndex.FillByte);
+    }
+
+    private void decodeSlots(byte[] src, int[] pos, int count, ByteBuffer block) {
+        long[] prev = new long[slots];
+        for ( int r = 0 ; r < count ; r++ ) {
+            int i = (int)getVarLong(src, pos);
+            if ( i < slots ) {
+                prev[i] += getVarLong(src, pos);
+                for ( int j = i + 1 ; j < slots ; j++ )
+                    prev[j] += unzigzag(getVarLong(src, pos));
+            }
+            int base = HeaderLength + r * recordLength;
+            for ( int j = 0 ; j < slots ; j++ )
+                block.putLong(base + j * Long.BYTES, prev[j]);
+        }
+    }
+
+    private void decodePrefix(byte[] src, int[] pos, int count, ByteBuffer block) {
+        byte[] prev = new byte[recordLength];
+        for ( int r = 0 ; r < count ; r++ ) {
+            int shared = (int)getVarLong(src, pos);
+            int n = recordLength - shared;
+            System.arraycopy(src, pos[0], prev, shared, n);
+            pos[0] += n;
+            int base = HeaderLength + r * recordLength;
+            for ( int k = 0 ; k < recordLength ; k++ )
+                block.put(base + k, prev[k]);
+        }
+    }
+
+    private static long zigzag(long x)      { return (x << 1) ^ (x >> 63); }
+
+    private static long unzigzag(long x)    { return (x >>> 1) ^ -(x & 1); }
+
+    /** Unsigned variable length encoding, 7 bits per byte, low bits first. */
+    private static int putVarLong(byte[] dst, int pos, long x) {
+        while ( (x & ~0x7FL) != 0 ) {
+            dst[pos++] = (byte)((x & 0x7F) | 0x80);
+            x >>>= 7;
+        }
+        dst[pos++] = (byte)x;
+        return pos;
+    }
+
+    private static long getVarLong(byte[] src, int[] pos) {
+        long x = 0;
+        int shift = 0;
+        int p = pos[0];
+        for ( ;; ) {
+            byte b = src[p++];
+            x |= (long)(b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 )
+                break;
+            shift += 7;
+        }
+        pos[0] = p;
+        return x;
+    }
+}
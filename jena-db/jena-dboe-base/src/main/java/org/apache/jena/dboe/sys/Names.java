@@ -51,6 +51,8 @@ public class Names
     public static final String extBptState              = "bpt";
     public static final String extBptTree               = "idn";
     public static final String extBptRecords            = "dat";
+    /** Block map for B+Trees with compressed records blocks */
+    public static final String extBptRecordsMap         = "dmap";
 
 //    /* B+Trees - single file per tree */
 //    public static final String btExt                    = "idx";
@@ -27,6 +27,7 @@ import org.junit.runners.Suite;
     , TestBlockMgrDirect.class
     , TestBlockMgrMapped.class
     , TestBlockMgrTracked.class
+    , TestBlockMgrCacheConcurrent.class
 })
 
 public class TS_Block
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.block;
+
+import static org.apache.jena.atlas.lib.ByteBufferLib.fill;
+
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.dboe.ConfigTestDBOE;
+import org.apache.jena.dboe.base.file.BlockAccessMem;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestBlockMgrCacheConcurrent extends AbstractTestBlockMgr
+{
+    static final String filename = ConfigTestDBOE.getTestingDir()+"/block-mgr-cache";
+
+    @BeforeClass static public void remove1() { FileOps.delete(filename); }
+    @AfterClass  static public void remove2() { FileOps.delete(filename); }
+
+    @Override
+    protected BlockMgr make() {
+        FileOps.delete(filename);
+        // Small caches to exercise eviction.
+        return BlockMgrFactory.createStdFile(filename, BlkSize, 5, 3, true);
+    }
+
+    @Test
+    public void concurrentCache01() {
+        assertTrue(blockMgr instanceof BlockMgrCacheConcurrent);
+        BlockMgrCacheConcurrent cacheMgr = (BlockMgrCacheConcurrent)blockMgr;
+        long[] ids = new long[10];
+        for ( int i = 0 ; i < ids.length ; i++ ) {
+            Block block = blockMgr.allocate(BlkSize);
+            fill(block.getByteBuffer(), (byte)i);
+            ids[i] = block.getId();
+            blockMgr.write(block);
+            blockMgr.release(block);
+        }
+        // Write cache is smaller than the number of blocks.
+        assertTrue(cacheMgr.getWriteCacheEvictions() > 0);
+        blockMgr.sync();
+        for ( int i = 0 ; i < ids.length ; i++ ) {
+            Block block = blockMgr.getRead(ids[i]);
+            assertEquals((byte)i, block.getByteBuffer().get(0));
+            blockMgr.release(block);
+        }
+        assertTrue(cacheMgr.getReadCacheMisses() > 0);
+        Block block = blockMgr.getRead(ids[ids.length-1]);
+        blockMgr.release(block);
+        assertTrue(cacheMgr.getReadCacheHits() > 0);
+    }
+
+    // A write of a block between the underlying read of a read cache miss and
+    // adding the block to the read cache must not leave the old block cached.
+    @Test
+    public void concurrentCache02() { readWriteInterleave(0); }
+
+    @Test
+    public void concurrentCache03() { readWriteInterleave(3); }
+
+    private static void readWriteInterleave(int writeSlots) {
+        BlockMgr base = new BlockMgrFileAccess(new BlockAccessMem("interleave", BlkSize), BlkSize);
+        Block block = base.allocate(BlkSize);
+        long id = block.getId();
+        fill(block.getByteBuffer(), (byte)1);
+        base.write(block);
+
+        BlockMgr[] cacheMgr = new BlockMgr[1];
+        boolean[] interleave = { true };
+        // Write a new version of the block while the cache is reading the old one.
+        BlockMgr underlying = new BlockMgrWrapper(base) {
+            @Override
+            public Block getRead(long id1) {
+                Block blk = super.getRead(id1);
+                if ( interleave[0] ) {
+                    interleave[0] = false;
+                    Block blk2 = cacheMgr[0].getWrite(id1);
+                    fill(blk2.getByteBuffer(), (byte)2);
+                    cacheMgr[0].write(blk2);
+                    cacheMgr[0].release(blk2);
+                }
+                return blk;
+            }
+        };
+        cacheMgr[0] = BlockMgrCacheConcurrent.create(5, writeSlots, underlying);
+        cacheMgr[0].beginRead();
+        Block blk = cacheMgr[0].getRead(id);
+        cacheMgr[0].release(blk);
+        Block blk2 = cacheMgr[0].getRead(id);
+        assertEquals((byte)2, blk2.getByteBuffer().get(0));
+        cacheMgr[0].release(blk2);
+        cacheMgr[0].endRead();
+    }
+}
@@ -32,6 +32,8 @@ import org.junit.runners.Suite;
     , TestBlockAccessByteArray.class
     , TestBlockAccessDirect.class
     , TestBlockAccessMapped.class
+    , TestBlockAccessCompressed.class
+    , TestReadAhead.class
 
     , TestBinaryDataMem.class
     , TestBinaryDataFileWriteBufferedMem.class
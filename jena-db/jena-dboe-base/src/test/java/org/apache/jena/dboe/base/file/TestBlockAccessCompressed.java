@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.file;
+
+import static org.apache.jena.dboe.test.BufferTestLib.sameValue;
+
+import java.io.File;
+
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.dboe.ConfigTestDBOE;
+import org.apache.jena.dboe.base.block.Block;
+import org.apache.jena.dboe.base.record.RecordFactory;
+import org.apache.jena.dboe.base.recordbuffer.RecordBufferPageCodec;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class TestBlockAccessCompressed extends AbstractTestBlockAccessFixedSize
+{
+    static String filename = ConfigTestDBOE.getTestingDir()+"/test-file-access-compressed";
+    static String mapFilename = ConfigTestDBOE.getTestingDir()+"/test-file-access-compressed-map";
+
+    static final int BlockSize = 50;
+    public TestBlockAccessCompressed() {
+        super(BlockSize);
+    }
+
+    @AfterClass public static void cleanup() {
+        FileOps.deleteSilent(filename);
+        FileOps.deleteSilent(mapFilename);
+    }
+
+    @Override
+    protected BlockAccess make() {
+        FileOps.deleteSilent(filename);
+        FileOps.deleteSilent(mapFilename);
+        return open();
+    }
+
+    private static BlockAccess open() {
+        return new BlockAccessCompressed(filename, mapFilename, BlockSize, new RecordBufferPageCodec(new RecordFactory(8, 0)));
+    }
+
+    @Test public void fileaccess_compressed_01() {
+        BlockAccess file = make();
+        Block b1 = data(file, BlockSize);
+        Block b2 = data(file, BlockSize);
+        file.write(b1);
+        file.write(b2);
+        file.sync();
+        file.close();
+
+        BlockAccess file2 = open();
+        assertFalse(file2.isEmpty());
+        assertTrue(file2.valid(b2.getId()));
+        assertTrue(sameValue(b1, file2.read(b1.getId())));
+        assertTrue(sameValue(b2, file2.read(b2.getId())));
+        file2.close();
+    }
+
+    @Test public void fileaccess_compressed_02() {
+        BlockAccess file = make();
+        Block b1 = data(file, BlockSize);
+        file.write(b1);
+        long boundary = file.allocBoundary();
+        Block b2 = data(file, BlockSize);
+        file.write(b2);
+        // Rewrite above the boundary.
+        b2.getByteBuffer().put(0, (byte)99);
+        file.overwrite(b2);
+        file.sync();
+        long len = new File(filename).length();
+        file.resetAllocBoundary(boundary);
+        assertTrue(new File(filename).length() < len);
+        assertTrue(file.valid(b1.getId()));
+        assertFalse(file.valid(b2.getId()));
+        assertTrue(sameValue(b1, file.read(b1.getId())));
+        file.close();
+
+        BlockAccess file2 = open();
+        assertTrue(file2.valid(b1.getId()));
+        assertFalse(file2.valid(b2.getId()));
+        assertTrue(sameValue(b1, file2.read(b1.getId())));
+        file2.close();
+    }
+}
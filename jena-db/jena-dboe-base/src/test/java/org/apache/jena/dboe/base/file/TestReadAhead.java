@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongPredicate;
+
+import org.apache.jena.dboe.base.block.Block;
+import org.junit.Test;
+
+public class TestReadAhead
+{
+    private static Block block(long id) {
+        return new Block(id, ByteBuffer.allocate(8));
+    }
+
+    private static void waitFor(LongPredicate test, long id) {
+        for ( int i = 0 ; i < 500 ; i++ ) {
+            if ( test.test(id) )
+                return;
+            try { Thread.sleep(10); } catch (InterruptedException ex) { return; }
+        }
+    }
+
+    @Test public void readahead_01() {
+        ReadAhead readAhead = new ReadAhead(TestReadAhead::block);
+        assertNull(readAhead.take(1));
+        assertEquals(0, readAhead.getHitCount());
+    }
+
+    @Test public void readahead_02() {
+        ReadAhead readAhead = new ReadAhead(TestReadAhead::block);
+        readAhead.prefetch(1);
+        waitFor(readAhead::isHeld, 1);
+        Block b = readAhead.take(1);
+        assertNotNull(b);
+        assertEquals(1L, b.getId().longValue());
+        assertEquals(1, readAhead.getPrefetchCount());
+        assertEquals(1, readAhead.getHitCount());
+        // Taken.
+        assertNull(readAhead.take(1));
+        assertEquals(1, readAhead.getHitCount());
+    }
+
+    @Test public void readahead_03() {
+        Block block = block(2);
+        ReadAhead readAhead = new ReadAhead(id -> block);
+        readAhead.prefetch(2);
+        readAhead.prefetch(2);
+        waitFor(readAhead::isHeld, 2);
+        readAhead.prefetch(2);
+        assertEquals(1, readAhead.getPrefetchCount());
+        assertSame(block, readAhead.take(2));
+    }
+
+    @Test public void readahead_04() {
+        ReadAhead readAhead = new ReadAhead(TestReadAhead::block);
+        readAhead.prefetch(3);
+        waitFor(readAhead::isHeld, 3);
+        readAhead.invalidate(3);
+        assertNull(readAhead.take(3));
+        assertEquals(0, readAhead.getHitCount());
+    }
+
+    // A write while the read-ahead is in progress.
+    @Test public void readahead_05() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        ReadAhead readAhead = new ReadAhead(id -> {
+            try { latch.await(); } catch (InterruptedException ex) {}
+            return block(id);
+        });
+        readAhead.prefetch(4);
+        readAhead.invalidate(4);
+        latch.countDown();
+        waitFor(id -> !readAhead.isReading(id), 4);
+        assertFalse(readAhead.isHeld(4));
+        assertNull(readAhead.take(4));
+    }
+
+    @Test public void readahead_06() {
+        ReadAhead readAhead = new ReadAhead(TestReadAhead::block);
+        readAhead.prefetch(5);
+        readAhead.prefetch(6);
+        waitFor(readAhead::isHeld, 5);
+        waitFor(readAhead::isHeld, 6);
+        readAhead.clear();
+        assertNull(readAhead.take(5));
+        assertNull(readAhead.take(6));
+    }
+}
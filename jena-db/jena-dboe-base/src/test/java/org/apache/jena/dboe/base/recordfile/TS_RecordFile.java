@@ -24,6 +24,7 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses( {
     TestRecordBufferPage.class
+    , TestRecordBufferPageCodec.class
 })
 
 public class TS_RecordFile
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.base.recordfile;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.jena.dboe.base.block.BlockException;
+import org.apache.jena.dboe.base.record.RecordFactory;
+import org.apache.jena.dboe.base.recordbuffer.RecordBufferPage;
+import org.apache.jena.dboe.base.recordbuffer.RecordBufferPageCodec;
+import org.apache.jena.dboe.sys.SystemIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRecordBufferPageCodec extends Assert
+{
+    static final int BlockSize = 8192;
+
+    // Records of 3 longs, sorted, as a TDB2 triple index.
+    private static ByteBuffer slotsBlock(int count, long seed) {
+        Random random = new Random(seed);
+        ByteBuffer bb = ByteBuffer.allocate(BlockSize);
+        Arrays.fill(bb.array(), SystemIndex.FillByte);
+        bb.putInt(0, count);
+        bb.putInt(RecordBufferPage.LINK, 17);
+        long s = 1000, p = 50, o = 5000;
+        for ( int i = 0 ; i < count ; i++ ) {
+            int x = random.nextInt(10);
+            if ( x == 0 ) { s += 1 + random.nextInt(100); p = random.nextInt(60); o = random.nextInt(10000); }
+            else if ( x < 3 ) { p += 1 + random.nextInt(5); o = random.nextInt(10000); }
+            else o += 1 + random.nextInt(20);
+            int base = 8 + 24 * i;
+            bb.putLong(base, s);
+            bb.putLong(base + 8, p);
+            bb.putLong(base + 16, o);
+        }
+        return bb;
+    }
+
+    private static ByteBuffer roundTrip(RecordBufferPageCodec codec, ByteBuffer block, int expectedMaxLength) {
+        byte[] bytes = new byte[codec.maxEncodedLength(BlockSize)];
+        int len = codec.encode(block, bytes);
+        assertTrue("Encoded length: " + len, len <= expectedMaxLength);
+        ByteBuffer block2 = ByteBuffer.allocate(BlockSize);
+        codec.decode(bytes, len, block2);
+        return block2;
+    }
+
+    @Test public void page_codec_01() {
+        RecordBufferPageCodec codec = new RecordBufferPageCodec(new RecordFactory(24, 0));
+        int max = RecordBufferPage.calcRecordSize(new RecordFactory(24, 0), BlockSize);
+        ByteBuffer block = slotsBlock(max, 1);
+        ByteBuffer block2 = roundTrip(codec, block, BlockSize / 4);
+        assertEquals(block, block2);
+    }
+
+    @Test public void page_codec_02() {
+        RecordBufferPageCodec codec = new RecordBufferPageCodec(new RecordFactory(24, 0));
+        ByteBuffer block = slotsBlock(0, 2);
+        ByteBuffer block2 = roundTrip(codec, block, 10);
+        assertEquals(block, block2);
+    }
+
+    @Test public void page_codec_03() {
+        // Not a multiple of 8 : shared prefix.
+        RecordFactory factory = new RecordFactory(12, 0);
+        RecordBufferPageCodec codec = new RecordBufferPageCodec(factory);
+        int count = RecordBufferPage.calcRecordSize(factory, BlockSize);
+        ByteBuffer block = ByteBuffer.allocate(BlockSize);
+        Arrays.fill(block.array(), SystemIndex.FillByte);
+        block.putInt(0, count);
+        block.putInt(RecordBufferPage.LINK, -1);
+        for ( int i = 0 ; i < count ; i++ ) {
+            int base = 8 + 12 * i;
+            block.putLong(base, 123456789L);
+            block.putInt(base + 8, i);
+        }
+        ByteBuffer block2 = roundTrip(codec, block, BlockSize / 2);
+        assertEquals(block, block2);
+    }
+
+    @Test public void page_codec_04() {
+        // Does not look like a records page : stored as-is.
+        RecordBufferPageCodec codec = new RecordBufferPageCodec(new RecordFactory(24, 0));
+        ByteBuffer block = ByteBuffer.allocate(BlockSize);
+        new Random(4).nextBytes(block.array());
+        ByteBuffer block2 = roundTrip(codec, block, BlockSize + 1);
+        assertEquals(block, block2);
+    }
+
+    @Test public void page_codec_05() {
+        // Records that do not compress : stored as-is.
+        RecordBufferPageCodec codec = new RecordBufferPageCodec(new RecordFactory(16, 0));
+        int count = RecordBufferPage.calcRecordSize(new RecordFactory(16, 0), BlockSize);
+        ByteBuffer block = ByteBuffer.allocate(BlockSize);
+        Random random = new Random(5);
+        long[] values = new long[2 * count];
+        for ( int i = 0 ; i < values.length ; i++ )
+            values[i] = random.nextLong();
+        Arrays.sort(values);
+        block.putInt(0, count);
+        block.putInt(RecordBufferPage.LINK, 3);
+        for ( int i = 0 ; i < values.length ; i++ )
+            block.putLong(8 + 8 * i, values[i]);
+        Arrays.fill(block.array(), 8 + 8 * values.length, BlockSize, SystemIndex.FillByte);
+        ByteBuffer block2 = roundTrip(codec, block, BlockSize + 1);
+        assertEquals(block, block2);
+    }
+
+    @Test(expected=BlockException.class)
+    public void page_codec_06() {
+        RecordBufferPageCodec codec = new RecordBufferPageCodec(new RecordFactory(24, 0));
+        codec.decode(new byte[] {99, 0, 0}, 3, ByteBuffer.allocate(BlockSize));
+    }
+}
@@ -18,7 +18,9 @@
 
 package org.apache.jena.dboe.index;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.dboe.base.record.Record;
 import org.apache.jena.dboe.base.record.RecordMapper;
@@ -35,4 +37,14 @@ public interface RangeIndex extends Index
 
     /** Return the record containing the greatest key - may or may not have the associated value */
     public Record maxKey();
+
+    /**
+     * Return keys, in order and strictly between min and max (null for unbounded),
+     * that split the range into roughly equal parts, at most {@code numPartitions}.
+     * The parts can be iterated over independently. An empty list means the range
+     * is not split. The default is to not split.
+     */
+    public default List<Record> partitionKeys(Record recordMin, Record recordMax, int numPartitions) {
+        return Collections.emptyList();
+    }
 }
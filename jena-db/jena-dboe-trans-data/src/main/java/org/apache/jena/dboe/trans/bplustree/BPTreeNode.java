@@ -26,6 +26,7 @@ import static org.apache.jena.dboe.trans.bplustree.BPT.*;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.apache.jena.atlas.io.IndentedLineBuffer;
 import org.apache.jena.atlas.io.IndentedWriter;
@@ -287,6 +288,10 @@ public final class BPTreeNode extends BPTreePage
         // Pages from pointer slots x1 to x2 (inc because while we exclude maxRec,
         // keys are only a max of the subtree they mark out.
 
+        int readAhead = bpTree.getReadAhead();
+        if ( readAhead > 0 && x2 > x1 )
+            return new ReadAheadIterator(x1, x2, readAhead);
+
         // XXX Just grab them now - later, keep indexes and fetch on next().
         // XXX Epoch tracking
 
@@ -297,6 +302,69 @@ public final class BPTreeNode extends BPTreePage
         return x.iterator();
     }
 
+    /**
+     * Iterator over the pages for pointer slots {@code first} to {@code last}
+     * (inclusive), fetching each page on {@code next()} and asking the storage to
+     * read ahead the following pages.
+     */
+    private class ReadAheadIterator implements Iterator<BPTreePage> {
+        private final int last;
+        private final int window;
+        private int idx;
+        // Slots below this have been prefetched.
+        private int prefetched;
+
+        ReadAheadIterator(int first, int last, int window) {
+            this.last = last;
+            this.window = window;
+            this.idx = first;
+            this.prefetched = first + 1;
+            readAhead();
+        }
+
+        private void readAhead() {
+            int limit = Math.min(last, idx + window);
+            if ( prefetched > limit )
+                return;
+            BlockMgr blockMgr = getPageBlockMgr().getBlockMgr();
+            for ( ; prefetched <= limit ; prefetched++ )
+                blockMgr.prefetch(ptrs.get(prefetched));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return idx <= last;
+        }
+
+        @Override
+        public BPTreePage next() {
+            if ( !hasNext() )
+                throw new NoSuchElementException();
+            bpTree.startReadBlkMgr();
+            try {
+                BPTreePage page = get(idx++);
+                readAhead();
+                return page;
+            } finally {
+                bpTree.finishReadBlkMgr();
+            }
+        }
+    }
+
+    /** Add the keys of this node that are strictly between minRec and maxRec
+     *  (null means unbounded) to the list, in order.
+     */
+    void keysInRange(Record minRec, Record maxRec, List<Record> keys) {
+        for ( int i = 0 ; i < count ; i++ ) {
+            Record r = records.get(i);
+            if ( minRec != null && Record.keyLE(r, minRec) )
+                continue;
+            if ( maxRec != null && Record.keyGE(r, maxRec) )
+                break;
+            keys.add(r);
+        }
+    }
+
 //    // OUT OF DATE WITH MVCC
 //    /**
 //     * Returns the id of the records buffer page for this record. Records Buffer
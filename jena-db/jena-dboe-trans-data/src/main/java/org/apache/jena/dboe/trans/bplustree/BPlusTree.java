@@ -19,7 +19,10 @@
 package org.apache.jena.dboe.trans.bplustree;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.io.IndentedWriter;
 import org.apache.jena.atlas.iterator.Iter;
@@ -128,6 +131,8 @@ public class BPlusTree extends TransactionalComponentLifecycle<BptTxnState> impl
     private final BPlusTreeParams bpTreeParams;
     private Mode mode = Mode.TRANSACTIONAL;
     private BptTxnState nonTxnState = null;
+    // Number of pages to read ahead in range scans.
+    private volatile int readAhead = 0;
 
     // Construction is a two stage process
     //    1/ Create the object, uninitialized
@@ -225,6 +230,15 @@ public class BPlusTree extends TransactionalComponentLifecycle<BptTxnState> impl
     /** Only use for careful manipulation of structures */
     public BPTreeRecordsMgr getRecordsMgr()     { return recordsMgr; }
 
+    /**
+     * Set the number of pages, beyond the current one, that range scans ask the
+     * storage to read ahead. Zero (the default) means no read-ahead.
+     */
+    public void setReadAhead(int numPages)      { this.readAhead = Math.max(0, numPages); }
+
+    /** The number of pages range scans read ahead. */
+    public int getReadAhead()                   { return readAhead; }
+
     @Override
     public RecordFactory getRecordFactory() {
         return bpTreeParams.recordFactory;
@@ -352,6 +366,51 @@ public class BPlusTree extends TransactionalComponentLifecycle<BptTxnState> impl
         return BPTreeRangeIteratorMapper.create(node, minRec, maxRec, keyLen, mapper);
     }
 
+    // How far below the root to look for partition keys.
+    private static final int PartitionDepth = 2;
+
+    @Override
+    public List<Record> partitionKeys(Record minRec, Record maxRec, int numPartitions) {
+        if ( numPartitions <= 1 )
+            return Collections.emptyList();
+        startReadBlkMgr();
+        BPTreeNode root = getRootRead();
+        try {
+            // Use the keys of the highest level of the tree that has enough of them in the range.
+            List<Record> keys = new ArrayList<>();
+            List<BPTreeNode> level = Collections.singletonList(root);
+            for ( int depth = 0 ; ; depth++ ) {
+                keys.clear();
+                for ( BPTreeNode n : level )
+                    n.keysInRange(minRec, maxRec, keys);
+                if ( keys.size() >= numPartitions - 1 || depth >= PartitionDepth || level.get(0).isLeaf() )
+                    break;
+                List<BPTreeNode> nextLevel = new ArrayList<>();
+                for ( BPTreeNode n : level ) {
+                    Iterator<BPTreePage> iter = n.iterator(minRec, maxRec);
+                    if ( iter != null )
+                        iter.forEachRemaining(p -> nextLevel.add((BPTreeNode)p));
+                }
+                if ( nextLevel.isEmpty() )
+                    break;
+                level = nextLevel;
+            }
+            return evenlySpaced(keys, numPartitions - 1);
+        } finally {
+            releaseRootRead(root);
+            finishReadBlkMgr();
+        }
+    }
+
+    private static List<Record> evenlySpaced(List<Record> keys, int n) {
+        if ( keys.size() <= n )
+            return keys;
+        List<Record> x = new ArrayList<>(n);
+        for ( int i = 1 ; i <= n ; i++ )
+            x.add(keys.get((int)((long)i * keys.size() / (n + 1))));
+        return x;
+    }
+
     // Internal calls.
     void startReadBlkMgr() {
         nodeManager.startRead();
@@ -28,6 +28,7 @@ import org.apache.jena.dboe.base.file.FileFactory;
 import org.apache.jena.dboe.base.file.FileSet;
 import org.apache.jena.dboe.base.record.RecordFactory;
 import org.apache.jena.dboe.base.recordbuffer.RecordBufferPage;
+import org.apache.jena.dboe.base.recordbuffer.RecordBufferPageCodec;
 import org.apache.jena.dboe.base.recordbuffer.RecordBufferPageMgr;
 import org.apache.jena.dboe.index.RangeIndex;
 import org.apache.jena.dboe.sys.Names;
@@ -90,6 +91,20 @@ public class BPlusTreeFactory {
 
     /** Create a B+Tree using defaults */
     public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, RecordFactory factory) {
+        return createBPTree(cid, fileset, factory, false);
+    }
+
+    /** Create a B+Tree using defaults, choosing whether the records blocks are stored compressed. */
+    public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, RecordFactory factory, boolean compressedLeaves) {
+        return createBPTree(cid, fileset, factory, compressedLeaves, BlockMgrFactory.ConcurrentCache);
+    }
+
+    /**
+     * Create a B+Tree using defaults, choosing whether the records blocks are stored
+     * compressed and whether the block caches let reads proceed without locking.
+     */
+    public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, RecordFactory factory,
+                                         boolean compressedLeaves, boolean concurrentCache) {
         int readCacheSize = SystemIndex.BlockReadCacheSize;
         int writeCacheSize = SystemIndex.BlockWriteCacheSize;
         int blockSize = SystemIndex.BlockSize;
@@ -99,7 +114,7 @@ public class BPlusTreeFactory {
             blockSize = SystemIndex.BlockSizeTest;
         }
 
-        return createBPTreeByBlockSize(cid, fileset, blockSize, readCacheSize, writeCacheSize, factory);
+        return createBPTree(cid, fileset, -1, blockSize, readCacheSize, writeCacheSize, factory, compressedLeaves, concurrentCache);
     }
 
     /** Create a B+Tree by BlockSize */
@@ -129,6 +144,29 @@ public class BPlusTreeFactory {
     public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, int order, int blockSize,
                                          int readCacheSize, int writeCacheSize,
                                          RecordFactory factory) {
+        return createBPTree(cid, fileset, order, blockSize, readCacheSize, writeCacheSize, factory, false);
+    }
+
+    /**
+     * Knowing all the parameters, create a B+Tree, choosing whether the records
+     * (leaf) blocks are stored compressed. This is fixed when the B+Tree is first
+     * created; the on-disk files are not compatible with the uncompressed form.
+     */
+    public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, int order, int blockSize,
+                                         int readCacheSize, int writeCacheSize,
+                                         RecordFactory factory, boolean compressedLeaves) {
+        return createBPTree(cid, fileset, order, blockSize, readCacheSize, writeCacheSize, factory, compressedLeaves,
+                            BlockMgrFactory.ConcurrentCache);
+    }
+
+    /**
+     * Knowing all the parameters, create a B+Tree, choosing whether the records
+     * blocks are stored compressed and whether the block caches of direct mode
+     * files are {@link org.apache.jena.dboe.base.block.BlockMgrCacheConcurrent}.
+     */
+    public static BPlusTree createBPTree(ComponentId cid, FileSet fileset, int order, int blockSize,
+                                         int readCacheSize, int writeCacheSize,
+                                         RecordFactory factory, boolean compressedLeaves, boolean concurrentCache) {
         // ---- Checking
         if (blockSize < 0 && order < 0) throw new IllegalArgumentException("Neither blocksize nor order specified");
         if (blockSize >= 0 && order < 0) order = BPlusTreeParams.calcOrder(blockSize, factory.recordLength());
@@ -146,8 +184,11 @@ public class BPlusTreeFactory {
 
         BPlusTreeParams params = new BPlusTreeParams(order, factory);
         BufferChannel bptState = FileFactory.createBufferChannel(fileset, Names.extBptState);
-        BlockMgr blkMgrNodes = BlockMgrFactory.create(fileset, Names.extBptTree, blockSize, readCacheSize, writeCacheSize);
-        BlockMgr blkMgrRecords = BlockMgrFactory.create(fileset, Names.extBptRecords, blockSize, readCacheSize, writeCacheSize);
+        BlockMgr blkMgrNodes = BlockMgrFactory.create(fileset, Names.extBptTree, null, blockSize, readCacheSize, writeCacheSize, concurrentCache);
+        BlockMgr blkMgrRecords = compressedLeaves
+            ? BlockMgrFactory.createCompressed(fileset, Names.extBptRecords, Names.extBptRecordsMap, new RecordBufferPageCodec(factory),
+                                               blockSize, readCacheSize, writeCacheSize, concurrentCache)
+            : BlockMgrFactory.create(fileset, Names.extBptRecords, null, blockSize, readCacheSize, writeCacheSize, concurrentCache);
         return BPlusTreeFactory.create(cid, params, bptState, blkMgrNodes, blkMgrRecords);
     }
 
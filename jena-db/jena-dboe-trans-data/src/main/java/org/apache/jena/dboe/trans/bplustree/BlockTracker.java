@@ -282,6 +282,11 @@ public class BlockTracker implements BlockMgr {
         return blockMgr.valid(id);
     }
 
+    @Override
+    public void prefetch(long id) {
+        blockMgr.prefetch(id);
+    }
+
     @Override
     public boolean isClosed() {
         return blockMgr.isClosed();
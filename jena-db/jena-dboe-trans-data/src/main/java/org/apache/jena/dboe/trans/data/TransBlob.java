@@ -23,8 +23,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.jena.atlas.RuntimeIOException;
 import org.apache.jena.atlas.lib.Bytes;
+import org.apache.jena.atlas.lib.Sync;
 import org.apache.jena.dboe.base.file.BufferChannel;
 import org.apache.jena.dboe.transaction.txn.ComponentId;
+import org.apache.jena.dboe.transaction.txn.GroupCommit;
 import org.apache.jena.dboe.transaction.txn.TransactionalComponentLifecycle;
 import org.apache.jena.dboe.transaction.txn.TxnId;
 import org.apache.jena.query.ReadWrite;
@@ -73,6 +75,9 @@ public class TransBlob extends TransactionalComponentLifecycle<TransBlob.BlobSta
         blobRef.set(blob);
     }
 
+    // Writes the current blob - for group commit.
+    private final Sync deferredWrite = this::write;
+
     private void write() {
         ByteBuffer blob = blobRef.get();
         blob.rewind();
@@ -188,7 +193,8 @@ public class TransBlob extends TransactionalComponentLifecycle<TransBlob.BlobSta
             return;
         // NB Change reference.
         blobRef.set(state.getByteBuffer());
-        write();
+        if ( ! GroupCommit.deferStateWrite(deferredWrite) )
+            write();
     }
 
     @Override
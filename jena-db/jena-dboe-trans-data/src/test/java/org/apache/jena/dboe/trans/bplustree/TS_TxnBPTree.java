@@ -29,7 +29,9 @@ import org.junit.runners.Suite;
     TestBPTreeRecordsNonTxn.class,
     TestBPlusTreeIndexNonTxn.class,
     TestBPlusTreeNonTxn.class,
+    TestBPlusTreeReadAhead.class,
     TestBPTreeModes.class,
+    TestBPlusTreePartition.class,
 
     // Transactional tests
     TestBPlusTreeTxn.class,
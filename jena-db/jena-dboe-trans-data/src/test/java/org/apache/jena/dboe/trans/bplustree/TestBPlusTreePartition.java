@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.trans.bplustree;
+
+import static org.apache.jena.dboe.index.test.IndexTestLib.add;
+import static org.apache.jena.dboe.test.RecordLib.r;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.dboe.base.record.Record;
+import org.apache.jena.dboe.test.RecordLib;
+import org.junit.Test;
+
+/** Splitting a range of a B+Tree into parts for parallel iteration. */
+public class TestBPlusTreePartition {
+
+    private static BPlusTree make(int N) {
+        BPlusTree bpt = BPlusTreeFactory.makeMem(3, 3, RecordLib.TestRecordLength, 0);
+        bpt.nonTransactional();
+        int[] keys = new int[N];
+        for ( int i = 0; i < N ; i++ )
+            keys[i] = i;
+        add(bpt, keys);
+        return bpt;
+    }
+
+    @Test public void partition_01() {
+        BPlusTree bpt = make(1000);
+        List<Record> keys = bpt.partitionKeys(null, null, 1);
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test public void partition_02() {
+        BPlusTree bpt = make(1000);
+        List<Record> keys = bpt.partitionKeys(null, null, 4);
+        assertTrue(keys.size() > 0);
+        assertTrue(keys.size() <= 3);
+        testPartitions(bpt, null, null, keys, 1000);
+    }
+
+    @Test public void partition_03() {
+        BPlusTree bpt = make(1000);
+        Record min = r(100);
+        Record max = r(900);
+        List<Record> keys = bpt.partitionKeys(min, max, 8);
+        assertTrue(keys.size() > 0);
+        assertTrue(keys.size() <= 7);
+        testPartitions(bpt, min, max, keys, 800);
+    }
+
+    @Test public void partition_04() {
+        // Small tree - root only.
+        BPlusTree bpt = make(2);
+        List<Record> keys = bpt.partitionKeys(null, null, 4);
+        testPartitions(bpt, null, null, keys, 2);
+    }
+
+    @Test public void partition_05() {
+        // Empty range
+        BPlusTree bpt = make(1000);
+        List<Record> keys = bpt.partitionKeys(r(500), r(500), 4);
+        assertTrue(keys.isEmpty());
+    }
+
+    // Check the keys are in order, in the range, and the parts cover the range exactly.
+    private static void testPartitions(BPlusTree bpt, Record min, Record max, List<Record> keys, int expected) {
+        Record lo = min;
+        for ( Record k : keys ) {
+            if ( lo != null )
+                assertTrue(Record.keyLT(lo, k));
+            lo = k;
+        }
+        if ( lo != null && max != null )
+            assertTrue(Record.keyLT(lo, max));
+
+        List<Integer> all = new ArrayList<>();
+        lo = min;
+        for ( Record k : keys ) {
+            all.addAll(RecordLib.toIntList(bpt.iterator(lo, k)));
+            lo = k;
+        }
+        all.addAll(RecordLib.toIntList(bpt.iterator(lo, max)));
+        assertEquals(expected, all.size());
+        List<Integer> x = RecordLib.toIntList(bpt.iterator(min, max));
+        assertEquals(x, all);
+    }
+}
@@ -25,8 +25,10 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.apache.jena.atlas.io.IO;
 import org.apache.jena.atlas.lib.FileOps;
 import org.apache.jena.atlas.lib.InternalErrorException;
+import org.apache.jena.atlas.lib.Sync;
 import org.apache.jena.atlas.logging.Log;
 import org.apache.jena.dboe.transaction.txn.ComponentId;
+import org.apache.jena.dboe.transaction.txn.GroupCommit;
 import org.apache.jena.dboe.transaction.txn.TransactionalComponentLifecycle;
 import org.apache.jena.dboe.transaction.txn.TxnId;
 import org.apache.jena.query.ReadWrite;
@@ -86,6 +88,8 @@ public class TransInteger extends TransactionalComponentLifecycle<TransInteger.I
         }
     }
 
+    private final Sync deferredWrite = this::writeLocation;
+
     private void writeLocation() {
         writeLocation(value.get());
     }
@@ -218,6 +222,9 @@ public class TransInteger extends TransactionalComponentLifecycle<TransInteger.I
     protected void _commit(TxnId txnId, IntegerState state) {
         if ( isReadTxn() )
             return;
+        // Group commit: at the checkpoint, write the value set by commitEnd.
+        if ( GroupCommit.deferStateWrite(deferredWrite) )
+            return;
         writeLocation(state.txnValue);
     }
 
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.transaction.txn;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.apache.jena.atlas.lib.Sync;
+import org.apache.jena.dboe.transaction.txn.journal.Journal;
+
+/**
+ * Group commit for a {@link TransactionCoordinator}.
+ * <p>
+ * In group commit mode, a write transaction writes its journal entries but does not
+ * force the journal to disk at the commit point. The writer lock is released, so the
+ * next writer can start, and the committing thread then waits until the journal has
+ * been synced. One of the waiting threads syncs the journal for all the commits queued
+ * at that point: when the batch reaches {@code maxBatchSize}, when the oldest commit has
+ * waited {@code maxDelay}, or when there is no other writer that could join the batch.
+ * <p>
+ * Releasing the writer lock early means a commit is visible before it is durable:
+ * transactions that start after the commit step, including the next writer, see the
+ * changes while the journal sync for the batch is still pending, and if the system
+ * crashes before the sync, the commit is lost even though other transactions have seen it.
+ * {@link TransactionListener#notifyCommitFinish} is also called before the sync;
+ * {@link TransactionListener#notifyCommitDurable} is called after it.
+ * <p>
+ * Component data is still forced to disk during "prepare" so the journal entries
+ * never refer to data that is not on disk. Writing the persistent state of components
+ * (usually the commit step) is deferred: the journal holds the redo records for the
+ * commits since the last checkpoint and is replayed on recovery.
+ * A checkpoint writes the state and truncates the journal; it happens when the
+ * journal exceeds {@link #CheckpointJournalSize}, and when the coordinator blocks
+ * writers, enters exclusive mode or shuts down. A write abort does not checkpoint:
+ * it syncs the journal for the earlier commits and removes its own prepare entries.
+ */
+public final class GroupCommit {
+    /** Size of journal that triggers a checkpoint. */
+    public static final long CheckpointJournalSize = 1024*1024;
+
+    // The GroupCommit for a thread that is executing the commit step of a transaction.
+    private static final ThreadLocal<GroupCommit> deferring = new ThreadLocal<>();
+
+    /**
+     * Called by a component during the commit step to defer writing its persistent state.
+     * Returns true if the action has been recorded and will be called at the next checkpoint,
+     * false if the caller should perform the action now (not in group commit mode).
+     * The action is called once per checkpoint however many times it has been deferred.
+     */
+    public static boolean deferStateWrite(Sync action) {
+        GroupCommit groupCommit = deferring.get();
+        if ( groupCommit == null )
+            return false;
+        groupCommit.addPending(action);
+        return true;
+    }
+
+    private final Journal journal;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    // Is there another writer that could join a batch?
+    private final BooleanSupplier writerWaiting;
+
+    // Deferred state writes, in order of first registration.
+    private final Set<Sync> pendingStateWrites = new LinkedHashSet<>();
+
+    // Protected by synchronized(this)
+    private long commitSeq = 0;
+    private long durableSeq = 0;
+    private long checkpointSeq = 0;
+    private boolean flushing = false;
+    private long failedSeq = 0;
+    private Throwable failure = null;
+
+    // Metrics.
+    private final AtomicLong countCommits = new AtomicLong(0);
+    private final AtomicLong countBatches = new AtomicLong(0);
+    private final AtomicLong countCheckpoints = new AtomicLong(0);
+    private final AtomicLong maxBatch = new AtomicLong(0);
+    private final AtomicLong totalLatencyNanos = new AtomicLong(0);
+    private final AtomicLong maxLatencyNanos = new AtomicLong(0);
+
+    /*package*/ GroupCommit(Journal journal, int maxBatchSize, long maxDelayMillis, BooleanSupplier writerWaiting) {
+        if ( maxBatchSize < 1 )
+            throw new IllegalArgumentException("Group commit: maxBatchSize must be at least 1: "+maxBatchSize);
+        if ( maxDelayMillis < 0 )
+            throw new IllegalArgumentException("Group commit: maxDelay must not be negative: "+maxDelayMillis);
+        this.journal = journal;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.writerWaiting = writerWaiting;
+    }
+
+    public int getMaxBatchSize()            { return maxBatchSize; }
+
+    public long getMaxDelayMillis()         { return TimeUnit.NANOSECONDS.toMillis(maxDelayNanos); }
+
+    /** Run the commit step of a transaction, deferring state writes. */
+    /*package*/ void execDeferred(Runnable action) {
+        deferring.set(this);
+        try { action.run(); }
+        finally { deferring.remove(); }
+    }
+
+    private void addPending(Sync action) {
+        synchronized(pendingStateWrites) {
+            pendingStateWrites.add(action);
+        }
+    }
+
+    /** Record a commit; the commit point entry has been written to the journal but not synced.
+     * Return the sequence number to wait on.
+     */
+    /*package*/ synchronized long committed() {
+        long seq = ++commitSeq;
+        notifyAll();
+        return seq;
+    }
+
+    /** Wait until the journal has been synced for commit {@code seq}, possibly syncing it for a batch of commits. */
+    /*package*/ void awaitDurable(long seq, long startNanos) {
+        long deadline = startNanos + maxDelayNanos;
+        long target;
+        synchronized(this) {
+            for ( ;; ) {
+                checkFailure(seq);
+                if ( durableSeq >= seq ) {
+                    recordLatency(startNanos);
+                    return;
+                }
+                if ( ! flushing ) {
+                    long waitNanos = deadline - System.nanoTime();
+                    if ( commitSeq - durableSeq >= maxBatchSize || waitNanos <= 0 || ! writerWaiting.getAsBoolean() )
+                        break;
+                    waitNanos(waitNanos);
+                } else
+                    waitNanos(maxDelayNanos);
+            }
+            // This thread syncs the journal for the batch.
+            flushing = true;
+            target = commitSeq;
+        }
+        flush(target);
+        recordLatency(startNanos);
+    }
+
+    private void waitNanos(long nanos) {
+        try {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            wait(millis, (int)(nanos - TimeUnit.MILLISECONDS.toNanos(millis)));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException("Interrupted while waiting for group commit", ex);
+        }
+    }
+
+    private void flush(long target) {
+        Throwable th = null;
+        try {
+            journal.sync();
+        } catch (Throwable ex) {
+            th = ex;
+        }
+        synchronized(this) {
+            if ( th == null ) {
+                long batch = target - durableSeq;
+                durableSeq = target;
+                countBatches.incrementAndGet();
+                countCommits.addAndGet(batch);
+                maxBatch.accumulateAndGet(batch, Math::max);
+            } else {
+                failure = th;
+                failedSeq = target;
+            }
+            flushing = false;
+            notifyAll();
+        }
+        checkFailure(target);
+    }
+
+    private void checkFailure(long seq) {
+        if ( failure != null && seq <= failedSeq )
+            throw new TransactionException("Group commit: journal sync failed - transaction may not be durable", failure);
+    }
+
+    private void recordLatency(long startNanos) {
+        long x = System.nanoTime() - startNanos;
+        totalLatencyNanos.addAndGet(x);
+        maxLatencyNanos.accumulateAndGet(x, Math::max);
+    }
+
+    /** Sync the journal for all commits so far, without writing the state. */
+    /*package*/ void flushJournal() {
+        long target;
+        synchronized(this) {
+            while ( flushing )
+                waitNanos(maxDelayNanos);
+            if ( durableSeq >= commitSeq )
+                return;
+            flushing = true;
+            target = commitSeq;
+        }
+        flush(target);
+    }
+
+    /** Whether the journal has grown enough to checkpoint. Call while holding the writer lock. */
+    /*package*/ void checkpointIfNeeded() {
+        if ( journal.size() > CheckpointJournalSize )
+            checkpoint();
+    }
+
+    /**
+     * Make all commits durable, write the deferred component state and truncate the journal.
+     * The caller must ensure no writer is active, e.g. by holding the writer lock.
+     */
+    /*package*/ void checkpoint() {
+        synchronized(this) {
+            if ( checkpointSeq == commitSeq )
+                return;
+        }
+        flushJournal();
+        List<Sync> actions;
+        synchronized(pendingStateWrites) {
+            actions = new ArrayList<>(pendingStateWrites);
+            pendingStateWrites.clear();
+        }
+        // Not deferring on this thread.
+        actions.forEach(Sync::sync);
+        journal.reset();
+        synchronized(this) {
+            checkpointSeq = durableSeq;
+        }
+        countCheckpoints.incrementAndGet();
+    }
+
+    /** Number of commits made durable by group commit. */
+    public long getCommitCount()            { return countCommits.get(); }
+
+    /** Number of journal syncs for group commit. */
+    public long getBatchCount()             { return countBatches.get(); }
+
+    /** Number of checkpoints. */
+    public long getCheckpointCount()        { return countCheckpoints.get(); }
+
+    /** Largest number of commits made durable by one journal sync. */
+    public long getMaxBatch()               { return maxBatch.get(); }
+
+    /** Average number of commits made durable by one journal sync. */
+    public double getAverageBatchSize() {
+        long batches = countBatches.get();
+        return batches == 0 ? 0 : (double)countCommits.get() / batches;
+    }
+
+    /** Average time, in milliseconds, from the start of commit to the commit being durable. */
+    public double getAverageCommitLatencyMillis() {
+        long commits = countCommits.get();
+        return commits == 0 ? 0 : totalLatencyNanos.get() / (commits * 1_000_000.0);
+    }
+
+    /** Longest time, in milliseconds, from the start of commit to the commit being durable. */
+    public double getMaxCommitLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GroupCommit[batch=%d, delay=%dms]", maxBatchSize, getMaxDelayMillis());
+    }
+}
@@ -141,8 +141,15 @@ public abstract class StateMgrBase implements Sync, Closeable {
 
     /** The write process : serialize, write, sync,
      * After this, the bytes definitely are on disk, not in some OS cache
+     * <p>
+     * During the commit step in {@link GroupCommit group commit} mode, the write is
+     * deferred to the next checkpoint.
      */
     public void writeState() {
+        if ( GroupCommit.deferStateWrite(this) ) {
+            dirty = true;
+            return;
+        }
         bb.rewind();
         ByteBuffer bb1 = serialize(bb);
         if ( bb1 != null )
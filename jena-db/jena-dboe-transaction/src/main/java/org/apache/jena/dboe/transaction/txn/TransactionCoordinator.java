@@ -83,6 +83,9 @@ public class TransactionCoordinator {
     private TxnIdGenerator txnIdGenerator = TxnIdFactory.txnIdGenSimple;
 
     private QuorumGenerator quorumGenerator = null;
+
+    // Group commit - null for "sync on each commit".
+    private GroupCommit groupCommit = null;
     //private QuorumGenerator quorumGenerator = (m) -> components;
 
     // Semaphore to implement "Single Active Writer" - independent of readers
@@ -217,6 +220,38 @@ public class TransactionCoordinator {
         shutdownHooks.remove(hook);
     }
 
+    /**
+     * Set group commit mode: commits are made durable by syncing the journal for
+     * batches of up to {@code maxBatchSize} commits, waiting at most
+     * {@code maxDelayMillis} for other writers to join a batch.
+     * A {@code maxBatchSize} of zero turns group commit off.
+     * <p>
+     * Call before {@link #start}, or within {@link #modifyConfig}.
+     * @see GroupCommit
+     */
+    public void setGroupCommit(int maxBatchSize, long maxDelayMillis) {
+        checklAllowModification();
+        if ( groupCommit != null )
+            groupCommit.checkpoint();
+        if ( maxBatchSize <= 0 ) {
+            groupCommit = null;
+            return;
+        }
+        groupCommit = new GroupCommit(journal, maxBatchSize, maxDelayMillis,
+                                      ()-> writersWaiting.hasQueuedThreads() || writersWaiting.availablePermits() == 0);
+    }
+
+    /** The group commit controller, including its metrics, or null if not in group commit mode. */
+    public GroupCommit getGroupCommit() {
+        return groupCommit;
+    }
+
+    /** Write any deferred state and truncate the journal (group commit mode). */
+    private void checkpoint() {
+        if ( groupCommit != null )
+            groupCommit.checkpoint();
+    }
+
     public void setQuorumGenerator(QuorumGenerator qGen) {
         checklAllowModification();
         this.quorumGenerator = qGen;
@@ -312,6 +347,40 @@ public class TransactionCoordinator {
         });
     }
 
+    /**
+     * The state of a read transaction, for use on other threads while the
+     * transaction carries on in its own thread; see {@link #attachShared} and
+     * {@link #releaseShared}. Returns null if a component can not share
+     * a read transaction.
+     */
+    public TransactionCoordinatorState shareRead(Transaction txn) {
+        if ( txn.getTxnType() != TxnType.READ )
+            throw new TransactionException("Not a READ transaction");
+        TransactionCoordinatorState coordinatorState = new TransactionCoordinatorState(txn);
+        boolean[] shareable = { true };
+        components.forEach((id, c) -> {
+            SysTransState s = c.shareRead();
+            if ( s == null )
+                shareable[0] = false;
+            coordinatorState.componentStates.put(id, s);
+        } );
+        return shareable[0] ? coordinatorState : null;
+    }
+
+    /** Put the current thread into a read transaction from {@link #shareRead}. */
+    public void attachShared(TransactionCoordinatorState coordinatorState) {
+        coordinatorState.componentStates.forEach((id, obj) -> {
+            components.findComponent(id).attach(obj);
+        });
+    }
+
+    /** Take the current thread out of a read transaction from {@link #shareRead}. */
+    public void releaseShared(TransactionCoordinatorState coordinatorState) {
+        coordinatorState.componentStates.forEach((id, obj) -> {
+            components.findComponent(id).releaseShared();
+        });
+    }
+
     public void shutdown() {
         shutdown(false);
     }
@@ -321,6 +390,7 @@ public class TransactionCoordinator {
             return;
         if ( ! silent && countActive() > 0 )
             FmtLog.warn(SysErr, "Transactions active: W=%d, R=%d", countActiveWriter(), countActiveReaders());
+        checkpoint();
         components.forEach((id, c) -> c.shutdown());
         shutdownHooks.forEach((h)-> h.shutdown());
         coordinatorLock = null;
@@ -399,11 +469,16 @@ public class TransactionCoordinator {
     }
 
     private boolean startExclusiveMode(boolean canBlock) {
-        if ( canBlock ) {
+        if ( canBlock )
             exclusivitylock.writeLock().lock();
-            return true;
+        else if ( ! exclusivitylock.writeLock().tryLock() )
+            return false;
+        try { checkpoint(); }
+        catch (Throwable th) {
+            exclusivitylock.writeLock().unlock();
+            throw th;
         }
-        return exclusivitylock.writeLock().tryLock();
+        return true;
     }
 
     /** Return to normal (release waiting transactions, allow new transactions).
@@ -441,7 +516,7 @@ public class TransactionCoordinator {
      * @see #enableWriters()
      */
     public void blockWriters() {
-        acquireWriterLock(true);
+        tryBlockWriters(true);
     }
 
     /** Try to block all writers, or return if can't at the moment.
@@ -469,7 +544,15 @@ public class TransactionCoordinator {
      * @return true if the operation succeeded and writers are blocked
      */
     public boolean tryBlockWriters(boolean canBlock) {
-        return acquireWriterLock(canBlock);
+        boolean b = acquireWriterLock(canBlock);
+        if ( b ) {
+            try { checkpoint(); }
+            catch (Throwable th) {
+                releaseWriterLock();
+                throw th;
+            }
+        }
+        return b;
     }
     /** Allow writers.
      * This must be used in conjunction with {@link #blockWriters()} or {@link #tryBlockWriters()}
@@ -705,7 +788,9 @@ public class TransactionCoordinator {
     /** Signal that the transaction has finished. */
     /*package*/ void completed(Transaction transaction) {
         finishActiveTransaction(transaction);
-        journal.reset();
+        // In group commit mode, the journal is truncated at a checkpoint.
+        if ( groupCommit == null )
+            journal.reset();
         notifyEnd(transaction);
     }
 
@@ -714,6 +799,12 @@ public class TransactionCoordinator {
     /*package*/ void executePrepare(Transaction transaction) {
         // Do here because it needs access to the journal.
         notifyPrepareStart(transaction);
+        if ( groupCommit != null ) {
+            // The writer lock is held so no other writer is using the journal.
+            groupCommit.checkpointIfNeeded();
+            // The journal is not truncated on commit; record where this transaction starts.
+            journal.startWrite();
+        }
         transaction.getComponents().forEach(sysTrans -> {
             ByteBuffer data = sysTrans.commitPrepare();
             if ( data != null ) {
@@ -729,21 +820,40 @@ public class TransactionCoordinator {
         if ( transaction.getMode() == ReadWrite.READ ) {
             finish.run();
             notifyCommitFinish(transaction);
+            notifyCommitDurable(transaction);
             return;
         }
-        journal.startWrite();
+        long startNanos = System.nanoTime();
+        // Only read once - a change of mode is done in exclusive mode.
+        GroupCommit group = groupCommit;
+        if ( group == null )
+            journal.startWrite();
+        long seq = -1;
         try {
-            executeCommitWriter(transaction, commit, finish, sysabort);
-            journal.commitWrite();
+            seq = executeCommitWriter(transaction, commit, finish, sysabort, group);
+            journal.commitWrite(group == null);
         } catch (TransactionException ex) {
             throw ex;
         } catch (Throwable th) {
             throw th;
         } finally { journal.endWrite(); }
         notifyCommitFinish(transaction);
+        // Writer lock released. Wait for the journal sync, and possibly do it for a batch of commits.
+        if ( group != null ) {
+            try {
+                group.awaitDurable(seq, startNanos);
+            } catch (TransactionException ex) {
+                // The components have committed but the journal sync failed:
+                // the commit may be lost. Let the transaction finish normally.
+                transaction.setState(TxnState.COMMITTED);
+                throw ex;
+            }
+        }
+        notifyCommitDurable(transaction);
     }
 
-    private void executeCommitWriter(Transaction transaction, Runnable commit, Runnable finish, Runnable sysabort) {
+    // Returns the group commit sequence number, or -1 if not in group commit mode.
+    private long executeCommitWriter(Transaction transaction, Runnable commit, Runnable finish, Runnable sysabort, GroupCommit group) {
         synchronized(coordinatorLock) {
             try {
                 // Simulate a Thread.interrupt during I/O.
@@ -752,7 +862,9 @@ public class TransactionCoordinator {
 
                 // *** COMMIT POINT
                 journal.writeJournal(JournalEntry.COMMIT);
-                journal.sync();
+                // In group commit mode, the commit is durable when the journal is synced for the batch.
+                if ( group == null )
+                    journal.sync();
                 // *** COMMIT POINT
             }
             // catch (ClosedByInterruptException ex) {}
@@ -793,12 +905,21 @@ public class TransactionCoordinator {
             }
 
             // Now run the Transactions commit actions.
-            commit.run();
-            journal.truncate(0);
+            long seq = -1;
+            if ( group == null ) {
+                commit.run();
+                journal.truncate(0);
+            } else {
+                // Writing component state is deferred until the next checkpoint;
+                // the journal is the record of the commit.
+                group.execDeferred(commit);
+                seq = group.committed();
+            }
             // and tell the Transaction it's finished.
             finish.run();
             // Bump global serialization point
             advanceDataVersion();
+            return seq;
         }
     }
 
@@ -823,7 +944,7 @@ public class TransactionCoordinator {
      */
     private boolean abandonTxn(Transaction txn, Runnable sysabort ) {
         try {
-            journal.abortWrite();
+            journal.abortWrite(groupCommit != null);
             rollback(txn, sysabort);
             return true;
         } catch (Throwable th) {
@@ -849,6 +970,13 @@ public class TransactionCoordinator {
 
     /*package*/ void executeAbort(Transaction transaction, Runnable abort) {
         notifyAbortStart(transaction);
+        if ( groupCommit != null && transaction.getMode() == ReadWrite.WRITE ) {
+            // Aborting writes component state: make earlier commits durable first,
+            // then remove any journal entries from this transaction's prepare.
+            groupCommit.flushJournal();
+            journal.abortWrite(true);
+            journal.endWrite();
+        }
         abort.run();
         notifyAbortFinish(transaction);
     }
@@ -937,6 +1065,10 @@ public class TransactionCoordinator {
             releaseWriterLock();
     }
 
+    private void notifyCommitDurable(Transaction transaction) {
+        listeners(x->x.notifyCommitDurable(transaction));
+    }
+
     private void notifyAbortStart(Transaction transaction) { 
         listeners(x->x.notifyAbortStart(transaction));
     }
@@ -38,6 +38,14 @@ public interface TransactionListener {
     public default void notifyCommitStart(Transaction transaction) { }
     /** Finish a commit (prepare has been done) */
     public default void notifyCommitFinish(Transaction transaction) { }
+    /**
+     * The commit is durable. Listeners with persistent side effects act here, not in
+     * {@link #notifyCommitFinish}. In group commit mode, this is called after the
+     * journal has been synced, which is after the writer lock has been released and
+     * can be after later transactions have started and committed. It is not called if
+     * the journal sync fails. Commits become durable in commit order.
+     */
+    public default void notifyCommitDurable(Transaction transaction) { }
 
     /** Start an abort */
     public default void notifyAbortStart(Transaction transaction) { }
@@ -25,13 +25,14 @@ import org.apache.jena.atlas.logging.Log;
 import org.apache.jena.dboe.transaction.Transactional;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.core.TransactionalSharedRead;
 
 /**
  * Framework for implementing a {@link Transactional} via {@link TransactionalSystem}.
  * This base class provides the "per thread" aspect - the {@link TransactionCoordinator} itself
  * is not thread aware.
  */
-public class TransactionalBase implements TransactionalSystem {
+public class TransactionalBase implements TransactionalSystem, TransactionalSharedRead {
     // Optional labelling - development/debugging aid.
     private final String label;
     protected boolean isShutdown = false;
@@ -97,6 +98,30 @@ public class TransactionalBase implements TransactionalSystem {
             Log.info(this,  "<< attach");
     }
 
+    @Override
+    public ReadView shareRead() {
+        checkRunning();
+        Transaction txn = theTxn.get();
+        if ( txn == null || txn.getTxnType() != TxnType.READ )
+            return null;
+        TransactionCoordinatorState coordinatorState = txnMgr.shareRead(txn);
+        if ( coordinatorState == null )
+            return null;
+        return action -> {
+            checkRunning();
+            if ( isInTransaction() )
+                throw new TransactionException("Already in a transaction");
+            txnMgr.attachShared(coordinatorState);
+            theTxn.set(txn);
+            try {
+                action.run();
+            } finally {
+                theTxn.remove();
+                txnMgr.releaseShared(coordinatorState);
+            }
+        };
+    }
+
     @Override
     public final void begin(ReadWrite readWrite) {
         begin(TxnType.convert(readWrite));
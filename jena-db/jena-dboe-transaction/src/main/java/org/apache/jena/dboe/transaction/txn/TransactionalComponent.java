@@ -172,6 +172,25 @@ public interface TransactionalComponent
      */
     public void attach(SysTransState systemState);
 
+    /**
+     * Return the state of the read transaction of the current thread, for use in
+     * {@link #attach(SysTransState)} on other threads while the transaction carries
+     * on in this thread. Each other thread calls {@link #releaseShared()} when it has
+     * finished.
+     * <p>
+     * Returns {@code null} if the component can not share a read transaction between
+     * threads.
+     */
+    public default SysTransState shareRead() {
+        return null;
+    }
+
+    /**
+     * Remove the transaction set by {@link #attach(SysTransState)}, with the state from
+     * {@link #shareRead()}, from the current thread. The transaction is not ended.
+     */
+    public default void releaseShared() {}
+
     /** Shutdown component, aborting any in-progress transactions.
      * This operation is not guaranteed to be called.
      */
@@ -195,6 +195,18 @@ public abstract class TransactionalComponentLifecycle<X> implements Transactiona
         setTrackTxn(ACTIVE);
     }
 
+    // The state of a read transaction is not changed by the transaction, so it
+    // can be used by several threads.
+    @Override
+    public SysTransState shareRead() {
+        return new SysTransState(this, getTransaction(), getDataState());
+    }
+
+    @Override
+    public void releaseShared() {
+        releaseThreadState();
+    }
+
     // -- Access object members.
 
     public static class ComponentState<X> {
@@ -97,6 +97,16 @@ public class TransactionalComponentWrapper implements TransactionalComponent {
         other.attach(systemState);
     }
 
+    @Override
+    public SysTransState shareRead() {
+        return other.shareRead();
+    }
+
+    @Override
+    public void releaseShared() {
+        other.releaseShared();
+    }
+
     @Override
     public void shutdown() {
         other.shutdown();
@@ -222,7 +222,8 @@ class Journal implements Sync, Closeable
             buffer.position(bufferPosition);
             buffer.limit(bufferLimit);
         }
-        position += HeaderLen + len;
+        // len is -1 for no buffer.
+        position += HeaderLen + Math.max(len, 0);
         if ( LOGGING )
             log("write@%-3d << %s", position, componentId.label());
 
@@ -261,14 +262,30 @@ class Journal implements Sync, Closeable
     public long writeStartPosn() { return journalWriteStart; }
 
     public void commitWrite() {
+        commitWrite(true);
+    }
+
+    /** End the write cycle for a commit. If {@code syncNow} is false, the caller is
+     * responsible for syncing the journal before the commit is durable (group commit).
+     */
+    public void commitWrite(boolean syncNow) {
         journalWriteStart = -1;
         journalWriteEnded = true;
-        channel.sync();
+        if ( syncNow )
+            channel.sync();
     }
 
     // Idempotent. Safe to call multiple times and after commit (when it has no effect).
     public void abortWrite() {
-        if ( !journalWriteEnded && journalWriteStart > 0 ) {
+        abortWrite(false);
+    }
+
+    /** As {@link #abortWrite()}. With group commit, the journal is not truncated on commit
+     * and later commits are appended after an aborted write, so the entries of the write
+     * are removed even when it starts at the beginning of the journal.
+     */
+    public void abortWrite(boolean groupCommit) {
+        if ( !journalWriteEnded && ( journalWriteStart > 0 || ( groupCommit && journalWriteStart == 0 ) ) ) {
             truncate(journalWriteStart);
             sync();
         }
@@ -390,7 +407,12 @@ class Journal implements Sync, Closeable
 
     public boolean isEmpty()  { return channel.size() == 0; }
 
-    public void truncate(long size) { channel.truncate(size); }
+    public void truncate(long size) {
+        channel.truncate(size);
+        // Keep the write position, used to start a write cycle, in step.
+        if ( position > size )
+            position = size;
+    }
 
     public void reset() {
         truncate(0);
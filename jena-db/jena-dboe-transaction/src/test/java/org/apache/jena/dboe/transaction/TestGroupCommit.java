@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.dboe.transaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.dboe.base.file.BufferChannel;
+import org.apache.jena.dboe.base.file.BufferChannelMem;
+import org.apache.jena.dboe.base.file.FileException;
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.dboe.transaction.txn.ComponentId;
+import org.apache.jena.dboe.transaction.txn.GroupCommit;
+import org.apache.jena.dboe.transaction.txn.Transaction;
+import org.apache.jena.dboe.transaction.txn.TransactionCoordinator;
+import org.apache.jena.dboe.transaction.txn.TransactionException;
+import org.apache.jena.dboe.transaction.txn.TransactionListener;
+import org.apache.jena.dboe.transaction.txn.TransactionalBase;
+import org.apache.jena.dboe.transaction.txn.journal.Journal;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.system.Txn;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestGroupCommit extends Assert {
+    private final long InitValue = 7;
+    private TransactionCoordinator coord;
+    private TransactionalInteger integer;
+    private List<File> files = new ArrayList<>();
+
+    @Before public void setup() {
+        coord = new TransactionCoordinator(Location.mem());
+        integer = new TransactionalInteger(coord, InitValue);
+        coord.setGroupCommit(10, 5);
+        coord.start();
+    }
+
+    @After public void clearup() {
+        integer.shutdown();
+        files.forEach(File::delete);
+    }
+
+    private String tmpFile() {
+        try {
+            File f = File.createTempFile("groupCommit", ".int");
+            f.delete();
+            files.add(f);
+            return f.getPath();
+        } catch (IOException ex) { throw new RuntimeException(ex); }
+    }
+
+    @Test public void groupCommit_01() {
+        GroupCommit gc = coord.getGroupCommit();
+        assertNotNull(gc);
+        for ( int i = 0; i < 5 ; i++ )
+            Txn.executeWrite(integer, integer::inc);
+        assertEquals(InitValue+5, integer.value());
+        assertEquals(InitValue+5, (long)Txn.calculateRead(integer, integer::get));
+        // One writer : nothing else to wait for.
+        assertEquals(5, gc.getCommitCount());
+        assertEquals(5, gc.getBatchCount());
+    }
+
+    @Test public void groupCommit_02() throws InterruptedException {
+        int N = 4;
+        int M = 50;
+        List<Thread> threads = new ArrayList<>();
+        for ( int i = 0; i < N ; i++ ) {
+            Thread t = new Thread(()->{
+                for ( int j = 0; j < M ; j++ )
+                    Txn.executeWrite(integer, integer::inc);
+            });
+            threads.add(t);
+        }
+        threads.forEach(Thread::start);
+        for ( Thread t : threads )
+            t.join();
+        GroupCommit gc = coord.getGroupCommit();
+        assertEquals(InitValue+N*M, integer.value());
+        assertEquals(N*M, gc.getCommitCount());
+        assertTrue(gc.getBatchCount() <= gc.getCommitCount());
+        assertTrue(gc.getMaxBatch() <= gc.getMaxBatchSize());
+        assertTrue(gc.getAverageBatchSize() >= 1.0);
+    }
+
+    @Test public void groupCommit_03() {
+        Txn.executeWrite(integer, integer::inc);
+        integer.begin(TxnType.WRITE);
+        integer.inc();
+        integer.abort();
+        integer.end();
+        assertEquals(InitValue+1, integer.value());
+        Txn.executeWrite(integer, integer::inc);
+        assertEquals(InitValue+2, integer.value());
+    }
+
+    @Test public void groupCommit_04() {
+        // Group commit off.
+        coord.modifyConfig(()->coord.setGroupCommit(0, 0));
+        assertNull(coord.getGroupCommit());
+        Txn.executeWrite(integer, integer::inc);
+        assertEquals(InitValue+1, integer.value());
+    }
+
+    // Persistent state is not written until a checkpoint; the journal is replayed on recovery.
+    @Test public void groupCommit_recovery_01() {
+        String fn = tmpFile();
+        ComponentId cid = ComponentId.allocLocal();
+        Journal journal = Journal.create(Location.mem());
+
+        TransactionCoordinator coord1 = new TransactionCoordinator(journal);
+        TransInteger integer1 = new TransInteger(fn, cid);
+        coord1.add(integer1);
+        coord1.setGroupCommit(10, 5);
+        coord1.start();
+        TransactionalBase txnl1 = new TransactionalBase(coord1);
+        Txn.executeWrite(txnl1, ()->integer1.set(10));
+        Txn.executeWrite(txnl1, ()->integer1.set(20));
+        // Not checkpointed.
+        assertEquals(0L, new TransInteger(fn, ComponentId.allocLocal()).value());
+
+        // "Crash" and restart.
+        TransactionCoordinator coord2 = new TransactionCoordinator(journal);
+        TransInteger integer2 = new TransInteger(fn, cid);
+        coord2.add(integer2);
+        coord2.start();
+        assertEquals(20L, integer2.value());
+        assertEquals(20L, new TransInteger(fn, ComponentId.allocLocal()).value());
+        coord2.shutdown();
+    }
+
+    @Test public void groupCommit_checkpoint_01() {
+        String fn = tmpFile();
+        ComponentId cid = ComponentId.allocLocal();
+        Journal journal = Journal.create(Location.mem());
+        TransactionCoordinator coord1 = new TransactionCoordinator(journal);
+        TransInteger integer1 = new TransInteger(fn, cid);
+        coord1.add(integer1);
+        coord1.setGroupCommit(10, 5);
+        coord1.start();
+        TransactionalBase txnl1 = new TransactionalBase(coord1);
+        Txn.executeWrite(txnl1, ()->integer1.set(30));
+        assertFalse(journal.isEmpty());
+        coord1.execAsWriter(()->{});
+        assertTrue(journal.isEmpty());
+        assertEquals(1, coord1.getGroupCommit().getCheckpointCount());
+        assertEquals(30L, new TransInteger(fn, ComponentId.allocLocal()).value());
+        coord1.shutdown();
+    }
+
+    // Listeners are told the commit is durable after the journal sync.
+    @Test public void groupCommit_listener_01() {
+        List<String> events = new ArrayList<>();
+        coord.modifyConfig(()->coord.addListener(new TransactionListener() {
+            @Override public void notifyCommitFinish(Transaction transaction) {
+                if ( transaction.isWriteTxn() )
+                    events.add("finish");
+            }
+            @Override public void notifyCommitDurable(Transaction transaction) {
+                if ( transaction.isWriteTxn() )
+                    events.add("durable");
+            }
+        }));
+        Txn.executeWrite(integer, integer::inc);
+        Txn.executeWrite(integer, integer::inc);
+        assertEquals(Arrays.asList("finish", "durable", "finish", "durable"), events);
+    }
+
+    // Crash after the commit point, before the journal sync.
+    @Test public void groupCommit_crash_01() {
+        String fn = tmpFile();
+        ComponentId cid = ComponentId.allocLocal();
+        CrashChannel chan = new CrashChannel(BufferChannelMem.create("journal"));
+
+        TransactionCoordinator coord1 = new TransactionCoordinator(Journal.create(chan));
+        TransInteger integer1 = new TransInteger(fn, cid);
+        coord1.add(integer1);
+        List<Long> durable = new ArrayList<>();
+        coord1.addListener(new TransactionListener() {
+            @Override public void notifyCommitDurable(Transaction transaction) {
+                if ( transaction.isWriteTxn() )
+                    durable.add(integer1.value());
+            }
+        });
+        coord1.setGroupCommit(10, 5);
+        coord1.start();
+        TransactionalBase txnl1 = new TransactionalBase(coord1);
+        Txn.executeWrite(txnl1, ()->integer1.set(10));
+        assertEquals(Arrays.asList(10L), durable);
+
+        chan.failSync = true;
+        txnl1.begin(TxnType.WRITE);
+        integer1.set(20);
+        try {
+            txnl1.commit();
+            fail("Expected the commit to fail");
+        } catch (TransactionException ex) {}
+        // The commit is not durable: no durable side effects.
+        assertEquals(Arrays.asList(10L), durable);
+
+        // "Crash": unsynced journal writes are lost. Restart.
+        chan.crash();
+        TransactionCoordinator coord2 = new TransactionCoordinator(Journal.create(chan));
+        TransInteger integer2 = new TransInteger(fn, cid);
+        coord2.add(integer2);
+        coord2.start();
+        assertEquals(10L, integer2.value());
+        coord2.shutdown();
+    }
+
+    /** A journal channel that can fail sync and lose the writes since the last sync. */
+    private static class CrashChannel implements BufferChannel {
+        private final BufferChannel chan;
+        private long syncedSize = 0;
+        boolean failSync = false;
+
+        CrashChannel(BufferChannel chan) { this.chan = chan; }
+
+        void crash() {
+            chan.truncate(syncedSize);
+            failSync = false;
+        }
+
+        @Override public void sync() {
+            if ( failSync )
+                throw new FileException("Simulated sync failure");
+            chan.sync();
+            syncedSize = chan.size();
+        }
+
+        @Override public BufferChannel duplicate()                  { return chan.duplicate(); }
+        @Override public long position()                            { return chan.position(); }
+        @Override public void position(long pos)                    { chan.position(pos); }
+        @Override public int read(ByteBuffer buffer)                { return chan.read(buffer); }
+        @Override public int read(ByteBuffer buffer, long loc)      { return chan.read(buffer, loc); }
+        @Override public int write(ByteBuffer buffer)               { return chan.write(buffer); }
+        @Override public int write(ByteBuffer buffer, long loc)     { return chan.write(buffer, loc); }
+        @Override public void truncate(long size)                   { chan.truncate(size); syncedSize = Math.min(syncedSize, size); }
+        @Override public long size()                                { return chan.size(); }
+        @Override public boolean isEmpty()                          { return chan.isEmpty(); }
+        @Override public String getLabel()                          { return chan.getLabel(); }
+        @Override public String getFilename()                       { return chan.getFilename(); }
+        @Override public void close()                               { chan.close(); }
+    }
+}
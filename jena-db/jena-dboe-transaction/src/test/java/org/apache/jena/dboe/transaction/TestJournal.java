@@ -128,6 +128,39 @@ public class TestJournal {
         check(e, e2);
     }
 
+    @Test public void journal_abort_01() {
+        // A write at the start of the journal is left on abort (without group commit).
+        Journal jrnl = Journal.create(Location.mem());
+        jrnl.startWrite();
+        jrnl.writeJournal(JournalEntry.COMMIT);
+        jrnl.abortWrite();
+        jrnl.endWrite();
+        assertFalse(jrnl.isEmpty());
+    }
+
+    @Test public void journal_abort_02() {
+        // With group commit, a write at the start of the journal is removed.
+        Journal jrnl = Journal.create(Location.mem());
+        jrnl.startWrite();
+        jrnl.writeJournal(JournalEntry.COMMIT);
+        jrnl.abortWrite(true);
+        jrnl.endWrite();
+        assertTrue(jrnl.isEmpty());
+    }
+
+    @Test public void journal_abort_03() {
+        // With group commit, only the aborted write is removed.
+        Journal jrnl = Journal.create(Location.mem());
+        jrnl.writeJournal(JournalEntry.COMMIT);
+        long posn = jrnl.position();
+        jrnl.startWrite();
+        jrnl.writeJournal(JournalEntry.ABORT);
+        jrnl.abortWrite(true);
+        jrnl.endWrite();
+        assertEquals(posn, jrnl.position());
+        check(Arrays.asList(JournalEntry.COMMIT), jrnl.entries(0));
+    }
+
     private void check(List<JournalEntry> expected, Iterator<JournalEntry> iter) {
         Iterator<JournalEntry> iter2 = expected.iterator();
         for(;;) {
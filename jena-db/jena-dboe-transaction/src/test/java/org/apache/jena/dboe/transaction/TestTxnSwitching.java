@@ -19,6 +19,10 @@
 package org.apache.jena.dboe.transaction;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.apache.jena.dboe.base.file.Location;
@@ -27,6 +31,7 @@ import org.apache.jena.dboe.transaction.txn.*;
 import org.apache.jena.dboe.transaction.txn.journal.Journal;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.core.TransactionalSharedRead.ReadView;
 import org.apache.jena.system.ThreadAction;
 import org.apache.jena.system.ThreadTxn;
 import org.junit.After;
@@ -189,5 +194,58 @@ public class TestTxnSwitching {
         TransactionCoordinatorState txnState2 = transactional.detach();
     }
 
-}
 
+    private static void onOtherThread(Runnable action) {
+        Thread thread = new Thread(action);
+        thread.start();
+        try { thread.join(); }
+        catch (InterruptedException ex) { throw new RuntimeException(ex); }
+    }
+
+    @Test public void txnShare_01() {
+        long z = integer.value();
+        transactional.begin(TxnType.READ);
+        ReadView readView = transactional.shareRead();
+        assertNotNull(readView);
+        // A commit after the read transaction started.
+        ThreadTxn.threadTxnWrite(transactional, ()->integer.inc()).run();
+        assertEquals(z+1, integer.value());
+
+        long[] seen = new long[2];
+        boolean[] inTxn = new boolean[2];
+        onOtherThread(()->{
+            readView.exec(()->{
+                inTxn[0] = transactional.isInTransaction();
+                seen[0] = integer.get();
+            });
+            inTxn[1] = transactional.isInTransaction();
+            seen[1] = Txn.calculateRead(transactional, ()->integer.get());
+        });
+        assertTrue(inTxn[0]);
+        assertEquals(z, seen[0]);
+        assertFalse(inTxn[1]);
+        assertEquals(z+1, seen[1]);
+        // Still in the transaction on this thread.
+        assertTrue(transactional.isInTransaction());
+        assertEquals(z, integer.get());
+        transactional.end();
+    }
+
+    @Test public void txnShare_02() {
+        transactional.begin(TxnType.WRITE);
+        assertNull(transactional.shareRead());
+        transactional.abort();
+        transactional.end();
+        assertNull(transactional.shareRead());
+    }
+
+    @Test(expected=TransactionException.class)
+    public void txnShare_03() {
+        transactional.begin(TxnType.READ);
+        ReadView readView = transactional.shareRead();
+        try {
+            // The calling thread is already in the transaction.
+            readView.exec(()->{});
+        } finally { transactional.end(); }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.jena.query.Dataset;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.tdb2.store.DatasetGraphSwitchable;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.sys.CompactionProgress;
 import org.apache.jena.tdb2.sys.DatabaseConnection;
 import org.apache.jena.tdb2.sys.DatabaseOps;
 import org.apache.jena.tdb2.sys.TDBInternal;
@@ -62,6 +63,34 @@ public class DatabaseMgr {
         DatabaseOps.compact(dsg);
     }
 
+    /**
+     * Compact a switchable TDB database while it remains available for reading and
+     * writing. Writers are only held up for the final step of switching over to the
+     * compacted database.
+     * <p>
+     * Loaders that write directly to the indexes (the parallel, phased and sequential
+     * loaders of {@link org.apache.jena.tdb2.loader.LoaderFactory}) are refused while
+     * the compaction runs because their changes can not be captured. The basic loader can be used.
+     *
+     * @param container
+     * @param progress Updated as the compaction proceeds.
+     */
+    public static void compactOnline(DatasetGraph container, CompactionProgress progress) {
+        DatasetGraphSwitchable dsg = requireSwitchable(container);
+        DatabaseOps.compactOnline(dsg, progress);
+    }
+
+    /**
+     * Compact a switchable TDB database while it remains available for reading and
+     * writing.
+     *
+     * @param container
+     * @see #compactOnline(DatasetGraph, CompactionProgress)
+     */
+    public static void compactOnline(DatasetGraph container) {
+        compactOnline(container, new CompactionProgress());
+    }
+
     /**
      * Create a backup for a switchable TDB database. This is the normal dataset type for
      * on-disk TDB2 databases.
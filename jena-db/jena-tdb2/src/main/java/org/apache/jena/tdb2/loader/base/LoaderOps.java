@@ -28,16 +28,22 @@ import org.apache.jena.atlas.logging.FmtLog;
 import org.apache.jena.dboe.base.file.BinaryDataFile;
 import org.apache.jena.dboe.index.Index;
 import org.apache.jena.dboe.index.RangeIndex;
+import org.apache.jena.dboe.storage.StorageRDF;
 import org.apache.jena.dboe.trans.bplustree.BPlusTree;
 import org.apache.jena.dboe.trans.data.TransBinaryDataFile;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFParser;
 import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.TermDictionary;
 import org.apache.jena.riot.system.StreamRDFWrapper;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.tdb2.TDB2;
+import org.apache.jena.tdb2.loader.BulkLoaderException;
+import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.StorageTDB;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.nodetable.NodeTableTRDF;
 import org.apache.jena.tdb2.store.tupletable.TupleIndex;
@@ -49,6 +55,17 @@ import org.slf4j.Logger;
  * considered to be in the public API.
  */
 public class LoaderOps {
+    /**
+     * Check that changes to the database are not being monitored, as they are
+     * during online compaction. Bulk loaders that write directly to the indexes
+     * and node table bypass the monitor.
+     */
+    public static void checkNotMonitored(DatasetGraphTDB dsgtdb) {
+        StorageRDF storage = dsgtdb.getData();
+        if ( storage instanceof StorageTDB && ((StorageTDB)storage).getMonitor() != null )
+            throw new BulkLoaderException("Changes to the database are being monitored (for example, by online compaction): use the basic loader");
+    }
+
     /** Get the node storage for a {@Link NodeTable} */
     public static TransBinaryDataFile ntDataFile(NodeTable nt) {
         NodeTableTRDF ntt = (NodeTableTRDF)(nt.baseNodeTable());
@@ -100,12 +117,23 @@ public class LoaderOps {
      * "no output".
      */
     public static void inputFile(StreamRDF sink, String source, ProgressMonitor monitor) {
+        inputFile(sink, source, monitor, null);
+    }
+
+    /**
+     * Parse one file, with an optional progress monitor and an optional
+     * {@link TermDictionary} for the parser to create terms with.
+     */
+    public static void inputFile(StreamRDF sink, String source, ProgressMonitor monitor, TermDictionary<?> termDictionary) {
         if ( monitor != null ) {
             sink = new ProgressStreamRDF(sink, monitor);
             //monitor.start();
         }
         sink.start();
-        RDFDataMgr.parse(sink, source);
+        if ( termDictionary == null )
+            RDFDataMgr.parse(sink, source);
+        else
+            RDFParser.source(source).termDictionary(termDictionary).parse(sink);
         sink.finish();
         if ( monitor != null ) {
             //monitor.finish();
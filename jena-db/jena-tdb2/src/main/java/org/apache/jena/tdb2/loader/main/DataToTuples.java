@@ -36,6 +36,7 @@ import org.apache.jena.dboe.transaction.txn.TransactionCoordinator;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.query.TxnType;
+import org.apache.jena.riot.system.TermDictionary;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.tdb2.loader.BulkLoaderException;
 import org.apache.jena.tdb2.loader.base.BulkStartFinish;
@@ -55,6 +56,10 @@ import org.apache.jena.tdb2.store.nodetable.NodeTable;
  * Data is deliver into the process by calling the provided functions for {@code Destination<Tuple<NodeId>}.
  * <p>
  * Assumes triples and quads share a node table.
+ * <p>
+ * If given a {@link TermDictionary}, shared with the parser, the {@code NodeId} for each
+ * term is recorded in the dictionary and later occurrences of the term do not go to
+ * the node table.
  */
 
 public class DataToTuples implements BulkStartFinish {
@@ -65,6 +70,7 @@ public class DataToTuples implements BulkStartFinish {
     private final Destination<Tuple<NodeId>> dest4;
     private final DatasetGraphTDB dsgtdb;
     private final NodeTable nodeTable;
+    private final TermDictionary<NodeId> termDictionary;
 
     // Chunk accumulators.
     private List<Tuple<NodeId>> quads = null;
@@ -78,7 +84,16 @@ public class DataToTuples implements BulkStartFinish {
                         Destination<Tuple<NodeId>> tuples3,
                         Destination<Tuple<NodeId>> tuples4,
                         MonitorOutput output) {
+        this(dsgtdb, tuples3, tuples4, null, output);
+    }
+
+    public DataToTuples(DatasetGraphTDB dsgtdb,
+                        Destination<Tuple<NodeId>> tuples3,
+                        Destination<Tuple<NodeId>> tuples4,
+                        TermDictionary<NodeId> termDictionary,
+                        MonitorOutput output) {
         this.dsgtdb = dsgtdb;
+        this.termDictionary = termDictionary;
         this.dest3 = tuples3;
         this.dest4 = tuples4;
         this.input = new ArrayBlockingQueue<>(LoaderConst.QueueSizeData);
@@ -173,11 +188,11 @@ public class DataToTuples implements BulkStartFinish {
         dest4.deliver(chunk);
     }
 
-    private static void accTuples(Triple triple, NodeTable nodeTable, List<Tuple<NodeId>> acc) {
+    private void accTuples(Triple triple, NodeTable nodeTable, List<Tuple<NodeId>> acc) {
         acc.add(nodes(nodeTable, triple));
     }
 
-    private static void accTuples(Quad quad, NodeTable nodeTable, List<Tuple<NodeId>> acc) {
+    private void accTuples(Quad quad, NodeTable nodeTable, List<Tuple<NodeId>> acc) {
         acc.add(nodes(nodeTable, quad));
     }
 
@@ -190,7 +205,7 @@ public class DataToTuples implements BulkStartFinish {
         return new ArrayList<>(LoaderConst.ChunkSize);
     }
 
-    private static Tuple<NodeId> nodes(NodeTable nt, Triple triple) {
+    private Tuple<NodeId> nodes(NodeTable nt, Triple triple) {
         NodeId s = idForNode(nt, triple.getSubject());
         NodeId p = idForNode(nt, triple.getPredicate());
         NodeId o = idForNode(nt, triple.getObject());
@@ -207,7 +222,7 @@ public class DataToTuples implements BulkStartFinish {
         };
     }
 
-    private static Tuple<NodeId> nodes(NodeTable nt, Quad quad) {
+    private Tuple<NodeId> nodes(NodeTable nt, Quad quad) {
         NodeId g = idForNode(nt, quad.getGraph());
         NodeId s = idForNode(nt, quad.getSubject());
         NodeId p = idForNode(nt, quad.getPredicate());
@@ -215,8 +230,15 @@ public class DataToTuples implements BulkStartFinish {
         return TupleFactory.tuple(g,s,p,o);
     }
 
-    private static final NodeId idForNode(NodeTable nodeTable, Node node) {
-        return nodeTable.getAllocateNodeId(node);
+    private final NodeId idForNode(NodeTable nodeTable, Node node) {
+        if ( termDictionary == null )
+            return nodeTable.getAllocateNodeId(node);
+        NodeId nodeId = termDictionary.getValue(node);
+        if ( nodeId != null )
+            return nodeId;
+        nodeId = nodeTable.getAllocateNodeId(node);
+        termDictionary.setValue(node, nodeId);
+        return nodeId;
     }
 
 }
@@ -29,6 +29,9 @@ public class LoaderConst {
     /** Chunk size for the triple->tuples output pipe */
     public static final int ChunkSize = 100_000;
 
+    /** Maximum number of terms in the dictionary shared by the parser and the node table step */
+    public static final int TermDictionarySize = 500_000;
+
     /** Queue size for chunks of tuples Tuples */
     public static final int QueueSizeTuples = 10;
 
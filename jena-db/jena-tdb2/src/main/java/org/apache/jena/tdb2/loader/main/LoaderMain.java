@@ -30,7 +30,10 @@ import org.apache.jena.graph.Node;
 import org.apache.jena.query.TxnType;
 import org.apache.jena.riot.lang.StreamRDFCounting;
 import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.TermDictionary;
+import org.apache.jena.riot.system.TermDictionaryStd;
 import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.tdb2.loader.BulkLoaderException;
 import org.apache.jena.tdb2.loader.DataLoader;
 import org.apache.jena.tdb2.loader.base.*;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
@@ -104,6 +107,8 @@ public class LoaderMain extends LoaderBase implements DataLoader {
     private final Map<String, TupleIndex> indexMap;
 
     private final StreamRDFCounting dataInput;
+    // Terms and their NodeIds, shared by the parser and the node table step. Null if not used.
+    private final TermDictionary<NodeId> termDictionary;
     private final List<BulkStartFinish> dataProcess = new ArrayList<>();
 
     public LoaderMain(LoaderPlan loaderPlan, DatasetGraph dsg, MonitorOutput output) {
@@ -118,12 +123,15 @@ public class LoaderMain extends LoaderBase implements DataLoader {
         // Phase 1.
         switch ( loaderPlan.dataInputType() ) {
             case MULTI :
-                dataInput = executeData(loaderPlan, dsgtdb, indexMap, dataProcess, output);
+                termDictionary = new TermDictionaryStd<>(LoaderConst.TermDictionarySize);
+                dataInput = executeData(loaderPlan, dsgtdb, indexMap, dataProcess, termDictionary, output);
                 break;
             case PARSE_NODE :
+                termDictionary = null;
                 dataInput = executeDataParseId(loaderPlan, dsgtdb, indexMap, dataProcess, output);
                 break;
             case PARSE_NODE_INDEX :
+                termDictionary = null;
                 dataInput = executeDataOneThread(loaderPlan, dsgtdb, indexMap, dataProcess, output);
                 break;
             default :
@@ -138,7 +146,8 @@ public class LoaderMain extends LoaderBase implements DataLoader {
      * 
      * Used by {@link InputStage#MULTI}.
      */
-    private static StreamRDFCounting executeData(LoaderPlan loaderPlan, DatasetGraphTDB dsgtdb, Map<String, TupleIndex> indexMap, List<BulkStartFinish> dataProcess, MonitorOutput output) {
+    private static StreamRDFCounting executeData(LoaderPlan loaderPlan, DatasetGraphTDB dsgtdb, Map<String, TupleIndex> indexMap, List<BulkStartFinish> dataProcess,
+                                                 TermDictionary<NodeId> termDictionary, MonitorOutput output) {
         StoragePrefixesTDB dps = (StoragePrefixesTDB)dsgtdb.getPrefixes();
         PrefixHandlerBulk prefixHandler = new PrefixHandlerBulk(dps, output);
         dataProcess.add(prefixHandler);
@@ -156,7 +165,7 @@ public class LoaderMain extends LoaderBase implements DataLoader {
         // -- Phase 2 block.
 
         // -- Phase 1.
-        DataToTuples dtt = new DataToTuples(dsgtdb, functionIndexer3, functionIndexer4, output);
+        DataToTuples dtt = new DataToTuples(dsgtdb, functionIndexer3, functionIndexer4, termDictionary, output);
         DataBatcher dataBatcher = new DataBatcher(dtt.data(), prefixHandler.handler(), output);
         StreamRDF baseInput = dataBatcher;
 
@@ -225,6 +234,16 @@ public class LoaderMain extends LoaderBase implements DataLoader {
         return stream;
     }
 
+    @Override
+    protected void loadOne(String filename, ProgressMonitor monitor) {
+        if ( termDictionary == null ) {
+            super.loadOne(filename, monitor);
+            return;
+        }
+        monitor.setLabel(LoaderOps.label(filename));
+        LoaderOps.inputFile(stream(), filename, monitor, termDictionary);
+    }
+
     @Override
     public boolean bulkUseTransaction() {
         // Manipulate the transactions directly by component.
@@ -235,6 +254,12 @@ public class LoaderMain extends LoaderBase implements DataLoader {
     public void startBulk() {
         // Lock everyone else out while we multithread.
         dsgtdb.getTxnSystem().getTxnMgr().startExclusiveMode();
+        try {
+            LoaderOps.checkNotMonitored(dsgtdb);
+        } catch (BulkLoaderException ex) {
+            dsgtdb.getTxnSystem().getTxnMgr().finishExclusiveMode();
+            throw ex;
+        }
         super.startBulk();
         // Set the data pipeline
         BulkProcesses.start(dataProcess);
@@ -81,6 +81,13 @@ public class LoaderSequential extends LoaderBase {
         //Not in a transaction.
         //dsgtdb.getTxnSystem().getTxnMgr().startExclusiveMode();
         super.startBulk();
+        // Inside the write transaction, so monitoring can not start until loading finishes.
+        try {
+            LoaderOps.checkNotMonitored(dsgtdb);
+        } catch (BulkLoaderException ex) {
+            super.finishException(ex);
+            throw ex;
+        }
         triplesLoader.loadDataStart();
         quadsLoader.loadDataStart();
     }
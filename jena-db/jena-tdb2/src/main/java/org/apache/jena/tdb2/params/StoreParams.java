@@ -50,6 +50,11 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
     /*package*/ final Item<Integer>            Node2NodeIdCacheSize;
     /*package*/ final Item<Integer>            NodeId2NodeCacheSize;
     /*package*/ final Item<Integer>            NodeMissCacheSize;
+    /*package*/ final Item<Integer>            nodeCacheFileSize;
+    /*package*/ final Item<Boolean>            nodeCacheWarmup;
+    /*package*/ final Item<Integer>            nodeBloomFilterSize;
+    /*package*/ final Item<Integer>            indexReadAhead;
+    /*package*/ final Item<Boolean>            blockConcurrentCache;
 
     /* These are items affect database layout and
      * only can be applied when a database is created.
@@ -70,6 +75,9 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
     /*package*/ final Item<String>             primaryIndexPrefix;
     /*package*/ final Item<String[]>           prefixIndexes;
 
+    /*package*/ final Item<Boolean>            inlineShortStrings;
+    /*package*/ final Item<Boolean>            compressedLeaves;
+
     /** Build StoreParams, starting from system defaults.
      *
      * @return StoreParamsBuilder
@@ -86,13 +94,18 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
                             Item<Integer> blockReadCacheSize, Item<Integer> blockWriteCacheSize,
                             Item<Integer> node2NodeIdCacheSize, Item<Integer> nodeId2NodeCacheSize,
                             Item<Integer> nodeMissCacheSize,
+                            Item<Integer> nodeCacheFileSize, Item<Boolean> nodeCacheWarmup,
+                            Item<Integer> nodeBloomFilterSize,
+                            Item<Integer> indexReadAhead,
+                            Item<Boolean> blockConcurrentCache,
 
                             Item<String> nodeTableBaseName,
                             Item<String> primaryIndexTriples, Item<String[]> tripleIndexes,
                             Item<String> primaryIndexQuads, Item<String[]> quadIndexes,
 
                             Item<String> prefixTableBasename,
-                            Item<String> primaryIndexPrefix, Item<String[]> prefixIndexes) {
+                            Item<String> primaryIndexPrefix, Item<String[]> prefixIndexes,
+                            Item<Boolean> inlineShortStrings, Item<Boolean> compressedLeaves) {
         this.fileMode               = fileMode;
         this.blockSize              = blockSize;
         this.blockReadCacheSize     = blockReadCacheSize;
@@ -100,6 +113,11 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         this.Node2NodeIdCacheSize   = node2NodeIdCacheSize;
         this.NodeId2NodeCacheSize   = nodeId2NodeCacheSize;
         this.NodeMissCacheSize      = nodeMissCacheSize;
+        this.nodeCacheFileSize      = nodeCacheFileSize;
+        this.nodeCacheWarmup        = nodeCacheWarmup;
+        this.nodeBloomFilterSize    = nodeBloomFilterSize;
+        this.indexReadAhead         = indexReadAhead;
+        this.blockConcurrentCache   = blockConcurrentCache;
 
         this.nodeTableBaseName      = nodeTableBaseName;
 
@@ -111,6 +129,9 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         this.prefixIndexes          = prefixIndexes;
 
         this.prefixTableBaseName         = prefixTableBasename;
+
+        this.inlineShortStrings     = inlineShortStrings;
+        this.compressedLeaves       = compressedLeaves;
     }
 
     /** The system default settings. This is the normal set to use.
@@ -198,6 +219,56 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         return NodeMissCacheSize.isSet;
     }
 
+    @Override
+    public Integer getNodeCacheFileSize() {
+        return nodeCacheFileSize.value;
+    }
+
+    @Override
+    public boolean isSetNodeCacheFileSize() {
+        return nodeCacheFileSize.isSet;
+    }
+
+    @Override
+    public Boolean getNodeCacheWarmup() {
+        return nodeCacheWarmup.value;
+    }
+
+    @Override
+    public boolean isSetNodeCacheWarmup() {
+        return nodeCacheWarmup.isSet;
+    }
+
+    @Override
+    public Integer getNodeBloomFilterSize() {
+        return nodeBloomFilterSize.value;
+    }
+
+    @Override
+    public boolean isSetNodeBloomFilterSize() {
+        return nodeBloomFilterSize.isSet;
+    }
+
+    @Override
+    public Integer getIndexReadAhead() {
+        return indexReadAhead.value;
+    }
+
+    @Override
+    public boolean isSetIndexReadAhead() {
+        return indexReadAhead.isSet;
+    }
+
+    @Override
+    public Boolean isBlockConcurrentCache() {
+        return blockConcurrentCache.value;
+    }
+
+    @Override
+    public boolean isSetBlockConcurrentCache() {
+        return blockConcurrentCache.isSet;
+    }
+
     public String getNodeTableBaseName() {
         return nodeTableBaseName.value;
     }
@@ -240,6 +311,31 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         return prefixIndexes.value;
     }
 
+    /**
+     * Whether short strings and short language tagged strings are encoded
+     * in the {@code NodeId} and not stored in the node table.
+     * This is only applied when the database is created.
+     */
+    public boolean isInlineShortStrings() {
+        return inlineShortStrings.value;
+    }
+
+    public boolean isSetInlineShortStrings() {
+        return inlineShortStrings.isSet;
+    }
+
+    /**
+     * Whether the leaf (records) blocks of the tuple indexes are stored compressed.
+     * This is only applied when the database is created.
+     */
+    public boolean isCompressedLeaves() {
+        return compressedLeaves.value;
+    }
+
+    public boolean isSetCompressedLeaves() {
+        return compressedLeaves.isSet;
+    }
+
     @Override
     public String toString() {
         StringBuilder buff = new StringBuilder();
@@ -250,6 +346,11 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         fmt(buff, "Node2NodeIdCacheSize", getNode2NodeIdCacheSize(), Node2NodeIdCacheSize.isSet);
         fmt(buff, "NodeId2NodeCacheSize", getNodeId2NodeCacheSize(), NodeId2NodeCacheSize.isSet);
         fmt(buff, "NodeMissCacheSize", getNodeMissCacheSize(), NodeMissCacheSize.isSet);
+        fmt(buff, "nodeCacheFileSize", getNodeCacheFileSize(), nodeCacheFileSize.isSet);
+        fmt(buff, "nodeCacheWarmup", Boolean.toString(getNodeCacheWarmup()), nodeCacheWarmup.isSet);
+        fmt(buff, "nodeBloomFilterSize", getNodeBloomFilterSize(), nodeBloomFilterSize.isSet);
+        fmt(buff, "indexReadAhead", getIndexReadAhead(), indexReadAhead.isSet);
+        fmt(buff, "blockConcurrentCache", Boolean.toString(isBlockConcurrentCache()), blockConcurrentCache.isSet);
 
         fmt(buff, "nodeTableBaseName", getNodeTableBaseName(), nodeTableBaseName.isSet);
         fmt(buff, "primaryIndexTriples", getPrimaryIndexTriples(), primaryIndexTriples.isSet);
@@ -260,6 +361,8 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         fmt(buff, "prefixTableBaseName", getPrefixTableBaseName(), prefixTableBaseName.isSet);
         fmt(buff, "primaryIndexPrefix", getPrimaryIndexPrefix(), primaryIndexPrefix.isSet);
         fmt(buff, "prefixIndexes", getPrefixIndexes(), prefixIndexes.isSet);
+        fmt(buff, "inlineShortStrings", Boolean.toString(isInlineShortStrings()), inlineShortStrings.isSet);
+        fmt(buff, "compressedLeaves", Boolean.toString(isCompressedLeaves()), compressedLeaves.isSet);
 
         return buff.toString();
     }
@@ -307,6 +410,16 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
             return false;
         if ( !sameValues(params1.NodeMissCacheSize, params2.NodeMissCacheSize) )
             return false;
+        if ( !sameValues(params1.nodeCacheFileSize, params2.nodeCacheFileSize) )
+            return false;
+        if ( !sameValues(params1.nodeCacheWarmup, params2.nodeCacheWarmup) )
+            return false;
+        if ( !sameValues(params1.nodeBloomFilterSize, params2.nodeBloomFilterSize) )
+            return false;
+        if ( !sameValues(params1.indexReadAhead, params2.indexReadAhead) )
+            return false;
+        if ( !sameValues(params1.blockConcurrentCache, params2.blockConcurrentCache) )
+            return false;
         if ( !sameValues(params1.nodeTableBaseName, params2.nodeTableBaseName) )
             return false;
         if ( !sameValues(params1.primaryIndexTriples, params2.primaryIndexTriples) )
@@ -323,6 +436,10 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
             return false;
         if ( !sameValues(params1.prefixIndexes, params2.prefixIndexes) )
             return false;
+        if ( !sameValues(params1.inlineShortStrings, params2.inlineShortStrings) )
+            return false;
+        if ( !sameValues(params1.compressedLeaves, params2.compressedLeaves) )
+            return false;
         return true;
     }
 
@@ -337,6 +454,11 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         result = prime * result + ((Node2NodeIdCacheSize == null) ? 0 : Node2NodeIdCacheSize.hashCode());
         result = prime * result + ((NodeId2NodeCacheSize == null) ? 0 : NodeId2NodeCacheSize.hashCode());
         result = prime * result + ((NodeMissCacheSize == null) ? 0 : NodeMissCacheSize.hashCode());
+        result = prime * result + ((nodeCacheFileSize == null) ? 0 : nodeCacheFileSize.hashCode());
+        result = prime * result + ((nodeCacheWarmup == null) ? 0 : nodeCacheWarmup.hashCode());
+        result = prime * result + ((nodeBloomFilterSize == null) ? 0 : nodeBloomFilterSize.hashCode());
+        result = prime * result + ((indexReadAhead == null) ? 0 : indexReadAhead.hashCode());
+        result = prime * result + ((blockConcurrentCache == null) ? 0 : blockConcurrentCache.hashCode());
         result = prime * result + ((blockReadCacheSize == null) ? 0 : blockReadCacheSize.hashCode());
         result = prime * result + ((blockSize == null) ? 0 : blockSize.hashCode());
         result = prime * result + ((blockWriteCacheSize == null) ? 0 : blockWriteCacheSize.hashCode());
@@ -349,6 +471,8 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         result = prime * result + ((primaryIndexTriples == null) ? 0 : primaryIndexTriples.hashCode());
         result = prime * result + ((quadIndexes == null) ? 0 : quadIndexes.hashCode());
         result = prime * result + ((tripleIndexes == null) ? 0 : tripleIndexes.hashCode());
+        result = prime * result + ((inlineShortStrings == null) ? 0 : inlineShortStrings.hashCode());
+        result = prime * result + ((compressedLeaves == null) ? 0 : compressedLeaves.hashCode());
         return result;
     }
 
@@ -376,6 +500,31 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
                 return false;
         } else if ( !NodeMissCacheSize.equals(other.NodeMissCacheSize) )
             return false;
+        if ( nodeCacheFileSize == null ) {
+            if ( other.nodeCacheFileSize != null )
+                return false;
+        } else if ( !nodeCacheFileSize.equals(other.nodeCacheFileSize) )
+            return false;
+        if ( nodeCacheWarmup == null ) {
+            if ( other.nodeCacheWarmup != null )
+                return false;
+        } else if ( !nodeCacheWarmup.equals(other.nodeCacheWarmup) )
+            return false;
+        if ( nodeBloomFilterSize == null ) {
+            if ( other.nodeBloomFilterSize != null )
+                return false;
+        } else if ( !nodeBloomFilterSize.equals(other.nodeBloomFilterSize) )
+            return false;
+        if ( indexReadAhead == null ) {
+            if ( other.indexReadAhead != null )
+                return false;
+        } else if ( !indexReadAhead.equals(other.indexReadAhead) )
+            return false;
+        if ( blockConcurrentCache == null ) {
+            if ( other.blockConcurrentCache != null )
+                return false;
+        } else if ( !blockConcurrentCache.equals(other.blockConcurrentCache) )
+            return false;
         if ( blockReadCacheSize == null ) {
             if ( other.blockReadCacheSize != null )
                 return false;
@@ -436,6 +585,16 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
                 return false;
         } else if ( !tripleIndexes.equals(other.tripleIndexes) )
             return false;
+        if ( inlineShortStrings == null ) {
+            if ( other.inlineShortStrings != null )
+                return false;
+        } else if ( !inlineShortStrings.equals(other.inlineShortStrings) )
+            return false;
+        if ( compressedLeaves == null ) {
+            if ( other.compressedLeaves != null )
+                return false;
+        } else if ( !compressedLeaves.equals(other.compressedLeaves) )
+            return false;
         return true;
     }
 }
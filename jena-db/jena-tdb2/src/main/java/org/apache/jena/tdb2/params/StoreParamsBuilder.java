@@ -74,6 +74,16 @@ public class StoreParamsBuilder {
 
     private Item<Integer>            NodeMissCacheSize     = new Item<>(StoreParamsConst.NodeMissCacheSize, false);
 
+    private Item<Integer>            nodeCacheFileSize     = new Item<>(StoreParamsConst.nodeCacheFileSize, false);
+
+    private Item<Boolean>            nodeCacheWarmup       = new Item<>(StoreParamsConst.nodeCacheWarmup, false);
+
+    private Item<Integer>            nodeBloomFilterSize   = new Item<>(StoreParamsConst.nodeBloomFilterSize, false);
+
+    private Item<Integer>            indexReadAhead        = new Item<>(StoreParamsConst.indexReadAhead, false);
+
+    private Item<Boolean>            blockConcurrentCache  = new Item<>(StoreParamsConst.blockConcurrentCache, false);
+
     /** Database layout - ignored after a database is created */
 
     private Item<Integer>            blockSize             = new Item<>(StoreParamsConst.blockSize, false);
@@ -94,6 +104,10 @@ public class StoreParamsBuilder {
 
     private Item<String[]>           prefixIndexes         = new Item<>(StoreParamsConst.prefixIndexes, false);
 
+    private Item<Boolean>            inlineShortStrings    = new Item<>(StoreParamsConst.inlineShortStrings, false);
+
+    private Item<Boolean>            compressedLeaves      = new Item<>(StoreParamsConst.compressedLeaves, false);
+
     public static StoreParamsBuilder create() {
         return new StoreParamsBuilder();
     }
@@ -130,6 +144,21 @@ public class StoreParamsBuilder {
         if ( additionalParams.isSetNodeMissCacheSize() )
             b.nodeMissCacheSize(additionalParams.getNodeMissCacheSize());
 
+        if ( additionalParams.isSetNodeCacheFileSize() )
+            b.nodeCacheFileSize(additionalParams.getNodeCacheFileSize());
+
+        if ( additionalParams.isSetNodeCacheWarmup() )
+            b.nodeCacheWarmup(additionalParams.getNodeCacheWarmup());
+
+        if ( additionalParams.isSetNodeBloomFilterSize() )
+            b.nodeBloomFilterSize(additionalParams.getNodeBloomFilterSize());
+
+        if ( additionalParams.isSetIndexReadAhead() )
+            b.indexReadAhead(additionalParams.getIndexReadAhead());
+
+        if ( additionalParams.isSetBlockConcurrentCache() )
+            b.blockConcurrentCache(additionalParams.isBlockConcurrentCache());
+
         return b.build();
     }
 
@@ -145,6 +174,11 @@ public class StoreParamsBuilder {
         this.Node2NodeIdCacheSize   = other.Node2NodeIdCacheSize;
         this.NodeId2NodeCacheSize   = other.NodeId2NodeCacheSize;
         this.NodeMissCacheSize      = other.NodeMissCacheSize;
+        this.nodeCacheFileSize      = other.nodeCacheFileSize;
+        this.nodeCacheWarmup        = other.nodeCacheWarmup;
+        this.nodeBloomFilterSize    = other.nodeBloomFilterSize;
+        this.indexReadAhead         = other.indexReadAhead;
+        this.blockConcurrentCache   = other.blockConcurrentCache;
 
         this.nodeTableBaseName      = other.nodeTableBaseName;
 
@@ -157,17 +191,24 @@ public class StoreParamsBuilder {
         this.prefixTableBaseName    = other.prefixTableBaseName;
         this.primaryIndexPrefix     = other.primaryIndexPrefix;
         this.prefixIndexes          = other.prefixIndexes;
+
+        this.inlineShortStrings     = other.inlineShortStrings;
+        this.compressedLeaves       = other.compressedLeaves;
     }
 
     public StoreParams build() {
         return new StoreParams(
                  fileMode, blockSize, blockReadCacheSize, blockWriteCacheSize,
                  Node2NodeIdCacheSize, NodeId2NodeCacheSize, NodeMissCacheSize,
+                 nodeCacheFileSize, nodeCacheWarmup,
+                 nodeBloomFilterSize, indexReadAhead,
+                 blockConcurrentCache,
                  nodeTableBaseName,
                  primaryIndexTriples, tripleIndexes,
                  primaryIndexQuads, quadIndexes,
                  prefixTableBaseName, primaryIndexPrefix,
-                 prefixIndexes);
+                 prefixIndexes,
+                 inlineShortStrings, compressedLeaves);
     }
 
     public FileMode getFileMode() {
@@ -233,6 +274,58 @@ public class StoreParamsBuilder {
        return this;
    }
 
+    public int getNodeCacheFileSize() {
+        return nodeCacheFileSize.value;
+    }
+
+   /** Size, in megabytes, of the memory mapped node cache. 0 means no such cache. */
+   public StoreParamsBuilder nodeCacheFileSize(int nodeCacheFileSize) {
+       this.nodeCacheFileSize = new Item<>(nodeCacheFileSize, true);
+       return this;
+   }
+
+    public boolean getNodeCacheWarmup() {
+        return nodeCacheWarmup.value;
+    }
+
+   public StoreParamsBuilder nodeCacheWarmup(boolean nodeCacheWarmup) {
+       this.nodeCacheWarmup = new Item<>(nodeCacheWarmup, true);
+       return this;
+   }
+
+    public int getNodeBloomFilterSize() {
+        return nodeBloomFilterSize.value;
+    }
+
+   /** Size, in megabytes, of the Bloom filter over node hashes. 0 means no filter. */
+   public StoreParamsBuilder nodeBloomFilterSize(int nodeBloomFilterSize) {
+       this.nodeBloomFilterSize = new Item<>(nodeBloomFilterSize, true);
+       return this;
+   }
+
+    public int getIndexReadAhead() {
+        return indexReadAhead.value;
+    }
+
+   /** Number of index pages to read ahead during range scans of the tuple indexes. 0 means no read-ahead. */
+   public StoreParamsBuilder indexReadAhead(int indexReadAhead) {
+       this.indexReadAhead = new Item<>(indexReadAhead, true);
+       return this;
+   }
+
+    public boolean isBlockConcurrentCache() {
+        return blockConcurrentCache.value;
+    }
+
+   /**
+    * Use a block cache where reads do not lock for direct mode files.
+    * Memory mapped files do not have a block cache.
+    */
+   public StoreParamsBuilder blockConcurrentCache(boolean blockConcurrentCache) {
+       this.blockConcurrentCache = new Item<>(blockConcurrentCache, true);
+       return this;
+   }
+
    public String getNodeTableBaseName() {
        return nodeTableBaseName.value;
    }
@@ -305,5 +398,23 @@ public class StoreParamsBuilder {
        this.prefixIndexes = new Item<>(prefixIndexes, true);
        return this;
    }
+
+    public boolean getInlineShortStrings() {
+        return inlineShortStrings.value;
+    }
+
+   public StoreParamsBuilder inlineShortStrings(boolean inlineShortStrings) {
+       this.inlineShortStrings = new Item<>(inlineShortStrings, true);
+       return this;
+   }
+
+    public boolean getCompressedLeaves() {
+        return compressedLeaves.value;
+    }
+
+   public StoreParamsBuilder compressedLeaves(boolean compressedLeaves) {
+       this.compressedLeaves = new Item<>(compressedLeaves, true);
+       return this;
+   }
 }
 
@@ -93,6 +93,11 @@ public class StoreParamsCodec {
         encode(builder, key(fNode2NodeIdCacheSize),     params.getNode2NodeIdCacheSize());
         encode(builder, key(fNodeId2NodeCacheSize),     params.getNodeId2NodeCacheSize());
         encode(builder, key(fNodeMissCacheSize),        params.getNodeMissCacheSize());
+        encode(builder, key(fNodeCacheFileSize),        params.getNodeCacheFileSize());
+        encode(builder, key(fNodeCacheWarmup),          params.getNodeCacheWarmup());
+        encode(builder, key(fNodeBloomFilterSize),      params.getNodeBloomFilterSize());
+        encode(builder, key(fIndexReadAhead),           params.getIndexReadAhead());
+        encode(builder, key(fBlockConcurrentCache),     params.isBlockConcurrentCache());
         encode(builder, key(fNodeTableBaseName),        params.getNodeTableBaseName());
         encode(builder, key(fPrimaryIndexTriples),      params.getPrimaryIndexTriples());
         encode(builder, key(fTripleIndexes),            params.getTripleIndexes());
@@ -101,6 +106,8 @@ public class StoreParamsCodec {
         encode(builder, key(fPrefixTableBaseName),      params.getPrefixTableBaseName());
         encode(builder, key(fPrimaryIndexPrefix),       params.getPrimaryIndexPrefix());
         encode(builder, key(fPrefixIndexes),            params.getPrefixIndexes());
+        encode(builder, key(fInlineShortStrings),       params.isInlineShortStrings());
+        encode(builder, key(fCompressedLeaves),         params.isCompressedLeaves());
 
         builder.finishObject("StoreParams");
         return (JsonObject)builder.build();
@@ -133,6 +140,11 @@ public class StoreParamsCodec {
                 case fNode2NodeIdCacheSize:    builder.node2NodeIdCacheSize(getInt(json, key));            break ;
                 case fNodeId2NodeCacheSize:    builder.nodeId2NodeCacheSize(getInt(json, key));            break ;
                 case fNodeMissCacheSize:       builder.nodeMissCacheSize(getInt(json, key));               break ;
+                case fNodeCacheFileSize:       builder.nodeCacheFileSize(getInt(json, key));               break ;
+                case fNodeCacheWarmup:         builder.nodeCacheWarmup(getBoolean(json, key));             break ;
+                case fNodeBloomFilterSize:     builder.nodeBloomFilterSize(getInt(json, key));             break ;
+                case fIndexReadAhead:          builder.indexReadAhead(getInt(json, key));                  break ;
+                case fBlockConcurrentCache:    builder.blockConcurrentCache(getBoolean(json, key));        break ;
 
                 case fNodeTableBaseName:       builder.nodeTableBaseName(getString(json, key));            break ;
                 case fPrimaryIndexTriples:     builder.primaryIndexTriples(getString(json, key));          break ;
@@ -144,6 +156,9 @@ public class StoreParamsCodec {
                 case fPrimaryIndexPrefix:      builder.primaryIndexPrefix(getString(json, key));           break ;
                 case fPrefixIndexes:           builder.prefixIndexes(getStringArray(json, key));           break ;
 
+                case fInlineShortStrings:      builder.inlineShortStrings(getBoolean(json, key));          break ;
+                case fCompressedLeaves:        builder.compressedLeaves(getBoolean(json, key));            break ;
+
                 default:
                     throw new TDBException("StoreParams key no recognized: "+key);
             }
@@ -167,6 +182,13 @@ public class StoreParamsCodec {
         return x;
     }
 
+    private static Boolean getBoolean(JsonObject json, String key) {
+        if ( ! json.hasKey(key) )
+            throw new TDBException("StoreParamsCodec.getBoolean: no such key: "+key);
+        Boolean x = json.get(key).getAsBoolean().value();
+        return x;
+    }
+
     private static String[] getStringArray(JsonObject json, String key) {
         if ( ! json.hasKey(key) )
             throw new TDBException("StoreParamsCodec.getStringArray: no such key: "+key);
@@ -189,6 +211,10 @@ public class StoreParamsCodec {
             builder.key(name).value(value.toString());
             return;
         }
+        if ( value instanceof Boolean ) {
+            builder.key(name).value(((Boolean)value).booleanValue());
+            return;
+        }
         if ( value instanceof String[] ) {
             String[] x = (String[])value;
             builder.key(name);
@@ -47,6 +47,25 @@ public class StoreParamsConst {
     public static final String   fNodeMissCacheSize    = "node_miss_cache_size";
     public static final int      NodeMissCacheSize     = SystemTDB.NodeMissCacheSize;
 
+    /** Size in megabytes of the persistent, memory mapped node cache. 0 for none. */
+    public static final String   fNodeCacheFileSize    = "node_cache_file_size";
+    public static final int      nodeCacheFileSize     = 0;
+
+    public static final String   fNodeCacheWarmup      = "node_cache_warmup";
+    public static final boolean  nodeCacheWarmup       = false;
+
+    /** Size in megabytes of the persistent Bloom filter over node hashes. 0 for none. */
+    public static final String   fNodeBloomFilterSize  = "node_bloom_filter_size";
+    public static final int      nodeBloomFilterSize   = 0;
+
+    /** Number of index pages to read ahead during range scans. 0 for none. */
+    public static final String   fIndexReadAhead       = "index_read_ahead";
+    public static final int      indexReadAhead        = 0;
+
+    /** Whether the block caches of direct mode files let reads proceed without locking. */
+    public static final String   fBlockConcurrentCache = "block_concurrent_cache";
+    public static final boolean  blockConcurrentCache  = false;
+
     /** Database layout - ignored after a database is created */
     public static final String   fBlockSize            = "block_size";
     public static final int      blockSize             = SystemTDB.BlockSize;
@@ -75,6 +94,12 @@ public class StoreParamsConst {
     public static final String   fPrefixIndexes        = "prefix_indexes";
     public static final String[] prefixIndexes         = Names.prefixIndexes;
 
+    public static final String   fInlineShortStrings   = "inline_short_strings";
+    public static final boolean  inlineShortStrings    = false;
+
+    public static final String   fCompressedLeaves     = "index_compressed_leaves";
+    public static final boolean  compressedLeaves      = false;
+
     // Must be after the constants above to get initialization order right
     // because StoreParamsBuilder uses these constants.
 
@@ -50,5 +50,25 @@ public interface StoreParamsDynamic {
     /** Node cache for recording known misses */
     public Integer getNodeMissCacheSize();
     public boolean isSetNodeMissCacheSize();
+
+    /** Size, in megabytes, of the persistent memory mapped node cache (0 for none). */
+    public Integer getNodeCacheFileSize();
+    public boolean isSetNodeCacheFileSize();
+
+    /** Whether to load the memory mapped node cache in the background at startup. */
+    public Boolean getNodeCacheWarmup();
+    public boolean isSetNodeCacheWarmup();
+
+    /** Size, in megabytes, of the Bloom filter in front of the node-to-NodeId index (0 for none). */
+    public Integer getNodeBloomFilterSize();
+    public boolean isSetNodeBloomFilterSize();
+
+    /** Number of index pages to read ahead during range scans of the tuple indexes (0 for none). */
+    public Integer getIndexReadAhead();
+    public boolean isSetIndexReadAhead();
+
+    /** Whether direct mode files use a block cache where reads do not lock. */
+    public Boolean isBlockConcurrentCache();
+    public boolean isSetBlockConcurrentCache();
 }
 
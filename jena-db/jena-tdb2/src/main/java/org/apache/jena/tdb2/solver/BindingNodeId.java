@@ -18,76 +18,149 @@
 
 package org.apache.jena.tdb2.solver;
 
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
-
-import org.apache.jena.atlas.lib.Map2;
-
-
+import java.util.NoSuchElementException;
 
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.tdb2.store.NodeId;
 
-/** Class for a Binding-like structure except it works on NodeIds, not on Nodes */
-public class BindingNodeId extends Map2<Var, NodeId>
+/** Class for a Binding-like structure except it works on NodeIds, not on Nodes.
+ * <p>
+ * The NodeIds are held in an array, indexed by the slot of the variable in a {@link VarSlots}
+ * which is fixed when the basic graph pattern is prepared. Making a new binding from
+ * an existing one is an array copy.
+ */
+public class BindingNodeId implements Iterable<Var>
 {
     // This is the parent binding - which may be several steps up the chain.
     // This just carried around for later use when we go BindingNodeId back to Binding.
     private final Binding parentBinding;
+    private final VarSlots slots;
+    private final NodeId[] ids;
 
-    // Possible optimization: there are at most 3 possible values so HashMap is overkill.
-    // Use a chain of small objects.
-
-    private BindingNodeId(Map<Var, NodeId> map1, Map2<Var, NodeId> map2, Binding parentBinding)
+    private BindingNodeId(VarSlots slots, NodeId[] ids, Binding parentBinding)
     {
-        super(map1, map2);
+        this.slots = slots;
+        this.ids = ids;
         this.parentBinding = parentBinding;
     }
 
     // Make from an existing BindingNodeId
     public BindingNodeId(BindingNodeId other)
     {
-        this(new HashMap<Var, NodeId>(), other, other.getParentBinding());
+        this(other.slots, other.ids.clone(), other.getParentBinding());
     }
 
     // Make from an existing Binding
-    public BindingNodeId(Binding binding)
+    public BindingNodeId(VarSlots slots, Binding binding)
     {
-        this(new HashMap<Var, NodeId>(), null, binding);
+        this(slots, new NodeId[slots.size()], binding);
     }
 
-    public BindingNodeId()
+    public BindingNodeId(VarSlots slots)
     {
-        this(new HashMap<Var, NodeId>(), null, null);
+        this(slots, null);
     }
 
     public Binding getParentBinding()    { return parentBinding; }
 
-    //@Override public NodeId get(Var v)    { return super.get(v); }
+    public VarSlots getSlots()          { return slots; }
+
+    /** Get the NodeId for a slot; return null if not set. */
+    public NodeId get(int slot)         { return ids[slot]; }
+
+    /** Get the NodeId for a variable; return null if not set or the variable does not have a slot. */
+    public NodeId get(Var v)
+    {
+        int idx = slots.slot(v);
+        return idx < 0 ? null : ids[idx];
+    }
+
+    public boolean containsKey(Var v)
+    {
+        return get(v) != null;
+    }
+
+    public void put(int slot, NodeId n)
+    {
+        if ( n == null )
+            throw new IllegalArgumentException("("+slots.var(slot)+","+n+")");
+        ids[slot] = n;
+    }
 
-    @Override public void put(Var v, NodeId n)
+    public void put(Var v, NodeId n)
     {
         if ( v == null || n == null )
             throw new IllegalArgumentException("("+v+","+n+")");
-        super.put(v, n);
+        int idx = slots.slot(v);
+        if ( idx < 0 )
+            throw new IllegalArgumentException("No slot for "+v+" in "+slots);
+        ids[idx] = n;
     }
 
     public void putAll(BindingNodeId other)
     {
-        Iterator<Var> vIter = other.iterator();
+        if ( other.slots == slots )
+        {
+            for ( int i = 0; i < ids.length ; i++ )
+            {
+                if ( other.ids[i] != null )
+                    ids[i] = other.ids[i];
+            }
+            return;
+        }
+        for ( Var v : other )
+            put(v, other.get(v));
+    }
 
-        for (; vIter.hasNext() ; )
+    /** Number of variables set. */
+    public int size()
+    {
+        int x = 0;
+        for ( NodeId id : ids )
         {
-            Var v = vIter.next();
-            if ( v == null )
-                throw new IllegalArgumentException("Null key");
-            NodeId n = other.get(v);
-            if ( n == null )
-                throw new IllegalArgumentException("("+v+","+n+")");
-            super.put(v, n);
+            if ( id != null )
+                x++;
         }
+        return x;
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /** Iterate over the variables set. */
+    @Override
+    public Iterator<Var> iterator()
+    {
+        return new Iterator<Var>() {
+            private int idx = advance(0);
+
+            private int advance(int i)
+            {
+                while ( i < ids.length && ids[i] == null )
+                    i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return idx < ids.length;
+            }
+
+            @Override
+            public Var next()
+            {
+                if ( ! hasNext() )
+                    throw new NoSuchElementException("BindingNodeId.iterator");
+                Var v = slots.var(idx);
+                idx = advance(idx+1);
+                return v;
+            }
+        };
     }
 
     @Override
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.atlas.lib.Closeable;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.tdb2.TDBException;
+import org.apache.jena.tdb2.sys.SystemTDB;
+
+/**
+ * Iterator that consumes several iterators, each in its own thread, and returns
+ * their items as they arrive. The order of items between the source iterators is
+ * not preserved.
+ * <p>
+ * The source iterators must be usable from another thread. This is the case for
+ * the iterators of {@link org.apache.jena.tdb2.store.tupletable.TupleIndex#findPartitioned}
+ * because the transaction is only needed when they are created.
+ * <p>
+ * The source iterators are drained on a pool of at most
+ * {@link SystemTDB#ParallelScanThreads} threads shared by all scans; sources
+ * beyond that wait for a thread.
+ */
+class IterParallel<T> implements Iterator<T>, Abortable, Closeable
+{
+    // Items are passed in batches to reduce contention on the queue.
+    private static final int BatchSize = 1000;
+    private static final int QueueSize = 16;
+    private static final long OfferWaitMillis = 100;
+    private static final long PollWaitMillis = 100;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger(0);
+    private static final ExecutorService executor = createExecutor(SystemTDB.ParallelScanThreads);
+
+    private static ExecutorService createExecutor(int threads) {
+        threads = Math.max(1, threads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "TDB2-ParallelScan-"+threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Marker for the end of one source iterator.
+    private static final List<Object> EndMarker = Collections.emptyList();
+
+    private final BlockingQueue<List<?>> queue = new ArrayBlockingQueue<>(QueueSize);
+    private volatile boolean cancelled = false;
+    private volatile Throwable error = null;
+    private int active;
+    private Iterator<T> current = null;
+    private boolean finished = false;
+
+    IterParallel(List<Iterator<T>> sources) {
+        this.active = sources.size();
+        for ( Iterator<T> src : sources )
+            executor.execute(() -> produce(src));
+    }
+
+    private void produce(Iterator<T> src) {
+        try {
+            List<T> batch = new ArrayList<>(BatchSize);
+            while ( !cancelled && src.hasNext() ) {
+                batch.add(src.next());
+                if ( batch.size() >= BatchSize ) {
+                    send(batch);
+                    batch = new ArrayList<>(BatchSize);
+                }
+            }
+            if ( !batch.isEmpty() )
+                send(batch);
+        } catch (Throwable th) {
+            error = th;
+        } finally {
+            try { send(EndMarker); } catch (InterruptedException ex) {}
+        }
+    }
+
+    private void send(List<?> batch) throws InterruptedException {
+        while ( !cancelled ) {
+            if ( queue.offer(batch, OfferWaitMillis, TimeUnit.MILLISECONDS) )
+                return;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( finished )
+            return false;
+        if ( cancelled )
+            throw new QueryCancelledException();
+        while ( current == null || !current.hasNext() ) {
+            if ( active == 0 ) {
+                finished = true;
+                checkError();
+                return false;
+            }
+            List<?> batch;
+            try { batch = queue.poll(PollWaitMillis, TimeUnit.MILLISECONDS); }
+            catch (InterruptedException ex) {
+                close();
+                throw new QueryCancelledException();
+            }
+            if ( batch == null ) {
+                // After an abort, producers stop without sending their end marker.
+                if ( cancelled ) {
+                    finished = true;
+                    throw new QueryCancelledException();
+                }
+                continue;
+            }
+            if ( batch == EndMarker ) {
+                active--;
+                checkError();
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            List<T> items = (List<T>)batch;
+            current = items.iterator();
+        }
+        return true;
+    }
+
+    private void checkError() {
+        Throwable th = error;
+        if ( th == null )
+            return;
+        close();
+        if ( th instanceof RuntimeException )
+            throw (RuntimeException)th;
+        throw new TDBException("Parallel scan", th);
+    }
+
+    @Override
+    public T next() {
+        if ( !hasNext() )
+            throw new NoSuchElementException();
+        return current.next();
+    }
+
+    /** Can call asynchronously at any time */
+    @Override
+    public void abort() {
+        cancelled = true;
+    }
+
+    @Override
+    public void close() {
+        cancelled = true;
+        finished = true;
+        queue.clear();
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.jena.sparql.algebra.optimize.TransformFilterPlacement;
 import org.apache.jena.sparql.core.BasicPattern;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.core.Substitute;
+import org.apache.jena.sparql.core.TriplePath;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.ExecutionContext;
 import org.apache.jena.sparql.engine.QueryIterator;
@@ -46,6 +47,7 @@ import org.apache.jena.sparql.mgt.Explain;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.store.GraphTDB;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.sys.SystemTDB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -135,6 +137,21 @@ public class OpExecutorTDB2 extends OpExecutor
         return super.execute(opFilter, input);
         }
 
+    @Override
+    protected QueryIterator execute(OpPath opPath, QueryIterator input)
+    {
+        if ( ! isForTDB || ! execCxt.getContext().isTrueOrUndef(SystemTDB.symPathNodeId) )
+            return super.execute(opPath, input);
+        TriplePath triplePath = opPath.getTriplePath();
+        if ( triplePath.isTriple() )
+            return super.execute(opPath, input);
+        GraphTDB graph = (GraphTDB)execCxt.getActiveGraph();
+        PathEngineTDB engine = PathEngineTDB.create(graph, triplePath.getPath(), execCxt);
+        if ( engine == null )
+            return super.execute(opPath, input);
+        return new QueryIterPathTDB(triplePath, engine, input, execCxt);
+    }
+
     // ---- Triple patterns
 
     @Override
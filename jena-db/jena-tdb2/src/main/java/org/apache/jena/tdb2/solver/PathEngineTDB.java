@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.function.Predicate;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.LongHashSet;
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.iterator.QueryIterNullIterator;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import org.apache.jena.sparql.engine.iterator.QueryIterSingleton;
+import org.apache.jena.sparql.path.*;
+import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry;
+import org.apache.jena.tdb2.store.GraphTDB;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+
+/**
+ * Evaluation of {@code p+} and {@code p*}, where {@code p} is a single link or
+ * the inverse of a link, working on NodeIds rather than Nodes.
+ * <p>
+ * The breadth-first search keeps its visited set and frontier as 64 bit NodeId
+ * values in {@link LongHashSet}s and only turns NodeIds into Nodes for the
+ * results. Each level of the search expands the frontier in NodeId order so the
+ * index range scans for one level move forward through the index. When both
+ * ends are fixed, the search runs from both ends, each time expanding the
+ * smaller frontier, and stops when the two searches meet.
+ * <p>
+ * Cases not covered ({@code p*} with neither end fixed, or the same variable at
+ * both ends) return null from {@link #exec} and are left to the general path
+ * engine.
+ */
+public class PathEngineTDB
+{
+    private final NodeTupleTable nodeTupleTable;
+    private final NodeTable nodeTable;
+    private final Node predicate;
+    // Graph slot: null for a triple table or for the union graph.
+    private final NodeId graphId;
+    private final boolean quads;
+    private final boolean inverse;
+    private final boolean zeroLength;
+    private final Predicate<Tuple<NodeId>> filter;
+    private final ExecutionContext execCxt;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Return an engine for the path over the graph,
+     * or null if the path is not one that can be evaluated with NodeIds.
+     */
+    public static PathEngineTDB create(GraphTDB graph, Path path, ExecutionContext execCxt) {
+        boolean zeroLength;
+        Path sub;
+        if ( path instanceof P_OneOrMore1 ) {
+            zeroLength = false;
+            sub = ((P_OneOrMore1)path).getSubPath();
+        } else if ( path instanceof P_ZeroOrMore1 ) {
+            zeroLength = true;
+            sub = ((P_ZeroOrMore1)path).getSubPath();
+        } else
+            return null;
+
+        boolean inverse = false;
+        if ( sub instanceof P_Inverse ) {
+            inverse = true;
+            sub = ((P_Inverse)sub).getSubPath();
+        }
+        Node p;
+        if ( sub instanceof P_Link )
+            p = ((P_Link)sub).getNode();
+        else if ( sub instanceof P_ReverseLink ) {
+            p = ((P_ReverseLink)sub).getNode();
+            inverse = !inverse;
+        } else
+            return null;
+        if ( isPropertyFunction(p, execCxt) )
+            return null;
+
+        Node gn = OpExecutorTDB2.decideGraphNode(graph.getGraphName(), execCxt);
+        boolean quads = ( gn != null );
+        NodeTupleTable ntt = graph.getNodeTupleTable();
+        NodeId gId = ( gn == null || gn == Node.ANY ) ? null : ntt.getNodeTable().getNodeIdForNode(gn);
+        Predicate<Tuple<NodeId>> filter = QC2.getFilter(execCxt.getContext());
+        return new PathEngineTDB(ntt, p, gId, quads, inverse, zeroLength, filter, execCxt);
+    }
+
+    private static boolean isPropertyFunction(Node node, ExecutionContext execCxt) {
+        if ( ! node.isURI() )
+            return false;
+        return PropertyFunctionRegistry.chooseRegistry(execCxt.getContext()).isRegistered(node.getURI());
+    }
+
+    private PathEngineTDB(NodeTupleTable nodeTupleTable, Node predicate, NodeId graphId, boolean quads,
+                          boolean inverse, boolean zeroLength, Predicate<Tuple<NodeId>> filter,
+                          ExecutionContext execCxt) {
+        this.nodeTupleTable = nodeTupleTable;
+        this.nodeTable = nodeTupleTable.getNodeTable();
+        this.predicate = predicate;
+        this.graphId = graphId;
+        this.quads = quads;
+        this.inverse = inverse;
+        this.zeroLength = zeroLength;
+        this.filter = filter;
+        this.execCxt = execCxt;
+    }
+
+    /** Stop any evaluation in progress. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Evaluate the path from {@code s} to {@code o}, which are already
+     * substituted by the binding. Return null if this case is not handled.
+     */
+    public QueryIterator exec(Binding binding, Node s, Node o) {
+        boolean sVar = Var.isVar(s);
+        boolean oVar = Var.isVar(o);
+        if ( sVar && oVar ) {
+            if ( zeroLength || s.equals(o) )
+                return null;
+            return execUngrounded(binding, Var.alloc(s), Var.alloc(o));
+        }
+        if ( ! sVar && ! oVar ) {
+            if ( ! connected(s, o) )
+                return QueryIterNullIterator.create(execCxt);
+            return QueryIterSingleton.create(binding, execCxt);
+        }
+        // One end fixed.
+        List<Node> nodes = sVar ? reach(o, false) : reach(s, true);
+        Var var = Var.alloc(sVar ? s : o);
+        Iterator<Binding> iter = Iter.map(nodes.iterator(), n -> BindingFactory.binding(binding, var, n));
+        return new QueryIterPlainWrapper(iter, execCxt);
+    }
+
+    // ?s p+ ?o : search from each node with an outgoing (incoming for the inverse) link.
+    private QueryIterator execUngrounded(Binding binding, Var sVar, Var oVar) {
+        long[] starts = startingSet();
+        if ( starts == null )
+            return QueryIterNullIterator.create(execCxt);
+        Iterator<Binding> iter = Iter.flatMap(Arrays.stream(starts).iterator(), x -> {
+            Node start = node(x);
+            Binding b = BindingFactory.binding(binding, sVar, start);
+            List<Node> nodes = reachFrom(x, true);
+            return Iter.map(nodes.iterator(), n -> BindingFactory.binding(b, oVar, n));
+        });
+        return new QueryIterPlainWrapper(iter, execCxt);
+    }
+
+    private long[] startingSet() {
+        NodeId pId = nodeTable.getNodeIdForNode(predicate);
+        if ( NodeId.isDoesNotExist(pId) )
+            return null;
+        LongHashSet starts = new LongHashSet();
+        Iterator<Tuple<NodeId>> iter = find(null, pId, null);
+        int idx = inverse ? objectIndex() : subjectIndex();
+        iter.forEachRemaining(t -> starts.add(encode(t.get(idx))));
+        long[] x = starts.toArray();
+        Arrays.sort(x);
+        return x;
+    }
+
+    /** Nodes reachable from the start, moving forward along the path or backwards. */
+    private List<Node> reach(Node start, boolean forward) {
+        NodeId startId = nodeTable.getNodeIdForNode(start);
+        if ( NodeId.isDoesNotExist(startId) )
+            // Not in the data: only the zero length path.
+            return zeroLength ? Collections.singletonList(start) : Collections.emptyList();
+        List<Node> results = reachFrom(encode(startId), forward);
+        if ( zeroLength && ! results.isEmpty() )
+            // Keep the start node as given, not as it comes back from the node table.
+            results.set(0, start);
+        return results;
+    }
+
+    private List<Node> reachFrom(long startId, boolean forward) {
+        NodeId pId = nodeTable.getNodeIdForNode(predicate);
+        LongHashSet visited = new LongHashSet();
+        List<Node> results = new ArrayList<>();
+        long[] frontier = { startId };
+        if ( zeroLength ) {
+            visited.add(startId);
+            results.add(node(startId));
+        }
+        if ( NodeId.isDoesNotExist(pId) )
+            return results;
+        boolean fromSubject = ( forward != inverse );
+        while ( frontier.length > 0 ) {
+            LongHashSet next = new LongHashSet();
+            step(frontier, pId, fromSubject, visited, next);
+            frontier = next.toArray();
+            Arrays.sort(frontier);
+            for ( long x : frontier )
+                results.add(node(x));
+        }
+        return results;
+    }
+
+    /** Is there a path from s to o? Searches from both ends. */
+    private boolean connected(Node s, Node o) {
+        if ( zeroLength && s.sameValueAs(o) )
+            return true;
+        NodeId sId = nodeTable.getNodeIdForNode(s);
+        NodeId oId = nodeTable.getNodeIdForNode(o);
+        NodeId pId = nodeTable.getNodeIdForNode(predicate);
+        if ( NodeId.isDoesNotExist(sId) || NodeId.isDoesNotExist(oId) || NodeId.isDoesNotExist(pId) )
+            return false;
+
+        // Forwards, the visited set is the nodes reached by paths of length one or more;
+        // backwards, it is those reached by paths of length zero or more.
+        // A meeting point is then a path of length one or more.
+        boolean sForwardIsSubject = !inverse;
+        LongHashSet visitedF = new LongHashSet();
+        LongHashSet nextF = new LongHashSet();
+        step(new long[] {encode(sId)}, pId, sForwardIsSubject, visitedF, nextF);
+        long[] frontierF = sortedArray(nextF);
+
+        long oStart = encode(oId);
+        LongHashSet visitedB = new LongHashSet();
+        visitedB.add(oStart);
+        long[] frontierB = { oStart };
+        if ( visitedF.contains(oStart) )
+            return true;
+
+        while ( frontierF.length > 0 && frontierB.length > 0 ) {
+            LongHashSet next = new LongHashSet();
+            if ( frontierF.length <= frontierB.length ) {
+                step(frontierF, pId, sForwardIsSubject, visitedF, next);
+                if ( meets(next, visitedB) )
+                    return true;
+                frontierF = sortedArray(next);
+            } else {
+                step(frontierB, pId, !sForwardIsSubject, visitedB, next);
+                if ( meets(next, visitedF) )
+                    return true;
+                frontierB = sortedArray(next);
+            }
+        }
+        return false;
+    }
+
+    private static boolean meets(LongHashSet added, LongHashSet other) {
+        for ( PrimitiveIterator.OfLong iter = added.iterator() ; iter.hasNext() ; ) {
+            if ( other.contains(iter.nextLong()) )
+                return true;
+        }
+        return false;
+    }
+
+    private static long[] sortedArray(LongHashSet set) {
+        long[] x = set.toArray();
+        Arrays.sort(x);
+        return x;
+    }
+
+    /**
+     * One level of the search: follow the link from each frontier node
+     * (the frontier is in NodeId order), adding newly reached nodes to
+     * {@code visited} and {@code next}.
+     */
+    private void step(long[] frontier, NodeId pId, boolean fromSubject, LongHashSet visited, LongHashSet next) {
+        if ( cancelled )
+            throw new QueryCancelledException();
+        int idxTo = fromSubject ? objectIndex() : subjectIndex();
+        for ( long x : frontier ) {
+            NodeId id = NodeIdFactory.decode(x);
+            Iterator<Tuple<NodeId>> iter = fromSubject ? find(id, pId, null) : find(null, pId, id);
+            while ( iter.hasNext() ) {
+                long y = encode(iter.next().get(idxTo));
+                if ( visited.add(y) )
+                    next.add(y);
+            }
+        }
+    }
+
+    private Iterator<Tuple<NodeId>> find(NodeId s, NodeId p, NodeId o) {
+        Tuple<NodeId> pattern;
+        if ( quads ) {
+            if ( NodeId.isDoesNotExist(graphId) )
+                return Iter.nullIterator();
+            pattern = TupleFactory.create4(graphId, s, p, o);
+        } else
+            pattern = TupleFactory.create3(s, p, o);
+        Iterator<Tuple<NodeId>> iter = nodeTupleTable.find(pattern);
+        if ( filter != null )
+            iter = Iter.filter(iter, filter);
+        return iter;
+    }
+
+    private int subjectIndex() { return quads ? 1 : 0; }
+    private int objectIndex()  { return quads ? 3 : 2; }
+
+    private static long encode(NodeId nodeId) {
+        return NodeIdFactory.encode(nodeId);
+    }
+
+    private Node node(long x) {
+        return nodeTable.getNodeForNodeId(NodeIdFactory.decode(x));
+    }
+}
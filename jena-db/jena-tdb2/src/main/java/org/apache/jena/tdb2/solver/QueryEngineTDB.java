@@ -20,6 +20,7 @@ package org.apache.jena.tdb2.solver;
 
 
 import org.apache.jena.atlas.lib.Lib ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.query.Query ;
 import org.apache.jena.sparql.algebra.Algebra ;
 import org.apache.jena.sparql.algebra.Op ;
@@ -32,8 +33,10 @@ import org.apache.jena.sparql.engine.Plan ;
 import org.apache.jena.sparql.engine.QueryEngineFactory ;
 import org.apache.jena.sparql.engine.QueryEngineRegistry ;
 import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.QueryPlanCache ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.main.QueryEngineMain ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderCostBased ;
 import org.apache.jena.sparql.mgt.Explain ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.tdb2.TDB2;
@@ -51,7 +54,12 @@ public class QueryEngineTDB extends QueryEngineMain
 {
     // ---- Wiring
     static public QueryEngineFactory getFactory() { return factory; }
-    static public void register()       { QueryEngineRegistry.addFactory(factory); }
+    static public void register()
+    {
+        QueryEngineRegistry.addFactory(factory);
+        QueryPlanCache.addPlanSetting(TDB2.symUnionDefaultGraph1);
+        QueryPlanCache.addPlanSetting(TDB2.symUnionDefaultGraph2);
+    }
     static public void unregister()     { QueryEngineRegistry.removeFactory(factory); }
 
     // ---- Object
@@ -81,6 +89,13 @@ public class QueryEngineTDB extends QueryEngineMain
     protected Op modifyOp(Op op)
     {
         op = Substitute.substitute(op, getStartBinding());
+        // Statistics for join ordering, if the database has them.
+        DatasetGraphTDB dsgtdb = TDBInternal.getDatasetGraphTDB(dataset);
+        if ( dsgtdb != null && context.get(ARQ.optJoinStats) == null
+             && dsgtdb.getReorderTransform() instanceof ReorderCostBased ) {
+            ReorderCostBased reorder = (ReorderCostBased)dsgtdb.getReorderTransform();
+            context.set(ARQ.optJoinStats, reorder.getCostModel().getStats());
+        }
         // Optimize (high-level)
         op = super.modifyOp(op);
 
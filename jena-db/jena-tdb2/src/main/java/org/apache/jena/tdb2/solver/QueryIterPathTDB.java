@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.atlas.lib.Lib;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.iterator.QueryIterRepeatApply;
+import org.apache.jena.sparql.mgt.Explain;
+import org.apache.jena.sparql.path.PathLib;
+import org.apache.jena.sparql.serializer.SerializationContext;
+
+/** Property path evaluation using a {@link PathEngineTDB}, falling back to
+ * {@link PathLib} for the cases it does not handle. */
+public class QueryIterPathTDB extends QueryIterRepeatApply
+{
+    private final TriplePath triplePath;
+    private final PathEngineTDB engine;
+
+    public QueryIterPathTDB(TriplePath triplePath, PathEngineTDB engine, QueryIterator input, ExecutionContext execCxt)
+    {
+        super(input, execCxt);
+        this.triplePath = triplePath;
+        this.engine = engine;
+    }
+
+    @Override
+    protected QueryIterator nextStage(Binding binding)
+    {
+        Node s = Var.lookup(binding, triplePath.getSubject());
+        Node o = Var.lookup(binding, triplePath.getObject());
+        Explain.explain(s, triplePath.getPath(), o, getExecContext().getContext());
+        QueryIterator qIter = engine.exec(binding, s, o);
+        if ( qIter == null )
+            qIter = PathLib.execTriplePath(binding, triplePath, getExecContext());
+        return qIter;
+    }
+
+    @Override
+    protected void requestSubCancel()
+    {
+        engine.cancel();
+        super.requestSubCancel();
+    }
+
+    @Override
+    protected void details(IndentedWriter out, SerializationContext sCxt)
+    {
+        out.print(Lib.className(this));
+        out.println();
+        out.incIndent();
+        out.print(triplePath.toString());
+        out.decIndent();
+    }
+}
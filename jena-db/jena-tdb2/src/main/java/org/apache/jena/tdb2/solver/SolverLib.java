@@ -38,6 +38,7 @@ import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.sparql.engine.binding.BindingFactory;
 import org.apache.jena.sparql.engine.binding.BindingMap;
 import org.apache.jena.sparql.engine.iterator.QueryIterNullIterator;
+import org.apache.jena.sparql.engine.iterator.QueryIterRoot;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.lib.NodeLib;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
@@ -45,6 +46,7 @@ import org.apache.jena.tdb2.store.GraphTDB;
 import org.apache.jena.tdb2.store.NodeId;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb2.sys.SystemTDB;
 import org.apache.jena.tdb2.sys.TDBInternal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,6 +81,9 @@ public class SolverLib
     public static Iterator<BindingNodeId> convertToIds(Iterator<Binding> iterBindings, NodeTable nodeTable)
     { return Iter.map(iterBindings, convFromBinding(nodeTable)); }
 
+    public static Iterator<BindingNodeId> convertToIds(Iterator<Binding> iterBindings, VarSlots slots, NodeTable nodeTable)
+    { return Iter.map(iterBindings, convFromBinding(slots, nodeTable)); }
+
     /** Convert from Iterator<BindingNodeId> to Iterator<Binding>, conversion "on demand"
      * (in convToBinding(BindingNodeId, NodeTable)
      */
@@ -110,22 +115,36 @@ public class SolverLib
                 throw new TDBException("SolverLib: Graph node specified but tuples are of length "+tupleLen);
         }
 
-        // Convert from a QueryIterator (Bindings of Var/Node) to BindingNodeId
-        NodeTable nodeTable = nodeTupleTable.getNodeTable();
-
-        Iterator<BindingNodeId> chain = Iter.map(input, SolverLib.convFromBinding(nodeTable));
-        List<Abortable> killList = new ArrayList<>();
-
+        List<Tuple<Node>> tuples = new ArrayList<>(triples.size());
         for ( Triple triple : triples )
         {
-            Tuple<Node> tuple = null;
             if ( graphNode == null )
                 // 3-tuples
-                tuple = TupleFactory.tuple(triple.getSubject(), triple.getPredicate(), triple.getObject());
+                tuples.add(TupleFactory.tuple(triple.getSubject(), triple.getPredicate(), triple.getObject()));
             else
                 // 4-tuples.
-                tuple = TupleFactory.tuple(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject());
-            chain = solve(nodeTupleTable, tuple, anyGraph, chain, filter, execCxt);
+                tuples.add(TupleFactory.tuple(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject()));
+        }
+        // Variables are allocated a slot in the BindingNodeIds for this pattern.
+        VarSlots slots = VarSlots.create(tuples);
+
+        // Convert from a QueryIterator (Bindings of Var/Node) to BindingNodeId
+        NodeTable nodeTable = nodeTupleTable.getNodeTable();
+
+        Iterator<BindingNodeId> chain = Iter.map(input, SolverLib.convFromBinding(slots, nodeTable));
+        List<Abortable> killList = new ArrayList<>();
+        int numPartitions = parallelScan(input, anyGraph, execCxt);
+
+        for ( Tuple<Node> tuple : tuples )
+        {
+            if ( numPartitions > 1 ) {
+                // First pattern only.
+                StageMatchTuple stage = new StageMatchTuple(nodeTupleTable, chain, tuple, anyGraph, filter, numPartitions, execCxt);
+                killList.add(stage);
+                chain = stage;
+                numPartitions = 1;
+            } else
+                chain = solve(nodeTupleTable, tuple, anyGraph, chain, filter, execCxt);
             chain = makeAbortable(chain, killList);
         }
 
@@ -153,6 +172,17 @@ public class SolverLib
         return new QueryIterTDB(iterBinding, killList, input, execCxt);
     }
 
+    /** Number of parts to split the scan of the first pattern into (see {@link SystemTDB#symParallelScan}).
+     *  Only used at the start of execution (a single, empty, input binding), and not for the
+     *  union graph, which relies on index order to remove duplicates.
+     */
+    private static int parallelScan(QueryIterator input, boolean anyGraph, ExecutionContext execCxt)
+    {
+        if ( anyGraph || ! ( input instanceof QueryIterRoot ) )
+            return 1;
+        return execCxt.getContext().getInt(SystemTDB.symParallelScan, 1);
+    }
+
     /** Create an abortable iterator, storing it in the killList.
      *  Just return the input iterator if kilList is null.
      */
@@ -232,19 +262,49 @@ public class SolverLib
         return binding -> SolverLib.convert(binding, nodeTable);
     }
 
-    /** Binding {@literal ->} BindingNodeId, given a NodeTable */
+    // Transform : Binding ==> BindingNodeId
+    public static Function<Binding, BindingNodeId> convFromBinding(final VarSlots slots, final NodeTable nodeTable)
+    {
+        return binding -> SolverLib.convert(binding, slots, nodeTable);
+    }
+
+    /** Binding {@literal ->} BindingNodeId, given a NodeTable.
+     *  All the variables of the binding are given slots.
+     */
     public static BindingNodeId convert(Binding binding, NodeTable nodeTable)
     {
         if ( binding instanceof BindingTDB )
             return ((BindingTDB)binding).getBindingId();
+        return convert(binding, VarSlots.create(Iter.toList(binding.vars())), nodeTable);
+    }
 
-        BindingNodeId b = new BindingNodeId(binding);
-        // and copy over, getting NodeIds.
-        Iterator<Var> vars = binding.vars();
+    /** Binding {@literal ->} BindingNodeId, given a NodeTable.
+     *  Only the variables with slots are converted; others remain accessible in the parent binding.
+     */
+    public static BindingNodeId convert(Binding binding, VarSlots slots, NodeTable nodeTable)
+    {
+        if ( binding instanceof BindingTDB )
+        {
+            BindingNodeId bindingId = ((BindingTDB)binding).getBindingId();
+            if ( bindingId.getSlots() == slots )
+                return bindingId;
+        }
 
-        for (; vars.hasNext() ; )
+        BindingNodeId b = new BindingNodeId(slots, binding);
+        // and copy over, getting NodeIds.
+        for ( int i = 0; i < slots.size() ; i++ )
         {
-            Var v = vars.next();
+            Var v = slots.var(i);
+            if ( binding instanceof BindingTDB )
+            {
+                // Already a NodeId - no need to go to the node table.
+                NodeId id = ((BindingTDB)binding).getNodeId(v);
+                if ( id != null )
+                {
+                    b.put(i, id);
+                    continue;
+                }
+            }
             Node n = binding.get(v);
             if ( n == null )
                 // Variable mentioned in the binding but not actually defined.
@@ -258,7 +318,7 @@ public class SolverLib
             // Optional: whether to put in "known missing"
             // Currently, we do. The rest of the code should work with either choice.
             //if ( ! NodeId.isDoesNotExist(id) )
-            b.put(v, id);
+            b.put(i, id);
         }
         return b;
     }
@@ -18,24 +18,27 @@
 
 package org.apache.jena.tdb2.solver;
 
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.atlas.iterator.RepeatApplyIterator;
+import org.apache.jena.atlas.lib.InternalErrorException;
+import org.apache.jena.atlas.lib.LongHashSet;
 import org.apache.jena.atlas.lib.StrUtils;
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.lib.tuple.TupleFactory;
 import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.join.JoinKeyFilter;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
 
-public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
+public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId> implements Abortable
 {
     private final NodeTupleTable nodeTupleTable;
     private final Tuple<Node> patternTuple;
@@ -43,11 +46,34 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
     private final ExecutionContext execCxt;
     private boolean anyGraphs;
     private Predicate<Tuple<NodeId>> filter;
+    // Number of parts to split an index scan into, for scanning in parallel.
+    private final int numPartitions;
+    private volatile IterParallel<BindingNodeId> parallel = null;
+    // Slot of each position of the pattern, or -1 for a constant.
+    // Resolved from the VarSlots of the input bindings which are fixed for the BGP.
+    private VarSlots slots = null;
+    private int[] patternSlots = null;
+    // Semi-join reduction from enclosing hash joins, and the NodeIds
+    // of the values allowed for a variable by each completed filter.
+    private final List<JoinKeyFilter> keyFilters;
+    private final Map<JoinKeyFilter, Map<Var, LongHashSet>> keyFilterIds = new IdentityHashMap<>();
 
     public StageMatchTuple(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input,
                             Tuple<Node> tuple, boolean anyGraphs,
                             Predicate<Tuple<NodeId>> filter,
                             ExecutionContext execCxt)
+    {
+        this(nodeTupleTable, input, tuple, anyGraphs, filter, 1, execCxt);
+    }
+
+    /** Match a tuple, with the index scan for each input binding split into
+     *  (up to) {@code numPartitions} parts that are scanned in parallel.
+     *  The order of results is not the index order.
+     */
+    public StageMatchTuple(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input,
+                            Tuple<Node> tuple, boolean anyGraphs,
+                            Predicate<Tuple<NodeId>> filter, int numPartitions,
+                            ExecutionContext execCxt)
     {
         super(input);
         this.filter = filter;
@@ -55,6 +81,8 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         this.patternTuple = tuple;
         this.execCxt = execCxt;
         this.anyGraphs = anyGraphs;
+        this.numPartitions = numPartitions;
+        this.keyFilters = JoinKeyFilter.filters(execCxt.getContext());
     }
 
     /** Prepare a pattern (tuple of nodes), and an existing binding of NodeId, into NodeIds and Variables.
@@ -81,24 +109,83 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         return true;
     }
 
+    /** As {@link #prepare(NodeTable, Tuple, BindingNodeId, NodeId[], Var[])} except using
+     *  slots for variables, or -1 for constants.
+     *  A variable that is not bound by the binding has its slot placed in the outSlots array, else -1.
+     */
+    private static boolean prepare(NodeTable nodeTable, Tuple<Node> patternTuple, int[] patternSlots,
+                                   BindingNodeId input, NodeId ids[], int[] outSlots)
+    {
+        for ( int i = 0; i < patternTuple.len() ; i++ )
+        {
+            int slot = patternSlots[i];
+            NodeId nId = ( slot < 0 ) ? nodeTable.getNodeIdForNode(patternTuple.get(i)) : input.get(slot);
+            if ( NodeId.isDoesNotExist(nId) )
+                return false;
+            ids[i] = nId;
+            outSlots[i] = ( nId == null ) ? slot : -1;
+        }
+        return true;
+    }
+
+    private int[] patternSlots(VarSlots inputSlots)
+    {
+        if ( inputSlots != slots )
+        {
+            int[] x = new int[patternTuple.len()];
+            for ( int i = 0; i < x.length ; i++ )
+            {
+                Node n = patternTuple.get(i);
+                x[i] = inputSlots.slot(n);
+                if ( x[i] < 0 && Var.isVar(n) )
+                    throw new InternalErrorException("No slot for "+n+" in "+inputSlots);
+            }
+            patternSlots = x;
+            slots = inputSlots;
+        }
+        return patternSlots;
+    }
+
     @Override
     protected Iterator<BindingNodeId> makeNextStage(final BindingNodeId input)
     {
         // ---- Convert to NodeIds
         NodeId ids[] = new NodeId[patternTuple.len()];
-        // Variables for this tuple after substitution
-        final Var[] var = new Var[patternTuple.len()];
+        // Slots for variables of this tuple after substitution
+        final int[] var = new int[patternTuple.len()];
 
-        boolean b = prepare(nodeTupleTable.getNodeTable(), patternTuple, input, ids, var);
+        boolean b = prepare(nodeTupleTable.getNodeTable(), patternTuple, patternSlots(input.getSlots()), input, ids, var);
         if ( !b )
             // Short cut - known unknown NodeId
             return Iter.nullIterator();
 
+        if ( numPartitions > 1 ) {
+            List<Iterator<Tuple<NodeId>>> parts = nodeTupleTable.findPartitioned(TupleFactory.create(ids), numPartitions);
+            if ( parts.size() == 1 )
+                return bindings(parts.get(0), input, var);
+            List<Iterator<BindingNodeId>> x = new ArrayList<>(parts.size());
+            for ( Iterator<Tuple<NodeId>> part : parts )
+                x.add(bindings(part, input, var));
+            closeParallel();
+            parallel = new IterParallel<>(x);
+            return parallel;
+        }
+
         Iterator<Tuple<NodeId>> iterMatches = nodeTupleTable.find(TupleFactory.create(ids));
+        return bindings(iterMatches, input, var);
+    }
 
+    private Iterator<BindingNodeId> bindings(Iterator<Tuple<NodeId>> iterMatches, BindingNodeId input, int[] var)
+    {
         // ** Allow a triple or quad filter here.
         if ( filter != null )
             iterMatches = Iter.filter(iterMatches, filter);
+        if ( keyFilters != null ) {
+            // Applies filters that complete after the scan has started.
+            Predicate<Tuple<NodeId>> keyFilter = keyFilter(var);
+            if ( keyFilter != null )
+                iterMatches = Iter.filter(iterMatches, keyFilter);
+        }
 
         // If we want to reduce to RDF semantics over quads,
         // we need to reduce the quads to unique triples.
@@ -131,13 +218,13 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
                 BindingNodeId output = new BindingNodeId(input);
                 for ( int i = 0; i < var.length ; i++ )
                 {
-                    Var v = var[i];
-                    if ( v == null )
+                    int slot = var[i];
+                    if ( slot < 0 )
                         continue;
                     NodeId id = tuple.get(i);
-                    if ( reject(output, v, id) )
+                    if ( reject(output, slot, id) )
                         return null;
-                    output.put(v, id);
+                    output.put(slot, id);
                 }
                 return output;
         };
@@ -145,6 +232,30 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         return Iter.iter(iterMatches).map(binder).removeNulls();
     }
 
+    /** Can call asynchronously at any time */
+    @Override
+    public void abort()
+    {
+        IterParallel<BindingNodeId> iter = parallel;
+        if ( iter != null )
+            iter.abort();
+    }
+
+    @Override
+    public void close()
+    {
+        closeParallel();
+        super.close();
+    }
+
+    private void closeParallel()
+    {
+        IterParallel<BindingNodeId> iter = parallel;
+        if ( iter != null )
+            iter.close();
+        parallel = null;
+    }
+
     private static Iterator<Tuple<NodeId>> print(Iterator<Tuple<NodeId>> iter)
     {
         if ( ! iter.hasNext() )
@@ -160,12 +271,13 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         return iter;
     }
 
-    private static boolean reject(BindingNodeId output , Var var, NodeId value)
+    private static boolean reject(BindingNodeId output , int slot, NodeId value)
     {
-        if ( ! output.containsKey(var) )
+        NodeId x = output.get(slot);
+        if ( x == null )
             return false;
 
-        if ( output.get(var).equals(value) )
+        if ( x.equals(value) )
             return false;
 
         return true;
@@ -178,6 +290,126 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         return null;
     }
 
+    /** Filter for rows whose new variable values can not join in enclosing hash joins, or null. */
+    private Predicate<Tuple<NodeId>> keyFilter(int[] var)
+    {
+        List<Integer> positions = new ArrayList<>();
+        for ( int i = 0; i < var.length ; i++ )
+        {
+            if ( var[i] >= 0 )
+                positions.add(i);
+        }
+        if ( positions.isEmpty() )
+            return null;
+        return new KeyFilterCheck(positions.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /** Checks rows against the join key filters. A filter that is not complete when the
+     *  scan starts is checked for again on each row, and applies from when it is complete.
+     *  Rows may be tested on the threads of a parallel scan.
+     */
+    private final class KeyFilterCheck implements Predicate<Tuple<NodeId>>
+    {
+        private final int[] positions;
+        // Filters not yet complete.
+        private final List<JoinKeyFilter> pending;
+        private volatile boolean waiting;
+        private volatile Allowed allowed = new Allowed(new int[0], new LongHashSet[0]);
+
+        KeyFilterCheck(int[] positions)
+        {
+            this.positions = positions;
+            this.pending = new ArrayList<>(keyFilters);
+            this.waiting = true;
+            update();
+        }
+
+        @Override
+        public boolean test(Tuple<NodeId> tuple)
+        {
+            if ( waiting )
+                update();
+            Allowed x = allowed;
+            for ( int j = 0; j < x.idx.length ; j++ )
+            {
+                if ( ! x.sets[j].contains(NodeIdFactory.encode(tuple.get(x.idx[j]))) )
+                    return false;
+            }
+            return true;
+        }
+
+        private synchronized void update()
+        {
+            if ( ! waiting )
+                return;
+            List<Integer> idx = new ArrayList<>();
+            List<LongHashSet> sets = new ArrayList<>();
+            for ( int j = 0; j < allowed.idx.length ; j++ )
+            {
+                idx.add(allowed.idx[j]);
+                sets.add(allowed.sets[j]);
+            }
+            Iterator<JoinKeyFilter> iter = pending.iterator();
+            while ( iter.hasNext() )
+            {
+                JoinKeyFilter f = iter.next();
+                if ( ! f.isReady() )
+                    continue;
+                iter.remove();
+                for ( int i : positions )
+                {
+                    LongHashSet ids = nodeIds(f, Var.alloc(patternTuple.get(i)));
+                    if ( ids != null )
+                    {
+                        idx.add(i);
+                        sets.add(ids);
+                    }
+                }
+            }
+            allowed = new Allowed(idx.stream().mapToInt(Integer::intValue).toArray(), sets.toArray(new LongHashSet[0]));
+            waiting = ! pending.isEmpty();
+        }
+    }
+
+    private static final class Allowed
+    {
+        final int[] idx;
+        final LongHashSet[] sets;
+
+        Allowed(int[] idx, LongHashSet[] sets)
+        {
+            this.idx = idx;
+            this.sets = sets;
+        }
+    }
+
+    /** The NodeIds of the values allowed for a variable by a complete filter, or null if not restricted. */
+    private LongHashSet nodeIds(JoinKeyFilter f, Var v)
+    {
+        synchronized(keyFilterIds)
+        {
+            Map<Var, LongHashSet> x = keyFilterIds.computeIfAbsent(f, k->new HashMap<>());
+            if ( ! x.containsKey(v) )
+                x.put(v, nodeIds(f.getValues(v)));
+            return x.get(v);
+        }
+    }
+
+    private LongHashSet nodeIds(Set<Node> nodes)
+    {
+        if ( nodes == null )
+            return null;
+        NodeTable nodeTable = nodeTupleTable.getNodeTable();
+        LongHashSet ids = new LongHashSet(nodes.size());
+        for ( Node n : nodes )
+        {
+            NodeId id = nodeTable.getNodeIdForNode(n);
+            if ( ! NodeId.isDoesNotExist(id) )
+                ids.add(NodeIdFactory.encode(id));
+        }
+        return ids;
+    }
+
     /** Return null for variables, and for nodes, the node id or NodeDoesNotExist */
     private static NodeId idFor(NodeTable nodeTable, BindingNodeId input, Node node)
     {
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+
+/**
+ * Allocation of variables to slot indexes, fixed when a basic graph pattern is
+ * prepared for execution. A {@link BindingNodeId} holds its NodeIds in an array
+ * indexed by slot.
+ */
+public final class VarSlots
+{
+    private final Var[] vars;
+
+    private VarSlots(Var[] vars)
+    {
+        this.vars = vars;
+    }
+
+    /** Slots for the given variables, in order, without duplicates. */
+    public static VarSlots create(Collection<Var> vars)
+    {
+        Set<Var> x = new LinkedHashSet<>(vars);
+        return new VarSlots(x.toArray(new Var[x.size()]));
+    }
+
+    /** Slots for all the variables in a list of patterns, in order of first occurrence. */
+    public static VarSlots create(Iterable<Tuple<Node>> patterns)
+    {
+        Set<Var> x = new LinkedHashSet<>();
+        for ( Tuple<Node> tuple : patterns )
+        {
+            for ( int i = 0; i < tuple.len() ; i++ )
+            {
+                Node n = tuple.get(i);
+                if ( Var.isVar(n) )
+                    x.add(Var.alloc(n));
+            }
+        }
+        return new VarSlots(x.toArray(new Var[x.size()]));
+    }
+
+    /** Number of slots. */
+    public int size()               { return vars.length; }
+
+    /** The variable for a slot. */
+    public Var var(int slot)        { return vars[slot]; }
+
+    /** The slot for a variable, or -1 if the variable does not have a slot. */
+    public int slot(Var var)
+    {
+        // Small numbers of variables - a linear scan is faster than hashing.
+        for ( int i = 0; i < vars.length ; i++ )
+        {
+            if ( vars[i] == var )
+                return i;
+        }
+        for ( int i = 0; i < vars.length ; i++ )
+        {
+            if ( vars[i].equals(var) )
+                return i;
+        }
+        return -1;
+    }
+
+    /** The slot for a node if it is a variable, else -1. */
+    public int slot(Node node)
+    {
+        if ( ! Var.isVar(node) )
+            return -1;
+        return slot(Var.alloc(node));
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(vars);
+    }
+}
@@ -32,8 +32,10 @@ import java.util.Map.Entry;
 import org.apache.jena.atlas.lib.DateTimeUtils;
 import org.apache.jena.atlas.logging.Log;
 import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.engine.optimizer.JoinStats;
 import org.apache.jena.sparql.engine.optimizer.StatsMatcher;
 import org.apache.jena.sparql.graph.NodeConst;
 import org.apache.jena.sparql.sse.Item;
@@ -48,41 +50,39 @@ public class Stats
     /** Write statistics */
     static public void write(String filename, StatsResults stats)
     {
-        write(filename, stats.getPredicates(), stats.getTypes(), stats.getCount());
+        write(filename, format(stats));
     }
 
     /** Write statistics */
     static public void write(OutputStream output, StatsResults stats)
     {
-        write(output, stats.getPredicates(), stats.getTypes(), stats.getCount());
+        ItemWriter.write(output, format(stats));
     }
 
-    static private void write(String filename, Map<Node, Integer> predicateStats, Map<Node, Integer> typeStats, long statsTotal)
+    static private void write(String filename, Item item)
     {
         // Write out the stats
         try (OutputStream statsOut = new BufferedOutputStream(new FileOutputStream(filename))) {
-            write(statsOut, predicateStats, typeStats, statsTotal);
+            ItemWriter.write(statsOut, item);
         } catch (IOException ex)
         { Log.warn(Stats.class, "Problem when writing stats file", ex); }
     }
 
-    static private void write(OutputStream output, Map<Node, Integer> predicateStats, Map<Node, Integer> typeStats, long statsTotal)
-    {
-        Item item = format(predicateStats, typeStats, statsTotal);
-        ItemWriter.write(output, item);
-    }
-
-
     /** Gather statistics, any graph */
     public static StatsCollector gather(Graph graph)
     {
         StatsCollector stats = new StatsCollector();
 
-        Iterator<Triple> iter = graph.find(Node.ANY, Node.ANY, Node.ANY);
-        for (; iter.hasNext() ; )
+        // Subject by subject, for the characteristic sets.
+        Iterator<Node> subjects = GraphUtil.listSubjects(graph, Node.ANY, Node.ANY);
+        for (; subjects.hasNext() ; )
         {
-            Triple t = iter.next();
-            stats.record(null, t.getSubject(), t.getPredicate(), t.getObject());
+            Iterator<Triple> iter = graph.find(subjects.next(), Node.ANY, Node.ANY);
+            for (; iter.hasNext() ; )
+            {
+                Triple t = iter.next();
+                stats.record(null, t.getSubject(), t.getPredicate(), t.getObject());
+            }
         }
 
         return stats;
@@ -90,7 +90,10 @@ public class Stats
 
     public static Item format(StatsResults stats)
     {
-        return format(stats.getPredicates(), stats.getTypes(), stats.getCount());
+        Item item = format(stats.getPredicates(), stats.getTypes(), stats.getCount());
+        JoinStats.format(item.getList(), stats.getDistinctSubjects(), stats.getDistinctObjects(),
+                         stats.getCharacteristicSets());
+        return item;
     }
 
     private static Item format(Map<Node, Integer> predicates, Map<Node, Integer> types, long count)
@@ -18,8 +18,6 @@
 
 package org.apache.jena.tdb2.solver.stats;
 
-import java.util.Map;
-
 import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.graph.NodeConst;
 
@@ -29,8 +27,13 @@ public class StatsCollector extends StatsCollectorBase<Node> {
         super(NodeConst.nodeRDFType);
     }
 
+    /** A collector that keeps at most {@code maxCharSets} characteristic sets, plus one for all the others. */
+    public StatsCollector(int maxCharSets) {
+        super(NodeConst.nodeRDFType, maxCharSets);
+    }
+
     @Override
-    protected Map<Node, Integer> convert(Map<Node, Integer> map) {
-        return map;
+    protected Node convert(Node node) {
+        return node;
     }
 }
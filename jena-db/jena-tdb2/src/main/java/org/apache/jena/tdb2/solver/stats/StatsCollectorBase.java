@@ -19,20 +19,48 @@
 package org.apache.jena.tdb2.solver.stats;
 
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.engine.optimizer.JoinStats.CharacteristicSet;
 
-/** Statistics collector, general purpose */
+/**
+ * Statistics collector, general purpose.
+ * <p>
+ * Characteristic sets are built from the predicates of each subject, so triples
+ * should be recorded grouped by subject (and graph), as they are from the
+ * SPO and GSPO indexes. Only the most common characteristic sets are kept;
+ * the others are merged into one set.
+ */
 abstract class StatsCollectorBase<T> {
+    /** The default number of characteristic sets kept. */
+    static final int DefaultMaxCharSets = 1000;
+
     private long            count      = 0;
     private Map<T, Integer> predicates = new HashMap<>(10000);
     private Map<T, Integer> types      = new HashMap<>(10000);
     private T               typeTrigger;
 
+    // Join statistics.
+    private Map<T, Long>                distinctSubjects = new HashMap<>();
+    private Map<T, DistinctCounter<T>>  distinctObjects  = new HashMap<>();
+    private Map<Set<T>, CharSet<T>>     charSets         = new HashMap<>();
+    // The characteristic sets dropped from charSets, merged.
+    private CharSet<T>                  otherSets        = new CharSet<>();
+    private final int                   maxCharSets;
+    private T                           currentGraph     = null;
+    private T                           currentSubject   = null;
+    private Map<T, Long>                currentSet       = new HashMap<>();
+
     protected StatsCollectorBase(T typeTrigger) {
+        this(typeTrigger, DefaultMaxCharSets);
+    }
+
+    protected StatsCollectorBase(T typeTrigger, int maxCharSets) {
+        if ( maxCharSets <= 0 )
+            throw new IllegalArgumentException("Number of characteristic sets must be positive: "+maxCharSets);
         this.typeTrigger = typeTrigger;
+        this.maxCharSets = maxCharSets;
     }
 
     public void record(T g, T s, T p, T o) {
@@ -40,11 +68,110 @@ abstract class StatsCollectorBase<T> {
         predicates.put(p, predicates.getOrDefault(p, 0) + 1);
         if ( typeTrigger != null && typeTrigger.equals(p) )
             types.put(o, types.getOrDefault(o, 0) + 1);
+        if ( ! s.equals(currentSubject) || ! Objects.equals(g, currentGraph) ) {
+            endSubject();
+            currentGraph = g;
+            currentSubject = s;
+        }
+        currentSet.merge(p, 1L, Long::sum);
+        distinctObjects.computeIfAbsent(p, x -> new DistinctCounter<>()).add(o);
+    }
+
+    private void endSubject() {
+        if ( currentSet.isEmpty() )
+            return;
+        for ( T p : currentSet.keySet() )
+            distinctSubjects.merge(p, 1L, Long::sum);
+        CharSet<T> cs = charSets.computeIfAbsent(new HashSet<>(currentSet.keySet()), x -> new CharSet<>());
+        cs.subjects++;
+        currentSet.forEach((p, n) -> cs.occurrences.merge(p, n, Long::sum));
+        currentSet.clear();
+        // Allow some slack so as not to sort on every new set.
+        if ( charSets.size() > 2 * maxCharSets )
+            pruneCharSets();
+    }
+
+    /** Keep the {@code maxCharSets} sets with the most subjects and merge the rest into {@code otherSets}. */
+    private void pruneCharSets() {
+        if ( charSets.size() <= maxCharSets )
+            return;
+        List<Map.Entry<Set<T>, CharSet<T>>> entries = new ArrayList<>(charSets.entrySet());
+        entries.sort((e1, e2) -> Long.compare(e2.getValue().subjects, e1.getValue().subjects));
+        for ( Map.Entry<Set<T>, CharSet<T>> e : entries.subList(maxCharSets, entries.size()) ) {
+            CharSet<T> cs = e.getValue();
+            otherSets.subjects += cs.subjects;
+            cs.occurrences.forEach((p, n) -> otherSets.occurrences.merge(p, n, Long::sum));
+            charSets.remove(e.getKey());
+        }
     }
 
-    protected abstract Map<Node, Integer> convert(Map<T, Integer> map);
+    protected abstract Node convert(T t);
+
+    private <X> Map<Node, X> convert(Map<T, X> map) {
+        Map<Node, X> x = new HashMap<>(map.size());
+        map.forEach((k, v) -> x.put(convert(k), v));
+        return x;
+    }
 
     public StatsResults results() {
-        return new StatsResults(convert(predicates), convert(types), count);
+        endSubject();
+        pruneCharSets();
+        Map<Node, Long> objects = new HashMap<>(distinctObjects.size());
+        distinctObjects.forEach((p, counter) -> objects.put(convert(p), counter.estimate(predicates.get(p))));
+        List<CharacteristicSet> sets = new ArrayList<>(charSets.size());
+        for ( CharSet<T> cs : charSets.values() )
+            sets.add(new CharacteristicSet(cs.subjects, convert(cs.occurrences)));
+        if ( otherSets.subjects > 0 )
+            sets.add(new CharacteristicSet(otherSets.subjects, convert(otherSets.occurrences)));
+        return new StatsResults(convert(predicates), convert(types), count,
+                                convert(distinctSubjects), objects, sets);
+    }
+
+    private static class CharSet<T> {
+        long subjects = 0;
+        Map<T, Long> occurrences = new HashMap<>();
+    }
+
+    /**
+     * Count distinct values: exactly up to a limit, then by linear counting
+     * (a fixed size bitmap of hashes).
+     */
+    private static class DistinctCounter<T> {
+        private static final int ExactLimit = 10000;
+        private static final int Bits = 1<<16;
+        private Set<T> values = new HashSet<>();
+        private long[] bitmap = null;
+
+        void add(T value) {
+            if ( values != null ) {
+                values.add(value);
+                if ( values.size() <= ExactLimit )
+                    return;
+                bitmap = new long[Bits/64];
+                values.forEach(this::set);
+                values = null;
+                return;
+            }
+            set(value);
+        }
+
+        private void set(T value) {
+            int h = value.hashCode() * 0x9E3779B9;
+            int i = (h ^ (h >>> 16)) & (Bits-1);
+            bitmap[i >>> 6] |= 1L << (i & 63);
+        }
+
+        /** Estimate, at most {@code total}. */
+        long estimate(long total) {
+            if ( values != null )
+                return values.size();
+            long zeros = 0;
+            for ( long x : bitmap )
+                zeros += Long.bitCount(~x);
+            if ( zeros == 0 )
+                return total;
+            long est = Math.round(-Bits * Math.log((double)zeros / Bits));
+            return Math.min(est, total);
+        }
     }
 }
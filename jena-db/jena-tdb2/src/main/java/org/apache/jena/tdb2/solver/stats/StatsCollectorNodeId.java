@@ -18,9 +18,6 @@
 
 package org.apache.jena.tdb2.solver.stats;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.graph.NodeConst;
 import org.apache.jena.tdb2.store.NodeId;
@@ -44,13 +41,7 @@ public class StatsCollectorNodeId extends StatsCollectorBase<NodeId> {
     }
 
     @Override
-    protected Map<Node, Integer> convert(Map<NodeId, Integer> stats) {
-        // Predicate -> Count
-        Map<Node, Integer> statsNodes = new HashMap<>(1000);
-        for ( NodeId p : stats.keySet() ) {
-            Node n = nodeTable.getNodeForNodeId(p);
-            statsNodes.put(n, stats.get(p));
-        }
-        return statsNodes;
+    protected Node convert(NodeId nodeId) {
+        return nodeTable.getNodeForNodeId(nodeId);
     }
 }
@@ -18,9 +18,13 @@
 
 package org.apache.jena.tdb2.solver.stats;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.engine.optimizer.JoinStats;
+import org.apache.jena.sparql.engine.optimizer.JoinStats.CharacteristicSet;
 
 /** Statistics collector */
 public class StatsResults
@@ -28,12 +32,19 @@ public class StatsResults
     private final Map<Node, Integer> predicates;
     private final Map<Node, Integer> types;
     private final long count;
+    private final Map<Node, Long> distinctSubjects;
+    private final Map<Node, Long> distinctObjects;
+    private final List<CharacteristicSet> charSets;
 
-    StatsResults(Map<Node, Integer> predicates, Map<Node, Integer> types, long count)
+    StatsResults(Map<Node, Integer> predicates, Map<Node, Integer> types, long count,
+                 Map<Node, Long> distinctSubjects, Map<Node, Long> distinctObjects, List<CharacteristicSet> charSets)
     {
         this.count = count;
         this.predicates = predicates;
         this.types = types;
+        this.distinctSubjects = distinctSubjects;
+        this.distinctObjects = distinctObjects;
+        this.charSets = charSets;
     }
 
     public Map<Node, Integer> getPredicates()
@@ -50,4 +61,27 @@ public class StatsResults
     {
         return count;
     }
+
+    public Map<Node, Long> getDistinctSubjects()
+    {
+        return distinctSubjects;
+    }
+
+    public Map<Node, Long> getDistinctObjects()
+    {
+        return distinctObjects;
+    }
+
+    public List<CharacteristicSet> getCharacteristicSets()
+    {
+        return charSets;
+    }
+
+    /** The statistics for cost-based join ordering. */
+    public JoinStats getJoinStats()
+    {
+        Map<Node, Long> counts = new HashMap<>();
+        predicates.forEach((p, n) -> counts.put(p, n.longValue()));
+        return new JoinStats(count, counts, distinctSubjects, distinctObjects, charSets);
+    }
 }
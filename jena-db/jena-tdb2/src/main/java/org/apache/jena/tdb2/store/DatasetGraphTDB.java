@@ -29,6 +29,7 @@ import org.apache.jena.dboe.transaction.txn.TransactionalSystem;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.TransactionalSharedRead;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.lib.NodeLib;
@@ -36,7 +37,7 @@ import org.apache.jena.tdb2.params.StoreParams;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
 
 final
-public class DatasetGraphTDB extends DatasetGraphStorage
+public class DatasetGraphTDB extends DatasetGraphStorage implements TransactionalSharedRead
 {
     private final StorageTDB storageTDB;
     private final Location location;
@@ -83,6 +84,14 @@ public class DatasetGraphTDB extends DatasetGraphStorage
         return txnSystem;
     }
 
+    @Override
+    public ReadView shareRead() {
+        checkNotClosed();
+        if ( ! ( txnSystem instanceof TransactionalSharedRead ) )
+            return null;
+        return ((TransactionalSharedRead)txnSystem).shareRead();
+    }
+
     public StoreParams getStoreParams() {
         return storeParams;
     }
@@ -56,6 +56,7 @@ import org.apache.jena.tdb2.store.value.*;
  * <li>Date and DateTime
  * <li>Boolean
  * <li>Float
+ * <li>Short strings and short language tagged strings, if enabled for the database. See {@link StringNode56}.
  * </ul>
  *
  * @see IntegerNode
@@ -63,6 +64,7 @@ import org.apache.jena.tdb2.store.value.*;
  * @see DoubleNode62
  * @see DateTimeNode DateTimeNode for xsd:date and xsd:DateTime
  * @see FloatNode
+ * @see StringNode56
  */
 public class NodeIdInline {
     /** Datatypes that are candidates for inlining */
@@ -114,6 +116,17 @@ public class NodeIdInline {
 
     /** Encode a node as an inline literal.  Return null if it can't be done */
     public static NodeId inline(Node node) {
+        return inline(node, false);
+    }
+
+    /**
+     * Encode a node as an inline literal, including short strings and short
+     * language tagged strings if {@code inlineStrings} is true.
+     * Return null if it can't be done.
+     * <p>
+     * Whether strings are inlined must be the same for the lifetime of a database.
+     */
+    public static NodeId inline(Node node, boolean inlineStrings) {
         if ( node == null ) {
             Log.warn(NodeId.class, "Null node: " + node);
             return null;
@@ -125,8 +138,11 @@ public class NodeIdInline {
         if ( !node.isLiteral() )
             return null;
 
-        if ( NodeUtils.isSimpleString(node) || NodeUtils.isLangString(node) )
-            return null;
+        if ( NodeUtils.isSimpleString(node) || NodeUtils.isLangString(node) ) {
+            if ( ! inlineStrings )
+                return null;
+            return inlineString(node);
+        }
 
         try { return inline$(node); }
         catch (Throwable th) {
@@ -146,6 +162,21 @@ public class NodeIdInline {
         return datatypes.contains(dtn);
     }
 
+    private static NodeId inlineString(Node node) {
+        String lex = node.getLiteralLexicalForm();
+        String lang = node.getLiteralLanguage();
+        if ( lang == null || lang.isEmpty() ) {
+            long v = StringNode56.packString(lex);
+            if ( v == StringNode56.NO_ENCODING )
+                return null;
+            return NodeId.createRaw(XSD_SHORTSTRING, v);
+        }
+        long v = StringNode56.packLangString(lex, lang);
+        if ( v == StringNode56.NO_ENCODING )
+            return null;
+        return NodeId.createRaw(RDF_LANGSTRING, v);
+    }
+
     private static NodeId inline$(Node node) {
         if ( ! hasInlineDatatype(node) )
             return null;
@@ -317,6 +348,18 @@ public class NodeIdInline {
                     return NodeConst.nodeTrue;
                 throw new TDBException("Unrecognized boolean node id : " + val);
             }
+            case XSD_SHORTSTRING : {
+                String lex = StringNode56.unpackString(nodeId.getValue2());
+                return NodeFactory.createLiteral(lex);
+            }
+            case RDF_LANGSTRING : {
+                long val = nodeId.getValue2();
+                String lang = StringNode56.unpackLangStringLang(val);
+                if ( lang == null )
+                    throw new TDBException("Unrecognized language tag in node id : " + val);
+                String lex = StringNode56.unpackLangStringLex(val);
+                return NodeFactory.createLiteral(lex, lang);
+            }
             default :
                 throw new TDBException("Unrecognized node id type: " + type);
         }
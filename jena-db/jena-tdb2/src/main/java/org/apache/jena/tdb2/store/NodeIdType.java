@@ -56,6 +56,7 @@ public enum NodeIdType {
     XSD_UNSIGNEDINT(T_UNSIGNEDINT, "UnsignedInt"),
     XSD_UNSIGNEDSHORT(T_UNSIGNEDSHORT, "UnsignedShort"),
     XSD_UNSIGNEDBYTE(T_UNSIGNEDBYTE, "UnsignedByte"),
+    RDF_LANGSTRING(T_LANGSTRING, "LangString"),
 
     // Never stored.
     SPECIAL(T_SPECIAL, "Special"),
@@ -106,6 +107,7 @@ public enum NodeIdType {
         public static final int T_UNSIGNEDSHORT = enc(20);
         public static final int T_UNSIGNEDBYTE = enc(21);
         // 21 is 00010101
+        public static final int T_LANGSTRING = enc(22);
 
         // Never stored : bits 1011 0000 so as not to look like a double.
         public static final int T_SPECIAL = enc(0x30);
@@ -192,6 +194,7 @@ public enum NodeIdType {
             case XSD_UNSIGNEDINT:
             case XSD_UNSIGNEDSHORT:
             case XSD_UNSIGNEDBYTE:
+            case RDF_LANGSTRING:
                 return true;
             default:
                 return false;
@@ -254,6 +257,7 @@ public enum NodeIdType {
         if (x == XSD_UNSIGNEDINT.value )            return XSD_UNSIGNEDINT;
         if (x == XSD_UNSIGNEDSHORT.value )          return XSD_UNSIGNEDSHORT;
         if (x == XSD_UNSIGNEDBYTE.value )           return XSD_UNSIGNEDBYTE;
+        if (x == RDF_LANGSTRING.value )             return RDF_LANGSTRING;
         //if (x == EXTENSION.value )                  return EXTENSION;
         return INVALID$;
     }
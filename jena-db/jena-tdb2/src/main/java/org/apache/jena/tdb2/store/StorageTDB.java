@@ -31,6 +31,8 @@ import org.apache.jena.graph.Triple;
 import org.apache.jena.sparql.core.DatasetChanges;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.core.QuadAction;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
 
 /** {@link StorageRDF} for TDB2 */
 public class StorageTDB implements StorageRDF {
@@ -69,6 +71,11 @@ public class StorageTDB implements StorageRDF {
 
     private DatasetChanges monitor = null;
 
+    /** The current monitor, or null if none. */
+    public DatasetChanges getMonitor() {
+        return monitor;
+    }
+
     public void setMonitor(DatasetChanges changes) {
         monitor = changes;
     }
@@ -101,6 +108,23 @@ public class StorageTDB implements StorageRDF {
         monitor.change(action, g, s, p, o);
     }
 
+    /** Notify a delete given as a tuple of NodeIds, as happens in "remove by pattern". */
+    private final void notifyDelete(NodeTupleTable nodeTupleTable, Tuple<NodeId> tuple) {
+        if ( monitor == null )
+            return;
+        NodeTable nodeTable = nodeTupleTable.getNodeTable();
+        if ( tuple.len() == 3 )
+            notifyDelete(null,
+                         nodeTable.getNodeForNodeId(tuple.get(0)),
+                         nodeTable.getNodeForNodeId(tuple.get(1)),
+                         nodeTable.getNodeForNodeId(tuple.get(2)));
+        else
+            notifyDelete(nodeTable.getNodeForNodeId(tuple.get(0)),
+                         nodeTable.getNodeForNodeId(tuple.get(1)),
+                         nodeTable.getNodeForNodeId(tuple.get(2)),
+                         nodeTable.getNodeForNodeId(tuple.get(3)));
+    }
+
     @Override
     public void add(Node s, Node p, Node o) {
         checkActive();
@@ -138,7 +162,8 @@ public class StorageTDB implements StorageRDF {
         checkActive();
         ensureWriteTxn();
         removeWorker(() -> tripleTable.getNodeTupleTable().findAsNodeIds(s,p,o),
-                     x  -> tripleTable.getNodeTupleTable().getTupleTable().delete(x) );
+                     x  -> { notifyDelete(tripleTable.getNodeTupleTable(), x);
+                             tripleTable.getNodeTupleTable().getTupleTable().delete(x); } );
     }
 
     @Override
@@ -146,7 +171,8 @@ public class StorageTDB implements StorageRDF {
         checkActive();
         ensureWriteTxn();
         removeWorker(() -> quadTable.getNodeTupleTable().findAsNodeIds(g,s,p,o),
-                     x  -> quadTable.getNodeTupleTable().getTupleTable().delete(x) );
+                     x  -> { notifyDelete(quadTable.getNodeTupleTable(), x);
+                             quadTable.getNodeTupleTable().getTupleTable().delete(x); } );
     }
 
     private static final int DeleteBufferSize = 1000;
@@ -21,7 +21,10 @@ import java.io.File;
 import java.io.FileFilter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.LongSupplier;
 
 import org.apache.jena.atlas.lib.tuple.TupleMap;
 import org.apache.jena.dboe.DBOpEnvException;
@@ -39,17 +42,22 @@ import org.apache.jena.dboe.transaction.txn.*;
 import org.apache.jena.dboe.transaction.txn.journal.Journal;
 import org.apache.jena.query.ARQ;
 import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.engine.optimizer.JoinStats;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderLib;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
 import org.apache.jena.sparql.sse.SSEParseException;
+import org.apache.jena.system.Txn;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.params.StoreParams;
 import org.apache.jena.tdb2.params.StoreParamsCodec;
 import org.apache.jena.tdb2.params.StoreParamsFactory;
 import org.apache.jena.tdb2.solver.OpExecutorTDB2;
+import org.apache.jena.tdb2.store.nodetable.NodeBloomFilter;
 import org.apache.jena.tdb2.store.nodetable.NodeTable;
 import org.apache.jena.tdb2.store.nodetable.NodeTableCache;
+import org.apache.jena.tdb2.store.nodetable.NodeTableCacheMapped;
 import org.apache.jena.tdb2.store.nodetable.NodeTableInline;
+import org.apache.jena.tdb2.store.nodetable.NodeTableNative;
 import org.apache.jena.tdb2.store.nodetable.NodeTableTRDF;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTable;
 import org.apache.jena.tdb2.store.nodetupletable.NodeTupleTableConcrete;
@@ -106,8 +114,14 @@ public class TDB2StorageBuilder {
         // Finalize.
         builder.components.forEach(txnCoord::add);
         builder.listeners.forEach(txnCoord::addListener);
+        // The node tables are not closed at shutdown.
+        builder.bloomFilterTables.forEach(nt->txnCoord.add(nt::saveBloomFilter));
         // Freezes the TransactionCoordinator components
         txnCoord.start();
+        // Needs transactions.
+        builder.bloomFilterTables.forEach(nt->nt.rebuildBloomFilter(txnSystem));
+        // Recovery may have truncated the node data.
+        builder.mappedCacheTables.forEach((nt, data)->nt.checkDataLength(Txn.calculateRead(txnSystem, data::length)));
         ReorderTransformation reorderTranform = chooseReorderTransformation(location);
         DatasetGraphTDB dsg = new DatasetGraphTDB(location, params, reorderTranform,
                                                   storage, prefixes, txnSystem);
@@ -188,6 +202,8 @@ public class TDB2StorageBuilder {
     // Accumulate TransactionalComponents as they are used to build the database.
     private final Collection<TransactionalComponent> components = new ArrayList<>();
     private final Collection<TransactionListener> listeners = new ArrayList<>();
+    private final Collection<NodeTableNative> bloomFilterTables = new ArrayList<>();
+    private final Map<NodeTableCacheMapped, BinaryDataFile> mappedCacheTables = new LinkedHashMap<>();
 
     private TDB2StorageBuilder(TransactionalSystem txnSystem,
                         Location location, StoreParams params, ComponentIdMgr componentIdMgr) {
@@ -285,15 +301,16 @@ public class TDB2StorageBuilder {
     private TupleIndex makeTupleIndex(String primary, String index, String name) {
         TupleMap cmap = TupleMap.create(primary, index);
         RecordFactory rf = new RecordFactory(SystemTDB.SizeOfNodeId * cmap.length(), 0);
-        RangeIndex rIdx = makeRangeIndex(rf, index);
+        RangeIndex rIdx = makeRangeIndex(rf, index, params.isCompressedLeaves(), params.getIndexReadAhead());
         TupleIndex tIdx = new TupleIndexRecord(primary.length(), cmap, index, rf, rIdx);
         return tIdx;
     }
 
-    private RangeIndex makeRangeIndex(RecordFactory recordFactory, String name) {
+    private RangeIndex makeRangeIndex(RecordFactory recordFactory, String name, boolean compressedLeaves, int readAhead) {
         ComponentId cid = componentIdMgr.getComponentId(name);
         FileSet fs = new FileSet(location, name);
-        BPlusTree bpt = BPlusTreeFactory.createBPTree(cid, fs, recordFactory);
+        BPlusTree bpt = BPlusTreeFactory.createBPTree(cid, fs, recordFactory, compressedLeaves, params.isBlockConcurrentCache());
+        bpt.setReadAhead(readAhead);
         components.add(bpt);
         return bpt;
     }
@@ -301,6 +318,24 @@ public class TDB2StorageBuilder {
     private NodeTable buildNodeTable(String name) {
         NodeTable nodeTable = buildBaseNodeTable(name);
 
+        // Bloom filter and persistent, off-heap cache: main node table only.
+        if ( name.equals(params.getNodeTableBaseName()) ) {
+            File dataFile = location.isMem() ? null : new File(location.getPath(name+"-data", Names.extObjNodeData));
+            int bloomFilterSize = params.getNodeBloomFilterSize();
+            if ( bloomFilterSize > 0 ) {
+                String filename = location.isMem() ? null : location.getPath(name, NodeBloomFilter.extBloomFilter);
+                LongSupplier length = location.isMem() ? ()->0L : dataFile::length;
+                ((NodeTableNative)nodeTable).setBloomFilter(NodeBloomFilter.create(filename, bloomFilterSize, length));
+                bloomFilterTables.add((NodeTableNative)nodeTable);
+            }
+            BinaryDataFile data = ((NodeTableTRDF)nodeTable).getData();
+            nodeTable = NodeTableCacheMapped.create(nodeTable, location, name, params);
+            if ( nodeTable instanceof NodeTableCacheMapped ) {
+                listeners.add((NodeTableCacheMapped)nodeTable);
+                mappedCacheTables.put((NodeTableCacheMapped)nodeTable, data);
+            }
+        }
+
         nodeTable = NodeTableCache.create(nodeTable, params);
 
         if ( nodeTable instanceof NodeTableCache ) {
@@ -309,13 +344,14 @@ public class TDB2StorageBuilder {
             listeners.add(nodeTableCache);
         }
 
-        nodeTable = NodeTableInline.create(nodeTable);
+        nodeTable = NodeTableInline.create(nodeTable, params.isInlineShortStrings());
         return nodeTable;
     }
 
     private NodeTable buildBaseNodeTable(String name) {
         RecordFactory recordFactory = new RecordFactory(SystemTDB.LenNodeHash, SystemTDB.SizeOfNodeId);
-        Index index = makeRangeIndex(recordFactory, name);
+        // Node hashes do not compress.
+        Index index = makeRangeIndex(recordFactory, name, false, 0);
 
         String dataname = name+"-data";
         TransBinaryDataFile transBinFile = makeBinaryDataFile(dataname);
@@ -341,8 +377,14 @@ public class TDB2StorageBuilder {
         ReorderTransformation reorder = null ;
         if ( location.exists(Names.optStats) ) {
             try {
-                reorder = ReorderLib.weighted(location.getPath(Names.optStats)) ;
-                log.debug("Statistics-based BGP optimizer") ;
+                String filename = location.getPath(Names.optStats) ;
+                if ( JoinStats.hasJoinStats(filename) ) {
+                    reorder = ReorderLib.costBased(filename) ;
+                    log.debug("Cost-based BGP and join optimizer") ;
+                } else {
+                    reorder = ReorderLib.weighted(filename) ;
+                    log.debug("Statistics-based BGP optimizer") ;
+                }
             }
             catch (SSEParseException ex) {
                 log.warn("Error in stats file: " + ex.getMessage()) ;
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.LongSupplier;
+
+import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.atlas.lib.Bytes;
+import org.apache.jena.tdb2.sys.IOX;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Bloom filter over the hashes of the nodes in a node table.
+ * <p>
+ * The filter answers "definitely not present" or "maybe present" for a node hash so
+ * a lookup of a node that is not in the node table does not need to go to the
+ * node-to-NodeId index. The filter may claim more than the node table holds (nodes
+ * from an aborted transaction, false positives) but never less.
+ * <p>
+ * The filter is kept in memory. It is written to a file when the node table is
+ * closed, together with the length of the node data at that point. When the filter
+ * is read back, a different node data length means the file is out of date (e.g.
+ * the JVM did not shutdown cleanly) and the filter must be rebuilt from the index
+ * before it is used - see {@link #isValid}.
+ * <p>
+ * Callers synchronize; {@link NodeTableNative} uses the filter inside its lock.
+ */
+public class NodeBloomFilter {
+    private static Logger log = LoggerFactory.getLogger(NodeBloomFilter.class);
+
+    /** File extension for the Bloom filter file. */
+    public static final String extBloomFilter = "bloom";
+
+    private static final long MAGIC      = 0x4A454E41424C4D31L;  // "JENABLM1"
+    private static final int  VERSION    = 1;
+    /** Number of bit positions set for each hash. */
+    private static final int  NumHashes  = 5;
+    /** Largest array length the JVM will allocate. */
+    private static final int  MaxArrayLength = Integer.MAX_VALUE - 8;
+
+    private final String       filename;
+    private final LongSupplier dataLength;
+    private final long[]       bits;
+    private final long         numBits;
+    private boolean            valid;
+    private boolean            changed = false;
+
+    /**
+     * Create a filter, using the file {@code filename} (null for none) if it is up to
+     * date with respect to {@code dataLength}, the current length of the node data.
+     */
+    public static NodeBloomFilter create(String filename, int sizeMegabytes, LongSupplier dataLength) {
+        if ( sizeMegabytes <= 0 )
+            throw new IllegalArgumentException("NodeBloomFilter: size must be positive: "+sizeMegabytes);
+        long numLongs = ((long)sizeMegabytes) << (20-3);
+        if ( numLongs > MaxArrayLength )
+            throw new IllegalArgumentException("NodeBloomFilter: size too large: "+sizeMegabytes);
+        return new NodeBloomFilter(filename, (int)numLongs, dataLength);
+    }
+
+    private NodeBloomFilter(String filename, int numLongs, LongSupplier dataLength) {
+        this.filename = filename;
+        this.dataLength = dataLength;
+        this.bits = new long[numLongs];
+        this.numBits = 64L * numLongs;
+        this.valid = load();
+    }
+
+    /**
+     * Whether the filter covers all nodes in the node table. When false, the filter
+     * must be rebuilt before use; {@link #add} can still be called.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /** Declare the filter complete, after adding every node hash of the node table. */
+    public void setValid() {
+        valid = true;
+        changed = true;
+    }
+
+    /** Add a node hash. */
+    public void add(byte[] hash) {
+        long h1 = hash1(hash);
+        long h2 = hash2(hash);
+        for ( int i = 0 ; i < NumHashes ; i++ ) {
+            long idx = Long.remainderUnsigned(h1 + i * h2, numBits);
+            bits[(int)(idx >>> 6)] |= (1L << idx);
+        }
+        changed = true;
+    }
+
+    /** Return false if the node hash is definitely not in the filter. */
+    public boolean mightContain(byte[] hash) {
+        long h1 = hash1(hash);
+        long h2 = hash2(hash);
+        for ( int i = 0 ; i < NumHashes ; i++ ) {
+            long idx = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ( (bits[(int)(idx >>> 6)] & (1L << idx)) == 0 )
+                return false;
+        }
+        return true;
+    }
+
+    // Node hashes are already well mixed (MD5) so use two parts of the hash
+    // for double hashing.
+    private static long hash1(byte[] hash) {
+        return Bytes.getLong(hash, 0);
+    }
+
+    private static long hash2(byte[] hash) {
+        long h = ( hash.length >= 16 ) ? Bytes.getLong(hash, 8) : Long.rotateLeft(hash1(hash), 32) * 0x9E3779B97F4A7C15L;
+        // Odd so that successive positions differ.
+        return h | 1;
+    }
+
+    /** Write the filter, if it is valid and has changed. */
+    public void save() {
+        if ( filename == null || ! valid || ! changed )
+            return;
+        Path path = Paths.get(filename);
+        long length = dataLength.getAsLong();
+        IOX.safeWrite(path, out -> {
+            DataOutputStream dout = new DataOutputStream(out);
+            dout.writeLong(MAGIC);
+            dout.writeInt(VERSION);
+            dout.writeInt(bits.length);
+            dout.writeLong(length);
+            for ( long x : bits )
+                dout.writeLong(x);
+            dout.flush();
+        });
+        changed = false;
+    }
+
+    // Read the file; return whether the filter is usable.
+    private boolean load() {
+        long length = dataLength.getAsLong();
+        if ( filename == null )
+            return length <= 0;
+        Path path = Paths.get(filename);
+        if ( ! Files.exists(path) )
+            return length <= 0;
+        try ( DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))) ) {
+            if ( in.readLong() != MAGIC || in.readInt() != VERSION || in.readInt() != bits.length ) {
+                log.info("Bloom filter file has different settings: "+filename);
+                return false;
+            }
+            long length2 = in.readLong();
+            if ( length2 != length ) {
+                log.info("Bloom filter file is out of date: "+filename);
+                return false;
+            }
+            for ( int i = 0 ; i < bits.length ; i++ )
+                bits[i] = in.readLong();
+            return true;
+        } catch (EOFException ex) {
+            log.warn("Bloom filter file is truncated: "+filename);
+            return false;
+        } catch (IOException ex) {
+            throw new RuntimeIOException(ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NodeBloomFilter["+numBits+" bits, "+(valid?"valid":"invalid")+"]";
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.atlas.lib.Closeable;
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.thrift.ThriftConvert;
+import org.apache.jena.riot.thrift.wire.RDF_Term;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed size, off-heap cache of {@code NodeId}{@literal <->}{@code Node} mappings.
+ * <p>
+ * The space is a file, memory mapped in segments, so the cache survives a restart
+ * and does not add to the Java heap. For an in-memory database, direct
+ * (off-heap) buffers are used instead of a file.
+ * <p>
+ * Layout: a header, two direct-mapped hash indexes (node{@literal ->}record,
+ * id{@literal ->}record) and a record area used as a ring. A record is
+ * {@code [length][crc][nodeId][term bytes]} where the term is the RDF Thrift
+ * encoding of the node. Old records are overwritten when the ring wraps; index
+ * entries pointing to them fail validation (CRC and key check) and are misses.
+ * <p>
+ * Lookups do not lock. Only pointer {@code NodeId}s of committed nodes must be
+ * added - see {@link NodeTableCacheMapped}.
+ */
+public class NodeCacheMapped implements Closeable {
+    private static Logger log = LoggerFactory.getLogger(NodeCacheMapped.class);
+
+    private static final long MAGIC          = 0x4A454E414E434D31L;  // "JENANCM1"
+    private static final int  VERSION        = 1;
+    private static final int  HEADER_SIZE    = 4096;
+    private static final int  RECORD_HEADER  = 16;
+    /** Largest encoded term that is cached. */
+    public static final int   MAX_TERM_BYTES = 16*1024;
+    /** Size of a mapped segment. Records do not cross segments. */
+    private static final int  SEGMENT_BITS   = 30;
+    private static final long SEGMENT_SIZE   = 1L << SEGMENT_BITS;
+    private static final long SEGMENT_MASK   = SEGMENT_SIZE - 1;
+
+    // Header offsets.
+    private static final int  H_MAGIC        = 0;
+    private static final int  H_VERSION      = 8;
+    private static final int  H_SLOTS        = 12;
+    private static final int  H_TOTAL        = 16;
+    private static final int  H_WRITE_POSN   = 24;
+    private static final int  H_MAX_PTR      = 32;
+    private static final int  H_LENGTH       = 40;
+
+    private final String        filename;
+    private final FileChannel   channel;
+    private final ByteBuffer[]  segments;
+    private final long          total;
+    private final int           slots;
+    private final long          node2idIndex;
+    private final long          id2nodeIndex;
+    private final long          dataStart;
+
+    // Writer state, guarded by "this".
+    private long                writePosn;
+    private long                maxPtr;
+    private boolean             closed = false;
+
+    private final LongAdder     hits    = new LongAdder();
+    private final LongAdder     misses  = new LongAdder();
+
+    /**
+     * Create a cache using the file {@code filename}, or using direct memory if
+     * {@code filename} is null. Existing contents are kept if the file was
+     * written with the same settings and no cached {@code NodeId} refers beyond
+     * {@code dataLimit}, the current length of the node data; otherwise the
+     * cache starts empty. Pass a negative {@code dataLimit} to skip that check.
+     */
+    public static NodeCacheMapped create(String filename, int sizeMegabytes, long dataLimit) {
+        if ( sizeMegabytes <= 0 )
+            throw new IllegalArgumentException("NodeCacheMapped: size must be positive: "+sizeMegabytes);
+        long total = ((long)sizeMegabytes) << 20;
+        // One quarter of the space for the two indexes.
+        int slots = (int)Math.min(Long.highestOneBit(total / 64), 1<<30);
+        return new NodeCacheMapped(filename, total, slots, dataLimit);
+    }
+
+    private NodeCacheMapped(String filename, long total, int slots, long dataLimit) {
+        this.filename = filename;
+        this.total = total;
+        this.slots = slots;
+        this.node2idIndex = HEADER_SIZE;
+        this.id2nodeIndex = node2idIndex + 8L * slots;
+        this.dataStart = id2nodeIndex + 8L * slots;
+        int numSegments = (int)((total + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+        this.segments = new ByteBuffer[numSegments];
+        try {
+            if ( filename == null ) {
+                channel = null;
+                for ( int i = 0 ; i < numSegments ; i++ )
+                    segments[i] = ByteBuffer.allocateDirect((int)segmentLength(i));
+                initHeader();
+                return;
+            }
+            @SuppressWarnings("resource")
+            RandomAccessFile file = new RandomAccessFile(filename, "rw");
+            channel = file.getChannel();
+            boolean valid = checkHeader(dataLimit);
+            if ( ! valid )
+                channel.truncate(0);
+            for ( int i = 0 ; i < numSegments ; i++ )
+                segments[i] = channel.map(MapMode.READ_WRITE, i * SEGMENT_SIZE, segmentLength(i));
+            if ( valid ) {
+                ByteBuffer seg0 = segments[0];
+                writePosn = seg0.getLong(H_WRITE_POSN);
+                maxPtr = seg0.getLong(H_MAX_PTR);
+            } else
+                initHeader();
+        } catch (IOException ex) {
+            throw new RuntimeIOException(ex);
+        }
+    }
+
+    private long segmentLength(int i) {
+        return Math.min(SEGMENT_SIZE, total - i * SEGMENT_SIZE);
+    }
+
+    // Read the header directly from the file, before mapping.
+    private boolean checkHeader(long dataLimit) throws IOException {
+        if ( channel.size() != total )
+            return false;
+        ByteBuffer bb = ByteBuffer.allocate(H_LENGTH);
+        channel.read(bb, 0);
+        if ( bb.getLong(H_MAGIC) != MAGIC || bb.getInt(H_VERSION) != VERSION )
+            return false;
+        if ( bb.getInt(H_SLOTS) != slots || bb.getLong(H_TOTAL) != total )
+            return false;
+        long posn = bb.getLong(H_WRITE_POSN);
+        if ( posn < dataStart || posn > total )
+            return false;
+        if ( dataLimit >= 0 && bb.getLong(H_MAX_PTR) >= dataLimit ) {
+            log.warn("Node cache refers to nodes beyond the end of the node data - reset: "+filename);
+            return false;
+        }
+        return true;
+    }
+
+    private void initHeader() {
+        ByteBuffer seg0 = segments[0];
+        seg0.putLong(H_MAGIC, MAGIC);
+        seg0.putInt(H_VERSION, VERSION);
+        seg0.putInt(H_SLOTS, slots);
+        seg0.putLong(H_TOTAL, total);
+        writePosn = dataStart;
+        maxPtr = -1;
+        writeHeader();
+    }
+
+    private void writeHeader() {
+        ByteBuffer seg0 = segments[0];
+        seg0.putLong(H_WRITE_POSN, writePosn);
+        seg0.putLong(H_MAX_PTR, maxPtr);
+    }
+
+    /** Look up the {@code NodeId} for a node; return null if not in the cache. */
+    public NodeId getNodeIdForNode(Node node) {
+        byte[] key = encode(node);
+        if ( key == null ) {
+            misses.increment();
+            return null;
+        }
+        long posn = getLong(slot(node2idIndex, hashBytes(key)));
+        if ( posn != 0 ) {
+            Record record = readRecord(posn);
+            if ( record != null && Arrays.equals(key, record.bytes) ) {
+                hits.increment();
+                return NodeIdFactory.createPtr(record.ptr);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Look up the node for a {@code NodeId}; return null if not in the cache. */
+    public Node getNodeForNodeId(NodeId nodeId) {
+        long ptr = nodeId.getPtrLocation();
+        long posn = getLong(slot(id2nodeIndex, hashLong(ptr)));
+        if ( posn != 0 ) {
+            Record record = readRecord(posn);
+            if ( record != null && record.ptr == ptr ) {
+                hits.increment();
+                return ThriftConvert.convert(ThriftConvert.termFromBytes(record.bytes));
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Add a mapping. The node must be in the committed state of the node table. */
+    public void put(Node node, NodeId nodeId) {
+        byte[] bytes = encode(node);
+        if ( bytes == null || bytes.length > MAX_TERM_BYTES )
+            return;
+        long ptr = nodeId.getPtrLocation();
+        synchronized(this) {
+            if ( closed )
+                return;
+            long posn = allocRecord(bytes.length);
+            ByteBuffer seg = segment(posn);
+            int offset = offset(posn);
+            seg.putInt(offset, bytes.length);
+            seg.putInt(offset + 4, crc(ptr, bytes));
+            seg.putLong(offset + 8, ptr);
+            ByteBuffer bb = seg.duplicate();
+            bb.position(offset + RECORD_HEADER);
+            bb.put(bytes);
+            // Publish after the record is written.
+            putLong(slot(node2idIndex, hashBytes(bytes)), posn);
+            putLong(slot(id2nodeIndex, hashLong(ptr)), posn);
+            if ( ptr > maxPtr ) {
+                maxPtr = ptr;
+                // Keep the header up to date for checkDataLimit after a crash.
+                segments[0].putLong(H_MAX_PTR, maxPtr);
+            }
+        }
+    }
+
+    // Space for a record in the ring, not crossing a segment boundary.
+    private long allocRecord(int length) {
+        long size = align8(RECORD_HEADER + length);
+        long posn = writePosn;
+        long segEnd = Math.min(total, (posn & ~SEGMENT_MASK) + SEGMENT_SIZE);
+        if ( posn + size > segEnd ) {
+            posn = segEnd;
+            if ( posn + size > total )
+                posn = dataStart;
+        }
+        writePosn = posn + size;
+        return posn;
+    }
+
+    private static class Record {
+        final long ptr;
+        final byte[] bytes;
+        Record(long ptr, byte[] bytes) { this.ptr = ptr; this.bytes = bytes; }
+    }
+
+    // Return a valid record, else null.
+    private Record readRecord(long posn) {
+        if ( posn < dataStart || posn + RECORD_HEADER > total || (posn & 7) != 0 )
+            return null;
+        ByteBuffer seg = segment(posn);
+        int offset = offset(posn);
+        int length = seg.getInt(offset);
+        if ( length <= 0 || length > MAX_TERM_BYTES || offset + RECORD_HEADER + (long)length > seg.capacity() )
+            return null;
+        int crc = seg.getInt(offset + 4);
+        long ptr = seg.getLong(offset + 8);
+        byte[] bytes = new byte[length];
+        ByteBuffer bb = seg.duplicate();
+        bb.position(offset + RECORD_HEADER);
+        bb.get(bytes);
+        if ( crc(ptr, bytes) != crc )
+            return null;
+        return new Record(ptr, bytes);
+    }
+
+    private static byte[] encode(Node node) {
+        try {
+            RDF_Term term = ThriftConvert.convert(node, false);
+            return ThriftConvert.termToBytes(term);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private long slot(long indexStart, long hash) {
+        return indexStart + 8 * (hash & (slots - 1));
+    }
+
+    private long getLong(long posn) {
+        return segment(posn).getLong(offset(posn));
+    }
+
+    private void putLong(long posn, long value) {
+        segment(posn).putLong(offset(posn), value);
+    }
+
+    private ByteBuffer segment(long posn) {
+        return segments[(int)(posn >>> SEGMENT_BITS)];
+    }
+
+    private static int offset(long posn) {
+        return (int)(posn & SEGMENT_MASK);
+    }
+
+    private static long align8(long x) {
+        return (x + 7) & ~7L;
+    }
+
+    private static int crc(long ptr, byte[] bytes) {
+        CRC32 crc = new CRC32();
+        for ( int i = 0 ; i < 8 ; i++ )
+            crc.update((int)(ptr >>> (8 * i)));
+        crc.update(bytes, 0, bytes.length);
+        return (int)crc.getValue();
+    }
+
+    private static long hashBytes(byte[] bytes) {
+        // FNV-1a, then mixed.
+        long h = 0xcbf29ce484222325L;
+        for ( byte b : bytes ) {
+            h ^= (b & 0xFF);
+            h *= 0x100000001b3L;
+        }
+        return hashLong(h);
+    }
+
+    private static long hashLong(long x) {
+        x ^= (x >>> 33);
+        x *= 0xff51afd7ed558ccdL;
+        x ^= (x >>> 33);
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= (x >>> 33);
+        return x;
+    }
+
+    /** Load the cache file into the OS page cache, in a background thread. */
+    public void warmup() {
+        if ( channel == null )
+            return;
+        Thread thread = new Thread(()->{
+            for ( ByteBuffer seg : segments ) {
+                synchronized(this) {
+                    if ( closed )
+                        return;
+                }
+                ((MappedByteBuffer)seg).load();
+            }
+            log.debug("Node cache loaded: "+filename);
+        }, "NodeCacheWarmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Discard the contents if any cached {@code NodeId} refers beyond {@code dataLimit},
+     * the committed length of the node data. Call after journal recovery, which can
+     * truncate the node data to the last durable commit.
+     */
+    public synchronized void checkDataLimit(long dataLimit) {
+        if ( closed || maxPtr < dataLimit )
+            return;
+        log.warn("Node cache refers to nodes beyond the end of the node data - reset: "+filename);
+        for ( long posn = node2idIndex ; posn < dataStart ; posn += 8 )
+            putLong(posn, 0);
+        initHeader();
+    }
+
+    /** Record the current state in the header. */
+    public synchronized void sync() {
+        if ( closed )
+            return;
+        writeHeader();
+    }
+
+    @Override
+    public synchronized void close() {
+        if ( closed )
+            return;
+        writeHeader();
+        closed = true;
+        if ( channel == null )
+            return;
+        for ( ByteBuffer seg : segments )
+            ((MappedByteBuffer)seg).force();
+        try { channel.close(); }
+        catch (IOException ex) { throw new RuntimeIOException(ex); }
+    }
+
+    /** The file used, or null for an in-memory cache. */
+    public String getFilename() {
+        return filename;
+    }
+
+    /** Size of the cache space in bytes */
+    public long getSize() {
+        return total;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+}
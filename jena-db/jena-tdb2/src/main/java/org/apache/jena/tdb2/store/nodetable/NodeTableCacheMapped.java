@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.dboe.transaction.txn.Transaction;
+import org.apache.jena.dboe.transaction.txn.TransactionListener;
+import org.apache.jena.graph.Node;
+import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.store.NodeId;
+
+/**
+ * A NodeTable wrapper that adds a persistent, off-heap {@link NodeCacheMapped}
+ * as a second level of caching below {@link NodeTableCache}.
+ * <p>
+ * Only committed mappings go into the cache. Lookups made by a write transaction
+ * are buffered and added when the commit is durable, and dropped if it aborts,
+ * because node ids allocated by an aborted transaction are reused.
+ */
+public class NodeTableCacheMapped extends NodeTableWrapper implements TransactionListener {
+    /** File extension for the node cache file. */
+    public static final String extNodeCache = "ncache";
+
+    // Limit on the buffered mappings of one write transaction.
+    private static final int MaxPending = 100_000;
+
+    private final NodeCacheMapped cache;
+    private volatile Thread writingThread = null;
+    private final List<Node> pendingNodes = new ArrayList<>();
+    private final List<NodeId> pendingIds = new ArrayList<>();
+    // Mappings of commits that are not yet durable, in commit order.
+    private final Deque<Committed> committed = new ArrayDeque<>();
+
+    private static class Committed {
+        final Transaction transaction;
+        final List<Node> nodes;
+        final List<NodeId> ids;
+
+        Committed(Transaction transaction, List<Node> nodes, List<NodeId> ids) {
+            this.transaction = transaction;
+            this.nodes = nodes;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Wrap a node table with a memory mapped cache, if the {@link StoreParams} ask for one.
+     * The cache file is "name.ncache" in the location.
+     * After journal recovery, call {@link #checkDataLength} to discard a cache file
+     * that refers beyond the recovered node data.
+     */
+    public static NodeTable create(NodeTable nodeTable, Location location, String name, StoreParams params) {
+        int size = params.getNodeCacheFileSize();
+        if ( size <= 0 )
+            return nodeTable;
+        String filename = location.isMem() ? null : location.getPath(name, extNodeCache);
+        NodeCacheMapped cache = NodeCacheMapped.create(filename, size, -1);
+        if ( params.getNodeCacheWarmup() )
+            cache.warmup();
+        return new NodeTableCacheMapped(nodeTable, cache);
+    }
+
+    public NodeTableCacheMapped(NodeTable nodeTable, NodeCacheMapped cache) {
+        super(nodeTable);
+        this.cache = cache;
+    }
+
+    public NodeCacheMapped getCache() {
+        return cache;
+    }
+
+    /** Check the cache against the committed length of the node data. */
+    public void checkDataLength(long dataLength) {
+        cache.checkDataLimit(dataLength);
+    }
+
+    @Override
+    public NodeId getAllocateNodeId(Node node) {
+        NodeId nodeId = cache.getNodeIdForNode(node);
+        if ( nodeId != null )
+            return nodeId;
+        nodeId = super.getAllocateNodeId(node);
+        record(node, nodeId);
+        return nodeId;
+    }
+
+    @Override
+    public NodeId getNodeIdForNode(Node node) {
+        NodeId nodeId = cache.getNodeIdForNode(node);
+        if ( nodeId != null )
+            return nodeId;
+        nodeId = super.getNodeIdForNode(node);
+        record(node, nodeId);
+        return nodeId;
+    }
+
+    @Override
+    public Node getNodeForNodeId(NodeId nodeId) {
+        if ( ! cacheable(nodeId) )
+            return super.getNodeForNodeId(nodeId);
+        Node node = cache.getNodeForNodeId(nodeId);
+        if ( node != null )
+            return node;
+        node = super.getNodeForNodeId(nodeId);
+        record(node, nodeId);
+        return node;
+    }
+
+    @Override
+    public boolean containsNode(Node node) {
+        return ! NodeId.isDoesNotExist(getNodeIdForNode(node));
+    }
+
+    @Override
+    public boolean containsNodeId(NodeId nodeId) {
+        return getNodeForNodeId(nodeId) != null;
+    }
+
+    @Override
+    public List<NodeId> bulkNodeToNodeId(List<Node> nodes, boolean withAllocation) {
+        return NodeTableOps.bulkNodeToNodeIdImpl(this, nodes, withAllocation);
+    }
+
+    @Override
+    public List<Node> bulkNodeIdToNode(List<NodeId> nodeIds) {
+        return NodeTableOps.bulkNodeIdToNodeImpl(this, nodeIds);
+    }
+
+    private static boolean cacheable(NodeId nodeId) {
+        return nodeId != null && ! NodeId.isDoesNotExist(nodeId) && ! NodeId.isAny(nodeId) && ! nodeId.isInline();
+    }
+
+    // Readers only see committed nodes so can update the cache directly.
+    // The writer buffers until commit.
+    private void record(Node node, NodeId nodeId) {
+        if ( node == null || ! cacheable(nodeId) )
+            return;
+        if ( writingThread != Thread.currentThread() ) {
+            cache.put(node, nodeId);
+            return;
+        }
+        if ( pendingNodes.size() >= MaxPending )
+            return;
+        pendingNodes.add(node);
+        pendingIds.add(nodeId);
+    }
+
+    // -- TransactionListener
+    @Override
+    public void notifyTxnStart(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            updateStart();
+    }
+
+    @Override
+    public void notifyPromoteFinish(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            updateStart();
+    }
+
+    @Override
+    public void notifyCommitFinish(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            updateCommit(transaction);
+    }
+
+    @Override
+    public void notifyCommitDurable(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            updateDurable(transaction);
+    }
+
+    @Override
+    public void notifyAbortStart(Transaction transaction) {
+        if ( transaction.isWriteTxn() )
+            updateAbort();
+    }
+    // -- TransactionListener
+
+    private void updateStart() {
+        clearPending();
+        writingThread = Thread.currentThread();
+    }
+
+    // Still holding the writer lock. Keep the mappings until the commit is durable.
+    private void updateCommit(Transaction transaction) {
+        writingThread = null;
+        synchronized(committed) {
+            committed.add(new Committed(transaction, new ArrayList<>(pendingNodes), new ArrayList<>(pendingIds)));
+        }
+        clearPending();
+    }
+
+    // Commits become durable in commit order so earlier commits are durable as well.
+    private void updateDurable(Transaction transaction) {
+        List<Committed> durable = new ArrayList<>();
+        synchronized(committed) {
+            if ( committed.stream().noneMatch(c->c.transaction == transaction) )
+                // Already done by a later commit in the same batch.
+                return;
+            Committed c;
+            do {
+                c = committed.removeFirst();
+                durable.add(c);
+            } while ( c.transaction != transaction );
+        }
+        for ( Committed c : durable ) {
+            for ( int i = 0 ; i < c.nodes.size() ; i++ )
+                cache.put(c.nodes.get(i), c.ids.get(i));
+        }
+        cache.sync();
+    }
+
+    private void updateAbort() {
+        writingThread = null;
+        clearPending();
+    }
+
+    private void clearPending() {
+        pendingNodes.clear();
+        pendingIds.clear();
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+        super.close();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheMapped/"+nodeTable.toString();
+    }
+}
@@ -34,18 +34,30 @@ public class NodeTableInline extends NodeTableWrapper
 
     public static NodeTable create(NodeTable nodeTable)
     {
-        return new NodeTableInline(nodeTable);
+        return create(nodeTable, false);
     }
 
-    private NodeTableInline(NodeTable nodeTable)
+    /**
+     * Create a {@code NodeTableInline}, choosing whether short strings are inlined.
+     * This must be the same choice each time a database is opened.
+     */
+    public static NodeTable create(NodeTable nodeTable, boolean inlineStrings)
+    {
+        return new NodeTableInline(nodeTable, inlineStrings);
+    }
+
+    private final boolean inlineStrings;
+
+    private NodeTableInline(NodeTable nodeTable, boolean inlineStrings)
     {
         super(nodeTable);
+        this.inlineStrings = inlineStrings;
     }
 
     @Override
     public final NodeId getAllocateNodeId(Node node)
     {
-        NodeId nid = NodeId.inline(node);
+        NodeId nid = NodeId.inline(node, inlineStrings);
         if ( nid != null ) return nid;
         return super.getAllocateNodeId(node);
     }
@@ -53,7 +65,7 @@ public class NodeTableInline extends NodeTableWrapper
     @Override
     public final NodeId getNodeIdForNode(Node node)
     {
-        NodeId nid = NodeId.inline(node);
+        NodeId nid = NodeId.inline(node, inlineStrings);
         if ( nid != null ) return nid;
         return super.getNodeIdForNode(node);
     }
@@ -18,6 +18,7 @@
 
 package org.apache.jena.tdb2.store.nodetable;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -25,24 +26,45 @@ import org.apache.jena.atlas.lib.NotImplemented;
 import org.apache.jena.atlas.lib.Pair;
 import org.apache.jena.dboe.base.record.Record;
 import org.apache.jena.dboe.index.Index;
+import org.apache.jena.dboe.transaction.txn.TransactionalSystem;
 import org.apache.jena.graph.Node;
+import org.apache.jena.system.Txn;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.lib.NodeLib;
 import org.apache.jena.tdb2.store.Hash;
 import org.apache.jena.tdb2.store.NodeId;
 import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /** A framework for a NodeTable based on native storage (string file and an index).
  *  This class manages the index, and delegates the node storage.
  */
 public abstract class NodeTableNative implements NodeTable
 {
+    private static Logger log = LoggerFactory.getLogger(NodeTableNative.class);
+    // Node hashes added to the filter, under the lock, per step of a rebuild.
+    private static final int RebuildBatchSize = 10_000;
     protected Index nodeHashToId;        // hash -> int
     private boolean syncNeeded = false;
+    // Optional filter to detect misses without going to the index.
+    private NodeBloomFilter filter = null;
 
     public NodeTableNative(Index nodeToId) {
         this.nodeHashToId = nodeToId;
     }
+
+    /**
+     * Set the Bloom filter for node hashes. If the filter is not {@linkplain NodeBloomFilter#isValid() valid},
+     * it is not used until it has been rebuilt by {@link #rebuildBloomFilter}.
+     */
+    public synchronized void setBloomFilter(NodeBloomFilter filter) {
+        this.filter = filter;
+    }
+
+    public NodeBloomFilter getBloomFilter() {
+        return filter;
+    }
     // ---- Public interface for Node <==> NodeId
 
     /** Get the Node for this NodeId, or null if none */
@@ -129,13 +151,21 @@ public abstract class NodeTableNative implements NodeTable
 
         synchronized (this)  // Pair to readNodeFromTable.
         {
-            // Key and value, or null
-            Record r2 = nodeHashToId.find(r);
-            if ( r2 != null )
-            {
-                // Found.  Get the NodeId.
-                NodeId id = NodeIdFactory.get(r2.getValue(), 0);
-                return id;
+            // A definite miss in the filter skips the index lookup.
+            // Until a rebuild has finished, go to the index.
+            boolean mayBePresent = true;
+            if ( filter != null && filter.isValid() )
+                mayBePresent = filter.mightContain(k);
+
+            if ( mayBePresent ) {
+                // Key and value, or null
+                Record r2 = nodeHashToId.find(r);
+                if ( r2 != null )
+                {
+                    // Found.  Get the NodeId.
+                    NodeId id = NodeIdFactory.get(r2.getValue(), 0);
+                    return id;
+                }
             }
 
             // Not found.
@@ -144,6 +174,8 @@ public abstract class NodeTableNative implements NodeTable
             // Write the node, which allocates an id for it.
             syncNeeded = true;
             NodeId id = writeNodeToTable(node);
+            if ( filter != null )
+                filter.add(k);
 
             // Update the r record with the new id.
             // r.value := id bytes;
@@ -156,6 +188,62 @@ public abstract class NodeTableNative implements NodeTable
         }
     }
 
+    /**
+     * If the Bloom filter is not {@linkplain NodeBloomFilter#isValid() valid}, rebuild it
+     * from the index in a background thread, in a read transaction of {@code txnSystem}.
+     * Lookups go to the index until the rebuild has finished. Nodes allocated
+     * meanwhile are added to the filter by the writer.
+     */
+    public void rebuildBloomFilter(TransactionalSystem txnSystem) {
+        if ( filter == null || filter.isValid() )
+            return;
+        Thread thread = new Thread(()->{
+            try {
+                Txn.executeRead(txnSystem, this::rebuildFilter);
+            } catch (RuntimeException ex) {
+                log.warn("Bloom filter not rebuilt: "+ex.getMessage());
+            }
+        }, "NodeBloomFilterRebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Add all the node hashes in the index to the filter. Hashes are added in
+    // batches, under the lock, so that node table operations, including adding
+    // new nodes to the filter, are not held up for the whole scan.
+    private void rebuildFilter() {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        Index index;
+        synchronized (this) {
+            index = nodeHashToId;
+        }
+        if ( index == null )
+            return;
+        Iterator<Record> iter = index.iterator();
+        List<byte[]> batch = new ArrayList<>(RebuildBatchSize);
+        while(iter.hasNext()) {
+            batch.add(iter.next().getKey());
+            if ( batch.size() >= RebuildBatchSize || ! iter.hasNext() ) {
+                synchronized (this) {
+                    if ( nodeHashToId == null )
+                        // Closed.
+                        return;
+                    batch.forEach(filter::add);
+                }
+                count += batch.size();
+                batch.clear();
+            }
+        }
+        synchronized (this) {
+            if ( nodeHashToId == null )
+                return;
+            filter.setValid();
+        }
+        long finish = System.currentTimeMillis();
+        log.info(String.format("Bloom filter rebuilt: %,d nodes in %,d ms", count, (finish-start)));
+    }
+
     // -------- NodeId<->Node
     // Synchronization:
     //   write: in accessIndex
@@ -178,9 +266,16 @@ public abstract class NodeTableNative implements NodeTable
             nodeHashToId.close();
             closeSub();
             nodeHashToId = null;
+            saveBloomFilter();
         }
     }
 
+    /** Write the Bloom filter file, if there is a filter and it is valid. */
+    public synchronized void saveBloomFilter() {
+        if ( filter != null )
+            filter.save();
+    }
+
     // Not synchronized
     @Override
     public Iterator<Pair<NodeId, Node>> all() { return all2(); }
@@ -18,7 +18,9 @@
 
 package org.apache.jena.tdb2.store.nodetupletable;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.Closeable;
 import org.apache.jena.atlas.lib.Sync;
@@ -46,6 +48,10 @@ public interface NodeTupleTable extends Sync, Closeable
     /** Find by NodeId. */
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> ids);
 
+    /** Find by NodeId, as iterators over disjoint parts of the data, for use by several threads. */
+    public default List<Iterator<Tuple<NodeId>>> findPartitioned(Tuple<NodeId> ids, int numPartitions)
+    { return Collections.singletonList(find(ids)); }
+
     /** Find all tuples */
     public Iterator<Tuple<NodeId>> findAll();
 
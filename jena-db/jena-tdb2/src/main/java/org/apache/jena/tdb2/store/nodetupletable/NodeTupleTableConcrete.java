@@ -20,7 +20,9 @@ package org.apache.jena.tdb2.store.nodetupletable;
 
 import static java.lang.String.format;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.atlas.lib.tuple.Tuple;
@@ -163,6 +165,19 @@ public class NodeTupleTableConcrete implements NodeTupleTable
         } finally { finishRead(); }
     }
 
+    @Override
+    public List<Iterator<Tuple<NodeId>>> findPartitioned(Tuple<NodeId> tuple, int numPartitions)
+    {
+        try {
+            startRead();
+            List<Iterator<Tuple<NodeId>>> parts = tupleTable.findPartitioned(tuple, numPartitions);
+            List<Iterator<Tuple<NodeId>>> x = new ArrayList<>(parts.size());
+            for ( Iterator<Tuple<NodeId>> iter : parts )
+                x.add(iteratorControl(iter));
+            return x;
+        } finally { finishRead(); }
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> findAll()
     {
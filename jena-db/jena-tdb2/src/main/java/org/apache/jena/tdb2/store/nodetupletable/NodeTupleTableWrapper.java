@@ -19,6 +19,7 @@
 package org.apache.jena.tdb2.store.nodetupletable;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.graph.Node;
@@ -60,6 +61,10 @@ public class NodeTupleTableWrapper implements NodeTupleTable
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> tuple)
     { return nodeTupleTable.find(tuple); }
 
+    @Override
+    public List<Iterator<Tuple<NodeId>>> findPartitioned(Tuple<NodeId> tuple, int numPartitions)
+    { return nodeTupleTable.findPartitioned(tuple, numPartitions); }
+
     @Override
     public Iterator<Tuple<NodeId>> findAsNodeIds(Node... nodes)
     { return nodeTupleTable.findAsNodeIds(nodes); }
@@ -19,7 +19,9 @@
 package org.apache.jena.tdb2.store.tupletable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.Closeable;
 import org.apache.jena.atlas.lib.Sync;
@@ -55,6 +57,16 @@ public interface TupleIndex extends Sync, Closeable
      */
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern);
 
+    /** Find all matching tuples, as iterators over disjoint parts of the index.
+     *  Together, the iterators return the same tuples as {@link #find}.
+     *  The iterators are created in the calling thread (and transaction);
+     *  they can then be consumed by other threads.
+     *  The default is not to partition.
+     */
+    public default List<Iterator<Tuple<NodeId>>> findPartitioned(Tuple<NodeId> pattern, int numPartitions) {
+        return Collections.singletonList(find(pattern));
+    }
+
     /** return an iterator of everything */
     public Iterator<Tuple<NodeId>> all();
 
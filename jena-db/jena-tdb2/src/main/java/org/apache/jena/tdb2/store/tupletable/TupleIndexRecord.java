@@ -21,8 +21,11 @@ package org.apache.jena.tdb2.store.tupletable;
 import static java.lang.String.format;
 import static org.apache.jena.tdb2.sys.SystemTDB.SizeOfNodeId;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter;
@@ -243,6 +246,62 @@ public class TupleIndexRecord extends TupleIndexBase
         return tuples;
     }
 
+    @Override
+    public List<Iterator<Tuple<NodeId>>> findPartitioned(Tuple<NodeId> patternNaturalOrder, int numPartitions) {
+        if ( numPartitions <= 1 )
+            return Collections.singletonList(find(patternNaturalOrder));
+        Tuple<NodeId> pattern = tupleMap.map(patternNaturalOrder);
+
+        int numSlots = 0;
+        int leadingIdx = -1;
+        boolean leading = true;
+        Record minRec = factory.createKeyOnly();
+        Record maxRec = factory.createKeyOnly();
+        for ( int i = 0; i < pattern.len() ; i++ ) {
+            NodeId X = pattern.get(i);
+            if ( NodeId.isAny(X) ) {
+                leading = false;
+                continue;
+            }
+            numSlots++;
+            if ( leading ) {
+                leadingIdx = i;
+                NodeIdFactory.set(X, minRec.getKey(), i*SizeOfNodeId);
+                NodeIdFactory.set(X, maxRec.getKey(), i*SizeOfNodeId);
+            }
+        }
+        // Existence test.
+        if ( numSlots == pattern.len() )
+            return Collections.singletonList(find(patternNaturalOrder));
+
+        if ( leadingIdx < 0 ) {
+            minRec = null;
+            maxRec = null;
+        } else
+            NodeIdFactory.setNext(pattern.get(leadingIdx), maxRec.getKey(), leadingIdx*SizeOfNodeId);
+
+        List<Record> keys = index.partitionKeys(minRec, maxRec, numPartitions);
+        if ( keys.isEmpty() )
+            return Collections.singletonList(find(patternNaturalOrder));
+
+        boolean needsScan = ( leadingIdx < numSlots-1 );
+        List<Iterator<Tuple<NodeId>>> parts = new ArrayList<>(keys.size()+1);
+        Record lo = minRec;
+        for ( Record k : keys ) {
+            parts.add(partition(lo, k, needsScan, patternNaturalOrder));
+            lo = k;
+        }
+        parts.add(partition(lo, maxRec, needsScan, patternNaturalOrder));
+        return parts;
+    }
+
+    private Iterator<Tuple<NodeId>> partition(Record lo, Record hi, boolean needsScan, Tuple<NodeId> patternNaturalOrder) {
+        Iterator<Tuple<NodeId>> tuples = index.iterator(lo, hi, recordMapper);
+        if ( needsScan )
+            tuples = scan(tuples, patternNaturalOrder);
+        return tuples;
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> all()
     {
@@ -20,6 +20,7 @@ package org.apache.jena.tdb2.store.tupletable;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.lib.tuple.TupleMap;
@@ -61,6 +62,11 @@ public class TupleIndexWrapper implements TupleIndex
         return index.find(pattern);
     }
 
+    @Override
+    public List<Iterator<Tuple<NodeId>>> findPartitioned(Tuple<NodeId> pattern, int numPartitions) {
+        return index.findPartitioned(pattern, numPartitions);
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> all() {
         return index.all();
@@ -20,6 +20,7 @@ package org.apache.jena.tdb2.store.tupletable;
 
 import static java.lang.String.format;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -146,7 +147,32 @@ public class TupleTable implements Sync, Closeable
 
         if ( numSlots == 0 )
             return scanAllIndex.all();
+        return chooseIndex(pattern).find(pattern);
+    }
+
+    /**
+     * Find all matching tuples, as iterators over disjoint parts of an index,
+     * for use by several threads.
+     * @see TupleIndex#findPartitioned
+     */
+    public List<Iterator<Tuple<NodeId>>> findPartitioned(Tuple<NodeId> pattern, int numPartitions) {
+        if ( tupleLen != pattern.len() )
+            throw new TDBException(format("Mismatch: finding tuple of length %d in a table of tuples of length %d", pattern.len(), tupleLen));
+
+        int numSlots = 0;
+        for ( int i = 0; i < tupleLen ; i++ ) {
+            NodeId x = pattern.get(i);
+            if ( ! NodeId.isAny(x) )
+                numSlots++;
+            if ( NodeId.isDoesNotExist(x))
+                return Collections.singletonList(Iter.nullIterator());
+        }
+
+        TupleIndex index = ( numSlots == 0 ) ? scanAllIndex : chooseIndex(pattern);
+        return index.findPartitioned(pattern, numPartitions);
+    }
 
+    private TupleIndex chooseIndex(Tuple<NodeId> pattern) {
         int indexNumSlots = 0;
         TupleIndex index = null;
         for ( TupleIndex idx : indexes ) {
@@ -162,7 +188,7 @@ public class TupleTable implements Sync, Closeable
         if ( index == null )
             // No index at all.  Scan.
             index = indexes[0];
-        return index.find(pattern);
+        return index;
     }
 
     @Override
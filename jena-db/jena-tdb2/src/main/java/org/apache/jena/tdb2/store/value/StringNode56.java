@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.atlas.lib.BitsLong;
+
+/**
+ * Short strings, encoded as UTF-8 in 56 bits.
+ * <ul>
+ * <li>Strings (xsd:string): up to 7 bytes of UTF-8, zero padded.
+ * <li>Language tagged strings: 8 bits index into a fixed table of language tags,
+ *     then up to 6 bytes of UTF-8, zero padded.
+ * </ul>
+ * The zero byte is the padding so strings containing U+0000 are never encoded.
+ */
+public class StringNode56 {
+    /** Value returned when a string can not be encoded. */
+    public static final long NO_ENCODING = -1;
+
+    public static final int  LEN_STRING     = 7;
+    public static final int  LEN_LANGSTRING = 6;
+
+    /**
+     * Language tags that can be inlined, with their on-disk index (array index + 1).
+     * Only exact, case-sensitive, matches are encoded.
+     * This table is written into databases: only ever add to the end.
+     */
+    private static final String[] langTags = {
+        "en", "de", "fr", "es", "it", "nl", "pt", "ru", "ja", "zh",
+        "ar", "pl", "sv", "da", "fi", "no", "nb", "nn", "cs", "el",
+        "hu", "ro", "tr", "ko", "he", "hi", "uk", "bg", "hr", "sk",
+        "sl", "et", "lv", "lt", "ga", "mt", "cy", "eu", "ca", "gl",
+        "is", "la", "sr", "fa", "id", "ms", "th", "vi", "ur", "bn",
+        "en-GB", "en-US", "en-gb", "en-us", "de-DE", "de-AT", "de-CH",
+        "fr-FR", "fr-CA", "es-ES", "pt-BR", "pt-PT", "zh-CN", "zh-TW",
+        "zh-Hans", "zh-Hant", "sr-Latn", "sr-Cyrl", "x-default"
+    };
+
+    private static final Map<String, Integer> langIndex = new HashMap<>();
+    static {
+        for ( int i = 0 ; i < langTags.length ; i++ )
+            langIndex.put(langTags[i], i+1);
+    }
+
+    /** Encode a string, return {@link #NO_ENCODING} if it does not fit. */
+    public static long packString(String lex) {
+        return packBytes(lex, LEN_STRING);
+    }
+
+    public static String unpackString(long v) {
+        return unpackBytes(v, LEN_STRING);
+    }
+
+    /** Encode a language tagged string, return {@link #NO_ENCODING} if it does not fit. */
+    public static long packLangString(String lex, String lang) {
+        Integer idx = langIndex.get(lang);
+        if ( idx == null )
+            return NO_ENCODING;
+        long v = packBytes(lex, LEN_LANGSTRING);
+        if ( v == NO_ENCODING )
+            return NO_ENCODING;
+        return BitsLong.pack(v, idx, 8*LEN_LANGSTRING, 8*LEN_STRING);
+    }
+
+    public static String unpackLangStringLex(long v) {
+        return unpackBytes(v, LEN_LANGSTRING);
+    }
+
+    public static String unpackLangStringLang(long v) {
+        int idx = (int)BitsLong.unpack(v, 8*LEN_LANGSTRING, 8*LEN_STRING);
+        if ( idx < 1 || idx > langTags.length )
+            return null;
+        return langTags[idx-1];
+    }
+
+    // Bytes, first byte in the highest position of the length.
+    private static long packBytes(String lex, int maxLen) {
+        // UTF-8 is at least one byte per char.
+        if ( lex.length() > maxLen )
+            return NO_ENCODING;
+        if ( lex.indexOf('\u0000') >= 0 )
+            return NO_ENCODING;
+        byte[] b = lex.getBytes(StandardCharsets.UTF_8);
+        if ( b.length > maxLen )
+            return NO_ENCODING;
+        // Unpaired surrogates do not survive UTF-8 encoding.
+        if ( ! lex.equals(new String(b, StandardCharsets.UTF_8)) )
+            return NO_ENCODING;
+        long v = 0;
+        for ( int i = 0 ; i < b.length ; i++ ) {
+            long x = b[i] & 0xFFL;
+            v = v | (x << 8*(maxLen-1-i));
+        }
+        return v;
+    }
+
+    private static String unpackBytes(long v, int maxLen) {
+        byte[] b = new byte[maxLen];
+        int len = 0;
+        for ( int i = 0 ; i < maxLen ; i++ ) {
+            byte x = (byte)((v >>> 8*(maxLen-1-i)) & 0xFF);
+            if ( x == 0 )
+                break;
+            b[i] = x;
+            len++;
+        }
+        return new String(b, 0, len, StandardCharsets.UTF_8);
+    }
+}
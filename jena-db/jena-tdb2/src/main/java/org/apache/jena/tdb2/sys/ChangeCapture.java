@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.sys;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.jena.dboe.transaction.txn.Transaction;
+import org.apache.jena.dboe.transaction.txn.TransactionListener;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.DatasetChanges;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.QuadAction;
+
+/**
+ * Record the committed changes to a database while it is being compacted online.
+ * <p>
+ * This is both the {@link DatasetChanges} monitor of the storage, which sees each
+ * add and delete as it happens in the write transaction, and a
+ * {@link TransactionListener} on the transaction coordinator, which is told whether
+ * the write transaction committed or aborted. Changes are held for the
+ * transaction and moved to the log when the commit is durable; they are dropped on abort.
+ * <p>
+ * Adds and deletes are idempotent so the log can be replayed onto any state of the
+ * database from the point the capture started, including a snapshot that already
+ * includes some of the logged changes.
+ * <p>
+ * Any monitor already set on the storage is passed every change as well, so
+ * it continues to work during compaction.
+ */
+/*package*/ class ChangeCapture implements DatasetChanges, TransactionListener {
+
+    /*package*/ static class Change {
+        final QuadAction action;
+        final Quad quad;
+        Change(QuadAction action, Quad quad) {
+            this.action = action;
+            this.quad = quad;
+        }
+    }
+
+    // Monitor set before the capture started, or null.
+    private final DatasetChanges next;
+    // Only touched by the (single) writer.
+    private List<Change> pending = new ArrayList<>();
+    // Changes of commits that are not yet durable, in commit order.
+    // Guarded by "this".
+    private final Deque<Committed> committed = new ArrayDeque<>();
+    // Durable changes, in commit order.
+    private final Deque<Change> log = new ArrayDeque<>();
+
+    private static class Committed {
+        final Transaction transaction;
+        final List<Change> changes;
+        Committed(Transaction transaction, List<Change> changes) {
+            this.transaction = transaction;
+            this.changes = changes;
+        }
+    }
+
+    /*package*/ ChangeCapture(DatasetChanges next) {
+        this.next = next;
+    }
+
+    /** The monitor this capture passes changes on to, or null. */
+    /*package*/ DatasetChanges next() {
+        return next;
+    }
+
+    @Override
+    public void start() {
+        if ( next != null )
+            next.start();
+    }
+
+    @Override
+    public void change(QuadAction qaction, Node g, Node s, Node p, Node o) {
+        if ( next != null )
+            next.change(qaction, g, s, p, o);
+        switch (qaction) {
+            case ADD: case DELETE:
+                if ( g == null )
+                    g = Quad.defaultGraphIRI;
+                pending.add(new Change(qaction, Quad.create(g, s, p, o)));
+                break;
+            default:
+                // NO_ADD, NO_DELETE
+                break;
+        }
+    }
+
+    @Override
+    public void finish() {
+        if ( next != null )
+            next.finish();
+    }
+
+    @Override
+    public void reset() {
+        if ( next != null )
+            next.reset();
+    }
+
+    // Still holding the writer lock. Keep the changes until the commit is durable.
+    @Override
+    public void notifyCommitFinish(Transaction transaction) {
+        if ( ! transaction.isWriteTxn() )
+            return;
+        synchronized(this) {
+            committed.add(new Committed(transaction, pending));
+        }
+        pending = new ArrayList<>();
+    }
+
+    // Commits become durable in commit order so earlier commits are durable as well.
+    @Override
+    public synchronized void notifyCommitDurable(Transaction transaction) {
+        if ( ! transaction.isWriteTxn() )
+            return;
+        if ( committed.stream().noneMatch(c->c.transaction == transaction) )
+            // Already done by a later commit in the same batch.
+            return;
+        Committed c;
+        do {
+            c = committed.removeFirst();
+            log.addAll(c.changes);
+        } while ( c.transaction != transaction );
+    }
+
+    @Override
+    public void notifyAbortFinish(Transaction transaction) {
+        if ( ! transaction.isWriteTxn() )
+            return;
+        pending.clear();
+    }
+
+    /** Number of committed changes not yet taken from the log. */
+    /*package*/ synchronized long size() {
+        return log.size();
+    }
+
+    /** Take up to {@code max} changes from the log. */
+    /*package*/ synchronized List<Change> take(int max) {
+        int n = Math.min(max, log.size());
+        List<Change> x = new ArrayList<>(n);
+        for ( int i = 0 ; i < n ; i++ )
+            x.add(log.removeFirst());
+        return x;
+    }
+
+    /** Apply changes to a dataset. Must be called inside a write transaction on {@code dsg}. */
+    /*package*/ static void apply(List<Change> changes, DatasetGraph dsg) {
+        for ( Change c : changes ) {
+            if ( c.action == QuadAction.ADD )
+                dsg.add(c.quad);
+            else
+                dsg.delete(c.quad);
+        }
+    }
+}
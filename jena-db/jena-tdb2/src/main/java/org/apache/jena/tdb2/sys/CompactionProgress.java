@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.sys;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of an online compaction; see {@link DatabaseOps#compactOnline}.
+ * <p>
+ * The counters are updated by the compaction thread and can be read at any time
+ * from other threads.
+ */
+public class CompactionProgress {
+    public enum Phase {
+        /** Not started yet. */
+        PENDING,
+        /** Copying a snapshot of the database. */
+        COPY,
+        /** Applying changes committed since the snapshot was taken. */
+        CATCHUP,
+        /** Writers are blocked while the last changes are applied and the database is switched. */
+        SWITCH,
+        /** Finished; the compacted database is in use. */
+        FINISHED,
+        /** Compaction failed; the original database is still in use. */
+        FAILED
+    }
+
+    private volatile Phase phase = Phase.PENDING;
+    private volatile long startTime = -1;
+    private volatile long finishTime = -1;
+    private volatile long changesPending = 0;
+    private volatile Throwable failure = null;
+    private final AtomicLong quadsCopied = new AtomicLong(0);
+    private final AtomicLong changesApplied = new AtomicLong(0);
+
+    public CompactionProgress() {}
+
+    public Phase getPhase()             { return phase; }
+
+    /** Time, as milliseconds since the epoch, compaction started, or -1. */
+    public long getStartTime()          { return startTime; }
+
+    /** Time, as milliseconds since the epoch, compaction finished or failed, or -1. */
+    public long getFinishTime()         { return finishTime; }
+
+    /** Number of quads (and triples) copied from the snapshot. */
+    public long getQuadsCopied()        { return quadsCopied.get(); }
+
+    /** Number of captured changes applied to the compacted database. */
+    public long getChangesApplied()     { return changesApplied.get(); }
+
+    /** Number of captured changes, at the last check, waiting to be applied. */
+    public long getChangesPending()     { return changesPending; }
+
+    /** The cause of a failed compaction, or null. */
+    public Throwable getFailure()       { return failure; }
+
+    public boolean isFinished() {
+        return phase == Phase.FINISHED || phase == Phase.FAILED;
+    }
+
+    /*package*/ void start() {
+        startTime = System.currentTimeMillis();
+        phase = Phase.COPY;
+    }
+
+    /*package*/ void phase(Phase phase) {
+        this.phase = phase;
+    }
+
+    /*package*/ void copied(long n) {
+        quadsCopied.addAndGet(n);
+    }
+
+    /*package*/ void applied(long n) {
+        changesApplied.addAndGet(n);
+    }
+
+    /*package*/ void pending(long n) {
+        changesPending = n;
+    }
+
+    /*package*/ void finish() {
+        finishTime = System.currentTimeMillis();
+        phase = Phase.FINISHED;
+    }
+
+    /*package*/ void failed(Throwable th) {
+        failure = th;
+        finishTime = System.currentTimeMillis();
+        phase = Phase.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Compaction[%s copied=%d applied=%d pending=%d]",
+                             phase, getQuadsCopied(), getChangesApplied(), getChangesPending());
+    }
+}
@@ -20,25 +20,30 @@ package org.apache.jena.tdb2.sys;
 
 import java.io.*;
 import java.nio.file.*;
+import java.util.Iterator;
 import java.util.List;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.atlas.lib.DateTimeUtils;
 import org.apache.jena.atlas.lib.Pair;
 import org.apache.jena.atlas.logging.Log;
 import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.dboe.storage.StoragePrefixes;
 import org.apache.jena.dboe.sys.Names;
 import org.apache.jena.dboe.transaction.txn.TransactionCoordinator;
-import org.apache.jena.dboe.transaction.txn.TransactionalSystem;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.system.Txn;
 import org.apache.jena.tdb2.TDBException;
 import org.apache.jena.tdb2.params.StoreParams;
 import org.apache.jena.tdb2.store.DatasetGraphSwitchable;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.store.StorageTDB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -171,36 +176,67 @@ public class DatabaseOps {
     public static void compact(DatasetGraphSwitchable container) {
         checkSupportsAdmin(container);
         synchronized(compactionLock) {
-            Path base = container.getContainerPath();
-            Path db1 = findLocation(base, dbPrefix);
-            Location loc1 = IOX.asLocation(db1);
-
-            // -- Checks
-            Location loc1a = ((DatasetGraphTDB)container.get()).getLocation();
-            if ( loc1a.isMem() ) {}
-            if ( ! loc1a.exists() )
-                throw new TDBException("No such location: "+loc1a);
-
-            // Is this the same database location?
-            if ( ! loc1.equals(loc1a) )
-                throw new TDBException("Inconsistent (not latested?) : "+loc1a+" : "+loc1);
-            // -- Checks
-
-            // Version
-            int v = IOX.extractIndex(db1.getFileName().toString(), dbPrefix, SEP);
-            String next = FilenameUtils.filename(dbPrefix, SEP, v+1);
-
-            Path db2 = db1.getParent().resolve(next);
-            IOX.createDirectory(db2);
-            Location loc2 = IOX.asLocation(db2);
-            LOG.debug(String.format("Compact %s -> %s\n", db1.getFileName(), db2.getFileName()));
-
-            compact(container, loc1, loc2);
+            Pair<Location, Location> locations = nextGeneration(container);
+            compact(container, locations.getLeft(), locations.getRight());
         }
     }
 
-    // XXX Later - switch in a recording dataset, not block writers, and reply after
-    // switch over before releasing the new dataset to the container.
+    /**
+     * Compact a database while it remains in use for reading and writing.
+     * <p>
+     * A snapshot of the database is copied into the new generation in a series of
+     * bounded write transactions, while changes committed to the live database are
+     * captured. The captured changes are then applied to the new generation until few
+     * remain; only the final step, applying the last changes and switching over, needs
+     * exclusive access to the database. Captured changes are held in memory until
+     * they have been applied.
+     * <p>
+     * This operation runs in the calling thread; {@code progress} can be read from
+     * other threads.
+     */
+    public static void compactOnline(DatasetGraphSwitchable container, CompactionProgress progress) {
+        checkSupportsAdmin(container);
+        synchronized(compactionLock) {
+            Pair<Location, Location> locations;
+            try {
+                locations = nextGeneration(container);
+            } catch (RuntimeException ex) {
+                progress.failed(ex);
+                throw ex;
+            }
+            compactOnline(container, locations.getLeft(), locations.getRight(), progress);
+        }
+    }
+
+    /** Check the container and create the directory for the next generation. */
+    private static Pair<Location, Location> nextGeneration(DatasetGraphSwitchable container) {
+        Path base = container.getContainerPath();
+        Path db1 = findLocation(base, dbPrefix);
+        Location loc1 = IOX.asLocation(db1);
+
+        // -- Checks
+        Location loc1a = ((DatasetGraphTDB)container.get()).getLocation();
+        if ( loc1a.isMem() ) {}
+        if ( ! loc1a.exists() )
+            throw new TDBException("No such location: "+loc1a);
+
+        // Is this the same database location?
+        if ( ! loc1.equals(loc1a) )
+            throw new TDBException("Inconsistent (not latested?) : "+loc1a+" : "+loc1);
+        // -- Checks
+
+        // Version
+        int v = IOX.extractIndex(db1.getFileName().toString(), dbPrefix, SEP);
+        String next = FilenameUtils.filename(dbPrefix, SEP, v+1);
+
+        Path db2 = db1.getParent().resolve(next);
+        IOX.createDirectory(db2);
+        Location loc2 = IOX.asLocation(db2);
+        LOG.debug(String.format("Compact %s -> %s\n", db1.getFileName(), db2.getFileName()));
+        return Pair.create(loc1, loc2);
+    }
+
+    // See compactOnline for compaction that records changes rather than blocking writers.
     // Maybe copy indexes and switch the DSG over (drop switchable).
 
     /** Copy the latest version from one location to another. */
@@ -209,22 +245,9 @@ public class DatabaseOps {
             throw new TDBException("Compact involves a memory location: "+loc1+" : "+loc2);
         
         copyFiles(loc1, loc2);
-        StoreConnection srcConn = StoreConnection.connectExisting(loc1);
-
-        if ( srcConn == null )
-            throw new TDBException("No database at location : "+loc1);
-        if ( ! ( container.get() instanceof DatasetGraphTDB ) )
-            throw new TDBException("Not a TDB2 database in DatasetGraphSwitchable");
+        DatasetGraphTDB dsgBase = currentDatabase(container, loc1);
+        DatasetGraphTDB dsgCurrent = dsgBase;
 
-        DatasetGraphTDB dsgCurrent = (DatasetGraphTDB)container.get();
-        if ( ! dsgCurrent.getLocation().equals(loc1) )
-            throw new TDBException("Inconsistent locations for base : "+dsgCurrent.getLocation()+" , "+dsgCurrent.getLocation());
-
-        DatasetGraphTDB dsgBase = srcConn.getDatasetGraphTDB();
-        if ( dsgBase != dsgCurrent )
-            throw new TDBException("Inconsistent datasets : "+dsgCurrent.getLocation()+" , "+dsgBase.getLocation());
-
-        TransactionalSystem txnSystem = dsgBase.getTxnSystem();
         TransactionCoordinator txnMgr = dsgBase.getTxnSystem().getTxnMgr();
 
         // Stop update.  On exit there are no writers and none will start until switched over.
@@ -255,6 +278,163 @@ public class DatabaseOps {
         StoreConnection.release(dsgBase.getLocation());
     }
 
+    /** The database in the container, checked to be the one at {@code loc1}. */
+    private static DatasetGraphTDB currentDatabase(DatasetGraphSwitchable container, Location loc1) {
+        StoreConnection srcConn = StoreConnection.connectExisting(loc1);
+
+        if ( srcConn == null )
+            throw new TDBException("No database at location : "+loc1);
+        if ( ! ( container.get() instanceof DatasetGraphTDB ) )
+            throw new TDBException("Not a TDB2 database in DatasetGraphSwitchable");
+
+        DatasetGraphTDB dsgCurrent = (DatasetGraphTDB)container.get();
+        if ( ! dsgCurrent.getLocation().equals(loc1) )
+            throw new TDBException("Inconsistent locations for base : "+dsgCurrent.getLocation()+" , "+dsgCurrent.getLocation());
+
+        DatasetGraphTDB dsgBase = srcConn.getDatasetGraphTDB();
+        if ( dsgBase != dsgCurrent )
+            throw new TDBException("Inconsistent datasets : "+dsgCurrent.getLocation()+" , "+dsgBase.getLocation());
+        return dsgBase;
+    }
+
+    /** Number of quads or changes in each write transaction of an online compaction. */
+    private static final int CompactChunkSize = 100_000;
+    /** Online compaction goes to the switch-over step when no more than this number of changes are waiting. */
+    private static final int CompactSwitchThreshold = 10_000;
+
+    /** Compact, from one location to another, while the database remains in use. */
+    private static void compactOnline(DatasetGraphSwitchable container, Location loc1, Location loc2, CompactionProgress progress) {
+        progress.start();
+        DatasetGraphTDB dsgBase;
+        try {
+            if ( loc1.isMem() || loc2.isMem() )
+                throw new TDBException("Compact involves a memory location: "+loc1+" : "+loc2);
+            copyFiles(loc1, loc2);
+            dsgBase = currentDatabase(container, loc1);
+        } catch (RuntimeException ex) {
+            progress.failed(ex);
+            IO.deleteAll(IOX.asPath(loc2));
+            throw ex;
+        }
+
+        TransactionCoordinator txnMgr = dsgBase.getTxnSystem().getTxnMgr();
+        StorageTDB storage = (StorageTDB)dsgBase.getData();
+
+        // Start capturing changes. This waits for active transactions to finish.
+        // Changes committed after this point are in the capture log, and the
+        // snapshot taken for the copy may include some of them.
+        ChangeCapture capture = startCapture(txnMgr, storage);
+
+        DatasetGraphTDB dsgCompact = null;
+        boolean exclusive = false;
+        boolean switched = false;
+        try {
+            dsgCompact = StoreConnection.connectCreate(loc2).getDatasetGraphTDB();
+            copySnapshot(dsgBase, dsgCompact, progress);
+
+            // Catch up with the live database.
+            progress.phase(CompactionProgress.Phase.CATCHUP);
+            while ( capture.size() > CompactSwitchThreshold )
+                applyChanges(capture, dsgCompact, progress);
+
+            // No active transactions on the old database from here on.
+            progress.phase(CompactionProgress.Phase.SWITCH);
+            txnMgr.startExclusiveMode();
+            exclusive = true;
+            while ( capture.size() > 0 )
+                applyChanges(capture, dsgCompact, progress);
+            // Prefix changes are not captured. There are few prefixes so copy them now.
+            // This thread holds the exclusive mode lock and it can start a read transaction.
+            DatasetGraphTDB dsg2 = dsgCompact;
+            Txn.executeRead(dsgBase, ()->
+                Txn.executeWrite(dsg2, ()->replacePrefixes(dsgBase.getPrefixes(), dsg2.getPrefixes()))
+            );
+
+            TransactionCoordinator txnMgr2 = dsgCompact.getTxnSystem().getTxnMgr();
+            txnMgr2.startExclusiveMode();
+            try {
+                // No transactions on either database.
+                // Switch.
+                if ( ! container.change(dsgBase, dsgCompact) ) {
+                    Log.warn(DatabaseOps.class, "Inconistent: old datasetgraph not as expected");
+                    container.set(dsgCompact);
+                }
+                switched = true;
+            } finally {
+                txnMgr2.finishExclusiveMode();
+            }
+        } catch (RuntimeException | Error ex) {
+            LOG.warn("Online compaction failed: "+ex.getMessage());
+            progress.failed(ex);
+            throw ex;
+        } finally {
+            stopCapture(txnMgr, storage, capture);
+            if ( ! switched ) {
+                if ( exclusive )
+                    txnMgr.finishExclusiveMode();
+                if ( dsgCompact != null )
+                    StoreConnection.release(loc2);
+                IO.deleteAll(IOX.asPath(loc2));
+            }
+        }
+        // New database running.
+        // As for compact(), the old database stays in exclusive mode.
+        StoreConnection.release(dsgBase.getLocation());
+        progress.finish();
+    }
+
+    /** Start capturing changes, passing them on to any monitor already set. */
+    private static ChangeCapture startCapture(TransactionCoordinator txnMgr, StorageTDB storage) {
+        ChangeCapture[] capture = new ChangeCapture[1];
+        txnMgr.modifyConfig(()->{
+            capture[0] = new ChangeCapture(storage.getMonitor());
+            txnMgr.addListener(capture[0]);
+            storage.setMonitor(capture[0]);
+        });
+        return capture[0];
+    }
+
+    /** Stop capturing changes and put back the monitor that was set when capture started. */
+    private static void stopCapture(TransactionCoordinator txnMgr, StorageTDB storage, ChangeCapture capture) {
+        txnMgr.modifyConfig(()->{
+            if ( storage.getMonitor() == capture )
+                storage.setMonitor(capture.next());
+            txnMgr.removeListener(capture);
+        });
+    }
+
+    /** Copy a snapshot of {@code dsgSrc}, committing every {@link #CompactChunkSize} quads. */
+    private static void copySnapshot(DatasetGraphTDB dsgSrc, DatasetGraphTDB dsgDst, CompactionProgress progress) {
+        Txn.executeRead(dsgSrc, ()->{
+            Iterator<Quad> iter = dsgSrc.find();
+            while ( iter.hasNext() ) {
+                long n = Txn.calculateWrite(dsgDst, ()->{
+                    long count = 0;
+                    while ( count < CompactChunkSize && iter.hasNext() ) {
+                        dsgDst.add(iter.next());
+                        count++;
+                    }
+                    return count;
+                });
+                progress.copied(n);
+            }
+        });
+    }
+
+    /** Apply a chunk of captured changes. */
+    private static void applyChanges(ChangeCapture capture, DatasetGraphTDB dsgDst, CompactionProgress progress) {
+        List<ChangeCapture.Change> changes = capture.take(CompactChunkSize);
+        Txn.executeWrite(dsgDst, ()->ChangeCapture.apply(changes, dsgDst));
+        progress.applied(changes.size());
+        progress.pending(capture.size());
+    }
+
+    /** Make the prefixes of {@code dst} the same as those of {@code src}. */
+    private static void replacePrefixes(StoragePrefixes src, StoragePrefixes dst) {
+        Iter.toList(dst.listGraphNodes()).forEach(dst::deleteAll);
+        src.listMappings().forEachRemaining(p->dst.add(p.getLeft(), p.getRight().getPrefix(), p.getRight().getUri()));
+    }
+
     /** Copy certain configuration files from {@code loc1} to {@code loc2}. */
     private static void copyFiles(Location loc1, Location loc2) {
         FileFilter copyFiles  = (pathname)->{
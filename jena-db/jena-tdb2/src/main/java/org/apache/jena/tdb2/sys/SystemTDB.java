@@ -124,6 +124,18 @@ public class SystemTDB
     /** Experimental : triple and quad filtering at scan level */
     public static final Symbol symTupleFilter       = allocSymbol("tupleFilter");
 
+    /**
+     * Number of parts, scanned in parallel, to split the index scan for the first
+     * pattern of a basic graph pattern into. 1 (the default) means no parallel scan.
+     */
+    public static final Symbol symParallelScan      = allocSymbol("parallelScan");
+
+    /**
+     * Evaluate {@code p+} and {@code p*} property paths on NodeIds (default true).
+     * Set to false to use the general property path engine.
+     */
+    public static final Symbol symPathNodeId        = allocSymbol("pathNodeId");
+
     private static final String PropertyFileKey1    = tdbPropertyRoot+".settings";
     private static final String PropertyFileKey2    = tdbSymbolPrefix+":settings";
 
@@ -185,6 +197,9 @@ public class SystemTDB
     /** Size of read block cache (32 bit systems only). Per file. */
     public static final int BlockReadCacheSize      = intValue("BlockReadCacheSize", 5*1000);
 
+    /** Maximum number of threads, shared by all queries, for parallel index scans ({@link #symParallelScan}). */
+    public static final int ParallelScanThreads     = intValue("ParallelScanThreads", Runtime.getRuntime().availableProcessors());
+
     // ---- Misc
 
 //    /** Number of adds/deletes between calls to sync (-ve to disable) */
@@ -95,6 +95,43 @@ public class TestStoreParams {
         assertArrayEquals(expected, params.getTripleIndexes());
     }
 
+    @Test public void store_params_15() {
+        StoreParams params = StoreParams.builder().inlineShortStrings(true).build();
+        StoreParams params2 = roundTrip(params);
+        assertEqualsStoreParams(params,params2);
+        assertTrue(params2.isInlineShortStrings());
+        assertFalse(StoreParams.getDftStoreParams().isInlineShortStrings());
+    }
+
+    @Test public void store_params_16() {
+        StoreParams params = StoreParams.builder().compressedLeaves(true).build();
+        StoreParams params2 = roundTrip(params);
+        assertEqualsStoreParams(params,params2);
+        assertTrue(params2.isCompressedLeaves());
+        assertFalse(StoreParams.getDftStoreParams().isCompressedLeaves());
+    }
+
+    @Test public void store_params_17() {
+        StoreParams params = StoreParams.builder().indexReadAhead(8).build();
+        StoreParams params2 = roundTrip(params);
+        assertEqualsStoreParams(params,params2);
+        assertEquals(8, params2.getIndexReadAhead().intValue());
+        // Dynamic: applies to an existing database.
+        StoreParams params3 = StoreParamsBuilder.modify(StoreParams.getDftStoreParams(), params);
+        assertEquals(8, params3.getIndexReadAhead().intValue());
+    }
+
+    @Test public void store_params_18() {
+        assertFalse(StoreParams.getDftStoreParams().isBlockConcurrentCache());
+        StoreParams params = StoreParams.builder().blockConcurrentCache(true).build();
+        StoreParams params2 = roundTrip(params);
+        assertEqualsStoreParams(params,params2);
+        assertTrue(params2.isBlockConcurrentCache());
+        // Dynamic: applies to an existing database.
+        StoreParams params3 = StoreParamsBuilder.modify(StoreParams.getDftStoreParams(), params);
+        assertTrue(params3.isBlockConcurrentCache());
+    }
+
     // Check that setting gets recorded and propagated.
 
     @Test public void store_params_20() {
@@ -25,6 +25,10 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses( {
     TestSolverTDB.class     // Tests the TDB connectivity
     , TestStats.class
+    , TestBindingNodeId.class
+    , TestPathTDB.class
+    , TestIterParallel.class
+    , TestJoinKeyFilterTDB.class
 })
 
 public class TS_SolverTDB
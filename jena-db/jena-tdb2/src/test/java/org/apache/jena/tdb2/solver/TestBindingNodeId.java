@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.junit.Test;
+
+public class TestBindingNodeId
+{
+    private static Var x = Var.alloc("x");
+    private static Var y = Var.alloc("y");
+    private static Var z = Var.alloc("z");
+    private static NodeId id1 = NodeIdFactory.createPtr(1);
+    private static NodeId id2 = NodeIdFactory.createPtr(2);
+
+    @Test public void varSlots_1()
+    {
+        VarSlots slots = VarSlots.create(Arrays.asList(x, y, x));
+        assertEquals(2, slots.size());
+        assertEquals(0, slots.slot(x));
+        assertEquals(1, slots.slot(y));
+        assertEquals(-1, slots.slot(z));
+        assertEquals(y, slots.var(1));
+        assertEquals(0, slots.slot(Var.alloc("x")));
+    }
+
+    @Test public void varSlots_2()
+    {
+        Tuple<Node> t1 = TupleFactory.tuple(SSE.parseNode("?s"), SSE.parseNode(":p"), SSE.parseNode("?o"));
+        Tuple<Node> t2 = TupleFactory.tuple(SSE.parseNode("?o"), SSE.parseNode(":q"), SSE.parseNode("?z"));
+        VarSlots slots = VarSlots.create(Arrays.asList(t1, t2));
+        assertEquals(3, slots.size());
+        assertEquals(0, slots.slot(SSE.parseNode("?s")));
+        assertEquals(1, slots.slot(SSE.parseNode("?o")));
+        assertEquals(2, slots.slot(SSE.parseNode("?z")));
+        assertEquals(-1, slots.slot(SSE.parseNode(":p")));
+    }
+
+    @Test public void bindingNodeId_1()
+    {
+        VarSlots slots = VarSlots.create(Arrays.asList(x, y));
+        BindingNodeId b = new BindingNodeId(slots);
+        assertTrue(b.isEmpty());
+        assertFalse(b.containsKey(x));
+        assertNull(b.get(z));
+        b.put(y, id1);
+        assertEquals(1, b.size());
+        assertEquals(id1, b.get(y));
+        assertEquals(id1, b.get(1));
+        assertNull(b.get(x));
+        List<Var> vars = Iter.toList(b.iterator());
+        assertEquals(Arrays.asList(y), vars);
+    }
+
+    @Test public void bindingNodeId_2()
+    {
+        VarSlots slots = VarSlots.create(Arrays.asList(x, y));
+        BindingNodeId b1 = new BindingNodeId(slots, BindingFactory.root());
+        b1.put(x, id1);
+        BindingNodeId b2 = new BindingNodeId(b1);
+        b2.put(1, id2);
+        // Copy, not shared.
+        assertEquals(1, b1.size());
+        assertEquals(2, b2.size());
+        assertEquals(id1, b2.get(x));
+        assertEquals(id2, b2.get(y));
+        assertSame(b1.getParentBinding(), b2.getParentBinding());
+        assertEquals(Arrays.asList(x, y), Iter.toList(b2.iterator()));
+    }
+
+    @Test public void bindingNodeId_3()
+    {
+        VarSlots slots1 = VarSlots.create(Arrays.asList(x, y));
+        VarSlots slots2 = VarSlots.create(Arrays.asList(y, x, z));
+        BindingNodeId b1 = new BindingNodeId(slots1);
+        b1.put(x, id1);
+        b1.put(y, id2);
+        BindingNodeId b2 = new BindingNodeId(slots2);
+        b2.putAll(b1);
+        assertEquals(2, b2.size());
+        assertEquals(id1, b2.get(x));
+        assertEquals(id2, b2.get(0));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void bindingNodeId_4()
+    {
+        VarSlots slots = VarSlots.create(Arrays.asList(x));
+        BindingNodeId b = new BindingNodeId(slots);
+        b.put(y, id1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void bindingNodeId_5()
+    {
+        VarSlots slots = VarSlots.create(Arrays.asList(x));
+        BindingNodeId b = new BindingNodeId(slots);
+        b.put(0, null);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.Test;
+
+public class TestIterParallel
+{
+    private static Iterator<Integer> range(int start, int len) {
+        return IntStream.range(start, start+len).iterator();
+    }
+
+    @Test public void parallel_01() {
+        List<Iterator<Integer>> sources = new ArrayList<>();
+        sources.add(range(0, 10));
+        IterParallel<Integer> iter = new IterParallel<>(sources);
+        assertEquals(10, Iter.count(iter));
+    }
+
+    // More sources than threads in the pool.
+    @Test(timeout=10000) public void parallel_02() {
+        int N = 3*SystemTDB.ParallelScanThreads+1;
+        List<Iterator<Integer>> sources = new ArrayList<>();
+        for ( int i = 0 ; i < N ; i++ )
+            sources.add(range(i*2500, 2500));
+        IterParallel<Integer> iter = new IterParallel<>(sources);
+        long sum = 0;
+        while ( iter.hasNext() )
+            sum += iter.next();
+        long n = N*2500L;
+        assertEquals(n*(n-1)/2, sum);
+    }
+
+    // Abort while the consumer is waiting for a source that produces nothing.
+    @Test(timeout=10000, expected=QueryCancelledException.class)
+    public void parallel_abort_01() {
+        Iterator<Integer> slow = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                try { Thread.sleep(500); } catch (InterruptedException ex) {}
+                return false;
+            }
+            @Override
+            public Integer next() { return null; }
+        };
+        List<Iterator<Integer>> sources = new ArrayList<>();
+        sources.add(slow);
+        IterParallel<Integer> iter = new IterParallel<>(sources);
+        Thread aborter = new Thread(()->{
+            try { Thread.sleep(100); } catch (InterruptedException ex) {}
+            iter.abort();
+        });
+        aborter.start();
+        iter.hasNext();
+    }
+}
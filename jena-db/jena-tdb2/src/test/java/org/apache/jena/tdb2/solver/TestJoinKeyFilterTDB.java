@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.join.JoinKeyFilter;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Semi-join reduction of the right hand side of hash joins, applied by TDB2 pattern matching. */
+public class TestJoinKeyFilterTDB
+{
+    private static final String PRE = "(prefix ((: <http://example/>)) ";
+    private static final Var varV = Var.alloc("v");
+    private static DatasetGraph dsg;
+
+    @BeforeClass public static void beforeClass()
+    {
+        dsg = DatabaseMgr.createDatasetGraph();
+        Node p = NodeFactory.createURI("http://example/p");
+        Node q = NodeFactory.createURI("http://example/q");
+        Txn.executeWrite(dsg, ()->{
+            for ( int i = 0 ; i < 50 ; i++ )
+            {
+                Node s = NodeFactory.createURI("http://example/s" + i);
+                dsg.add(Quad.defaultGraphIRI, s, p, integer(i % 7));
+                if ( i % 3 == 0 )
+                    dsg.add(Quad.defaultGraphIRI, s, q, integer(i % 5));
+            }
+        });
+    }
+
+    @AfterClass public static void afterClass()
+    {
+        dsg.close();
+    }
+
+    private static Node integer(int i)
+    {
+        return NodeValue.makeInteger(i).asNode();
+    }
+
+    @Test public void keyFilterTDB_pattern_01()
+    {
+        JoinKeyFilter f = filter(1, 2);
+        f.finish();
+        List<Binding> results = Txn.calculateRead(dsg, ()->{
+            ExecutionContext execCxt = JoinKeyFilter.addFilter(execCxt(false), f);
+            return exec(SSE.parseOp(PRE + "(bgp (?s :p ?v)))"), execCxt);
+        });
+        assertEquals(14, results.size());
+        for ( Binding b : results )
+            assertTrue(b.get(varV).equals(integer(1)) || b.get(varV).equals(integer(2)));
+    }
+
+    @Test public void keyFilterTDB_pattern_02()
+    {
+        // The filter completes after the scan has started.
+        JoinKeyFilter f = filter(1, 2);
+        Txn.executeRead(dsg, ()->{
+            ExecutionContext execCxt = JoinKeyFilter.addFilter(execCxt(false), f);
+            QueryIterator qIter = QC.execute(SSE.parseOp(PRE + "(bgp (?s :p ?v)))"), OpExecutor.createRootQueryIterator(execCxt), execCxt);
+            try {
+                assertTrue(qIter.hasNext());
+                qIter.next();
+                f.finish();
+                while ( qIter.hasNext() )
+                {
+                    Binding b = qIter.next();
+                    assertTrue(b.get(varV).equals(integer(1)) || b.get(varV).equals(integer(2)));
+                }
+            } finally { qIter.close(); }
+        });
+    }
+
+    @Test public void keyFilterTDB_join_01()
+    {
+        test("(join (bgp (?s :q ?v)) (bgp (?x :p ?v)))", 123);
+    }
+
+    @Test public void keyFilterTDB_join_02()
+    {
+        // Nested join.
+        test("(join (bgp (?s :q 1)) (join (bgp (?s :p ?o)) (filter (> ?w 1) (bgp (?x :p ?w)))))", 105);
+    }
+
+    private static JoinKeyFilter filter(int... values)
+    {
+        JoinKeyFilter f = new JoinKeyFilter(Arrays.asList(varV));
+        for ( int v : values )
+            f.add(BindingFactory.binding(varV, integer(v)));
+        return f;
+    }
+
+    private static void test(String opStr, int expectedSize)
+    {
+        Op op = SSE.parseOp(PRE + opStr + ")");
+        Txn.executeRead(dsg, ()->{
+            List<Binding> expected = exec(op, execCxt(false));
+            assertEquals(expectedSize, expected.size());
+            assertEquals(multiset(expected), multiset(exec(op, execCxt(true))));
+        });
+    }
+
+    private static ExecutionContext execCxt(boolean semiJoin)
+    {
+        Context context = ARQ.getContext().copy();
+        if ( semiJoin )
+            context.set(ARQ.semiJoinReduction, true);
+        return new ExecutionContext(context, dsg.getDefaultGraph(), dsg, OpExecutorTDB2.OpExecFactoryTDB);
+    }
+
+    private static List<Binding> exec(Op op, ExecutionContext execCxt)
+    {
+        QueryIterator qIter = QC.execute(op, OpExecutor.createRootQueryIterator(execCxt), execCxt);
+        List<Binding> results = new ArrayList<>();
+        try {
+            qIter.forEachRemaining(results::add);
+        } finally { qIter.close(); }
+        return results;
+    }
+
+    private static Map<Binding, Integer> multiset(List<Binding> results)
+    {
+        Map<Binding, Integer> x = new HashMap<>();
+        results.forEach(b -> x.merge(b, 1, Integer::sum));
+        return x;
+    }
+}
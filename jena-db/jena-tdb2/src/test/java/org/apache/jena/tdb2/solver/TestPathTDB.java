@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.query.*;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Property paths evaluated on NodeIds, compared to the general path engine. */
+public class TestPathTDB
+{
+    private static String PREFIX = "PREFIX : <http://example/> ";
+    private static String DATA = String.join("\n",
+        "PREFIX : <http://example/>",
+        ":a :p :b . :b :p :c . :c :p :a . :c :p :d . :d :p :e .",
+        ":x :p :y . :y :q :z . :e :r 1 .",
+        ":g1 { :a :p :b . :b :p :c . :z :p :a }",
+        ":g2 { :c :p :d . :b :p :b . :d :p 1 }");
+
+    private static Dataset datasetTDB;
+    private static Dataset datasetMem;
+
+    @BeforeClass public static void beforeClass() {
+        datasetTDB = TDB2Factory.createDataset();
+        DatasetGraph dsgMem = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(DATA).lang(Lang.TRIG).parse(dsgMem);
+        Txn.executeWrite(datasetTDB, ()->RDFParser.fromString(DATA).lang(Lang.TRIG).parse(datasetTDB));
+        datasetMem = DatasetFactory.wrap(dsgMem);
+    }
+
+    @AfterClass public static void afterClass() {
+        datasetTDB.close();
+        datasetMem.close();
+    }
+
+    @Test public void path_01() { test("SELECT * { :a :p+ ?o }"); }
+
+    @Test public void path_02() { test("SELECT * { :a :p* ?o }"); }
+
+    @Test public void path_03() { test("SELECT * { ?s :p+ :a }"); }
+
+    @Test public void path_04() { test("SELECT * { ?s :p* :e }"); }
+
+    @Test public void path_05() { test("SELECT * { :a ^:p+ ?o }"); }
+
+    @Test public void path_06() { test("SELECT * { ?s :p+ ?o }"); }
+
+    @Test public void path_07() { test("SELECT * { ?s :p* ?o }"); }
+
+    @Test public void path_08() { test("SELECT * { ?x :p+ ?x }"); }
+
+    // Both ends fixed.
+    @Test public void path_09() { test("ASK { :a :p+ :e }"); }
+
+    @Test public void path_10() { test("ASK { :e :p+ :a }"); }
+
+    @Test public void path_11() { test("ASK { :a :p+ :a }"); }
+
+    @Test public void path_12() { test("ASK { :d :p+ :d }"); }
+
+    @Test public void path_13() { test("ASK { :d :p* :d }"); }
+
+    @Test public void path_14() { test("ASK { :notInData :p* :notInData }"); }
+
+    @Test public void path_15() { test("SELECT * { :notInData :p* ?o }"); }
+
+    @Test public void path_16() { test("SELECT * { :a :notInData+ ?o }"); }
+
+    // Bound by an earlier pattern.
+    @Test public void path_17() { test("SELECT * { ?s :q ?z . ?x :p+ ?s }"); }
+
+    @Test public void path_18() { test("SELECT * { VALUES ?s { :a :d :x } VALUES ?o { :e :y } ?s :p+ ?o }"); }
+
+    // Named graphs and the union graph.
+    @Test public void path_19() { test("SELECT * { GRAPH :g1 { :z :p+ ?o } }"); }
+
+    @Test public void path_20() { test("SELECT * { GRAPH ?g { ?s :p+ ?o } }"); }
+
+    @Test public void path_21() { test("SELECT * { GRAPH <urn:x-arq:UnionGraph> { :z :p+ ?o } }"); }
+
+    @Test public void path_22() { test("ASK { GRAPH <urn:x-arq:UnionGraph> { :z :p+ 1 } }"); }
+
+    @Test public void path_23() { test("SELECT * { GRAPH :gNone { :a :p+ ?o } }"); }
+
+    @Test public void path_24() {
+        // Switched off.
+        Query query = QueryFactory.create(PREFIX+"SELECT * { :a :p+ ?o }");
+        Txn.executeRead(datasetTDB, ()->{
+            try ( QueryExecution qExec = QueryExecutionFactory.create(query, datasetTDB) ) {
+                qExec.getContext().set(SystemTDB.symPathNodeId, false);
+                ResultSetRewindable rs = ResultSetFactory.makeRewindable(qExec.execSelect());
+                assertTrue(ResultSetCompare.equalsByTerm(rs, execMem(query)));
+            }
+        });
+    }
+
+    private static void test(String queryString) {
+        Query query = QueryFactory.create(PREFIX+queryString);
+        Txn.executeRead(datasetTDB, ()->{
+            try ( QueryExecution qExec = QueryExecutionFactory.create(query, datasetTDB) ) {
+                if ( query.isAskType() ) {
+                    boolean expected;
+                    try ( QueryExecution qExecMem = QueryExecutionFactory.create(query, datasetMem) ) {
+                        expected = qExecMem.execAsk();
+                    }
+                    assertTrue(queryString, expected == qExec.execAsk());
+                    return;
+                }
+                ResultSetRewindable rs = ResultSetFactory.makeRewindable(qExec.execSelect());
+                ResultSetRewindable expected = execMem(query);
+                boolean b = ResultSetCompare.equalsByTerm(rs, expected);
+                if ( ! b ) {
+                    rs.reset();
+                    expected.reset();
+                    ResultSetFormatter.out(rs);
+                    ResultSetFormatter.out(expected);
+                }
+                assertTrue(queryString, b);
+            }
+        });
+    }
+
+    private static ResultSetRewindable execMem(Query query) {
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, datasetMem) ) {
+            return ResultSetFactory.makeRewindable(qExec.execSelect());
+        }
+    }
+}
@@ -24,10 +24,16 @@ import java.util.Iterator;
 
 import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.system.Txn;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.engine.optimizer.JoinStats;
+import org.apache.jena.sparql.engine.optimizer.JoinStats.CharacteristicSet;
 import org.apache.jena.sparql.sse.SSE;
 import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.solver.stats.Stats;
+import org.apache.jena.tdb2.solver.stats.StatsCollector;
 import org.apache.jena.tdb2.solver.stats.StatsCollectorNodeId;
 import org.apache.jena.tdb2.solver.stats.StatsResults;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
@@ -113,6 +119,59 @@ public class TestStats
         assertEquals(1, r.getPredicates().keySet().size());
     }
 
-}
+    @Test public void stats_05() {
+        StatsResults r = statsForDftGraph();
+        Node p = NodeFactory.createURI("p");
+        assertEquals(1, r.getCharacteristicSets().size());
+        assertEquals(1, r.getCharacteristicSets().get(0).getSubjects());
+        assertEquals(1L, r.getDistinctSubjects().get(p).longValue());
+        assertEquals(1L, r.getDistinctObjects().get(p).longValue());
+    }
 
+    @Test public void stats_06() {
+        // Subjects are per graph.
+        StatsResults r = statsForGraph(null);
+        Node p = NodeFactory.createURI("p");
+        assertEquals(1, r.getCharacteristicSets().size());
+        CharacteristicSet cs = r.getCharacteristicSets().get(0);
+        assertEquals(2, cs.getSubjects());
+        assertEquals(3L, cs.getOccurrences().get(p).longValue());
+        assertEquals(2L, r.getDistinctSubjects().get(p).longValue());
+        assertEquals(3L, r.getDistinctObjects().get(p).longValue());
+    }
 
+    @Test public void stats_07() {
+        Graph graph = SSE.parseGraph("(graph (<s1> <p> 1) (<s1> <q> 2) (<s1> <q> 3) (<s2> <p> 1) (<s3> <q> 3))");
+        StatsResults r = Stats.gather(graph).results();
+        assertEquals(3, r.getCharacteristicSets().size());
+        // Written and read back.
+        JoinStats joinStats = JoinStats.parse(Stats.format(r));
+        assertEquals(5, joinStats.getCount());
+        assertEquals(3, joinStats.getSubjects());
+        Node p = NodeFactory.createURI("p");
+        Node q = NodeFactory.createURI("q");
+        assertEquals(3, joinStats.getCount(q));
+        assertEquals(2, joinStats.getDistinctSubjects(q));
+        assertEquals(2, joinStats.getDistinctObjects(q));
+        assertEquals(1, joinStats.getDistinctObjects(p));
+    }
+
+    @Test public void stats_08() {
+        // Limit on characteristic sets: the least common are merged.
+        Graph graph = SSE.parseGraph("(graph (<s1> <p> 1) (<s2> <p> 2) (<s3> <p> 3) (<s3> <q> 3) (<s4> <r> 4) (<s5> <r> 5))");
+        StatsCollector stats = new StatsCollector(2);
+        for ( String s : new String[] {"s1", "s2", "s3", "s4", "s5"} )
+            graph.find(NodeFactory.createURI(s), Node.ANY, Node.ANY)
+                 .forEachRemaining(t->stats.record(null, t.getSubject(), t.getPredicate(), t.getObject()));
+        StatsResults r = stats.results();
+        assertEquals(3, r.getCharacteristicSets().size());
+        long subjects = 0;
+        for ( CharacteristicSet cs : r.getCharacteristicSets() )
+            subjects += cs.getSubjects();
+        assertEquals(5, subjects);
+        Node q = NodeFactory.createURI("q");
+        CharacteristicSet other = r.getCharacteristicSets().get(2);
+        assertEquals(1, other.getSubjects());
+        assertEquals(1L, other.getOccurrences().get(q).longValue());
+    }
+}
@@ -27,6 +27,11 @@ import org.junit.runners.Suite;
     , TestNodeTableStoredBase.class
     , TestNodeTableStored.class
     , TestNodeTable.class
+    , TestNodeCacheMapped.class
+    , TestNodeTableCacheMapped.class
+    , TestNodeBloomFilter.class
+    , TestNodeTableBloomFilter.class
+    , TestNodeBloomFilterStored.class
 })
 public class TS_NodeTable
 {
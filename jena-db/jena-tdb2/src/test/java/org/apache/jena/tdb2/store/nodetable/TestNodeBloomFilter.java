@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.apache.jena.tdb2.ConfigTest;
+import org.apache.jena.tdb2.lib.NodeLib;
+import org.apache.jena.tdb2.store.Hash;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.Test;
+
+public class TestNodeBloomFilter
+{
+    private static Node node1 = NodeFactoryExtra.parseNode("<http://example/node1>");
+    private static Node node2 = NodeFactoryExtra.parseNode("'abc'@en");
+
+    private static byte[] hash(Node node) {
+        Hash hash = new Hash(SystemTDB.LenNodeHash);
+        NodeLib.setHash(hash, node);
+        return hash.getBytes();
+    }
+
+    private static String filename() {
+        String dir = ConfigTest.getCleanDir();
+        FileOps.ensureDir(dir);
+        return dir+"/nodes.bloom";
+    }
+
+    @Test public void bloomFilter_01() {
+        NodeBloomFilter filter = NodeBloomFilter.create(null, 1, ()->0L);
+        assertTrue(filter.isValid());
+        assertFalse(filter.mightContain(hash(node1)));
+        filter.add(hash(node1));
+        assertTrue(filter.mightContain(hash(node1)));
+        assertFalse(filter.mightContain(hash(node2)));
+    }
+
+    // Existing node data but no filter file.
+    @Test public void bloomFilter_02() {
+        NodeBloomFilter filter = NodeBloomFilter.create(null, 1, ()->100L);
+        assertFalse(filter.isValid());
+        filter.add(hash(node1));
+        filter.setValid();
+        assertTrue(filter.isValid());
+        assertTrue(filter.mightContain(hash(node1)));
+    }
+
+    // Persistent across save and reopen.
+    @Test public void bloomFilter_03() {
+        String fn = filename();
+        FileOps.deleteSilent(fn);
+        NodeBloomFilter filter = NodeBloomFilter.create(fn, 1, ()->0L);
+        filter.add(hash(node1));
+        filter.save();
+        filter = NodeBloomFilter.create(fn, 1, ()->0L);
+        assertTrue(filter.isValid());
+        assertTrue(filter.mightContain(hash(node1)));
+        assertFalse(filter.mightContain(hash(node2)));
+    }
+
+    // Out of date: the node data has changed since the filter was saved.
+    @Test public void bloomFilter_04() {
+        String fn = filename();
+        FileOps.deleteSilent(fn);
+        NodeBloomFilter filter = NodeBloomFilter.create(fn, 1, ()->0L);
+        filter.add(hash(node1));
+        filter.save();
+        filter = NodeBloomFilter.create(fn, 1, ()->500L);
+        assertFalse(filter.isValid());
+        // Different size.
+        filter = NodeBloomFilter.create(fn, 2, ()->0L);
+        assertFalse(filter.isValid());
+    }
+
+    // 16G bytes overflows an int count of longs.
+    @Test(expected=IllegalArgumentException.class)
+    public void bloomFilter_size_01() {
+        NodeBloomFilter.create(null, 16*1024, ()->0L);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void bloomFilter_size_02() {
+        NodeBloomFilter.create(null, 0, ()->0L);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.dboe.sys.Names;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.ConfigTest;
+import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.params.StoreParamsBuilder;
+import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.sys.StoreConnection;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** The Bloom filter of the node table of a database: saved, reloaded and rebuilt. */
+public class TestNodeBloomFilterStored
+{
+    private static final StoreParams params = StoreParamsBuilder.create().nodeBloomFilterSize(1).build();
+    private Location location;
+
+    @Before public void before() {
+        TDBInternal.reset();
+        location = Location.create(ConfigTest.getCleanDir());
+    }
+
+    @After public void after() {
+        TDBInternal.reset();
+        FileUtils.deleteQuietly(new File(location.getDirectoryPath()));
+    }
+
+    private DatasetGraphTDB connect() {
+        return StoreConnection.connectCreate(location, params).getDatasetGraphTDB();
+    }
+
+    private void release() {
+        StoreConnection.release(location);
+    }
+
+    private static NodeTableNative nodeTable(DatasetGraphTDB dsg) {
+        return (NodeTableNative)dsg.getTripleTable().getNodeTupleTable().getNodeTable().baseNodeTable();
+    }
+
+    private Path bloomFile() {
+        return Paths.get(location.getPath(params.getNodeTableBaseName(), NodeBloomFilter.extBloomFilter));
+    }
+
+    private static void load(DatasetGraphTDB dsg, int from, int to) {
+        Txn.executeWrite(dsg, ()->{
+            Graph g = dsg.getDefaultGraph();
+            for ( int i = from ; i < to ; i++ )
+                g.add(Triple.create(node("s", i), node("p", 0), node("o", i)));
+        });
+    }
+
+    // All nodes with index below N are found; others are not.
+    private static void check(DatasetGraphTDB dsg, int N) {
+        NodeTableNative nt = nodeTable(dsg);
+        Txn.executeRead(dsg, ()->{
+            for ( int i = 0 ; i < N ; i++ ) {
+                assertNotEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(node("s", i)));
+                assertNotEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(node("o", i)));
+            }
+            for ( int i = N ; i < N+100 ; i++ )
+                assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(node("s", i)));
+        });
+    }
+
+    private static boolean isValid(NodeTableNative nt) {
+        // The rebuild sets the filter valid under the node table lock.
+        synchronized(nt) {
+            return nt.getBloomFilter().isValid();
+        }
+    }
+
+    private static void awaitRebuild(NodeTableNative nt) {
+        long finish = System.currentTimeMillis() + 10_000;
+        while ( ! isValid(nt) ) {
+            if ( System.currentTimeMillis() > finish )
+                throw new AssertionError("Bloom filter not rebuilt");
+            try { Thread.sleep(10); }
+            catch (InterruptedException ex) { throw new RuntimeException(ex); }
+        }
+    }
+
+    private static Node node(String x, int i) {
+        return NodeFactoryExtra.parseNode("<http://example/"+x+"/"+i+">");
+    }
+
+    @Test public void bloom_stored_01() {
+        // Saved at close and reloaded at open without a rebuild.
+        DatasetGraphTDB dsg = connect();
+        assertTrue(isValid(nodeTable(dsg)));
+        load(dsg, 0, 500);
+        check(dsg, 500);
+        release();
+        assertTrue(Files.exists(bloomFile()));
+
+        dsg = connect();
+        assertTrue(isValid(nodeTable(dsg)));
+        check(dsg, 500);
+        load(dsg, 500, 600);
+        check(dsg, 600);
+    }
+
+    @Test public void bloom_stored_02() {
+        // A file for a different length of node data is rebuilt in the background.
+        DatasetGraphTDB dsg = connect();
+        load(dsg, 0, 500);
+        release();
+        Path saved = Paths.get(location.getPath("saved", NodeBloomFilter.extBloomFilter));
+        copy(bloomFile(), saved);
+
+        dsg = connect();
+        load(dsg, 500, 1000);
+        release();
+        copy(saved, bloomFile());
+        // Out of date.
+        File dataFile = new File(location.getPath(params.getNodeTableBaseName()+"-data", Names.extObjNodeData));
+        assertFalse(NodeBloomFilter.create(bloomFile().toString(), 1, dataFile::length).isValid());
+
+        dsg = connect();
+        NodeTableNative nt = nodeTable(dsg);
+        // Lookups are correct during the rebuild.
+        check(dsg, 1000);
+        awaitRebuild(nt);
+        check(dsg, 1000);
+        release();
+
+        // The rebuilt filter has been saved.
+        dsg = connect();
+        assertTrue(isValid(nodeTable(dsg)));
+        check(dsg, 1000);
+    }
+
+    @Test public void bloom_stored_03() {
+        // No file and existing node data: rebuilt in the background.
+        DatasetGraphTDB dsg = connect();
+        load(dsg, 0, 500);
+        release();
+        delete(bloomFile());
+
+        dsg = connect();
+        NodeTableNative nt = nodeTable(dsg);
+        assertNotNull(nt.getBloomFilter());
+        awaitRebuild(nt);
+        check(dsg, 500);
+        load(dsg, 500, 600);
+        check(dsg, 600);
+    }
+
+    private static void copy(Path src, Path dst) {
+        try { Files.copy(src, dst, StandardCopyOption.REPLACE_EXISTING); }
+        catch (IOException ex) { throw new RuntimeIOException(ex); }
+    }
+
+    private static void delete(Path path) {
+        try { Files.delete(path); }
+        catch (IOException ex) { throw new RuntimeIOException(ex); }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.apache.jena.tdb2.ConfigTest;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.junit.Test;
+
+public class TestNodeCacheMapped
+{
+    private static Node node1 = NodeFactoryExtra.parseNode("<http://example/node1>");
+    private static Node node2 = NodeFactoryExtra.parseNode("'abc'@en");
+    private static NodeId id1 = NodeIdFactory.createPtr(10);
+    private static NodeId id2 = NodeIdFactory.createPtr(200);
+
+    private static String filename() {
+        return ConfigTest.getCleanDir()+"/nodes.ncache";
+    }
+
+    @Test public void nodeCacheMapped_01() {
+        NodeCacheMapped cache = NodeCacheMapped.create(null, 1, -1);
+        assertNull(cache.getNodeIdForNode(node1));
+        assertNull(cache.getNodeForNodeId(id1));
+        cache.put(node1, id1);
+        assertEquals(id1, cache.getNodeIdForNode(node1));
+        assertEquals(node1, cache.getNodeForNodeId(id1));
+        assertNull(cache.getNodeIdForNode(node2));
+        assertNull(cache.getNodeForNodeId(id2));
+        cache.close();
+    }
+
+    @Test public void nodeCacheMapped_02() {
+        NodeCacheMapped cache = NodeCacheMapped.create(null, 1, -1);
+        cache.put(node1, id1);
+        cache.put(node2, id2);
+        assertEquals(id1, cache.getNodeIdForNode(node1));
+        assertEquals(id2, cache.getNodeIdForNode(node2));
+        assertEquals(node1, cache.getNodeForNodeId(id1));
+        assertEquals(node2, cache.getNodeForNodeId(id2));
+        assertEquals(4, cache.getHitCount());
+        cache.close();
+    }
+
+    // Persistent across close and reopen.
+    @Test public void nodeCacheMapped_03() {
+        String fn = filename();
+        NodeCacheMapped cache = NodeCacheMapped.create(fn, 1, -1);
+        cache.put(node1, id1);
+        cache.close();
+        cache = NodeCacheMapped.create(fn, 1, 1000);
+        assertEquals(id1, cache.getNodeIdForNode(node1));
+        assertEquals(node1, cache.getNodeForNodeId(id1));
+        cache.close();
+    }
+
+    // Discarded if it refers beyond the end of the node data.
+    @Test public void nodeCacheMapped_04() {
+        String fn = filename();
+        NodeCacheMapped cache = NodeCacheMapped.create(fn, 1, -1);
+        cache.put(node2, id2);
+        cache.close();
+        cache = NodeCacheMapped.create(fn, 1, 100);
+        assertNull(cache.getNodeIdForNode(node2));
+        assertNull(cache.getNodeForNodeId(id2));
+        cache.close();
+    }
+
+    // Discarded if the size changes.
+    @Test public void nodeCacheMapped_05() {
+        String fn = filename();
+        NodeCacheMapped cache = NodeCacheMapped.create(fn, 1, -1);
+        cache.put(node1, id1);
+        cache.close();
+        cache = NodeCacheMapped.create(fn, 2, -1);
+        assertNull(cache.getNodeIdForNode(node1));
+        cache.close();
+    }
+
+    // Restart after recovery truncated the node data: checked once the length is known.
+    @Test public void nodeCacheMapped_07() {
+        String fn = filename();
+        NodeCacheMapped cache = NodeCacheMapped.create(fn, 1, -1);
+        cache.put(node1, id1);
+        cache.put(node2, id2);
+        cache.close();
+        // Opened before recovery.
+        cache = NodeCacheMapped.create(fn, 1, -1);
+        assertEquals(id2, cache.getNodeIdForNode(node2));
+        // Recovery truncated the node data to before id2.
+        cache.checkDataLimit(100);
+        assertNull(cache.getNodeIdForNode(node1));
+        assertNull(cache.getNodeIdForNode(node2));
+        assertNull(cache.getNodeForNodeId(id2));
+        // Space reallocated.
+        Node node3 = NodeFactoryExtra.parseNode("<http://example/node3>");
+        cache.put(node3, id1);
+        cache.close();
+        cache = NodeCacheMapped.create(fn, 1, 100);
+        assertEquals(node3, cache.getNodeForNodeId(id1));
+        assertNull(cache.getNodeIdForNode(node1));
+        assertNull(cache.getNodeIdForNode(node2));
+        cache.close();
+    }
+
+    // Kept if within the node data.
+    @Test public void nodeCacheMapped_08() {
+        String fn = filename();
+        NodeCacheMapped cache = NodeCacheMapped.create(fn, 1, -1);
+        cache.put(node1, id1);
+        cache.close();
+        cache = NodeCacheMapped.create(fn, 1, -1);
+        cache.checkDataLimit(1000);
+        assertEquals(id1, cache.getNodeIdForNode(node1));
+        cache.close();
+    }
+
+    // Wrap around: never a wrong answer.
+    @Test public void nodeCacheMapped_06() {
+        NodeCacheMapped cache = NodeCacheMapped.create(null, 1, -1);
+        int N = 50_000;
+        for ( int i = 0 ; i < N ; i++ )
+            cache.put(node(i), NodeIdFactory.createPtr(8L*i));
+        int found = 0;
+        for ( int i = 0 ; i < N ; i++ ) {
+            NodeId nid = cache.getNodeIdForNode(node(i));
+            if ( nid != null ) {
+                assertEquals(NodeIdFactory.createPtr(8L*i), nid);
+                found++;
+            }
+            Node n = cache.getNodeForNodeId(NodeIdFactory.createPtr(8L*i));
+            if ( n != null )
+                assertEquals(node(i), n);
+        }
+        // The most recent entries are present.
+        assertEquals(NodeIdFactory.createPtr(8L*(N-1)), cache.getNodeIdForNode(node(N-1)));
+        cache.close();
+    }
+
+    private static Node node(int i) {
+        return NodeFactoryExtra.parseNode("<http://example/node/"+i+">");
+    }
+}
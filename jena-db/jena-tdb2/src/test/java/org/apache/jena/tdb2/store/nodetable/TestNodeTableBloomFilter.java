@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.store.nodetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.apache.jena.tdb2.junit.BuildTestLib;
+import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.params.StoreParamsBuilder;
+import org.apache.jena.tdb2.store.NodeId;
+import org.junit.Test;
+
+/** Node table with a Bloom filter in front of the node-to-NodeId index. */
+public class TestNodeTableBloomFilter extends AbstractTestNodeTable
+{
+    @Override
+    protected NodeTable createEmptyNodeTable()
+    {
+        StoreParams params =
+            StoreParamsBuilder.create()
+                .nodeId2NodeCacheSize(10)
+                .node2NodeIdCacheSize(10)
+                .nodeMissCacheSize(10).build();
+        Location location = Location.mem();
+        NodeTable nt = BuildTestLib.makeNodeTableBase(location, "test", params);
+        ((NodeTableNative)nt).setBloomFilter(NodeBloomFilter.create(null, 1, ()->0L));
+        return nt;
+    }
+
+    @Test public void nodetable_bloom_01() {
+        NodeTable nt = createEmptyNodeTable();
+        assertTrue(((NodeTableNative)nt).getBloomFilter().isValid());
+        Node n1 = NodeFactoryExtra.parseNode("<http://example/n1>");
+        Node n2 = NodeFactoryExtra.parseNode("<http://example/n2>");
+        assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(n1));
+        NodeId id1 = nt.getAllocateNodeId(n1);
+        assertEquals(id1, nt.getNodeIdForNode(n1));
+        assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(n2));
+    }
+
+    @Test public void nodetable_bloom_02() {
+        // Many nodes: no false negatives.
+        NodeTable nt = createEmptyNodeTable();
+        int N = 2000;
+        NodeId[] ids = new NodeId[N];
+        for ( int i = 0 ; i < N ; i++ )
+            ids[i] = nt.getAllocateNodeId(node(i));
+        for ( int i = 0 ; i < N ; i++ )
+            assertEquals(ids[i], nt.getNodeIdForNode(node(i)));
+        for ( int i = N ; i < 2*N ; i++ )
+            assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(node(i)));
+    }
+
+    private static Node node(int i) {
+        return NodeFactoryExtra.parseNode("<http://example/node/"+i+">");
+    }
+}
@@ -21,7 +21,9 @@ package org.apache.jena.tdb2.store.tupletable;
 import static org.apache.jena.atlas.lib.tuple.TupleFactory.tuple;
 import static org.apache.jena.tdb2.store.tupletable.NData.*;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.jena.atlas.iterator.Iter;
@@ -35,6 +37,7 @@ import org.apache.jena.dboe.index.RangeIndex;
 import org.apache.jena.tdb2.junit.BuildTestLib;
 import org.apache.jena.tdb2.params.StoreParams;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
 import org.apache.jena.tdb2.sys.SystemTDB;
 import org.junit.Test;
 
@@ -311,5 +314,49 @@ public class TestTupleIndexRecordDirect
         assertFalse(iter.hasNext());
    }
 
+    @Test public void TupleIndexRecordPartition_1()
+    {
+        TupleIndexRecord index = createLarge();
+        testPartitioned(index, tuple(null, null, null), 4);
+    }
+
+    @Test public void TupleIndexRecordPartition_2()
+    {
+        TupleIndexRecord index = createLarge();
+        // Partial scan.
+        testPartitioned(index, tuple(null, NodeIdFactory.createPtr(3), null), 4);
+    }
+
+    @Test public void TupleIndexRecordPartition_3()
+    {
+        TupleIndexRecord index = createLarge();
+        testPartitioned(index, tuple(NodeIdFactory.createPtr(20), null, null), 4);
+    }
+
+    @Test public void TupleIndexRecordPartition_4()
+    {
+        TupleIndexRecord index = createLarge();
+        List<Iterator<Tuple<NodeId>>> parts = index.findPartitioned(tuple(null, null, null), 1);
+        assertEquals(1, parts.size());
+    }
 
+    private static TupleIndexRecord createLarge()
+    {
+        TupleIndexRecord index = create("SPO");
+        for ( int s = 1 ; s <= 50 ; s++ )
+            for ( int p = 1 ; p <= 10 ; p++ )
+                for ( int o = 1 ; o <= 10 ; o++ )
+                    add(index, NodeIdFactory.createPtr(s), NodeIdFactory.createPtr(p), NodeIdFactory.createPtr(o));
+        return index;
+    }
+
+    private static void testPartitioned(TupleIndexRecord index, Tuple<NodeId> pattern, int numPartitions)
+    {
+        List<Tuple<NodeId>> expected = Iter.toList(index.find(pattern));
+        List<Iterator<Tuple<NodeId>>> parts = index.findPartitioned(pattern, numPartitions);
+        assertTrue(parts.size() <= numPartitions);
+        List<Tuple<NodeId>> actual = new ArrayList<>();
+        parts.forEach(iter -> iter.forEachRemaining(actual::add));
+        assertEquals(expected, actual);
+    }
 }
@@ -275,6 +275,54 @@ public class TestNodeIdInline
     @Test public void nodeId_float_11()
     { test("'NaN'^^xsd:float"); }
 
+    @Test public void nodeId_string_01()
+    { testString("''"); }
+
+    @Test public void nodeId_string_02()
+    { testString("'abc'"); }
+
+    @Test public void nodeId_string_03()
+    { testString("'abcdefg'"); }
+
+    @Test public void nodeId_string_04()
+    { testNoInlineString("'abcdefgh'"); }
+
+    @Test public void nodeId_string_05()
+    // 6 bytes of UTF-8
+    { testString("'\u00E9t\u00E9s'"); }
+
+    @Test public void nodeId_string_06()
+    { testString("'abc'@en"); }
+
+    @Test public void nodeId_string_07()
+    { testString("'abcdef'@en-GB"); }
+
+    @Test public void nodeId_string_08()
+    { testNoInlineString("'abcdefg'@en"); }
+
+    @Test public void nodeId_string_09()
+    // Not in the language tag table.
+    { testNoInlineString("'abc'@en-x-private"); }
+
+    @Test public void nodeId_string_10()
+    // Strings are not inlined unless asked for.
+    { testNoInline("'abc'@en"); }
+
+    private void testString(String x) {
+        Node n = NodeFactoryExtra.parseNode(x);
+        NodeId nodeId = NodeId.inline(n, true);
+        assertNotNull("Expected inlining: "+x, nodeId);
+        assertTrue(nodeId.isInline());
+        Node n2 = NodeId.extract(nodeId);
+        assertEquals("Not same term", n, n2);
+    }
+
+    private void testNoInlineString(String x) {
+        Node n = NodeFactoryExtra.parseNode(x);
+        NodeId nodeId = NodeId.inline(n, true);
+        assertNull("Converted NodeId but expected no inline form: "+x, nodeId);
+    }
+
     private void test(String x) { test(x, x); }
 
     private void test(String x, String expected) {
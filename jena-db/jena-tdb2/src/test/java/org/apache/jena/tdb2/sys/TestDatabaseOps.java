@@ -20,20 +20,32 @@ package org.apache.jena.tdb2.sys;
 
 import static org.junit.Assert.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.apache.commons.io.FileUtils;
+import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
 import org.apache.jena.dboe.base.file.Location;
 import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ReadWrite;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.core.DatasetChangesCounter;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.sse.SSE;
 import org.apache.jena.system.Txn;
 import org.apache.jena.tdb2.ConfigTest;
 import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.loader.BulkLoaderException;
+import org.apache.jena.tdb2.loader.LoaderFactory;
 import org.apache.jena.tdb2.store.DatasetGraphSwitchable;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.store.StorageTDB;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -173,6 +185,179 @@ public class TestDatabaseOps
         Txn.executeRead(dsgOld,  ()->assertNull(dsgOld.getDefaultGraph().getPrefixMapping().getNsPrefixURI("ex")));
     }
 
+    @Test public void compact_online_1() {
+        DatasetGraph dsg = DatabaseMgr.connectDatasetGraph(dir);
+        DatasetGraphSwitchable dsgs = (DatasetGraphSwitchable)dsg;
+        Location loc1 = ((DatasetGraphTDB)dsgs.get()).getLocation();
+
+        Txn.executeWrite(dsg, ()-> {
+            dsg.add(quad2);
+            dsg.add(quad1);
+            dsg.getDefaultGraph().getPrefixMapping().setNsPrefix("ex", "http://example/");
+        });
+        CompactionProgress progress = new CompactionProgress();
+        DatabaseMgr.compactOnline(dsg, progress);
+
+        assertEquals(CompactionProgress.Phase.FINISHED, progress.getPhase());
+        assertEquals(2, progress.getQuadsCopied());
+        assertFalse(StoreConnection.isSetup(loc1));
+        Location loc2 = ((DatasetGraphTDB)dsgs.get()).getLocation();
+        assertNotEquals(loc1, loc2);
+
+        Txn.executeRead(dsg, ()-> {
+            assertTrue(dsg.contains(quad2));
+            assertTrue(dsg.contains(quad1));
+            assertEquals("http://example/", dsg.getDefaultGraph().getPrefixMapping().getNsPrefixURI("ex"));
+        });
+        Txn.executeWrite(dsg, ()->dsg.delete(quad1));
+        Txn.executeRead(dsg, ()->assertFalse(dsg.contains(quad1)));
+    }
+
+    @Test public void compact_online_capture_2() {
+        // Changes recorded while compacting: committed changes only, including remove by pattern.
+        DatasetGraph dsg = DatabaseMgr.connectDatasetGraph(dir);
+        DatasetGraphTDB dsgtdb = (DatasetGraphTDB)((DatasetGraphSwitchable)dsg).get();
+        ChangeCapture capture = new ChangeCapture(null);
+        dsgtdb.getTxnSystem().getTxnMgr().modifyConfig(()->{
+            dsgtdb.getTxnSystem().getTxnMgr().addListener(capture);
+            ((StorageTDB)dsgtdb.getData()).setMonitor(capture);
+        });
+
+        Txn.executeWrite(dsg, ()->{
+            dsg.add(quad1);
+            dsg.add(quad2);
+        });
+        dsg.begin(ReadWrite.WRITE);
+        dsg.getDefaultGraph().add(triple3);
+        dsg.abort();
+        dsg.end();
+        assertEquals(2, capture.size());
+
+        Txn.executeWrite(dsg, ()->dsg.deleteAny(Quad.defaultGraphIRI, null, null, null));
+        assertEquals(4, capture.size());
+
+        DatasetGraph dsg2 = DatabaseMgr.createDatasetGraph();
+        Txn.executeWrite(dsg2, ()->{
+            dsg2.add(quad1);
+            ChangeCapture.apply(capture.take(3), dsg2);
+            assertTrue(dsg2.contains(quad2));
+            assertFalse(dsg2.contains(quad1));
+            ChangeCapture.apply(capture.take(10), dsg2);
+            assertTrue(dsg2.isEmpty());
+        });
+        assertEquals(0, capture.size());
+    }
+
+    @Test public void compact_online_monitor_1() {
+        // A monitor set before online compaction sees changes during it, and is put back after.
+        DatasetGraph dsg = DatabaseMgr.connectDatasetGraph(dir);
+        DatasetGraphTDB dsgtdb = (DatasetGraphTDB)((DatasetGraphSwitchable)dsg).get();
+        StorageTDB storage = (StorageTDB)dsgtdb.getData();
+        DatasetChangesCounter counter = new DatasetChangesCounter();
+        storage.setMonitor(counter);
+
+        ChangeCapture capture = new ChangeCapture(storage.getMonitor());
+        storage.setMonitor(capture);
+        Txn.executeWrite(dsg, ()->dsg.add(quad1));
+        assertTrue(counter.hasChanged());
+        storage.setMonitor(capture.next());
+
+        DatabaseMgr.compactOnline(dsg);
+        assertSame(counter, storage.getMonitor());
+    }
+
+    @Test public void compact_online_concurrent_1() {
+        // Writes on another thread while the snapshot is copied and during catch-up.
+        DatasetGraph dsg = DatabaseMgr.connectDatasetGraph(dir);
+        DatasetGraphSwitchable dsgs = (DatasetGraphSwitchable)dsg;
+        Location loc1 = ((DatasetGraphTDB)dsgs.get()).getLocation();
+        Node g1 = SSE.parseNode("<g1>");
+        Txn.executeWrite(dsg, ()->{
+            for ( int i = 0 ; i < 10 ; i++ ) {
+                dsg.add(quad(Quad.defaultGraphIRI, i));
+                dsg.add(quad(g1, i));
+            }
+        });
+
+        CompactionProgress progress = new CompactionProgress() {
+            private boolean copyDone = false;
+            @Override void copied(long n) {
+                super.copied(n);
+                if ( copyDone )
+                    return;
+                copyDone = true;
+                // Inside the snapshot read transaction.
+                runWriter(()->Txn.executeWrite(dsg, ()->{
+                    dsg.deleteAny(g1, null, null, null);
+                    dsg.delete(quad(Quad.defaultGraphIRI, 0));
+                    for ( int i = 10 ; i < 20 ; i++ )
+                        dsg.add(quad(Quad.defaultGraphIRI, i));
+                }));
+            }
+            @Override void phase(Phase phase) {
+                super.phase(phase);
+                if ( phase != Phase.CATCHUP )
+                    return;
+                runWriter(()->Txn.executeWrite(dsg, ()->{
+                    dsg.deleteAny(Quad.defaultGraphIRI, null, null, SSE.parseNode("15"));
+                    dsg.add(quad(g1, 100));
+                }));
+            }
+        };
+        DatabaseMgr.compactOnline(dsg, progress);
+
+        assertEquals(CompactionProgress.Phase.FINISHED, progress.getPhase());
+        assertEquals(20, progress.getQuadsCopied());
+        assertTrue(progress.getChangesApplied() > 0);
+        Location loc2 = ((DatasetGraphTDB)dsgs.get()).getLocation();
+        assertNotEquals(loc1, loc2);
+
+        Set<Quad> expected = new HashSet<>();
+        for ( int i = 1 ; i < 20 ; i++ ) {
+            if ( i != 15 )
+                expected.add(quad(Quad.defaultGraphIRI, i));
+        }
+        expected.add(quad(g1, 100));
+        Set<Quad> actual = Txn.calculateRead(dsg, ()->Iter.toSet(dsg.find()));
+        assertEquals(expected, actual);
+    }
+
+    private static Quad quad(Node g, int i) {
+        return Quad.create(g, SSE.parseNode("<s>"), SSE.parseNode("<p>"), NodeFactory.createLiteral(Integer.toString(i), XSDDatatype.XSDinteger));
+    }
+
+    // Run on another thread and wait for it to finish.
+    private static void runWriter(Runnable action) {
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(()->{
+            try { action.run(); }
+            catch (Throwable th) { failure[0] = th; }
+        });
+        thread.start();
+        try { thread.join(); }
+        catch (InterruptedException ex) { throw new RuntimeException(ex); }
+        if ( failure[0] != null )
+            throw new RuntimeException(failure[0]);
+    }
+
+    @Test public void compact_online_loader_1() {
+        // Direct loaders bypass change capture and are refused while it is active.
+        DatasetGraph dsg = DatabaseMgr.connectDatasetGraph(dir);
+        DatasetGraphTDB dsgtdb = (DatasetGraphTDB)((DatasetGraphSwitchable)dsg).get();
+        StorageTDB storage = (StorageTDB)dsgtdb.getData();
+        storage.setMonitor(new DatasetChangesCounter());
+        try {
+            LoaderFactory.phasedLoader(dsg, null).startBulk();
+            fail("Expected BulkLoaderException");
+        } catch (BulkLoaderException ex) {}
+        try {
+            LoaderFactory.sequentialLoader(dsg, null).startBulk();
+            fail("Expected BulkLoaderException");
+        } catch (BulkLoaderException ex) {}
+        // Not left holding the database.
+        Txn.executeWrite(dsg, ()->dsg.add(quad1));
+    }
+
     @Test public void backup_1() {
         DatasetGraph dsg = DatabaseMgr.connectDatasetGraph(dir);
         Txn.executeWrite(dsg, ()-> {
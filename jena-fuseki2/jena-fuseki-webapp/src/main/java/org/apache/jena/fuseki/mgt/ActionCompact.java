@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.mgt;
+
+import static java.lang.String.format;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.atlas.json.JsonBuilder;
+import org.apache.jena.atlas.json.JsonValue;
+import org.apache.jena.fuseki.async.AsyncPool;
+import org.apache.jena.fuseki.async.AsyncTask;
+import org.apache.jena.fuseki.ctl.ActionItem;
+import org.apache.jena.fuseki.ctl.Async;
+import org.apache.jena.fuseki.ctl.TaskBase;
+import org.apache.jena.fuseki.servlets.HttpAction;
+import org.apache.jena.fuseki.servlets.ServletOps;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.sys.CompactionProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Online compaction of a TDB2 dataset.
+ * <ul>
+ * <li>POST {@code /$/compact/{name}} starts a compaction as an async task.
+ * <li>GET {@code /$/compact/{name}} reports the progress of the latest compaction of the dataset.
+ * </ul>
+ * The dataset remains available for query and update while it is being compacted.
+ */
+public class ActionCompact extends ActionItem
+{
+    // Latest compaction, by dataset name.
+    private static Map<String, CompactionProgress> compactions = new ConcurrentHashMap<>();
+
+    public ActionCompact() { super(); }
+
+    @Override
+    public void validate(HttpAction action) {}
+
+    @Override
+    protected JsonValue execGetItem(HttpAction action) {
+        String name = getItemDatasetName(action);
+        if ( name == null ) {
+            ServletOps.errorBadRequest("No dataset name");
+            return null;
+        }
+        CompactionProgress progress = compactions.get(name);
+        if ( progress == null ) {
+            ServletOps.errorNotFound("No compaction for dataset: "+name);
+            return null;
+        }
+        return asJson(name, progress);
+    }
+
+    @Override
+    protected JsonValue execPostItem(HttpAction action) {
+        String name = getItemDatasetName(action);
+        if ( name == null ) {
+            action.log.error("Null for dataset name in item request");
+            ServletOps.errorOccurred("Null for dataset name in item request");
+            return null;
+        }
+        DatasetGraph dsg = getItemDataset(action);
+        if ( dsg == null ) {
+            ServletOps.errorNotFound("No such dataset: "+name);
+            return null;
+        }
+        if ( ! DatabaseMgr.isTDB2(dsg) ) {
+            ServletOps.errorBadRequest("Not a TDB2 dataset: "+name);
+            return null;
+        }
+        CompactionProgress progress = new CompactionProgress();
+        synchronized(compactions) {
+            CompactionProgress current = compactions.get(name);
+            if ( current != null && ! current.isFinished() ) {
+                ServletOps.errorBadRequest("Compaction already in progress: "+name);
+                return null;
+            }
+            compactions.put(name, progress);
+        }
+        action.log.info(format("[%d] Compact dataset %s", action.id, name));
+        AsyncTask aTask = Async.execASyncTask(action, AsyncPool.get(), "Compact", new CompactTask(action, progress));
+        return Async.asJson(aTask);
+    }
+
+    private static JsonValue asJson(String name, CompactionProgress progress) {
+        JsonBuilder builder = new JsonBuilder();
+        builder.startObject("progress");
+        builder.key("dataset").value(name);
+        builder.key("phase").value(progress.getPhase().name());
+        builder.key("quadsCopied").value(progress.getQuadsCopied());
+        builder.key("changesApplied").value(progress.getChangesApplied());
+        builder.key("changesPending").value(progress.getChangesPending());
+        if ( progress.getFailure() != null )
+            builder.key("error").value(String.valueOf(progress.getFailure().getMessage()));
+        builder.finishObject("progress");
+        return builder.build();
+    }
+
+    static class CompactTask extends TaskBase {
+        static private Logger log = LoggerFactory.getLogger("Compact");
+        private final CompactionProgress progress;
+
+        public CompactTask(HttpAction action, CompactionProgress progress) {
+            super(action);
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            try {
+                log.info(format("[%d] >>>> Start compact %s", actionId, datasetName));
+                DatabaseMgr.compactOnline(dataset, progress);
+                log.info(format("[%d] <<<< Finish compact %s : %s", actionId, datasetName, progress));
+            } catch (Exception ex) {
+                log.info(format("[%d] **** Exception in compact", actionId), ex);
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.jena.sparql.engine.Plan ;
 import org.apache.jena.sparql.engine.QueryEngineFactory ;
 import org.apache.jena.sparql.engine.QueryEngineRegistry ;
 import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.QueryPlanCache ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.main.QueryEngineMain ;
 import org.apache.jena.sparql.mgt.Explain ;
@@ -50,7 +51,11 @@ public class QueryEngineTDB extends QueryEngineMain
 {
     // ---- Wiring
     static public QueryEngineFactory getFactory() { return factory ; } 
-    static public void register()       { QueryEngineRegistry.addFactory(factory) ; }
+    static public void register()
+    {
+        QueryEngineRegistry.addFactory(factory) ;
+        QueryPlanCache.addPlanSetting(TDB.symUnionDefaultGraph) ;
+    }
     static public void unregister()     { QueryEngineRegistry.removeFactory(factory) ; }
 
     // ---- Object